@@ -174,6 +174,15 @@ public class ApplicationEnvironment {
         return mode;
     }
 
+    /**
+     * The boot module index written into the uberjar at package time, if any.
+     *
+     * @return The index, if present.
+     */
+    public Optional<BootIndex> getBootIndex() {
+        return this.bootIndex;
+    }
+
     private boolean loadWildFlySwarmApplicationManifestFromClasspath() throws IOException {
         return loadWildFlySwarmApplicationManifest(ClassLoader.getSystemClassLoader());
     }
@@ -190,6 +199,7 @@ public class ApplicationEnvironment {
         this.applicationManifest = new WildFlySwarmManifest(url);
         this.bootstrapModules.addAll(this.applicationManifest.bootstrapModules());
         this.bootstrapArtifacts.addAll(this.applicationManifest.bootstrapArtifacts());
+        this.bootIndex = Optional.ofNullable(BootIndex.load(cl));
         return true;
     }
 
@@ -441,6 +451,8 @@ public class ApplicationEnvironment {
 
     private WildFlySwarmManifest applicationManifest;
 
+    private Optional<BootIndex> bootIndex = Optional.empty();
+
     private List<String> bootstrapModules = new ArrayList<>();
 
     private List<String> bootstrapArtifacts = new ArrayList<>();
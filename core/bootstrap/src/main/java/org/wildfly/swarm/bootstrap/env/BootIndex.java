@@ -0,0 +1,274 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.env;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ahead-of-time index of the boot module graph, written into the uberjar at package time.
+ *
+ * <p>Records, for every <code>module.xml</code> found in a bootstrap artifact (or in the uberjar
+ * itself), where it lives, whether its jar carries resources that require explosion, its resource
+ * roots and its module dependencies. Like the {@link WildFlySwarmManifest}, it lets boot skip work
+ * whose answer is already known when the uberjar is built.</p>
+ */
+public class BootIndex {
+
+    public static final String CLASSPATH_LOCATION = "META-INF/wildfly-swarm-boot-index.bin";
+
+    private static final int MAGIC = 0x53574249;
+
+    private static final int VERSION = 1;
+
+    private static final String DEFAULT_SLOT = "main";
+
+    private static final String DEFAULT_SLOT_SUFFIX = ":" + DEFAULT_SLOT;
+
+    public BootIndex() {
+
+    }
+
+    public BootIndex(InputStream in) throws IOException {
+        read(in);
+    }
+
+    /**
+     * Load the index from the classpath.
+     *
+     * @param cl The classloader to search.
+     * @return The index, or <code>null</code> if the uberjar was packaged without one.
+     * @throws IOException If the index exists but cannot be read.
+     */
+    public static BootIndex load(ClassLoader cl) throws IOException {
+        URL url = cl.getResource(CLASSPATH_LOCATION);
+        if (url == null) {
+            return null;
+        }
+        try (InputStream in = url.openStream()) {
+            return new BootIndex(in);
+        }
+    }
+
+    /**
+     * Normalize a module identifier to its <code>name:slot</code> form.
+     *
+     * @param identifier A module name, optionally with a slot.
+     * @return The identifier including its slot.
+     */
+    public static String normalize(String identifier) {
+        if (identifier.contains(":")) {
+            return identifier;
+        }
+        return identifier + DEFAULT_SLOT_SUFFIX;
+    }
+
+    public void addModule(Module module) {
+        this.modules.put(module.getIdentifier(), module);
+    }
+
+    public Module getModule(String identifier) {
+        return this.modules.get(normalize(identifier));
+    }
+
+    public Collection<Module> getModules() {
+        return Collections.unmodifiableCollection(this.modules.values());
+    }
+
+    /**
+     * All indexed modules reachable from the given roots through module dependencies.
+     *
+     * <p>Identifiers in the default slot are returned without it, the way a <code>ModuleLoader</code> requests them.</p>
+     *
+     * @param roots The module identifiers to start from.
+     * @return The reachable indexed modules, roots included.
+     */
+    public Set<String> reachableFrom(Collection<String> roots) {
+        Set<String> visited = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            Module module = getModule(pending.pop());
+            if (module != null && visited.add(module.getIdentifier())) {
+                pending.addAll(module.getDependencies());
+            }
+        }
+
+        Set<String> reachable = new LinkedHashSet<>();
+        for (String each : visited) {
+            reachable.add(each.endsWith(DEFAULT_SLOT_SUFFIX) ? each.substring(0, each.length() - DEFAULT_SLOT_SUFFIX.length()) : each);
+        }
+        return reachable;
+    }
+
+    public void read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a boot index");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported boot index version: " + version);
+        }
+
+        this.modules.clear();
+        int count = data.readInt();
+        for (int i = 0; i < count; ++i) {
+            String identifier = data.readUTF();
+            String source = data.readBoolean() ? data.readUTF() : null;
+            String path = data.readUTF();
+            boolean explosionRequired = data.readBoolean();
+            Module module = new Module(identifier, source, path, explosionRequired);
+            readStrings(data, module.resourceRoots);
+            readStrings(data, module.artifacts);
+            readStrings(data, module.dependencies);
+            addModule(module);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(this.modules.size());
+        for (Module each : this.modules.values()) {
+            data.writeUTF(each.identifier);
+            data.writeBoolean(each.source != null);
+            if (each.source != null) {
+                data.writeUTF(each.source);
+            }
+            data.writeUTF(each.path);
+            data.writeBoolean(each.explosionRequired);
+            writeStrings(data, each.resourceRoots);
+            writeStrings(data, each.artifacts);
+            writeStrings(data, each.dependencies);
+        }
+        data.flush();
+    }
+
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        return out.toByteArray();
+    }
+
+    private static void readStrings(DataInputStream data, List<String> into) throws IOException {
+        int count = data.readInt();
+        for (int i = 0; i < count; ++i) {
+            into.add(data.readUTF());
+        }
+    }
+
+    private static void writeStrings(DataOutputStream data, List<String> strings) throws IOException {
+        data.writeInt(strings.size());
+        for (String each : strings) {
+            data.writeUTF(each);
+        }
+    }
+
+    private final Map<String, Module> modules = new LinkedHashMap<>();
+
+    /**
+     * A single indexed module.
+     */
+    public static class Module {
+
+        /**
+         * @param identifier        The module identifier.
+         * @param source            The GAV of the bootstrap artifact holding the module, or <code>null</code> for the uberjar.
+         * @param path              The location of the <code>module.xml</code> within its source.
+         * @param explosionRequired Whether the source jar carries module resources which must be exploded.
+         */
+        public Module(String identifier, String source, String path, boolean explosionRequired) {
+            this.identifier = normalize(identifier);
+            this.source = source;
+            this.path = path;
+            this.explosionRequired = explosionRequired;
+        }
+
+        public String getIdentifier() {
+            return this.identifier;
+        }
+
+        public String getSource() {
+            return this.source;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public boolean isExplosionRequired() {
+            return this.explosionRequired;
+        }
+
+        public Module addResourceRoot(String path) {
+            this.resourceRoots.add(path);
+            return this;
+        }
+
+        public List<String> getResourceRoots() {
+            return this.resourceRoots;
+        }
+
+        public Module addArtifact(String gav) {
+            this.artifacts.add(gav);
+            return this;
+        }
+
+        public List<String> getArtifacts() {
+            return this.artifacts;
+        }
+
+        public Module addDependency(String identifier) {
+            this.dependencies.add(normalize(identifier));
+            return this;
+        }
+
+        public List<String> getDependencies() {
+            return this.dependencies;
+        }
+
+        private final String identifier;
+
+        private final String source;
+
+        private final String path;
+
+        private final boolean explosionRequired;
+
+        private final List<String> resourceRoots = new ArrayList<>();
+
+        private final List<String> artifacts = new ArrayList<>();
+
+        private final List<String> dependencies = new ArrayList<>();
+    }
+}
@@ -34,6 +34,7 @@ import org.jboss.modules.filter.PathFilters;
 import org.jboss.modules.maven.ArtifactCoordinates;
 import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
 import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.BootstrapUtil;
 import org.wildfly.swarm.bootstrap.util.JarFileManager;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
@@ -129,6 +130,18 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
             name = name.substring(0, dotLoc);
         }
 
+        if (BootstrapProperties.flagIsSet(BootstrapProperties.MAPPED_MODULES)) {
+            ResourceLoader mapped = MappedJarResourceLoader.forClasspathEntry(name + ext, path);
+            if (mapped instanceof MappedJarResourceLoader) {
+                builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(mapped));
+                if (".war".equalsIgnoreCase(ext)) {
+                    ResourceLoader warLoader = ((MappedJarResourceLoader) mapped).subdirectory(name + ext + "WEBINF", "WEB-INF/classes");
+                    builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(warLoader));
+                }
+                return;
+            }
+        }
+
         File tmp = TempFileManager.INSTANCE.newTempFile(name, ext);
 
         try (InputStream artifactIn = getClass().getClassLoader().getResourceAsStream(path)) {
@@ -175,6 +188,14 @@ public class ApplicationModuleFinder extends AbstractSingleModuleFinder {
                     } else if (parts.length == 5) {
                         coords = new ArtifactCoordinates(parts[0], parts[1], parts[4], parts[3]);
                     }
+                    if (BootstrapProperties.flagIsSet(BootstrapProperties.MAPPED_MODULES)) {
+                        String path = UberJarMavenResolver.artifactPath(coords, "jar");
+                        ResourceLoader mapped = MappedJarResourceLoader.forClasspathEntry(path.substring(path.lastIndexOf('/') + 1), path);
+                        if (mapped != null) {
+                            builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(mapped));
+                            return;
+                        }
+                    }
                     try {
                         File artifact = MavenResolvers.get().resolveJarArtifact(coords);
                         if (artifact == null) {
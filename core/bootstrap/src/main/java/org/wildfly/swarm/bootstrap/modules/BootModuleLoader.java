@@ -16,9 +16,16 @@
 package org.wildfly.swarm.bootstrap.modules;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 import org.jboss.modules.ModuleFinder;
 import org.jboss.modules.ModuleLoader;
+import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 
 /**
  * @author Bob McWhirter
@@ -26,13 +33,46 @@ import org.jboss.modules.ModuleLoader;
 public class BootModuleLoader extends ModuleLoader {
 
     public BootModuleLoader() throws IOException {
+        this(BootstrapProperties.flagIsSet(BootstrapProperties.PARALLEL_MODULES)
+                     ? new ParallelModuleFinder(new ClasspathModuleFinder())
+                     : new ClasspathModuleFinder());
+    }
+
+    private BootModuleLoader(ModuleFinder classpathModuleFinder) {
         super(new ModuleFinder[]{
                 new BootstrapClasspathModuleFinder(),
                 new BootstrapModuleFinder(),
-                new ClasspathModuleFinder(),
+                classpathModuleFinder,
                 new ContainerModuleFinder(),
                 new ApplicationModuleFinder(),
                 new DynamicModuleFinder(),
         });
+
+        if (classpathModuleFinder instanceof ParallelModuleFinder) {
+            ((ParallelModuleFinder) classpathModuleFinder).preload(rootModules(), this);
+        }
     }
+
+    /**
+     * The modules the container boots from, as recorded in the <code>WildFlySwarmManifest</code>.
+     *
+     * <p>When the uberjar carries a {@link BootIndex}, the whole reachable graph is known up front.</p>
+     */
+    private static Collection<String> rootModules() {
+        List<String> roots = new ArrayList<>();
+        roots.add("org.wildfly.swarm.container:api");
+        roots.add("org.wildfly.swarm.container:runtime");
+        for (String each : ApplicationEnvironment.get().bootstrapModules()) {
+            roots.add(each);
+            roots.add(each + ":" + RUNTIME_SLOT);
+        }
+
+        Optional<BootIndex> index = ApplicationEnvironment.get().getBootIndex();
+        if (index.isPresent()) {
+            return index.get().reachableFrom(roots);
+        }
+        return roots;
+    }
+
+    private static final String RUNTIME_SLOT = "runtime";
 }
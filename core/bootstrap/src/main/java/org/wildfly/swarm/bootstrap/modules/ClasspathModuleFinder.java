@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.Optional;
 
 import org.jboss.modules.ModuleFinder;
 import org.jboss.modules.ModuleLoadException;
@@ -26,8 +27,10 @@ import org.jboss.modules.ModuleLoader;
 import org.jboss.modules.ModuleSpec;
 import org.jboss.modules.xml.ModuleXmlParser;
 import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
 import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
 import org.wildfly.swarm.bootstrap.performance.Performance;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 
 /**
  * @author Bob McWhirter
@@ -55,6 +58,15 @@ public class ClasspathModuleFinder implements ModuleFinder {
                 LOG.trace("attempt:" + identifier);
             }
 
+            BootIndex.Module indexed = null;
+            Optional<BootIndex> index = ApplicationEnvironment.get().getBootIndex();
+            if (index.isPresent()) {
+                indexed = index.get().getModule(identifier);
+                if (indexed == null && LOG.isTraceEnabled()) {
+                    LOG.trace("not in boot index, falling back to classpath: " + identifier);
+                }
+            }
+
             try {
                 ClassLoader cl = ApplicationEnvironment.get().getBootstrapClassLoader();
                 if (LOG.isTraceEnabled()) {
@@ -81,9 +93,16 @@ public class ClasspathModuleFinder implements ModuleFinder {
                     LOG.trace("base of " + identifier + ": " + base);
                 }
 
+                if (indexed != null) {
+                    NestedJarResourceLoader.explosionRequired(base, indexed.isExplosionRequired());
+                }
+
                 InputStream in = url.openStream();
 
-                Path explodedJar = NestedJarResourceLoader.explodedJar(base);
+                Path explodedJar = null;
+                if (!BootstrapProperties.flagIsSet(BootstrapProperties.MAPPED_MODULES)) {
+                    explodedJar = NestedJarResourceLoader.explodedJar(base);
+                }
 
                 ModuleSpec moduleSpec = null;
                 try {
@@ -15,8 +15,8 @@
  */
 package org.wildfly.swarm.bootstrap.modules;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.modules.ModuleFinder;
 import org.jboss.modules.ModuleLoadException;
@@ -29,7 +29,7 @@ import org.jboss.modules.ModuleSpec;
  */
 public class DynamicModuleFinder implements ModuleFinder {
 
-    private static Map<String, FunctionalModuleFinder> FINDERS = new HashMap<>();
+    private static final Map<String, FunctionalModuleFinder> FINDERS = new ConcurrentHashMap<>();
 
     public static void register(String identifier, FunctionalModuleFinder finder) {
         FINDERS.put(identifier, finder);
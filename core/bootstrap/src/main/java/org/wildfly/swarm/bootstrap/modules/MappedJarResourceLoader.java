@@ -0,0 +1,456 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Manifest;
+
+import org.jboss.modules.AbstractResourceLoader;
+import org.jboss.modules.ClassSpec;
+import org.jboss.modules.PackageSpec;
+import org.jboss.modules.Resource;
+import org.jboss.modules.ResourceLoader;
+import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+
+/**
+ * A <code>ResourceLoader</code> which serves classes and resources straight out of the uberjar.
+ *
+ * <p>The uberjar is memory-mapped once and its central directory indexed. A nested jar which is
+ * STORED in the uberjar is read in place; DEFLATED entries within it are inflated lazily and kept
+ * in a soft cache. A directory of the uberjar (such as a module's directory) can be served the same
+ * way. Nothing is written to disk.</p>
+ *
+ * <p>DEFLATED nested jars are not mapped, since serving them would mean holding the whole inflated
+ * jar on the heap. Neither are roots which carry native libraries, as those must be loaded from a
+ * file. Both are left to the exploding {@link NestedJarResourceLoader}.</p>
+ */
+public class MappedJarResourceLoader extends AbstractResourceLoader {
+
+    private static final String JAR_FILE_PREFIX = "jar:file:";
+
+    private static final String JAR_SEPARATOR = "!/";
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private MappedJarResourceLoader(String rootName, String rootSpec, ZipIndex index, String prefix) throws MalformedURLException {
+        this.rootName = rootName;
+        this.rootSpec = rootSpec;
+        this.index = index;
+        this.prefix = prefix;
+        this.handler = new Handler();
+        this.rootUrl = new URL("jar", null, -1, rootSpec, this.handler);
+        this.codeSource = new CodeSource(this.rootUrl, (CodeSigner[]) null);
+    }
+
+    /**
+     * Create a loader for a resource-root of a module whose <code>module.xml</code> lives in the uberjar.
+     *
+     * @param rootName   The name of the resource root.
+     * @param base       The <code>jar:file:</code> URL of the module directory.
+     * @param loaderPath The resource-root path, relative to the module directory.
+     * @return The loader, or <code>null</code> if the root cannot be served from the uberjar.
+     */
+    public static ResourceLoader forModuleRoot(String rootName, URL base, String loaderPath) {
+        String[] location = splitJarUrl(base);
+        if (location == null) {
+            return null;
+        }
+
+        String path = loaderPath;
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (path.equals(".")) {
+            path = "";
+        }
+
+        return create(rootName, new File(location[0]), location[1] + path);
+    }
+
+    /**
+     * Create a loader for an entry of the uberjar found on the classpath.
+     *
+     * @param rootName The name of the resource root.
+     * @param path     The classpath location of a nested jar (or a directory) within the uberjar.
+     * @return The loader, or <code>null</code> if the entry cannot be served from the uberjar.
+     */
+    public static ResourceLoader forClasspathEntry(String rootName, String path) {
+        URL url = MappedJarResourceLoader.class.getClassLoader().getResource(path);
+        if (url == null) {
+            return null;
+        }
+        String[] location = splitJarUrl(url);
+        if (location == null) {
+            return null;
+        }
+        return create(rootName, new File(location[0]), location[1]);
+    }
+
+    static ResourceLoader create(String rootName, File outer, String path) {
+        try {
+            ZipIndex outerIndex = indexOf(outer);
+            String outerSpec = "file:" + outer.getAbsolutePath() + JAR_SEPARATOR;
+
+            if (path.endsWith(".jar") || path.endsWith(".war")) {
+                ZipIndex.Entry nested = outerIndex.get(path);
+                if (nested != null && !nested.isDirectory()) {
+                    if (nested.method != ZipIndex.STORED) {
+                        return notMapped(outer, path, "it is deflated");
+                    }
+                    ZipIndex nestedIndex = ZipIndex.of(outerIndex.contents(nested));
+                    if (hasNativeLibraries(nestedIndex, "")) {
+                        return notMapped(outer, path, NATIVE_LIBRARIES);
+                    }
+                    return new MappedJarResourceLoader(rootName, outerSpec + path + JAR_SEPARATOR, nestedIndex, "");
+                }
+            }
+
+            String directory = (path.isEmpty() || path.endsWith("/")) ? path : path + "/";
+            for (ZipIndex.Entry each : outerIndex.entries()) {
+                if (each.name.startsWith(directory)) {
+                    if (hasNativeLibraries(outerIndex, directory)) {
+                        return notMapped(outer, directory, NATIVE_LIBRARIES);
+                    }
+                    return new MappedJarResourceLoader(rootName, outerSpec + directory, outerIndex, directory);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("unable to map " + path + " of " + outer + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static ResourceLoader notMapped(File outer, String path, String reason) {
+        LOG.debug("not mapping " + path + " of " + outer + ": " + reason);
+        return null;
+    }
+
+    private static boolean hasNativeLibraries(ZipIndex index, String prefix) {
+        for (ZipIndex.Entry each : index.entries()) {
+            if (each.isDirectory() || !each.name.startsWith(prefix)) {
+                continue;
+            }
+            for (String suffix : NATIVE_LIBRARY_SUFFIXES) {
+                if (each.name.endsWith(suffix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Narrow this loader to a sub-directory, such as <code>WEB-INF/classes</code> of a war.
+     */
+    ResourceLoader subdirectory(String rootName, String directory) throws MalformedURLException {
+        String dir = directory.endsWith("/") ? directory : directory + "/";
+        return new MappedJarResourceLoader(rootName, this.rootSpec + dir, this.index, this.prefix + dir);
+    }
+
+    static String[] splitJarUrl(URL url) {
+        String urlString = url.toExternalForm();
+        if (!urlString.startsWith(JAR_FILE_PREFIX)) {
+            return null;
+        }
+        int sep = urlString.indexOf(JAR_SEPARATOR);
+        if (sep < 0) {
+            return null;
+        }
+        try {
+            String jarPath = URLDecoder.decode(urlString.substring(JAR_FILE_PREFIX.length(), sep), StandardCharsets.UTF_8.name());
+            String entry = urlString.substring(sep + JAR_SEPARATOR.length());
+            if (entry.contains(JAR_SEPARATOR)) {
+                // already nested more than one level deep
+                return null;
+            }
+            return new String[]{jarPath, entry};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ZipIndex indexOf(File outer) throws IOException {
+        File key = outer.getAbsoluteFile();
+        ZipIndex index = INDEXES.get(key);
+        if (index == null) {
+            synchronized (INDEXES) {
+                index = INDEXES.get(key);
+                if (index == null) {
+                    index = ZipIndex.map(key);
+                    INDEXES.put(key, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public String getRootName() {
+        return this.rootName;
+    }
+
+    @Override
+    public ClassSpec getClassSpec(String fileName) throws IOException {
+        ZipIndex.Entry entry = entry(fileName);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer contents = contents(entry);
+        byte[] bytes = new byte[contents.remaining()];
+        contents.get(bytes);
+
+        ClassSpec spec = new ClassSpec();
+        spec.setBytes(bytes);
+        spec.setCodeSource(this.codeSource);
+        return spec;
+    }
+
+    @Override
+    public PackageSpec getPackageSpec(String name) throws IOException {
+        return getPackageSpec(name, manifest(), this.rootUrl);
+    }
+
+    @Override
+    public Resource getResource(String name) {
+        ZipIndex.Entry entry = entry(name);
+        if (entry == null) {
+            return null;
+        }
+        return new MappedResource(entry);
+    }
+
+    @Override
+    public String getLibrary(String name) {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getPaths() {
+        Collection<String> paths = this.paths;
+        if (paths == null) {
+            Set<String> result = new LinkedHashSet<>();
+            for (ZipIndex.Entry each : this.index.entries()) {
+                if (!each.name.startsWith(this.prefix)) {
+                    continue;
+                }
+                String relative = each.name.substring(this.prefix.length());
+                int slashLoc = relative.lastIndexOf('/');
+                result.add(slashLoc < 0 ? "" : relative.substring(0, slashLoc));
+            }
+            paths = Collections.unmodifiableSet(result);
+            this.paths = paths;
+        }
+        return paths;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + this.rootSpec + "]";
+    }
+
+    private ZipIndex.Entry entry(String name) {
+        String path = name;
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        ZipIndex.Entry entry = this.index.get(this.prefix + path);
+        if (entry == null || entry.isDirectory()) {
+            return null;
+        }
+        return entry;
+    }
+
+    private ByteBuffer contents(ZipIndex.Entry entry) throws IOException {
+        if (entry.method == ZipIndex.STORED) {
+            return this.index.contents(entry);
+        }
+        SoftReference<byte[]> ref = this.inflated.get(entry.name);
+        byte[] bytes = (ref == null ? null : ref.get());
+        if (bytes == null) {
+            bytes = this.index.contents(entry).array();
+            this.inflated.put(entry.name, new SoftReference<>(bytes));
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private Manifest manifest() throws IOException {
+        if (this.manifest == null) {
+            ZipIndex.Entry entry = entry(MANIFEST);
+            Manifest manifest = null;
+            if (entry != null) {
+                try (InputStream in = new ByteBufferInputStream(contents(entry))) {
+                    manifest = new Manifest(in);
+                }
+            }
+            this.manifest = new SoftReference<>(manifest);
+        }
+        return this.manifest.get();
+    }
+
+    private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.modules.mapped");
+
+    private static final String NATIVE_LIBRARIES = "it carries native libraries";
+
+    private static final String[] NATIVE_LIBRARY_SUFFIXES = {".so", ".dll", ".dylib", ".jnilib"};
+
+    private static final Map<File, ZipIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final String rootName;
+
+    private final String rootSpec;
+
+    private final ZipIndex index;
+
+    private final String prefix;
+
+    private final URLStreamHandler handler;
+
+    private final URL rootUrl;
+
+    private final CodeSource codeSource;
+
+    private final Map<String, SoftReference<byte[]>> inflated = new ConcurrentHashMap<>();
+
+    private volatile Collection<String> paths;
+
+    private volatile SoftReference<Manifest> manifest;
+
+    private class MappedResource implements Resource {
+
+        MappedResource(ZipIndex.Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public String getName() {
+            return this.entry.name.substring(prefix.length());
+        }
+
+        @Override
+        public URL getURL() {
+            try {
+                return new URL("jar", null, -1, rootSpec + getName(), handler);
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return new ByteBufferInputStream(contents(this.entry));
+        }
+
+        @Override
+        public long getSize() {
+            return this.entry.size;
+        }
+
+        private final ZipIndex.Entry entry;
+    }
+
+    private class Handler extends URLStreamHandler {
+
+        @Override
+        protected URLConnection openConnection(URL u) throws IOException {
+            String spec = u.getFile();
+            if (!spec.startsWith(rootSpec)) {
+                throw new IOException("Not served by " + MappedJarResourceLoader.this + ": " + u);
+            }
+            ZipIndex.Entry entry = entry(spec.substring(rootSpec.length()));
+            if (entry == null) {
+                throw new IOException("No such entry: " + u);
+            }
+            return new URLConnection(u) {
+                @Override
+                public void connect() {
+                    this.connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    return new ByteBufferInputStream(contents(entry));
+                }
+
+                @Override
+                public long getContentLengthLong() {
+                    return entry.size;
+                }
+
+                @Override
+                public int getContentLength() {
+                    return entry.size > Integer.MAX_VALUE ? -1 : (int) entry.size;
+                }
+            };
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.min(Math.max(n, 0), this.buffer.remaining());
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+        private final ByteBuffer buffer;
+    }
+}
@@ -18,8 +18,8 @@ package org.wildfly.swarm.bootstrap.modules;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jboss.modules.maven.ArtifactCoordinates;
 import org.jboss.modules.maven.MavenResolver;
@@ -65,5 +65,5 @@ public class MultiMavenResolver implements MavenResolver, Closeable {
         }
     }
 
-    private List<MavenResolver> resolvers = new ArrayList<>();
+    private final List<MavenResolver> resolvers = new CopyOnWriteArrayList<>();
 }
@@ -25,10 +25,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -36,7 +34,9 @@ import org.jboss.modules.AbstractResourceLoader;
 import org.jboss.modules.ResourceLoader;
 import org.jboss.modules.ResourceLoaders;
 import org.wildfly.swarm.bootstrap.performance.Performance;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.BootstrapUtil;
+import org.wildfly.swarm.bootstrap.util.ExplodedJarCache;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
 
 /**
@@ -49,7 +49,7 @@ public class NestedJarResourceLoader {
     private NestedJarResourceLoader() {
     }
 
-    public static synchronized boolean requiresExplosion(URL base) throws IOException {
+    public static boolean requiresExplosion(URL base) throws IOException {
         try (AutoCloseable locateHandle = Performance.accumulate("Is explosion needed?")) {
             String urlString = base.toExternalForm();
             if (urlString.startsWith("jar:file:")) {
@@ -63,21 +63,18 @@ public class NestedJarResourceLoader {
                     if (exp != null) {
                         return true;
                     }
-                    if (explosionNotRequired.contains(jarPath)) {
-                        return false;
+                    Boolean required = explosionRequired.get(jarPath);
+                    if (required != null) {
+                        return required;
                     }
-                    try (JarFile jarFile = new JarFile(jarPath)) {
-                        Enumeration<JarEntry> entries = jarFile.entries();
-                        while (entries.hasMoreElements()) {
-                            JarEntry each = entries.nextElement();
-                            if (!each.isDirectory()) {
-                                if (each.getName().startsWith("modules") && !each.getName().endsWith("/module.xml")) {
-                                    return true;
-                                }
-                            }
+                    synchronized (lockFor(jarPath)) {
+                        required = explosionRequired.get(jarPath);
+                        if (required == null) {
+                            required = scanForExplosion(jarPath);
+                            explosionRequired.put(jarPath, required);
                         }
                     }
-                    explosionNotRequired.add(jarPath);
+                    return required;
                 }
             }
         } catch (Exception e) {
@@ -87,7 +84,43 @@ public class NestedJarResourceLoader {
         return false;
     }
 
-    public static synchronized Path explodedJar(URL base) throws IOException {
+    /**
+     * Record whether the jar behind a module base URL requires explosion, as known ahead of time.
+     *
+     * @param base     The module base URL.
+     * @param required Whether explosion is required.
+     */
+    public static void explosionRequired(URL base, boolean required) {
+        String urlString = base.toExternalForm();
+        if (urlString.startsWith("jar:file:")) {
+            int endLoc = urlString.indexOf(JAR_SUFFIX);
+            if (endLoc > 0) {
+                try {
+                    String jarPath = URLDecoder.decode(urlString.substring(9, endLoc + 4), StandardCharsets.UTF_8.name());
+                    explosionRequired.putIfAbsent(jarPath, required);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private static boolean scanForExplosion(String jarPath) throws IOException {
+        try (JarFile jarFile = new JarFile(jarPath)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                if (!each.isDirectory()) {
+                    if (each.getName().startsWith("modules") && !each.getName().endsWith("/module.xml")) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public static Path explodedJar(URL base) throws IOException {
         if (!requiresExplosion(base)) {
             return null;
         }
@@ -102,23 +135,7 @@ public class NestedJarResourceLoader {
 
                     File exp = exploded.get(jarPath);
                     if (exp == null) {
-                        try (AutoCloseable explodingHandle = Performance.accumulate("Exploding JAR")) {
-                            exp = TempFileManager.INSTANCE.newTempDirectory("module-jar", ".jar_d");
-                            try (JarFile jarFile = new JarFile(jarPath)) {
-                                Enumeration<JarEntry> entries = jarFile.entries();
-                                while (entries.hasMoreElements()) {
-                                    JarEntry each = entries.nextElement();
-                                    if (!each.isDirectory()) {
-                                        File out = new File(exp, each.getName());
-                                        out.getParentFile().mkdirs();
-                                        InputStream in = jarFile.getInputStream(each);
-                                        Files.copy(in, out.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                                        in.close();
-                                    }
-                                }
-                            }
-                            exploded.put(jarPath, exp);
-                        }
+                        exp = explode(jarPath);
                     }
 
                     String remainder = urlString.substring(endLoc + JAR_SUFFIX.length());
@@ -136,7 +153,51 @@ public class NestedJarResourceLoader {
         }
     }
 
+    private static File explode(String jarPath) throws Exception {
+        synchronized (lockFor(jarPath)) {
+            File exp = exploded.get(jarPath);
+            if (exp != null) {
+                return exp;
+            }
+            if (ExplodedJarCache.INSTANCE.isEnabled()) {
+                try (AutoCloseable cacheHandle = Performance.accumulate("Exploded JAR cache")) {
+                    exp = ExplodedJarCache.INSTANCE.explode(new File(jarPath));
+                }
+            } else {
+                try (AutoCloseable explodingHandle = Performance.accumulate("Exploding JAR")) {
+                    exp = TempFileManager.INSTANCE.newTempDirectory("module-jar", ".jar_d");
+                    try (JarFile jarFile = new JarFile(jarPath)) {
+                        Enumeration<JarEntry> entries = jarFile.entries();
+                        while (entries.hasMoreElements()) {
+                            JarEntry each = entries.nextElement();
+                            if (!each.isDirectory()) {
+                                File out = new File(exp, each.getName());
+                                out.getParentFile().mkdirs();
+                                InputStream in = jarFile.getInputStream(each);
+                                Files.copy(in, out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                                in.close();
+                            }
+                        }
+                    }
+                }
+            }
+            exploded.put(jarPath, exp);
+            return exp;
+        }
+    }
+
+    private static Object lockFor(String jarPath) {
+        return locks.computeIfAbsent(jarPath, (k) -> new Object());
+    }
+
     public static ResourceLoader loaderFor(URL base, String rootPath, String loaderPath, String loaderName) throws IOException {
+        if (BootstrapProperties.flagIsSet(BootstrapProperties.MAPPED_MODULES)) {
+            ResourceLoader mapped = MappedJarResourceLoader.forModuleRoot(loaderName, base, loaderPath);
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+
         Path exp = explodedJar(base);
 
         String urlString = base.toExternalForm();
@@ -147,6 +208,12 @@ public class NestedJarResourceLoader {
                 Path resourceRoot = exp.resolve(loaderPath);
                 if (!Files.isDirectory(resourceRoot) && (resourceRoot.getFileName().toString().endsWith(".jar") || resourceRoot.getFileName().toString().endsWith(".war"))) {
                     final File file = resourceRoot.toFile();
+
+                    File cached = ExplodedJarCache.INSTANCE.explodedNestedJar(file);
+                    if (cached != null) {
+                        return ResourceLoaders.createFileResourceLoader(loaderName, cached);
+                    }
+
                     final JarFile jarFile = new JarFile(file);
 
                     File tmpDir = TempFileManager.INSTANCE.newTempDirectory("nestedjarloader", null);
@@ -186,8 +253,10 @@ public class NestedJarResourceLoader {
         throw new IllegalArgumentException("Illegal module loader base: " + base + " // " + loaderPath + " // " + loaderName);
     }
 
-    private static Map<String, File> exploded = new HashMap<>();
+    private static final Map<String, File> exploded = new ConcurrentHashMap<>();
+
+    private static final Map<String, Boolean> explosionRequired = new ConcurrentHashMap<>();
 
-    private static Set<String> explosionNotRequired = new HashSet<>();
+    private static final Map<String, Object> locks = new ConcurrentHashMap<>();
 
 }
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.jboss.modules.ConcreteModuleSpec;
+import org.jboss.modules.DependencySpec;
+import org.jboss.modules.ModuleDependencySpec;
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.ModuleSpec;
+import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+
+/**
+ * A <code>ModuleFinder</code> which resolves the module graph ahead of the <code>ModuleLoader</code>.
+ *
+ * <p>Starting from a set of root modules, the delegate finder is invoked for every module reachable
+ * through module dependencies on a fork-join pool, so that exploding jars and parsing <code>module.xml</code>
+ * descriptors is spread over all cores. Requests for a module still being resolved wait for that work;
+ * anything not preloaded (or which failed to preload) is found through the delegate as usual.</p>
+ */
+public class ParallelModuleFinder implements ModuleFinder {
+
+    public ParallelModuleFinder(ModuleFinder delegate) {
+        this(delegate, new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    ParallelModuleFinder(ModuleFinder delegate, ForkJoinPool pool) {
+        this.delegate = delegate;
+        this.pool = pool;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[" + this.delegate + "]";
+    }
+
+    /**
+     * Begin resolving the given modules and, transitively, their module dependencies.
+     *
+     * @param roots          The module identifiers to start from.
+     * @param delegateLoader The loader to associate with the resulting specs.
+     */
+    public void preload(Collection<String> roots, ModuleLoader delegateLoader) {
+        for (String each : roots) {
+            submit(each, delegateLoader);
+        }
+    }
+
+    @Override
+    public ModuleSpec findModule(String identifier, ModuleLoader delegateLoader) throws ModuleLoadException {
+        ForkJoinTask<ModuleSpec> task = this.tasks.get(identifier);
+        if (task != null) {
+            try {
+                ModuleSpec spec = task.get();
+                if (spec == null || spec.getName().equals(identifier)) {
+                    return spec;
+                }
+            } catch (ExecutionException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("preloading " + identifier + " failed, retrying: " + e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModuleLoadException(e);
+            }
+        }
+        return this.delegate.findModule(identifier, delegateLoader);
+    }
+
+    private void submit(String identifier, ModuleLoader delegateLoader) {
+        if (this.tasks.containsKey(identifier)) {
+            return;
+        }
+        ForkJoinTask<ModuleSpec> task = ForkJoinTask.adapt(() -> resolve(identifier, delegateLoader));
+        if (this.tasks.putIfAbsent(identifier, task) == null) {
+            this.pool.execute(task);
+        }
+    }
+
+    private ModuleSpec resolve(String identifier, ModuleLoader delegateLoader) throws ModuleLoadException {
+        ModuleSpec spec = this.delegate.findModule(identifier, delegateLoader);
+        if (spec instanceof ConcreteModuleSpec) {
+            for (DependencySpec each : ((ConcreteModuleSpec) spec).getDependencies()) {
+                if (each instanceof ModuleDependencySpec) {
+                    submit(((ModuleDependencySpec) each).getName(), delegateLoader);
+                }
+            }
+        }
+        return spec;
+    }
+
+    private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.modules.parallel");
+
+    private final ModuleFinder delegate;
+
+    private final ForkJoinPool pool;
+
+    private final Map<String, ForkJoinTask<ModuleSpec>> tasks = new ConcurrentHashMap<>();
+}
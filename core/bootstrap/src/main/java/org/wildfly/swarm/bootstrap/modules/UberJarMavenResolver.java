@@ -44,6 +44,8 @@ public class UberJarMavenResolver implements MavenResolver, Closeable {
 
     private Map<ArtifactCoordinates, File> resolutionCache = new ConcurrentHashMap<>();
 
+    private final Map<ArtifactCoordinates, Object> locks = new ConcurrentHashMap<>();
+
     public static File copyTempJar(String artifactId, InputStream in, String packaging) throws IOException {
         File tmp = TempFileManager.INSTANCE.newTempFile(artifactId, DOT + packaging);
         Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
@@ -55,23 +57,23 @@ public class UberJarMavenResolver implements MavenResolver, Closeable {
 
         File resolved = this.resolutionCache.get(coordinates);
         if (resolved == null) {
-
-            String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getVersion());
-            String classifier = "";
-            if (coordinates.getClassifier() != null && !coordinates.getClassifier().trim().isEmpty()) {
-                classifier = HYPHEN + coordinates.getClassifier();
-            }
-
-            String jarPath = artifactRelativePath + classifier + DOT + packaging;
-
-            InputStream stream = UberJarMavenResolver.class.getClassLoader().getResourceAsStream(jarPath);
-
-            if (stream != null) {
-                try {
-                    resolved = copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
-                    this.resolutionCache.put(coordinates, resolved);
-                } finally {
-                    stream.close();
+            // striped on coordinates so concurrent module resolution copies each artifact once
+            synchronized (this.locks.computeIfAbsent(coordinates, (c) -> new Object())) {
+                resolved = this.resolutionCache.get(coordinates);
+                if (resolved == null) {
+
+                    String jarPath = artifactPath(coordinates, packaging);
+
+                    InputStream stream = UberJarMavenResolver.class.getClassLoader().getResourceAsStream(jarPath);
+
+                    if (stream != null) {
+                        try {
+                            resolved = copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
+                            this.resolutionCache.put(coordinates, resolved);
+                        } finally {
+                            stream.close();
+                        }
+                    }
                 }
             }
         }
@@ -86,6 +88,16 @@ public class UberJarMavenResolver implements MavenResolver, Closeable {
         });
     }
 
+    static String artifactPath(ArtifactCoordinates coordinates, String packaging) {
+        String artifactRelativePath = "m2repo/" + relativeArtifactPath('/', coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getVersion());
+        String classifier = "";
+        if (coordinates.getClassifier() != null && !coordinates.getClassifier().trim().isEmpty()) {
+            classifier = HYPHEN + coordinates.getClassifier();
+        }
+
+        return artifactRelativePath + classifier + DOT + packaging;
+    }
+
     static String relativeArtifactPath(char separator, String groupId, String artifactId, String version) {
         StringBuilder builder = new StringBuilder(groupId.replace('.', separator));
         builder.append(separator).append(artifactId).append(separator);
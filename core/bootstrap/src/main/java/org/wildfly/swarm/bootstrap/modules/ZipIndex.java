@@ -0,0 +1,245 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only index of the central directory of a zip archive held in a {@link ByteBuffer}.
+ *
+ * <p>The buffer is either a memory-mapping of a file on disk or a slice of an enclosing
+ * archive, which allows entries of a nested jar to be read without extracting it.
+ * ZIP64 archives are not supported.</p>
+ */
+final class ZipIndex {
+
+    static final int STORED = 0;
+
+    static final int DEFLATED = 8;
+
+    private static final int EOCD_SIG = 0x06054b50;
+
+    private static final int CEN_SIG = 0x02014b50;
+
+    private static final int LOC_SIG = 0x04034b50;
+
+    private static final int EOCD_SIZE = 22;
+
+    private static final int CEN_SIZE = 46;
+
+    private static final int LOC_SIZE = 30;
+
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private ZipIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.entries = Collections.unmodifiableMap(readCentralDirectory());
+    }
+
+    static ZipIndex of(ByteBuffer buffer) throws IOException {
+        return new ZipIndex(buffer.slice());
+    }
+
+    static ZipIndex map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive too large to map: " + file);
+            }
+            // the mapping remains valid after the channel is closed
+            return new ZipIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    Entry get(String name) {
+        return this.entries.get(name);
+    }
+
+    Collection<Entry> entries() {
+        return this.entries.values();
+    }
+
+    /**
+     * The raw (possibly compressed) bytes of an entry, without copying.
+     */
+    ByteBuffer raw(Entry entry) throws IOException {
+        int start = entry.dataOffset(this.buffer);
+        ByteBuffer raw = this.buffer.duplicate();
+        raw.position(start);
+        raw.limit(start + (int) entry.compressedSize);
+        return raw.slice();
+    }
+
+    /**
+     * The uncompressed bytes of an entry.
+     *
+     * <p>For {@link #STORED} entries this is a view of the underlying buffer, for
+     * {@link #DEFLATED} entries it wraps a freshly inflated array.</p>
+     */
+    ByteBuffer contents(Entry entry) throws IOException {
+        ByteBuffer raw = raw(entry);
+        if (entry.method == STORED) {
+            return raw;
+        }
+        if (entry.method != DEFLATED) {
+            throw new IOException("Unsupported compression method " + entry.method + " for " + entry.name);
+        }
+
+        byte[] compressed = new byte[raw.remaining()];
+        raw.get(compressed);
+        byte[] inflated = new byte[(int) entry.size];
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int len = 0;
+            while (len < inflated.length) {
+                int n = inflater.inflate(inflated, len, inflated.length - len);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                len += n;
+            }
+            if (len != inflated.length) {
+                throw new IOException("Truncated entry " + entry.name);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt entry " + entry.name, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(inflated);
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        int limit = this.buffer.limit();
+        int eocd = -1;
+        for (int i = limit - EOCD_SIZE; i >= Math.max(0, limit - EOCD_SIZE - MAX_COMMENT); --i) {
+            if (this.buffer.getInt(i) == EOCD_SIG) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("Not a zip archive");
+        }
+
+        int total = u16(eocd + 10);
+        long cenSize = u32(eocd + 12);
+        long cenOffset = u32(eocd + 16);
+        if (total == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+            throw new IOException("ZIP64 archives are not supported");
+        }
+
+        // tolerate data prepended to the archive (e.g. a launcher script)
+        long base = eocd - cenSize - cenOffset;
+        if (base < 0) {
+            throw new IOException("Invalid central directory offset");
+        }
+
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        int pos = (int) (base + cenOffset);
+        for (int i = 0; i < total; ++i) {
+            if (this.buffer.getInt(pos) != CEN_SIG) {
+                throw new IOException("Invalid central directory header");
+            }
+            int method = u16(pos + 10);
+            long compressedSize = u32(pos + 20);
+            long size = u32(pos + 24);
+            int nameLen = u16(pos + 28);
+            int extraLen = u16(pos + 30);
+            int commentLen = u16(pos + 32);
+            long localOffset = u32(pos + 42);
+
+            byte[] name = new byte[nameLen];
+            ByteBuffer nameBuf = this.buffer.duplicate();
+            nameBuf.position(pos + CEN_SIZE);
+            nameBuf.get(name);
+
+            Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), method, compressedSize, size, (int) (base + localOffset));
+            entries.put(entry.name, entry);
+
+            pos += CEN_SIZE + nameLen + extraLen + commentLen;
+        }
+        return entries;
+    }
+
+    private int u16(int pos) {
+        return this.buffer.getShort(pos) & 0xFFFF;
+    }
+
+    private long u32(int pos) {
+        return this.buffer.getInt(pos) & 0xFFFFFFFFL;
+    }
+
+    private final ByteBuffer buffer;
+
+    private final Map<String, Entry> entries;
+
+    static final class Entry {
+
+        Entry(String name, int method, long compressedSize, long size, int localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        private int dataOffset(ByteBuffer buffer) throws IOException {
+            int offset = this.dataOffset;
+            if (offset < 0) {
+                // the local header's extra field may differ from the central directory's
+                if (buffer.getInt(this.localHeaderOffset) != LOC_SIG) {
+                    throw new IOException("Invalid local header for " + this.name);
+                }
+                int nameLen = buffer.getShort(this.localHeaderOffset + 26) & 0xFFFF;
+                int extraLen = buffer.getShort(this.localHeaderOffset + 28) & 0xFFFF;
+                offset = this.localHeaderOffset + LOC_SIZE + nameLen + extraLen;
+                this.dataOffset = offset;
+            }
+            return offset;
+        }
+
+        final String name;
+
+        final int method;
+
+        final long compressedSize;
+
+        final long size;
+
+        private final int localHeaderOffset;
+
+        private volatile int dataOffset = -1;
+    }
+}
@@ -29,6 +29,10 @@ public class BootstrapProperties {
 
     public static final String IS_UBERJAR = "swarm.isuberjar";
 
+    public static final String MAPPED_MODULES = "swarm.modules.mapped";
+
+    public static final String PARALLEL_MODULES = "swarm.modules.parallel";
+
     private BootstrapProperties() {
     }
 
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.wildfly.swarm.bootstrap.logging.BootstrapLogger;
+
+/**
+ * Persistent, content-addressed cache of exploded jars.
+ *
+ * <p>Disabled unless <code>swarm.modules.cache.dir</code> is set. Each cache entry is
+ * keyed by a digest of the name, CRC and size of every entry in the source jar, so an
+ * unchanged uberjar is exploded once and reused across restarts. Nested <code>.jar</code>
+ * and <code>.war</code> files below <code>modules/</code> are exploded alongside themselves
+ * (see {@link #explodedNestedJar(File)}).</p>
+ *
+ * <p>Population happens under an exclusive file lock and is published by an atomic rename,
+ * so concurrent processes never observe a partial tree. A process using an entry holds a
+ * shared lock on it until {@link #close()}; eviction only removes least-recently-used entries
+ * whose exclusive lock can be acquired.</p>
+ */
+public class ExplodedJarCache {
+
+    public static final String CACHE_DIR_PROPERTY = "swarm.modules.cache.dir";
+
+    public static final String MAX_ENTRIES_PROPERTY = "swarm.modules.cache.max-entries";
+
+    public static final int DEFAULT_MAX_ENTRIES = 3;
+
+    public static final String NESTED_SUFFIX = "_d";
+
+    public static final ExplodedJarCache INSTANCE = new ExplodedJarCache();
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String COMPLETE_MARKER = ".complete";
+
+    private ExplodedJarCache() {
+        this(cacheDirFromProperties(), Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES));
+    }
+
+    ExplodedJarCache(File cacheDir, int maxEntries) {
+        this.cacheDir = cacheDir;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    private static File cacheDirFromProperties() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        return new File(dir);
+    }
+
+    public boolean isEnabled() {
+        return this.cacheDir != null;
+    }
+
+    /**
+     * Locate (or populate) the cached exploded tree of the given jar.
+     *
+     * @param jar The jar to explode.
+     * @return The root directory of the cached tree.
+     * @throws IOException If the cache cannot be read or populated.
+     */
+    public File explode(File jar) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Exploded jar cache is not enabled");
+        }
+
+        String key = keyOf(jar);
+
+        File entry = this.inUse.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        synchronized (this) {
+            entry = this.inUse.get(key);
+            if (entry != null) {
+                return entry;
+            }
+
+            Files.createDirectories(this.cacheDir.toPath());
+            entry = new File(this.cacheDir, key);
+
+            while (true) {
+                try (FileChannel channel = openLock(key); FileLock ignored = channel.lock()) {
+                    if (!isComplete(entry)) {
+                        LOG.debug("populating module cache " + entry + " from " + jar);
+                        populate(jar, entry);
+                    }
+                    // mark as most-recently-used before anyone else can evict it
+                    entry.setLastModified(System.currentTimeMillis());
+                }
+
+                FileChannel channel = openLock(key);
+                FileLock shared = channel.lock(0, Long.MAX_VALUE, true);
+                if (isComplete(entry)) {
+                    this.locks.add(shared);
+                    break;
+                }
+                // evicted by another process between our two locks; try again
+                shared.release();
+                channel.close();
+            }
+
+            this.inUse.put(key, entry);
+        }
+
+        evict();
+        return entry;
+    }
+
+    /**
+     * Locate the pre-exploded directory of a nested jar inside a cached tree.
+     *
+     * @param nestedJar A <code>.jar</code> or <code>.war</code> file within a tree returned by {@link #explode(File)}.
+     * @return The exploded directory, or <code>null</code> if the nested jar was not pre-exploded.
+     */
+    public File explodedNestedJar(File nestedJar) {
+        if (!isEnabled()) {
+            return null;
+        }
+        File exploded = new File(nestedJar.getParentFile(), nestedJar.getName() + NESTED_SUFFIX);
+        if (exploded.isDirectory() && exploded.toPath().toAbsolutePath().startsWith(this.cacheDir.toPath().toAbsolutePath())) {
+            return exploded;
+        }
+        return null;
+    }
+
+    /**
+     * Release the shared locks held on cache entries used by this process.
+     *
+     * <p>The cached trees themselves are retained for subsequent runs.</p>
+     */
+    public synchronized void close() {
+        for (FileLock lock : this.locks) {
+            try {
+                lock.release();
+                lock.channel().close();
+            } catch (IOException e) {
+                LOG.debug("unable to release module cache lock: " + e.getMessage());
+            }
+        }
+        this.locks.clear();
+        this.inUse.clear();
+    }
+
+    static String keyOf(File jar) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        // central-directory metadata only; nothing is decompressed
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                String metadata = each.getName() + '\0' + each.getCrc() + '\0' + each.getSize() + '\0';
+                digest.update(metadata.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    private void populate(File jar, File entry) throws IOException {
+        File tmp = new File(this.cacheDir, entry.getName() + TMP_SUFFIX);
+        TempFileManager.deleteRecursively(tmp);
+        TempFileManager.deleteRecursively(entry);
+
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                if (each.isDirectory()) {
+                    continue;
+                }
+                File out = new File(tmp, each.getName());
+                out.getParentFile().mkdirs();
+                try (InputStream in = jarFile.getInputStream(each)) {
+                    Files.copy(in, out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (isNestedModuleJar(each.getName())) {
+                    try (JarFile nested = new JarFile(out)) {
+                        BootstrapUtil.explodeJar(nested, out.getAbsolutePath() + NESTED_SUFFIX);
+                    }
+                }
+            }
+        }
+
+        Files.createFile(new File(tmp, COMPLETE_MARKER).toPath());
+        Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void evict() {
+        File[] entries = this.cacheDir.listFiles((dir, name) -> !name.endsWith(LOCK_SUFFIX) && !name.endsWith(TMP_SUFFIX));
+        if (entries == null || entries.length <= this.maxEntries) {
+            return;
+        }
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+
+        for (int i = this.maxEntries; i < entries.length; ++i) {
+            File candidate = entries[i];
+            if (this.inUse.containsKey(candidate.getName())) {
+                continue;
+            }
+            try (FileChannel channel = openLock(candidate.getName()); FileLock lock = channel.tryLock()) {
+                if (lock == null) {
+                    // still in use by another process
+                    continue;
+                }
+                LOG.debug("evicting module cache " + candidate);
+                new File(candidate, COMPLETE_MARKER).delete();
+                TempFileManager.deleteRecursively(candidate);
+            } catch (IOException e) {
+                LOG.debug("unable to evict module cache " + candidate + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private FileChannel openLock(String key) throws IOException {
+        return FileChannel.open(new File(this.cacheDir, key + LOCK_SUFFIX).toPath(),
+                                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static boolean isComplete(File entry) {
+        return new File(entry, COMPLETE_MARKER).exists();
+    }
+
+    private static boolean isNestedModuleJar(String name) {
+        return name.startsWith("modules/") && (name.endsWith(".jar") || name.endsWith(".war"));
+    }
+
+    private static final BootstrapLogger LOG = BootstrapLogger.logger("org.wildfly.swarm.modules.cache");
+
+    private final File cacheDir;
+
+    private final int maxEntries;
+
+    private final Map<String, File> inUse = new ConcurrentHashMap<>();
+
+    private final List<FileLock> locks = new ArrayList<>();
+
+}
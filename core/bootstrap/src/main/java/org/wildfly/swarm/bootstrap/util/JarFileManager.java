@@ -17,8 +17,9 @@ package org.wildfly.swarm.bootstrap.util;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarFile;
 
 /**
@@ -32,14 +33,17 @@ public class JarFileManager {
     }
 
     public JarFile addJarFile(File file) throws IOException {
-
-        JarFile jarFile = jarFileToClose.get(file);
-        if (jarFile == null) {
-             jarFile = new JarFile(file);
-             jarFileToClose.put(file, jarFile);
+        try {
+            return jarFileToClose.computeIfAbsent(file, (f) -> {
+                try {
+                    return new JarFile(f);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-
-        return jarFile;
     }
 
     public void close() throws IOException {
@@ -57,5 +61,5 @@ public class JarFileManager {
         }
     }
 
-    private Map<File, JarFile> jarFileToClose = new LinkedHashMap<>();
+    private final Map<File, JarFile> jarFileToClose = new ConcurrentHashMap<>();
 }
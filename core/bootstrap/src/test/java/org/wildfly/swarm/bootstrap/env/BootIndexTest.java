@@ -0,0 +1,79 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.env;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test {@link BootIndex}
+ */
+public class BootIndexTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BootIndex index = new BootIndex();
+        index.addModule(new BootIndex.Module("org.example.a", "org.example:a:jar:1.0", "modules/org/example/a/main/module.xml", true)
+                                .addResourceRoot("a.jar")
+                                .addArtifact("org.example:a-impl:1.0")
+                                .addDependency("org.example.b"));
+        index.addModule(new BootIndex.Module("org.example.b:runtime", null, "modules/org/example/b/runtime/module.xml", false));
+
+        BootIndex read = new BootIndex(new ByteArrayInputStream(index.toByteArray()));
+
+        assertEquals(2, read.getModules().size());
+
+        BootIndex.Module a = read.getModule("org.example.a");
+        assertEquals("org.example.a:main", a.getIdentifier());
+        assertEquals("org.example:a:jar:1.0", a.getSource());
+        assertEquals("modules/org/example/a/main/module.xml", a.getPath());
+        assertTrue(a.isExplosionRequired());
+        assertEquals(Collections.singletonList("a.jar"), a.getResourceRoots());
+        assertEquals(Collections.singletonList("org.example:a-impl:1.0"), a.getArtifacts());
+        assertEquals(Collections.singletonList("org.example.b:main"), a.getDependencies());
+
+        BootIndex.Module b = read.getModule("org.example.b:runtime");
+        assertNull(b.getSource());
+        assertFalse(b.isExplosionRequired());
+        assertNull(read.getModule("org.example.b"));
+    }
+
+    @Test
+    public void testReachable() {
+        BootIndex index = new BootIndex();
+        index.addModule(new BootIndex.Module("root", null, "modules/root/main/module.xml", false)
+                                .addDependency("left")
+                                .addDependency("right:api")
+                                .addDependency("missing"));
+        index.addModule(new BootIndex.Module("left", null, "modules/left/main/module.xml", false)
+                                .addDependency("root"));
+        index.addModule(new BootIndex.Module("right:api", null, "modules/right/api/module.xml", false));
+        index.addModule(new BootIndex.Module("unrelated", null, "modules/unrelated/main/module.xml", false));
+
+        Set<String> reachable = index.reachableFrom(Collections.singletonList("root"));
+
+        assertEquals(Arrays.asList("root", "left", "right:api"), Arrays.asList(reachable.toArray()));
+    }
+}
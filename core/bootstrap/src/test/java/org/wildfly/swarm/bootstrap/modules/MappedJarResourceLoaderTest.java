@@ -0,0 +1,158 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.modules.ClassSpec;
+import org.jboss.modules.Resource;
+import org.jboss.modules.ResourceLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.util.TempFileManager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedJarResourceLoaderTest {
+
+    private File workDir;
+
+    private File uberJar;
+
+    @Before
+    public void setUp() throws IOException {
+        this.workDir = Files.createTempDirectory("mapped-jar-test").toFile();
+        this.uberJar = new File(this.workDir, "uber.jar");
+
+        byte[] nested = nestedJar();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(this.uberJar))) {
+            put(out, "modules/org/foo/main/module.xml", "<module/>".getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED);
+            put(out, "modules/org/foo/main/stored.jar", nested, ZipEntry.STORED);
+            put(out, "modules/org/foo/main/deflated.jar", nested, ZipEntry.DEFLATED);
+            put(out, "modules/org/foo/main/classes/org/foo/Foo.class", new byte[]{(byte) 0xCA, (byte) 0xFE}, ZipEntry.STORED);
+            put(out, "modules/org/foo/main/native/linux-x86_64/libfoo.so", new byte[16], ZipEntry.STORED);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TempFileManager.deleteRecursively(this.workDir);
+    }
+
+    @Test
+    public void testStoredNestedJar() throws Exception {
+        assertNestedJar(MappedJarResourceLoader.create("stored.jar", this.uberJar, "modules/org/foo/main/stored.jar"));
+    }
+
+    @Test
+    public void testDeflatedNestedJarIsNotMapped() throws Exception {
+        assertNull(MappedJarResourceLoader.create("deflated.jar", this.uberJar, "modules/org/foo/main/deflated.jar"));
+    }
+
+    @Test
+    public void testNativeLibraryRootIsNotMapped() throws Exception {
+        URL base = new URL("jar:file:" + this.uberJar.getAbsolutePath() + "!/modules/org/foo/main/");
+        assertNull(MappedJarResourceLoader.forModuleRoot("native", base, "native"));
+    }
+
+    @Test
+    public void testModuleRootDirectory() throws Exception {
+        URL base = new URL("jar:file:" + this.uberJar.getAbsolutePath() + "!/modules/org/foo/main/");
+        ResourceLoader loader = MappedJarResourceLoader.forModuleRoot("classes", base, "classes");
+        assertNotNull(loader);
+
+        ClassSpec spec = loader.getClassSpec("org/foo/Foo.class");
+        assertNotNull(spec);
+        assertArrayEquals(new byte[]{(byte) 0xCA, (byte) 0xFE}, spec.getBytes());
+        assertTrue(loader.getPaths().contains("org/foo"));
+        assertNull(loader.getResource("module.xml"));
+    }
+
+    @Test
+    public void testMissingEntry() throws Exception {
+        assertNull(MappedJarResourceLoader.create("missing.jar", this.uberJar, "modules/org/foo/main/missing.jar"));
+    }
+
+    private void assertNestedJar(ResourceLoader loader) throws Exception {
+        assertNotNull(loader);
+
+        Resource resource = loader.getResource("org/bar/hello.txt");
+        assertNotNull(resource);
+        assertEquals(5, resource.getSize());
+        assertEquals("hello", read(resource.openStream()));
+        assertEquals("hello", read(resource.getURL().openStream()));
+
+        ClassSpec spec = loader.getClassSpec("org/bar/Bar.class");
+        assertNotNull(spec);
+        assertEquals(1024, spec.getBytes().length);
+
+        assertNull(loader.getResource("org/bar/missing.txt"));
+        assertTrue(loader.getPaths().contains("org/bar"));
+        assertNotNull(loader.getPackageSpec("org.bar"));
+    }
+
+    private static byte[] nestedJar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            put(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8), ZipEntry.DEFLATED);
+            put(out, "org/bar/hello.txt", "hello".getBytes(StandardCharsets.UTF_8), ZipEntry.STORED);
+            put(out, "org/bar/Bar.class", new byte[1024], ZipEntry.DEFLATED);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void put(ZipOutputStream out, String name, byte[] data, int method) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setCrc(crc.getValue());
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+        }
+        out.putNextEntry(entry);
+        out.write(data);
+        out.closeEntry();
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = stream.read(buf)) >= 0) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
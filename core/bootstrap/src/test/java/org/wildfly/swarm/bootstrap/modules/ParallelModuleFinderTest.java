@@ -0,0 +1,98 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.ModuleSpec;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelModuleFinderTest {
+
+    @Test
+    public void testPreloadsTransitiveDependencies() throws Exception {
+        CountingModuleFinder counting = new CountingModuleFinder(new ClasspathModuleFinder());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelModuleFinder finder = new ParallelModuleFinder(counting, pool);
+
+        finder.preload(Arrays.asList("classpath.module.parallel.test", "classpath.module.load.test.missing"), null);
+        assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+
+        assertEquals(1, counting.count("classpath.module.parallel.test"));
+        assertEquals(1, counting.count("classpath.module.load.test"));
+        assertEquals(1, counting.count("classpath.module.load.test:1.0.0.Final"));
+
+        ModuleSpec root = finder.findModule("classpath.module.parallel.test", null);
+        ModuleSpec dep = finder.findModule("classpath.module.load.test", null);
+        ModuleSpec slotted = finder.findModule("classpath.module.load.test:1.0.0.Final", null);
+        assertNotNull(root);
+        assertNotNull(dep);
+        assertNotNull(slotted);
+        assertNull(finder.findModule("classpath.module.load.test.missing", null));
+
+        // served from the preloaded results
+        assertEquals(1, counting.count("classpath.module.parallel.test"));
+        assertEquals(1, counting.count("classpath.module.load.test"));
+        assertEquals(1, counting.count("classpath.module.load.test:1.0.0.Final"));
+        assertEquals(1, counting.count("classpath.module.load.test.missing"));
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void testFallsBackToDelegate() throws Exception {
+        CountingModuleFinder counting = new CountingModuleFinder(new ClasspathModuleFinder());
+        ParallelModuleFinder finder = new ParallelModuleFinder(counting);
+
+        assertNotNull(finder.findModule("classpath.module.load.test", null));
+        assertEquals(1, counting.count("classpath.module.load.test"));
+    }
+
+    private static class CountingModuleFinder implements ModuleFinder {
+
+        CountingModuleFinder(ModuleFinder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ModuleSpec findModule(String name, ModuleLoader delegateLoader) throws ModuleLoadException {
+            this.counts.computeIfAbsent(name, (k) -> new AtomicInteger()).incrementAndGet();
+            return this.delegate.findModule(name, delegateLoader);
+        }
+
+        int count(String name) {
+            AtomicInteger count = this.counts.get(name);
+            return count == null ? 0 : count.get();
+        }
+
+        private final ModuleFinder delegate;
+
+        private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    }
+}
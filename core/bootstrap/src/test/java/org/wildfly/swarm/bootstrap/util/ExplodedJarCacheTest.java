@@ -0,0 +1,147 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExplodedJarCacheTest {
+
+    private File workDir;
+
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        this.workDir = Files.createTempDirectory("exploded-jar-cache-test").toFile();
+        this.cacheDir = new File(this.workDir, "cache");
+    }
+
+    @After
+    public void tearDown() {
+        TempFileManager.deleteRecursively(this.workDir);
+    }
+
+    @Test
+    public void testReuseUnchangedJar() throws Exception {
+        File jar = uberJar("one.jar", "hello");
+
+        ExplodedJarCache cache = new ExplodedJarCache(this.cacheDir, 3);
+        File first = cache.explode(jar);
+        assertEquals("hello", read(new File(first, "modules/org/foo/main/module.xml")));
+        cache.close();
+
+        File marker = new File(first, "modules/org/foo/main/marker.txt");
+        Files.write(marker.toPath(), "untouched".getBytes(StandardCharsets.UTF_8));
+
+        ExplodedJarCache restarted = new ExplodedJarCache(this.cacheDir, 3);
+        File second = restarted.explode(jar);
+        restarted.close();
+
+        assertEquals(first, second);
+        assertTrue(marker.exists());
+    }
+
+    @Test
+    public void testChangedJarUsesNewEntry() throws Exception {
+        ExplodedJarCache cache = new ExplodedJarCache(this.cacheDir, 3);
+        File first = cache.explode(uberJar("one.jar", "hello"));
+        File second = cache.explode(uberJar("two.jar", "goodbye"));
+        cache.close();
+
+        assertNotEquals(first, second);
+        assertEquals("goodbye", read(new File(second, "modules/org/foo/main/module.xml")));
+    }
+
+    @Test
+    public void testNestedJarIsPreExploded() throws Exception {
+        ExplodedJarCache cache = new ExplodedJarCache(this.cacheDir, 3);
+        File root = cache.explode(uberJar("one.jar", "hello"));
+        cache.close();
+
+        File nested = cache.explodedNestedJar(new File(root, "modules/org/foo/main/foo.jar"));
+        assertNotNull(nested);
+        assertEquals("nested", read(new File(nested, "foo.txt")));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        ExplodedJarCache cache = new ExplodedJarCache(this.cacheDir, 1);
+        File first = cache.explode(uberJar("one.jar", "hello"));
+        cache.close();
+
+        // ensure distinct timestamps on coarse-grained filesystems
+        first.setLastModified(System.currentTimeMillis() - 10_000);
+
+        File second = cache.explode(uberJar("two.jar", "goodbye"));
+        cache.close();
+
+        assertFalse(first.exists());
+        assertTrue(second.exists());
+    }
+
+    @Test
+    public void testInUseEntryIsNotEvicted() throws Exception {
+        ExplodedJarCache cache = new ExplodedJarCache(this.cacheDir, 1);
+        File first = cache.explode(uberJar("one.jar", "hello"));
+        first.setLastModified(System.currentTimeMillis() - 10_000);
+
+        File second = cache.explode(uberJar("two.jar", "goodbye"));
+        cache.close();
+
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+    }
+
+    private File uberJar(String name, String moduleXml) throws IOException {
+        File nested = new File(this.workDir, name + "-nested.jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(nested))) {
+            out.putNextEntry(new JarEntry("foo.txt"));
+            out.write("nested".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        File jar = new File(this.workDir, name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("modules/org/foo/main/module.xml"));
+            out.write(moduleXml.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new JarEntry("modules/org/foo/main/foo.jar"));
+            out.write(Files.readAllBytes(nested.toPath()));
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
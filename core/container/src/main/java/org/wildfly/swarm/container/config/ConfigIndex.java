@@ -0,0 +1,156 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.wildfly.swarm.spi.api.config.SimpleKey;
+
+/**
+ * An immutable, flattened view of a sequence of {@link ConfigNode} layers.
+ *
+ * <p>Every key present in any layer is resolved once, in layer order and with filters applied,
+ * into a hash index. The union of the layers' trees is kept as a prefix trie, which answers
+ * sub-key queries without walking the layers again.</p>
+ */
+final class ConfigIndex {
+
+    /**
+     * Compile the given layers.
+     *
+     * @param layers The layers, in preferred order.
+     * @param filter The filter to apply to each candidate value; returning {@code null} skips the candidate.
+     */
+    ConfigIndex(List<ConfigNode> layers, BiFunction<ConfigKey, Object, Object> filter) {
+        for (ConfigNode layer : layers) {
+            merge(this.root, layer, filter);
+        }
+    }
+
+    Optional<Object> valueOf(ConfigKey key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry.value);
+    }
+
+    List<SimpleKey> simpleSubkeysOf(ConfigKey prefix) {
+        Entry entry = entry(prefix);
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(entry.childKeys);
+    }
+
+    boolean hasKeyOrSubkeys(ConfigKey prefix) {
+        return entry(prefix) != null;
+    }
+
+    /**
+     * The value of every key holding a direct value in some layer, keyed by name.
+     *
+     * @return The values.
+     */
+    Map<String, Object> values() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Entry each : this.valued) {
+            if (each.resolved) {
+                values.putIfAbsent(each.key.name(), each.value);
+            }
+        }
+        return values;
+    }
+
+    private Entry entry(ConfigKey key) {
+        if (key.head() == ConfigKey.EMPTY) {
+            return this.root.key == null ? null : this.root;
+        }
+        return this.entries.get(path(key));
+    }
+
+    private void merge(Entry entry, ConfigNode node, BiFunction<ConfigKey, Object, Object> filter) {
+        if (entry.key == null) {
+            entry.key = ConfigKey.EMPTY;
+        }
+
+        // a node without a direct value resolves to itself
+        Object value = node.valueOf(ConfigKey.EMPTY);
+        if (!(value instanceof ConfigNode) && !entry.valued) {
+            entry.valued = true;
+            this.valued.add(entry);
+        }
+        if (!entry.resolved && value != null) {
+            // the root has no property name to filter by
+            if (entry != this.root) {
+                value = filter.apply(entry.key, value);
+            }
+            if (value != null) {
+                entry.value = value;
+                entry.resolved = true;
+            }
+        }
+
+        for (SimpleKey each : node.childrenKeys()) {
+            String name = each.name().toLowerCase(Locale.ROOT);
+            Entry child = entry.children.get(name);
+            if (child == null) {
+                child = new Entry();
+                child.key = entry.key.append(each);
+                entry.children.put(name, child);
+                entry.childKeys.add(each);
+                this.entries.put(path(child.key), child);
+            }
+            merge(child, node.child(each), filter);
+        }
+    }
+
+    /**
+     * Keys compare case-insensitively, and dotted segments are bracketed in property names.
+     */
+    private static String path(ConfigKey key) {
+        return key.propertyName().toLowerCase(Locale.ROOT);
+    }
+
+    private final Entry root = new Entry();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final List<Entry> valued = new ArrayList<>();
+
+    private static class Entry {
+
+        ConfigKey key;
+
+        Object value;
+
+        boolean resolved;
+
+        boolean valued;
+
+        final Map<String, Entry> children = new HashMap<>();
+
+        final List<SimpleKey> childKeys = new ArrayList<>();
+    }
+}
@@ -68,15 +68,18 @@ class ConfigResolutionStrategy {
 
     public void withFilter(ConfigurationFilter filter) {
         this.filters.add(filter);
+        this.index = null;
     }
 
     void withProperties(Properties properties) {
+        this.index = null;
         this.propertiesNode = PropertiesConfigNodeFactory.load(properties);
         this.nodes.add(this.propertiesNode);
         this.properties = PropertiesManipulator.forProperties(properties);
     }
 
     void withEnvironment(Map<String, String> environment) {
+        this.index = null;
         this.nodes.add(EnvironmentConfigNodeFactory.load(environment));
     }
 
@@ -86,26 +89,38 @@ class ConfigResolutionStrategy {
      * @param node The node to add.
      */
     void add(ConfigNode node) {
+        this.index = null;
         this.nodes.add(node);
     }
 
     void defaults(ConfigNode defaults) {
+        this.index = null;
         this.defaults = defaults;
     }
 
     void withProperty(String name, String value) {
+        this.index = null;
         this.propertiesNode.recursiveChild(name, value);
     }
 
     /**
      * Activate the strategy.
+     *
+     * <p>All layers are compiled into a {@link ConfigIndex}, which answers lookups until
+     * the strategy is next modified.</p>
      */
     void activate() {
-        nodes().flatMap(e -> e.allKeysRecursively())
-                .distinct()
-                .forEach(key -> {
-                    activate(key);
-                });
+        ConfigIndex index = new ConfigIndex(nodes().collect(Collectors.toList()), this::filter);
+        index.values().forEach((name, value) -> {
+            this.properties.setProperty(name, value.toString());
+        });
+        this.index = index;
+    }
+
+    private void deactivate(ConfigKey key) {
+        optionalValueOf(key).ifPresent((v) -> {
+            this.properties.clearProperty(key.name());
+        });
     }
 
     Stream<ConfigNode> nodes() {
@@ -116,23 +131,6 @@ class ConfigResolutionStrategy {
         return Stream.concat(this.nodes.stream(), Stream.of(this.defaults));
     }
 
-    /**
-     * Activate a given key.
-     *
-     * @param key The key to activate.
-     */
-    private void activate(ConfigKey key) {
-        optionalValueOf(key).ifPresent((v) -> {
-            this.properties.setProperty(key.name(), v.toString());
-        });
-    }
-
-    private void deactivate(ConfigKey key) {
-        optionalValueOf(key).ifPresent((v) -> {
-            this.properties.clearProperty(key.name());
-        });
-    }
-
     /**
      * Retrieve the configuration value for a key.
      *
@@ -144,6 +142,10 @@ class ConfigResolutionStrategy {
     }
 
     Optional<Object> optionalValueOf(ConfigKey key) {
+        ConfigIndex index = this.index;
+        if (index != null) {
+            return index.valueOf(key);
+        }
         return nodes()
                 .map(e -> e.valueOf(key))
                 .filter(Objects::nonNull)
@@ -165,6 +167,10 @@ class ConfigResolutionStrategy {
     }
 
     List<SimpleKey> simpleSubkeysOf(ConfigKey prefix) {
+        ConfigIndex index = this.index;
+        if (index != null) {
+            return index.simpleSubkeysOf(prefix);
+        }
         return nodes()
                 .map(e -> e.descendant(prefix))
                 .filter(Objects::nonNull)
@@ -174,6 +180,10 @@ class ConfigResolutionStrategy {
     }
 
     boolean hasKeyOrSubkeys(ConfigKey prefix) {
+        ConfigIndex index = this.index;
+        if (index != null) {
+            return index.hasKeyOrSubkeys(prefix);
+        }
         return nodes()
                 .map(e -> e.descendant(prefix))
                 .anyMatch(Objects::nonNull);
@@ -193,4 +203,6 @@ class ConfigResolutionStrategy {
 
     private List<ConfigurationFilter> filters = new ArrayList<>();
 
+    private volatile ConfigIndex index;
+
 }
@@ -21,7 +21,6 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -29,6 +28,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -42,7 +42,6 @@ import org.wildfly.swarm.internal.SwarmConfigMessages;
 import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
-import org.wildfly.swarm.spi.api.annotations.Configurables;
 import org.wildfly.swarm.spi.api.config.ConfigKey;
 import org.wildfly.swarm.spi.api.config.ConfigView;
 import org.wildfly.swarm.spi.api.config.Converter;
@@ -54,7 +53,7 @@ import org.wildfly.swarm.spi.api.config.SimpleKey;
  */
 public class ConfigurableManager implements AutoCloseable {
 
-    private static final String SUBRESOURCES = "subresources";
+    static final String SUBRESOURCES = "subresources";
 
     private static final String ACCEPT = "accept";
 
@@ -92,6 +91,13 @@ public class ConfigurableManager implements AutoCloseable {
 
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.config");
 
+    private static final ClassValue<Optional<MethodHandle>> LAMBDA_FACTORIES = new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> consumerType) {
+            return Optional.ofNullable(lambdaFactory(consumerType));
+        }
+    };
+
     private final List<ConfigurableHandle> configurables = new ArrayList<>();
 
     private final List<Object> deferred = new ArrayList<>();
@@ -268,29 +274,7 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected Method findGetKeyMethod(Object object) {
-        Method[] methods = object.getClass().getMethods();
-
-        for (Method method : methods) {
-            if (!Modifier.isPublic(method.getModifiers())) {
-                continue;
-            }
-
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (!method.getName().equals("getKey")) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 0) {
-                continue;
-            }
-
-            return method;
-        }
-
-        return null;
+        return ConfigurableMetadata.of(object.getClass()).getKeyMethod();
     }
 
     protected ConfigKey nameFor(Fraction fraction) throws Exception {
@@ -320,64 +304,59 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected void scan(ConfigKey prefix, Object instance, Class<?> curClass, boolean implicit) throws Exception {
-        if (curClass == null || curClass == Object.class || isBlacklisted(curClass)) {
+        if (curClass == null || curClass == Object.class) {
+            return;
+        }
+        ConfigurableMetadata metadata = ConfigurableMetadata.of(curClass);
+        if (metadata.isBlacklisted()) {
             return;
         }
-        Field[] fields = curClass.getDeclaredFields();
 
-        for (Field field : fields) {
-            if (!Modifier.isStatic(field.getModifiers())) {
-                if (isBlacklisted(field)) {
-                    continue;
-                }
-                if (implicit || field.getAnnotation(Configurable.class) != null || field.getAnnotation(Configurables.class) != null) {
-                    if (isConfigurableType(field.getType())) {
-                        List<ConfigKey> names = namesFor(prefix, field);
+        for (ConfigurableMetadata.ConfigurableField field : metadata.fields()) {
+            if (implicit || field.annotated) {
+                List<ConfigKey> names = namesFor(prefix, field);
 
-                        boolean configured = false;
+                boolean configured = false;
 
-                        for (ConfigKey name : names) {
-                            if (!seen(name)) {
-                                ConfigurableHandle configurable = new ObjectBackedConfigurableHandle(name, instance, field);
-                                this.configurables.add(configurable);
-                                configured = configure(configurable);
-                            }
-                            if (configured) {
-                                break;
-                            }
-                        }
+                for (ConfigKey name : names) {
+                    if (!seen(name)) {
+                        ConfigurableHandle configurable = new ObjectBackedConfigurableHandle(name, instance, field.field);
+                        this.configurables.add(configurable);
+                        this.configurableKeys.add(name);
+                        configured = configure(configurable);
+                    }
+                    if (configured) {
+                        break;
                     }
                 }
             }
         }
 
         if (!rescanning) {
-            Method[] methods = curClass.getDeclaredMethods();
-            for (Method method : methods) {
-                if (method.isAnnotationPresent(Configurable.class)) {
-                    ConfigKey subPrefix = prefix.append(nameFor(method));
-                    if (method.getParameterCount() == 1) {
-                        // If doesn't exist, only create it if there's some
-                        // configuration keys that imply we want it.
-                        if (this.configView.hasKeyOrSubkeys(subPrefix)) {
-                            Object lambda = createLambda(subPrefix, method);
-                            if (lambda != null) {
-                                method.invoke(instance, lambda);
-                            }
+            for (ConfigurableMetadata.ConfigurableMethod each : metadata.methods()) {
+                Method method = each.method;
+                ConfigKey subPrefix = prefix.append(ConfigKey.of(each.name));
+                if (each.parameterCount == 1) {
+                    // If doesn't exist, only create it if there's some
+                    // configuration keys that imply we want it.
+                    if (this.configView.hasKeyOrSubkeys(subPrefix)) {
+                        Object lambda = createLambda(subPrefix, method);
+                        if (lambda != null) {
+                            method.invoke(instance, lambda);
                         }
-                    } else if (method.getParameterCount() == 2) {
-                        List<SimpleKey> keysWithConfiguration = this.configView.simpleSubkeys(subPrefix);
-                        if (!keysWithConfiguration.isEmpty()) {
-                            for (SimpleKey key : keysWithConfiguration) {
-                                ConfigKey itemPrefix = subPrefix.append(key);
-                                Object lambda = createLambda(itemPrefix, method);
-                                if (lambda != null) {
-                                    method.invoke(instance, key.name(), lambda);
-                                }
+                    }
+                } else if (each.parameterCount == 2) {
+                    List<SimpleKey> keysWithConfiguration = this.configView.simpleSubkeys(subPrefix);
+                    if (!keysWithConfiguration.isEmpty()) {
+                        for (SimpleKey key : keysWithConfiguration) {
+                            ConfigKey itemPrefix = subPrefix.append(key);
+                            Object lambda = createLambda(itemPrefix, method);
+                            if (lambda != null) {
+                                method.invoke(instance, key.name(), lambda);
                             }
                         }
-
                     }
+
                 }
             }
         }
@@ -394,14 +373,14 @@ public class ConfigurableManager implements AutoCloseable {
             // this is a deployment-activated context.
             return false;
         }
-        return this.seenObjects.contains(name) || this.configurables.stream().anyMatch(e -> e.key().equals(name));
+        return this.seenObjects.contains(name) || this.configurableKeys.contains(name);
     }
 
-    private boolean isConfigurableType(Class<?> type) {
+    static boolean isConfigurableType(Class<?> type) {
         return type.isEnum() || CONFIGURABLE_VALUE_TYPES.contains(type);
     }
 
-    private boolean isBlacklisted(Class<?> cls) {
+    static boolean isBlacklisted(Class<?> cls) {
         return BLACKLISTED_CLASSES.stream().anyMatch((e) -> {
             if (e.isInterface()) {
                 for (Class<?> each : cls.getInterfaces()) {
@@ -416,7 +395,7 @@ public class ConfigurableManager implements AutoCloseable {
         });
     }
 
-    private boolean isBlacklisted(Field field) {
+    static boolean isBlacklisted(Field field) {
         if (BLACKLISTED_FIELDS.stream().anyMatch((e) -> e.equals(field.getName()))) {
             return true;
         }
@@ -425,30 +404,23 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected List<ConfigKey> namesFor(ConfigKey prefix, Field field) {
+        return namesFor(prefix, new ConfigurableMetadata.ConfigurableField(field));
+    }
+
+    private List<ConfigKey> namesFor(ConfigKey prefix, ConfigurableMetadata.ConfigurableField field) {
 
         List<ConfigKey> names = new ArrayList<>();
 
-        Configurables plural = field.getAnnotation(Configurables.class);
-        if (plural != null) {
-            for (Configurable each : plural.value()) {
-                ConfigKey key = nameFor(prefix, each);
+        if (field.annotations.length > 0) {
+            for (Configurable anno : field.annotations) {
+                ConfigKey key = nameFor(prefix, anno);
                 if (key != null) {
                     names.add(key);
                 }
             }
         } else {
-            Configurable[] annos = field.getAnnotationsByType(Configurable.class);
-            if (annos != null && annos.length > 0) {
-                for (Configurable anno : annos) {
-                    ConfigKey key = nameFor(prefix, anno);
-                    if (key != null) {
-                        names.add(key);
-                    }
-                }
-            } else {
-                ConfigKey key = handleDeploymentConfiguration(prefix.append(nameFor(field)));
-                names.add(key);
-            }
+            ConfigKey key = handleDeploymentConfiguration(prefix.append(ConfigKey.of(field.name)));
+            names.add(key);
         }
 
         return names;
@@ -481,40 +453,11 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected ConfigKey nameFor(Field member) {
-        StringBuilder str = new StringBuilder();
-
-        char[] chars = member.getName().toCharArray();
-
-        for (char c : chars) {
-            if (Character.isUpperCase(c)) {
-                str.append("-");
-            }
-
-            str.append(Character.toLowerCase(c));
-        }
-
-        return ConfigKey.of(str.toString());
+        return ConfigKey.of(ConfigurableMetadata.configName(member.getName()));
     }
 
     protected ConfigKey nameFor(Method member) {
-        StringBuilder str = new StringBuilder();
-
-        char[] chars = member.getName().toCharArray();
-
-        for (char c : chars) {
-            if (Character.isUpperCase(c)) {
-                str.append("-");
-            }
-
-            str.append(Character.toLowerCase(c));
-        }
-
-        if (member.getParameterCount() == 2) {
-            // pluralize since it's keyed.
-            str.append("s");
-        }
-
-        return ConfigKey.of(str.toString());
+        return ConfigKey.of(new ConfigurableMetadata.ConfigurableMethod(member).name);
     }
 
     protected void scanSubresources(ConfigKey prefix, Object instance) throws Exception {
@@ -526,15 +469,11 @@ public class ConfigurableManager implements AutoCloseable {
 
         Object subresources = method.invoke(instance);
 
-        Field[] fields = subresources.getClass().getDeclaredFields();
+        ConfigurableMetadata metadata = ConfigurableMetadata.of(instance.getClass());
 
-        for (Field field : fields) {
-            if (field.getAnnotation(SubresourceInfo.class) == null && List.class.isAssignableFrom(field.getType())) {
-                continue;
-            }
-            field.setAccessible(true);
-            Object value = field.get(subresources);
-            ConfigKey subPrefix = prefix.append(nameFor(field));
+        for (ConfigurableMetadata.SubresourceField field : ConfigurableMetadata.of(subresources.getClass()).subresourceFields()) {
+            Object value = field.field.get(subresources);
+            ConfigKey subPrefix = prefix.append(ConfigKey.of(field.name));
             if (seen(subPrefix)) {
                 continue;
             }
@@ -559,7 +498,7 @@ public class ConfigurableManager implements AutoCloseable {
                 keysWithConfiguration.removeAll(seenKeys);
 
                 if (!keysWithConfiguration.isEmpty()) {
-                    Method factoryMethod = getKeyedFactoryMethod(instance, field);
+                    Method factoryMethod = field.factoryName == null ? null : metadata.keyedFactoryMethod(field.factoryName);
 
                     if (factoryMethod != null) {
                         for (SimpleKey key : keysWithConfiguration) {
@@ -577,7 +516,7 @@ public class ConfigurableManager implements AutoCloseable {
                     // If doesn't exist, only create it if there's some
                     // configuration keys that imply we want it.
                     if (this.configView.hasKeyOrSubkeys(subPrefix)) {
-                        Method factoryMethod = getNonKeyedFactoryMethod(instance, field);
+                        Method factoryMethod = metadata.nonKeyedFactoryMethod(field.field.getName());
                         if (factoryMethod != null) {
                             Object lambda = createLambda(subPrefix, factoryMethod);
                             if (lambda != null) {
@@ -593,12 +532,25 @@ public class ConfigurableManager implements AutoCloseable {
     }
 
     protected Object createLambda(ConfigKey itemPrefix, Method factoryMethod) {
-
-        MethodHandles.Lookup lookup = MethodHandles.lookup();
-
         // The consumer is the last parameter
         Class<?> consumerType = factoryMethod.getParameterTypes()[factoryMethod.getParameterCount() - 1];
 
+        MethodHandle mh = LAMBDA_FACTORIES.get(consumerType).orElse(null);
+        if (mh == null) {
+            return null;
+        }
+
+        try {
+            return mh.invoke(this, itemPrefix);
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static MethodHandle lambdaFactory(Class<?> consumerType) {
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
         try {
             Method acceptMethod = null;
             for (Method method : consumerType.getMethods()) {
@@ -615,7 +567,7 @@ public class ConfigurableManager implements AutoCloseable {
 
             MethodType samType = MethodType.methodType(void.class, acceptMethod.getParameterTypes()[0]);
 
-            MethodHandle mh = LambdaMetafactory.metafactory(
+            return LambdaMetafactory.metafactory(
                     lookup,
                     ACCEPT,
                     MethodType.methodType(consumerType, ConfigurableManager.class, ConfigKey.class),
@@ -624,8 +576,6 @@ public class ConfigurableManager implements AutoCloseable {
                     samType)
                     .getTarget();
 
-            return mh.invoke(this, itemPrefix);
-
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
@@ -639,114 +589,17 @@ public class ConfigurableManager implements AutoCloseable {
     protected Method getKeyedFactoryMethod(Object instance, Field field) {
         SubresourceInfo anno = field.getAnnotation(SubresourceInfo.class);
         if (anno != null) {
-            String name = anno.value();
-            Method[] methods = instance.getClass().getMethods();
-            for (Method method : methods) {
-                if (!method.getName().equals(name)) {
-                    continue;
-                }
-
-                if (!Modifier.isPublic(method.getModifiers())) {
-                    continue;
-                }
-
-                if (Modifier.isStatic(method.getModifiers())) {
-                    continue;
-                }
-
-                if (method.getParameterCount() != 2) {
-                    continue;
-                }
-
-                if (method.getParameterTypes()[0] != String.class) {
-                    continue;
-                }
-
-                if (method.getParameterTypes()[1].getAnnotation(FunctionalInterface.class) == null) {
-                    continue;
-                }
-
-                boolean acceptMethodFound = false;
-                for (Method paramMethod : method.getParameterTypes()[1].getMethods()) {
-                    if (paramMethod.getName().equals(ACCEPT)) {
-                        acceptMethodFound = true;
-                        break;
-                    }
-                }
-
-                if (!acceptMethodFound) {
-                    continue;
-                }
-
-                return method;
-            }
-
+            return ConfigurableMetadata.of(instance.getClass()).keyedFactoryMethod(anno.value());
         }
         return null;
     }
 
     protected Method getNonKeyedFactoryMethod(Object instance, Field field) {
-        String name = field.getName();
-        Method[] methods = instance.getClass().getMethods();
-        for (Method method : methods) {
-            if (!method.getName().equals(name)) {
-                continue;
-            }
-
-            if (!Modifier.isPublic(method.getModifiers())) {
-                continue;
-            }
-
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 1) {
-                continue;
-            }
-
-            if (method.getParameterTypes()[0].getAnnotation(FunctionalInterface.class) == null) {
-                continue;
-            }
-
-            boolean acceptMethodFound = false;
-            for (Method paramMethod : method.getParameterTypes()[0].getMethods()) {
-                if (paramMethod.getName().equals(ACCEPT)) {
-                    acceptMethodFound = true;
-                    break;
-                }
-            }
-
-            if (!acceptMethodFound) {
-                continue;
-            }
-
-            return method;
-        }
-
-        return null;
+        return ConfigurableMetadata.of(instance.getClass()).nonKeyedFactoryMethod(field.getName());
     }
 
     protected Method getSubresourcesMethod(Object instance) {
-        Method[] methods = instance.getClass().getMethods();
-        for (Method method : methods) {
-            if (Modifier.isStatic(method.getModifiers())) {
-                continue;
-            }
-
-            if (!method.getName().equals(SUBRESOURCES)) {
-                continue;
-            }
-
-            if (method.getParameterCount() != 0) {
-                continue;
-            }
-
-            return method;
-
-        }
-
-        return null;
+        return ConfigurableMetadata.of(instance.getClass()).subresourcesMethod();
     }
 
     public void log() {
@@ -802,11 +655,14 @@ public class ConfigurableManager implements AutoCloseable {
     public void close() {
         this.seenObjects.clear();
         this.configurables.clear();
+        this.configurableKeys.clear();
         this.deferred.clear();
     }
 
     private Set<ConfigKey> seenObjects = new HashSet<>();
 
+    private final Set<ConfigKey> configurableKeys = new HashSet<>();
+
     private final DeploymentContext deploymentContext;
 
     private boolean rescanning;
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wildfly.swarm.config.runtime.SubresourceInfo;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
+import org.wildfly.swarm.spi.api.annotations.Configurables;
+
+/**
+ * Reflective metadata of a class, as needed by the {@link ConfigurableManager}.
+ *
+ * <p>Computed once per class and shared by every scan and rescan, so that configuring
+ * many instances of the same fraction or subresource type walks these tables instead
+ * of reflecting again.</p>
+ */
+final class ConfigurableMetadata {
+
+    private static final String ACCEPT = "accept";
+
+    private static final ClassValue<ConfigurableMetadata> CACHE = new ClassValue<ConfigurableMetadata>() {
+        @Override
+        protected ConfigurableMetadata computeValue(Class<?> type) {
+            return new ConfigurableMetadata(type);
+        }
+    };
+
+    private ConfigurableMetadata(Class<?> type) {
+        this.type = type;
+        this.blacklisted = ConfigurableManager.isBlacklisted(type);
+
+        List<ConfigurableField> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !ConfigurableManager.isBlacklisted(field)
+                    && ConfigurableManager.isConfigurableType(field.getType())) {
+                fields.add(new ConfigurableField(field));
+            }
+        }
+        this.fields = Collections.unmodifiableList(fields);
+
+        List<ConfigurableMethod> methods = new ArrayList<>();
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Configurable.class)) {
+                methods.add(new ConfigurableMethod(method));
+            }
+        }
+        this.methods = Collections.unmodifiableList(methods);
+    }
+
+    static ConfigurableMetadata of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Convert a member name to its configuration name, {@code camelCase} to {@code camel-case}.
+     */
+    static String configName(String memberName) {
+        StringBuilder str = new StringBuilder();
+
+        for (char c : memberName.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                str.append("-");
+            }
+
+            str.append(Character.toLowerCase(c));
+        }
+
+        return str.toString();
+    }
+
+    boolean isBlacklisted() {
+        return this.blacklisted;
+    }
+
+    /**
+     * Declared, non-static fields of a configurable type.
+     */
+    List<ConfigurableField> fields() {
+        return this.fields;
+    }
+
+    /**
+     * Declared methods annotated with {@link Configurable}.
+     */
+    List<ConfigurableMethod> methods() {
+        return this.methods;
+    }
+
+    Method getKeyMethod() {
+        return publicMethods().getKey;
+    }
+
+    Method subresourcesMethod() {
+        return publicMethods().subresources;
+    }
+
+    Method keyedFactoryMethod(String name) {
+        return publicMethods().keyedFactories.get(name);
+    }
+
+    Method nonKeyedFactoryMethod(String name) {
+        return publicMethods().nonKeyedFactories.get(name);
+    }
+
+    /**
+     * Fields of a subresources holder which may hold subresources.
+     */
+    List<SubresourceField> subresourceFields() {
+        List<SubresourceField> subresourceFields = this.subresourceFields;
+        if (subresourceFields == null) {
+            subresourceFields = new ArrayList<>();
+            for (Field field : this.type.getDeclaredFields()) {
+                SubresourceInfo info = field.getAnnotation(SubresourceInfo.class);
+                if (info == null && List.class.isAssignableFrom(field.getType())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                subresourceFields.add(new SubresourceField(field, info));
+            }
+            subresourceFields = Collections.unmodifiableList(subresourceFields);
+            this.subresourceFields = subresourceFields;
+        }
+        return subresourceFields;
+    }
+
+    private PublicMethods publicMethods() {
+        PublicMethods publicMethods = this.publicMethods;
+        if (publicMethods == null) {
+            publicMethods = new PublicMethods(this.type);
+            this.publicMethods = publicMethods;
+        }
+        return publicMethods;
+    }
+
+    private static boolean hasAcceptMethod(Class<?> consumerType) {
+        if (consumerType.getAnnotation(FunctionalInterface.class) == null) {
+            return false;
+        }
+        for (Method method : consumerType.getMethods()) {
+            if (method.getName().equals(ACCEPT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final Class<?> type;
+
+    private final boolean blacklisted;
+
+    private final List<ConfigurableField> fields;
+
+    private final List<ConfigurableMethod> methods;
+
+    private volatile PublicMethods publicMethods;
+
+    private volatile List<SubresourceField> subresourceFields;
+
+    static final class ConfigurableField {
+
+        ConfigurableField(Field field) {
+            this.field = field;
+            this.name = configName(field.getName());
+
+            Configurables plural = field.getAnnotation(Configurables.class);
+            if (plural != null) {
+                this.annotations = plural.value();
+            } else {
+                this.annotations = field.getAnnotationsByType(Configurable.class);
+            }
+            this.annotated = plural != null || field.getAnnotation(Configurable.class) != null;
+        }
+
+        final Field field;
+
+        /**
+         * The configuration name derived from the field name.
+         */
+        final String name;
+
+        /**
+         * Explicit {@link Configurable} names, if any.
+         */
+        final Configurable[] annotations;
+
+        final boolean annotated;
+    }
+
+    static final class ConfigurableMethod {
+
+        ConfigurableMethod(Method method) {
+            this.method = method;
+            this.parameterCount = method.getParameterCount();
+            // pluralize if it's keyed.
+            this.name = configName(method.getName()) + (this.parameterCount == 2 ? "s" : "");
+        }
+
+        final Method method;
+
+        final int parameterCount;
+
+        final String name;
+    }
+
+    static final class SubresourceField {
+
+        SubresourceField(Field field, SubresourceInfo info) {
+            this.field = field;
+            this.name = configName(field.getName());
+            this.factoryName = info == null ? null : info.value();
+        }
+
+        final Field field;
+
+        final String name;
+
+        /**
+         * The name of the keyed factory method, for annotated list fields.
+         */
+        final String factoryName;
+    }
+
+    private static final class PublicMethods {
+
+        PublicMethods(Class<?> type) {
+            for (Method method : type.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                int parameterCount = method.getParameterCount();
+                if (parameterCount == 0) {
+                    if (this.getKey == null && method.getName().equals("getKey")) {
+                        this.getKey = method;
+                    } else if (this.subresources == null && method.getName().equals(ConfigurableManager.SUBRESOURCES)) {
+                        this.subresources = method;
+                    }
+                } else if (parameterCount == 1) {
+                    if (!this.nonKeyedFactories.containsKey(method.getName()) && hasAcceptMethod(method.getParameterTypes()[0])) {
+                        this.nonKeyedFactories.put(method.getName(), method);
+                    }
+                } else if (parameterCount == 2 && method.getParameterTypes()[0] == String.class) {
+                    if (!this.keyedFactories.containsKey(method.getName()) && hasAcceptMethod(method.getParameterTypes()[1])) {
+                        this.keyedFactories.put(method.getName(), method);
+                    }
+                }
+            }
+        }
+
+        private Method getKey;
+
+        private Method subresources;
+
+        private final Map<String, Method> keyedFactories = new HashMap<>();
+
+        private final Map<String, Method> nonKeyedFactories = new HashMap<>();
+    }
+}
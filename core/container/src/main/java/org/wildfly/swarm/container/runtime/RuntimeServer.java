@@ -52,6 +52,7 @@ import org.jboss.msc.value.ImmediateValue;
 import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.swarm.bootstrap.modules.MavenResolvers;
 import org.wildfly.swarm.bootstrap.performance.Performance;
+import org.wildfly.swarm.bootstrap.util.ExplodedJarCache;
 import org.wildfly.swarm.bootstrap.util.JarFileManager;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
 import org.wildfly.swarm.container.internal.Deployer;
@@ -323,6 +324,7 @@ public class RuntimeServer implements Server {
     private void cleanup() throws IOException {
         JarFileManager.INSTANCE.close();
         TempFileManager.INSTANCE.close();
+        ExplodedJarCache.INSTANCE.close();
         MavenResolvers.close();
     }
 
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.cdi.configurable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.spi.api.SwarmProperties;
+
+/**
+ * Persistent, content-addressed cache of the Jandex indexes of deployment libraries.
+ *
+ * <p>Disabled unless {@link SwarmProperties#DEPLOYMENT_INDEX_CACHE_DIR} is set. Each library is keyed by
+ * a digest of its bytes, so an unchanged jar is indexed once and its index reused across restarts.
+ * Entries are published by an atomic rename; an entry that cannot be read is ignored and the library
+ * indexed again. Only the {@link SwarmProperties#DEPLOYMENT_INDEX_CACHE_MAX_ENTRIES} most recently used
+ * entries are kept.</p>
+ */
+class DeploymentIndexCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String SUFFIX = ".idx";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    DeploymentIndexCache() {
+        this(cacheDirFromProperties(), Integer.getInteger(SwarmProperties.DEPLOYMENT_INDEX_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+    }
+
+    DeploymentIndexCache(File cacheDir, int maxEntries) {
+        this.cacheDir = cacheDir;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    private static File cacheDirFromProperties() {
+        String dir = System.getProperty(SwarmProperties.DEPLOYMENT_INDEX_CACHE_DIR);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        return new File(dir);
+    }
+
+    boolean isEnabled() {
+        return this.cacheDir != null;
+    }
+
+    /**
+     * @param key The key of the library, see {@link #keyOf(byte[])}.
+     * @return The cached index, or <code>null</code> if there is none.
+     */
+    Index get(String key) {
+        File entry = entry(key);
+        if (!entry.isFile()) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(entry))) {
+            Index index = new IndexReader(in).read();
+            // mark as most-recently-used
+            entry.setLastModified(System.currentTimeMillis());
+            return index;
+        } catch (IOException | RuntimeException e) {
+            // corrupt, or written by an incompatible Jandex version
+            LOGGER.debugv("Ignoring index cache entry {0}: {1}", entry, e.getMessage());
+            return null;
+        }
+    }
+
+    void put(String key, Index index) {
+        try {
+            Files.createDirectories(this.cacheDir.toPath());
+            File tmp = File.createTempFile(key, TMP_SUFFIX, this.cacheDir);
+            try {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+                    new IndexWriter(out).write(index);
+                }
+                Files.move(tmp.toPath(), entry(key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        } catch (IOException e) {
+            LOGGER.debugv("Unable to populate index cache {0}: {1}", this.cacheDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the least-recently-used entries beyond the maximum.
+     */
+    void evict() {
+        File[] entries = this.cacheDir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null || entries.length <= this.maxEntries) {
+            return;
+        }
+
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified).reversed());
+
+        for (int i = this.maxEntries; i < entries.length; ++i) {
+            LOGGER.debugv("Evicting index cache entry {0}", entries[i]);
+            entries[i].delete();
+        }
+    }
+
+    private File entry(String key) {
+        return new File(this.cacheDir, key + SUFFIX);
+    }
+
+    static String keyOf(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest(content)) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final Logger LOGGER = Logger.getLogger("org.wildfly.swarm.deployment");
+
+    private final File cacheDir;
+
+    private final int maxEntries;
+
+}
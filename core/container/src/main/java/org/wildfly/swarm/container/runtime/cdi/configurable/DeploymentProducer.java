@@ -15,11 +15,14 @@
  */
 package org.wildfly.swarm.container.runtime.cdi.configurable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Produces;
@@ -37,6 +40,7 @@ import org.jboss.shrinkwrap.api.ArchivePaths;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.container.LibraryContainer;
 import org.jboss.shrinkwrap.api.importer.ZipImporter;
 import org.wildfly.swarm.container.runtime.cdi.DeploymentContext;
@@ -60,12 +64,26 @@ public class DeploymentProducer {
     @Inject
     DeploymentContext context;
 
+    private final DeploymentIndexCache cache;
+
+    public DeploymentProducer() {
+        this(new DeploymentIndexCache());
+    }
+
+    DeploymentProducer(DeploymentIndexCache cache) {
+        this.cache = cache;
+    }
+
     @Produces
     @DeploymentScoped
     Archive archive() {
         return context.getCurrentArchive();
     }
 
+    /**
+     * The index of the deployment and its libraries, shared by the processors of the deployment
+     * so that they do not have to scan it themselves.
+     */
     @Produces
     @DeploymentScoped
     IndexView index() {
@@ -79,51 +97,101 @@ public class DeploymentProducer {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        if (this.cache.isEnabled()) {
+            this.cache.evict();
+        }
         return CompositeIndex.create(indexes);
     }
 
     private void index(Archive<?> archive, List<IndexView> indexes) throws IOException {
         LOGGER.debugv("Indexing archive: {0}", archive.getName());
+        indexes.add(indexClasses(archive));
+
+        if (archive instanceof LibraryContainer) {
+            List<Map.Entry<ArchivePath, Node>> libraries = new ArrayList<>(archive.getContent(a -> a.get().endsWith(JAR_SUFFIX)).entrySet());
+            // libraries are indexed independently of each other; results are merged in archive order either way
+            ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+            List<List<IndexView>> libraryIndexes = libraries.parallelStream()
+                    .map(each -> indexLibrary(each, tccl))
+                    .collect(Collectors.toList());
+            libraryIndexes.forEach(indexes::addAll);
+        }
+    }
 
+    private Index indexClasses(Archive<?> archive) throws IOException {
         // First try to load attached index
         Node indexNode = archive.get(ArchivePaths.create(INDEX_LOCATION));
         if (indexNode != null) {
             try (InputStream indexStream = indexNode.getAsset().openStream()) {
                 LOGGER.debugv("Loading attached index from archive: {0}", archive.getName());
-                indexes.add(new IndexReader(indexStream).read());
+                return new IndexReader(indexStream).read();
             }
-        } else {
-            // No index found - index all classes found
-            Indexer indexer = new Indexer();
-            for (Map.Entry<ArchivePath, Node> entry : archive.getContent(this::isClass).entrySet()) {
-                try (InputStream contentStream = entry.getValue().getAsset().openStream()) {
-                    LOGGER.debugv("Indexing asset: {0} from archive: {1}", entry.getKey().get(), archive.getName());
-                    indexer.index(contentStream);
-                } catch (IOException indexerIOException) {
-                    LOGGER.warnv(indexerIOException,
-                            "Failed parsing: {0} from archive: {1}",
-                            entry.getKey().get(),
-                            archive.getName());
-                }
+        }
+
+        // No index found - index all classes found
+        Indexer indexer = new Indexer();
+        for (Map.Entry<ArchivePath, Node> entry : archive.getContent(this::isClass).entrySet()) {
+            try (InputStream contentStream = entry.getValue().getAsset().openStream()) {
+                LOGGER.debugv("Indexing asset: {0} from archive: {1}", entry.getKey().get(), archive.getName());
+                indexer.index(contentStream);
+            } catch (IOException indexerIOException) {
+                LOGGER.warnv(indexerIOException,
+                        "Failed parsing: {0} from archive: {1}",
+                        entry.getKey().get(),
+                        archive.getName());
             }
-            Index index = indexer.complete();
-            indexes.add(index);
         }
+        return indexer.complete();
+    }
+
+    private List<IndexView> indexLibrary(Map.Entry<ArchivePath, Node> entry, ClassLoader tccl) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(tccl);
+        try {
+            return indexLibrary(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
 
-        if (archive instanceof LibraryContainer) {
-            for (Map.Entry<ArchivePath, Node> entry : archive.getContent(a -> a.get().endsWith(JAR_SUFFIX)).entrySet()) {
-                if (entry.getValue().getAsset() instanceof ArchiveAsset) {
-                    ArchiveAsset archiveAsset = (ArchiveAsset) entry.getValue().getAsset();
-                    index(archiveAsset.getArchive(), indexes);
-                } else {
-                    try (InputStream contentStream = entry.getValue().getAsset().openStream()) {
-                        JARArchive jarArchive = ShrinkWrap.create(JARArchive.class, entry.getKey().get()).as(ZipImporter.class).importFrom(contentStream)
-                                .as(JARArchive.class);
-                        index(jarArchive, indexes);
-                    }
-                }
+    private List<IndexView> indexLibrary(Map.Entry<ArchivePath, Node> entry) throws IOException {
+        List<IndexView> indexes = new ArrayList<>();
+        Asset asset = entry.getValue().getAsset();
+        if (asset instanceof ArchiveAsset) {
+            index(((ArchiveAsset) asset).getArchive(), indexes);
+            return indexes;
+        }
+
+        if (!this.cache.isEnabled()) {
+            try (InputStream contentStream = asset.openStream()) {
+                index(importLibrary(entry.getKey(), contentStream), indexes);
             }
+            return indexes;
+        }
+
+        byte[] content;
+        try (InputStream contentStream = asset.openStream()) {
+            content = DeploymentIndexCache.read(contentStream);
         }
+        String key = DeploymentIndexCache.keyOf(content);
+        Index index = this.cache.get(key);
+        if (index != null) {
+            LOGGER.debugv("Loading cached index of: {0}", entry.getKey().get());
+        } else {
+            // an imported JARArchive is not a library container, its own classes are all there is to index
+            index = indexClasses(importLibrary(entry.getKey(), new ByteArrayInputStream(content)));
+            this.cache.put(key, index);
+        }
+        indexes.add(index);
+        return indexes;
+    }
+
+    private static JARArchive importLibrary(ArchivePath path, InputStream contentStream) {
+        return ShrinkWrap.create(JARArchive.class, path.get()).as(ZipImporter.class).importFrom(contentStream)
+                .as(JARArchive.class);
     }
 
     private boolean isClass(ArchivePath a) {
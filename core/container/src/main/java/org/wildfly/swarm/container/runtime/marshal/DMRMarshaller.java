@@ -26,6 +26,7 @@ import org.wildfly.swarm.bootstrap.performance.Performance;
 
 import org.wildfly.swarm.spi.runtime.ConfigurationMarshaller;
 import org.wildfly.swarm.spi.runtime.CustomMarshaller;
+import org.wildfly.swarm.spi.runtime.OperationList;
 
 /**
  * @author Bob McWhirter
@@ -55,7 +56,9 @@ public class DMRMarshaller implements ConfigurationMarshaller {
     private SocketBindingGroupMarshaller socketBindingGroupMarshaller;
 
 
-    public void marshal(List<ModelNode> list) {
+    public void marshal(List<ModelNode> operations) {
+        // index operations by address, for each marshaller's duplicate checks
+        List<ModelNode> list = operations instanceof OperationList ? operations : new OperationList(operations);
         try {
             try (AutoCloseable handle = Performance.time("marshal XML")) {
                 this.xmlMarshaller.marshal(list);
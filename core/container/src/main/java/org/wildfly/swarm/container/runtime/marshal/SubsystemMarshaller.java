@@ -15,8 +15,10 @@
  */
 package org.wildfly.swarm.container.runtime.marshal;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Any;
@@ -27,10 +29,12 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.PathElement;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.swarm.bootstrap.performance.Performance;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.config.runtime.invocation.Marshaller;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.MarshalDMR;
 import org.wildfly.swarm.spi.api.annotations.WildFlySubsystem;
+import org.wildfly.swarm.spi.api.internal.SwarmInternalProperties;
 import org.wildfly.swarm.spi.runtime.ConfigurationMarshaller;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
@@ -49,21 +53,35 @@ public class SubsystemMarshaller implements ConfigurationMarshaller {
     private Instance<Fraction> fractions;
 
     public void marshal(List<ModelNode> list) {
-        for (Fraction each : this.fractions) {
+        List<Fraction> fractions = new ArrayList<>();
+        this.fractions.forEach(fractions::add);
 
-            MarshalDMR anno = each.getClass().getAnnotation(MarshalDMR.class);
-
-            if (anno != null) {
-                try {
-                    try (AutoCloseable handle = Performance.time("marshall " + each.getClass().getSimpleName())) {
-                        LinkedList<ModelNode> subList = Marshaller.marshal(each);
-                        if (!isAlreadyConfigured(subList, list)) {
-                            list.addAll(subList);
-                        }
-                    }
+        // marshalling is independent per fraction; results are merged in fraction order either way
+        List<LinkedList<ModelNode>> marshalled;
+        if (BootstrapProperties.flagIsSet(SwarmInternalProperties.PARALLEL_MARSHALLING)) {
+            ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+            marshalled = fractions.parallelStream()
+                    .map(each -> marshalDMR(each, tccl))
+                    .collect(Collectors.toList());
+        } else {
+            marshalled = new ArrayList<>();
+            for (Fraction each : fractions) {
+                try (AutoCloseable handle = Performance.time("marshall " + each.getClass().getSimpleName())) {
+                    marshalled.add(marshalDMR(each));
                 } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
+            }
+        }
+
+        for (int i = 0; i < fractions.size(); ++i) {
+            Fraction each = fractions.get(i);
+            LinkedList<ModelNode> subList = marshalled.get(i);
+
+            if (subList != null) {
+                if (!isAlreadyConfigured(subList, list)) {
+                    list.addAll(subList);
+                }
             } else {
                 WildFlySubsystem subsysAnno = each.getClass().getAnnotation(WildFlySubsystem.class);
 
@@ -80,4 +98,24 @@ public class SubsystemMarshaller implements ConfigurationMarshaller {
         }
 
     }
+
+    private LinkedList<ModelNode> marshalDMR(Fraction fraction, ClassLoader tccl) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(tccl);
+        try {
+            return marshalDMR(fraction);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private LinkedList<ModelNode> marshalDMR(Fraction fraction) throws Exception {
+        if (fraction.getClass().getAnnotation(MarshalDMR.class) == null) {
+            return null;
+        }
+        return Marshaller.marshal(fraction);
+    }
 }
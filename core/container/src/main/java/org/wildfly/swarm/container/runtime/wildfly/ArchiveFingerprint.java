@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.wildfly;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.ClassAsset;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+
+/**
+ * Content fingerprint of a ShrinkWrap archive, computed from its entries rather than its zipped form.
+ *
+ * <p>The archive name is part of the fingerprint. Digests of assets known not to change (and of files,
+ * until they are modified) are memoized, so fingerprinting an archive again only reads what may have
+ * changed, and never compresses anything. Assets read through a classloader or URL are always re-read,
+ * since what lies behind them may be rebuilt in place.</p>
+ */
+final class ArchiveFingerprint {
+
+    private ArchiveFingerprint() {
+
+    }
+
+    static String of(Archive<?> archive) throws IOException {
+        return SwarmContentRepository.toKey(digest(archive));
+    }
+
+    private static byte[] digest(Archive<?> archive) throws IOException {
+        Map<String, Node> entries = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            entries.put(each.getKey().get(), each.getValue());
+        }
+
+        MessageDigest digest = newDigest();
+        digest.update(archive.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        for (Map.Entry<String, Node> each : entries.entrySet()) {
+            digest.update(each.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            Asset asset = each.getValue().getAsset();
+            if (asset != null) {
+                digest.update(digest(asset));
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] digest(Asset asset) throws IOException {
+        if (asset instanceof ArchiveAsset) {
+            return digest(((ArchiveAsset) asset).getArchive());
+        }
+
+        long stamp = stamp(asset);
+        if (stamp == UNCACHEABLE) {
+            return read(asset);
+        }
+
+        Memo memo = MEMOS.get(asset);
+        if (memo == null || memo.stamp != stamp) {
+            memo = new Memo(stamp, read(asset));
+            MEMOS.put(asset, memo);
+        }
+        return memo.digest;
+    }
+
+    private static long stamp(Asset asset) {
+        if (asset instanceof FileAsset) {
+            File file = ((FileAsset) asset).getSource();
+            return file.lastModified() * 31 + file.length();
+        }
+        if (asset instanceof ByteArrayAsset || asset instanceof StringAsset || asset instanceof EmptyAsset
+                || asset instanceof ClassAsset) {
+            return 0;
+        }
+        return UNCACHEABLE;
+    }
+
+    private static byte[] read(Asset asset) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = asset.openStream()) {
+            if (in != null) {
+                byte[] bytes = new byte[8192];
+                int read;
+                while ((read = in.read(bytes)) > -1) {
+                    digest.update(bytes, 0, read);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static final long UNCACHEABLE = -1;
+
+    private static final Map<Asset, Memo> MEMOS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static class Memo {
+        Memo(long stamp, byte[] digest) {
+            this.stamp = stamp;
+            this.digest = digest;
+        }
+
+        final long stamp;
+
+        final byte[] digest;
+    }
+}
@@ -4,14 +4,19 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.security.CodeSigner;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
@@ -39,8 +44,45 @@ public class ShrinkWrapFileSystem implements FileSystem {
         this.tempDir = this.tempFileProvider.createTempDir("wildfly-swarm-deployments.tmp");
     }
 
-    public void addArchive(String name, Archive<?> archive) {
-        this.archives.put(name, new Entry(archive));
+    /**
+     * Add an archive, exporting it exactly once.
+     *
+     * <p>The zipped archive is spooled to disk while its SHA-1 and size are computed, and served from
+     * there afterwards. An archive whose content was already added is recognized by its
+     * {@link ArchiveFingerprint} and shares the earlier export.</p>
+     *
+     * @param name    The name to mount the archive under.
+     * @param archive The archive.
+     * @return The SHA-1 of the zipped archive.
+     * @throws IOException If the archive cannot be exported.
+     */
+    public byte[] addArchive(String name, Archive<?> archive) throws IOException {
+        String fingerprint = ArchiveFingerprint.of(archive);
+        Entry entry = this.exports.get(fingerprint);
+        if (entry == null || !entry.file.exists()) {
+            entry = export(fingerprint, archive);
+            this.exports.put(fingerprint, entry);
+        }
+        this.archives.put(name, entry);
+        return entry.sha1;
+    }
+
+    private Entry export(String fingerprint, Archive<?> archive) throws IOException {
+        File file = this.tempDir.getFile(fingerprint + File.separator + archive.getName());
+        if (!file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
+            throw new IOException("Unable to create " + file.getParentFile());
+        }
+
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file.toPath()), messageDigest)) {
+            archive.as(ZipExporter.class).exportTo(out);
+        }
+        return new Entry(fingerprint, file, file.length(), messageDigest.digest());
     }
 
     @Override
@@ -51,21 +93,16 @@ public class ShrinkWrapFileSystem implements FileSystem {
     }
 
     File getFile(Entry entry) {
-        if (entry.file == null) {
-            try {
-                entry.file = this.tempDir.createFile(entry.archive.getName(), entry.archive.as(ZipExporter.class).exportAsInputStream());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
         return entry.file;
     }
 
     @Override
     public InputStream openInputStream(VirtualFile mountPoint, VirtualFile target) throws IOException {
-        return getEntry(mountPoint, target)
-                .map(e -> e.archive.as(ZipExporter.class).exportAsInputStream()).orElse(null);
+        Optional<Entry> entry = getEntry(mountPoint, target);
+        if (!entry.isPresent()) {
+            return null;
+        }
+        return Files.newInputStream(entry.get().file.toPath());
     }
 
     Optional<Entry> getEntry(VirtualFile mountPoint, VirtualFile target) {
@@ -81,9 +118,12 @@ public class ShrinkWrapFileSystem implements FileSystem {
 
     @Override
     public boolean delete(VirtualFile mountPoint, VirtualFile target) {
-        getEntry(mountPoint, target)
+        String name = target.getPathNameRelativeTo(mountPoint);
+        Optional.ofNullable(this.archives.remove(name))
+                .filter(e -> !this.archives.containsValue(e))
                 .ifPresent(e -> {
                     try {
+                        this.exports.remove(e.fingerprint, e);
                         e.close();
                     } catch (IOException e1) {
                         e1.printStackTrace();
@@ -100,11 +140,6 @@ public class ShrinkWrapFileSystem implements FileSystem {
     }
 
     long sizeof(Entry entry) {
-        if (entry.size == null) {
-            SizingOutputStream sizingOutputStream = new SizingOutputStream();
-            entry.archive.as(ZipExporter.class).exportTo(sizingOutputStream);
-            entry.size = sizingOutputStream.getSize();
-        }
         return entry.size;
     }
 
@@ -157,7 +192,9 @@ public class ShrinkWrapFileSystem implements FileSystem {
         return null;
     }
 
-    private Map<String, Entry> archives = new HashMap<>();
+    private Map<String, Entry> archives = new ConcurrentHashMap<>();
+
+    private Map<String, Entry> exports = new ConcurrentHashMap<>();
 
     private TempDir tempDir;
 
@@ -165,22 +202,25 @@ public class ShrinkWrapFileSystem implements FileSystem {
     private TempFileProvider tempFileProvider;
 
     private static class Entry implements Closeable {
-        Entry(Archive<?> archive) {
-            this.archive = archive;
+        Entry(String fingerprint, File file, long size, byte[] sha1) {
+            this.fingerprint = fingerprint;
+            this.file = file;
+            this.size = size;
+            this.sha1 = sha1;
         }
 
         @Override
         public void close() throws IOException {
-            if (this.file != null) {
-                this.file.delete();
-            }
+            this.file.delete();
         }
 
-        final Archive<?> archive;
+        final String fingerprint;
+
+        final File file;
 
-        Long size;
+        final long size;
 
-        File file;
+        final byte[] sha1;
     }
 
 
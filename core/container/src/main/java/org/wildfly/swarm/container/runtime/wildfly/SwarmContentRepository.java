@@ -66,7 +66,6 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.shrinkwrap.api.Archive;
-import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.vfs.VFS;
 import org.jboss.vfs.VirtualFile;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
@@ -116,24 +115,10 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
     }
 
     public byte[] addContent(Archive<?> archive) throws IOException, URISyntaxException {
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
-            byte[] sha1Bytes;
-            messageDigest.reset();
-            BufferedInputStream bis = new BufferedInputStream(archive.as(ZipExporter.class).exportAsInputStream());
-            byte[] bytes = new byte[8192];
-            int read;
-            while ((read = bis.read(bytes)) > -1) {
-                messageDigest.update(bytes, 0, read);
-            }
-            sha1Bytes = messageDigest.digest();
-            String key = toKey(sha1Bytes);
-            this.fs.addArchive(archive.getName(), archive);
-            this.index.put(key, this.fsMount.getChild(archive.getName()).toURI());
-            return sha1Bytes;
-        } catch (NoSuchAlgorithmException e) {
-            throw new IOException(e);
-        }
+        byte[] sha1Bytes = this.fs.addArchive(archive.getName(), archive);
+        String key = toKey(sha1Bytes);
+        this.index.put(key, this.fsMount.getChild(archive.getName()).toURI());
+        return sha1Bytes;
     }
 
     @Override
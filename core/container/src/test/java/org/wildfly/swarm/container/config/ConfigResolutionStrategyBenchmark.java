@@ -0,0 +1,131 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Lookup throughput of {@link ConfigResolutionStrategy} over a 10k-key <code>project-defaults.yml</code>
+ * with an environment overlay, before ({@code activated = false}) and after activation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigResolutionStrategyBenchmark {
+
+    private static final int SECTIONS = 100;
+
+    private static final int KEYS_PER_SECTION = 100;
+
+    @Param({"false", "true"})
+    public boolean activated;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.strategy = createStrategy();
+        if (this.activated) {
+            this.strategy.activate();
+        }
+
+        for (int section = 0; section < SECTIONS; ++section) {
+            this.prefixes.add(ConfigKey.parse("swarm.section" + section));
+            for (int key = 0; key < KEYS_PER_SECTION; ++key) {
+                this.keys.add(ConfigKey.parse("swarm.section" + section + ".key" + key));
+            }
+        }
+    }
+
+    @Benchmark
+    public void valueOf(Blackhole blackhole) {
+        for (ConfigKey each : this.keys) {
+            blackhole.consume(this.strategy.valueOf(each));
+        }
+    }
+
+    @Benchmark
+    public void simpleSubkeysOf(Blackhole blackhole) {
+        for (ConfigKey each : this.prefixes) {
+            blackhole.consume(this.strategy.simpleSubkeysOf(each));
+            blackhole.consume(this.strategy.hasKeyOrSubkeys(each));
+        }
+    }
+
+    @Benchmark
+    public ConfigResolutionStrategy activate() {
+        ConfigResolutionStrategy strategy = createStrategy();
+        strategy.activate();
+        return strategy;
+    }
+
+    private static ConfigResolutionStrategy createStrategy() {
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(new Properties());
+        strategy.withEnvironment(environment());
+        strategy.add(MapConfigNodeFactory.load(projectDefaults()));
+        return strategy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> projectDefaults() {
+        StringBuilder yaml = new StringBuilder("swarm:\n");
+        for (int section = 0; section < SECTIONS; ++section) {
+            yaml.append("  section").append(section).append(":\n");
+            for (int key = 0; key < KEYS_PER_SECTION; ++key) {
+                yaml.append("    key").append(key).append(": value-").append(section).append('-').append(key).append('\n');
+            }
+        }
+        return (Map<String, ?>) new Yaml().load(yaml.toString());
+    }
+
+    private static Map<String, String> environment() {
+        Map<String, String> env = new HashMap<>();
+        for (int section = 0; section < SECTIONS; section += 10) {
+            for (int key = 0; key < KEYS_PER_SECTION; key += 10) {
+                env.put("SWARM_SECTION" + section + "_KEY" + key, "env-" + section + "-" + key);
+            }
+        }
+        return env;
+    }
+
+    private ConfigResolutionStrategy strategy;
+
+    private final List<ConfigKey> keys = new ArrayList<>();
+
+    private final List<ConfigKey> prefixes = new ArrayList<>();
+}
@@ -15,10 +15,14 @@
  */
 package org.wildfly.swarm.container.config;
 
+import java.util.List;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
+import org.wildfly.swarm.spi.api.ConfigurationFilter;
 import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.wildfly.swarm.spi.api.config.SimpleKey;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -122,5 +126,82 @@ public class ConfigResolutionStrategyTest {
         assertThat(props.getProperty("swarm.data-sources.ExampleDS.driver-name")).isEqualTo("cooper");
     }
 
+    @Test
+    public void testActivatedMatchesUnactivated() {
+        ConfigResolutionStrategy activated = layered();
+        activated.activate();
+        ConfigResolutionStrategy unactivated = layered();
+
+        for (String each : new String[]{"swarm.http.port", "SWARM.HTTP.PORT", "swarm.http", "swarm.data-sources.ExampleDS.url",
+                "swarm.data-sources.ExampleDS.user-name", "swarm.data-sources.ExampleDS.password", "swarm.missing"}) {
+            ConfigKey key = ConfigKey.parse(each);
+            assertThat(plain(activated.valueOf(key))).isEqualTo(plain(unactivated.valueOf(key)));
+            assertThat(activated.hasKeyOrSubkeys(key)).isEqualTo(unactivated.hasKeyOrSubkeys(key));
+            assertThat(names(activated.simpleSubkeysOf(key))).isEqualTo(names(unactivated.simpleSubkeysOf(key)));
+        }
+
+        assertThat(activated.hasKeyOrSubkeys(ConfigKey.EMPTY)).isTrue();
+        assertThat(names(activated.simpleSubkeysOf(ConfigKey.EMPTY))).isEqualTo(names(unactivated.simpleSubkeysOf(ConfigKey.EMPTY)));
+
+        assertThat(activated.valueOf(ConfigKey.parse("swarm.data-sources.ExampleDS.password"))).isEqualTo("defaulted");
+        assertThat(names(activated.simpleSubkeysOf(ConfigKey.parse("swarm.data-sources.ExampleDS"))))
+                .containsOnly("url", "password", "user-name");
+    }
+
+    @Test
+    public void testModifiedAfterActivate() {
+        Properties props = new Properties();
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(props);
+        strategy.add(new ConfigNode() {{
+            recursiveChild("swarm.http.port", "8080");
+        }});
+        strategy.activate();
+
+        assertThat(strategy.hasKeyOrSubkeys(ConfigKey.parse("swarm.https"))).isFalse();
+
+        strategy.withProperty("swarm.https.port", "8443");
+        strategy.withFilter(new ConfigurationFilter() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> T filter(String key, T value) {
+                return key.equals("swarm.http.port") ? (T) "9090" : value;
+            }
+        });
+
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.https.port"))).isEqualTo("8443");
+        assertThat(strategy.valueOf(ConfigKey.parse("swarm.http.port"))).isEqualTo("9090");
+        assertThat(strategy.hasKeyOrSubkeys(ConfigKey.parse("swarm.https"))).isTrue();
+    }
 
+    private static ConfigResolutionStrategy layered() {
+        Properties props = new Properties() {{
+            setProperty("swarm.data-sources.ExampleDS.url", "jdbc:otherwise");
+        }};
+
+        ConfigResolutionStrategy strategy = new ConfigResolutionStrategy(props);
+        strategy.add(new ConfigNode() {{
+            recursiveChild("swarm.http.port", "8080");
+            recursiveChild("swarm.data-sources.ExampleDS.url", "jdbc:db");
+            recursiveChild("swarm.data-sources.ExampleDS.password", "secret");
+        }});
+        strategy.defaults(new ConfigNode() {{
+            recursiveChild("swarm.data-sources.ExampleDS.user-name", "sa");
+            recursiveChild("swarm.data-sources.ExampleDS.password", "defaulted");
+        }});
+        strategy.withFilter(new ConfigurationFilter() {
+            @Override
+            public <T> T filter(String key, T value) {
+                return "secret".equals(value) ? null : value;
+            }
+        });
+        return strategy;
+    }
+
+    private static Object plain(Object value) {
+        return value instanceof ConfigNode ? ((ConfigNode) value).asObject() : value;
+    }
+
+    private static List<String> names(List<SimpleKey> keys) {
+        return keys.stream().map(SimpleKey::name).collect(Collectors.toList());
+    }
 }
@@ -113,6 +113,24 @@ public class ConfigurableManagerTest {
         }
     }
 
+    @Test
+    public void testMetadataSharedAcrossManagers() throws Exception {
+        for (String each : new String[]{"/first", "/second"}) {
+            Properties props = new Properties();
+            Map<String, String> env = new HashMap<>();
+            ConfigViewFactory factory = new ConfigViewFactory(props, env);
+            factory.withProperty("swarm.http.context", each);
+            ConfigurableManager manager = new ConfigurableManager(factory.get(true), new DeploymentContextImpl());
+
+            Component component = new Component();
+            manager.scan(component);
+            assertThat(component.context.get()).isEqualTo(each);
+        }
+
+        assertThat(ConfigurableMetadata.of(Component.class)).isSameAs(ConfigurableMetadata.of(Component.class));
+        assertThat(ConfigurableMetadata.of(Component.class).fields()).hasSize(1);
+    }
+
     public static class Component {
         @Configurable("swarm.deployment.*.context")
         @Configurable("swarm.http.context")
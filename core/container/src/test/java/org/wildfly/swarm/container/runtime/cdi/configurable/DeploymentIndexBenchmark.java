@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.cdi.configurable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to index a WAR of 200 libraries, each a copy of the Jandex jar, without and with
+ * the persistent index cache (populated by the first iteration).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeploymentIndexBenchmark {
+
+    private static final int LIBRARIES = 200;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File jandex = new File(Indexer.class.getProtectionDomain().getCodeSource().getLocation().getFile());
+
+        this.war = ShrinkWrap.create(WebArchive.class, "benchmark.war");
+        this.war.addClasses(Foo.class, Bar.class);
+        for (int i = 0; i < LIBRARIES; ++i) {
+            JavaArchive lib = ShrinkWrap.create(JavaArchive.class).as(ZipImporter.class).importFrom(jandex).as(JavaArchive.class);
+            // distinct content, so that each library has its own cache entry
+            lib.add(new StringAsset(String.valueOf(i)), "META-INF/library.txt");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            lib.as(ZipExporter.class).exportTo(out);
+            this.war.add(new ByteArrayAsset(out.toByteArray()), "WEB-INF/lib/lib" + i + ".jar");
+        }
+
+        this.cacheDir = Files.createTempDirectory("index-cache").toFile();
+        this.cache = new DeploymentIndexCache(this.cached ? this.cacheDir : null, LIBRARIES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] entries = this.cacheDir.listFiles();
+        if (entries != null) {
+            for (File each : entries) {
+                each.delete();
+            }
+        }
+        this.cacheDir.delete();
+    }
+
+    @Benchmark
+    public IndexView index() {
+        return new DeploymentProducer(this.cache).createDeploymentIndex(this.war);
+    }
+
+    private WebArchive war;
+
+    private File cacheDir;
+
+    private DeploymentIndexCache cache;
+
+}
@@ -1,8 +1,11 @@
 package org.wildfly.swarm.container.runtime.cdi.configurable;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexView;
@@ -11,10 +14,14 @@ import org.jboss.jandex.Indexer;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  *
@@ -22,6 +29,9 @@ import org.junit.Test;
  */
 public class DeploymentIndexTest {
 
+    @Rule
+    public TemporaryFolder tmpdir = new TemporaryFolder();
+
     @Test
     public void testIndexBuilt() {
         WebArchive war = ShrinkWrap.create(WebArchive.class);
@@ -52,6 +62,71 @@ public class DeploymentIndexTest {
         assertDoesNotContain(index, Bar.class);
     }
 
+    @Test
+    public void testManyLibrariesIndexed() {
+        WebArchive war = ShrinkWrap.create(WebArchive.class);
+        war.addClass(Foo.class);
+        for (int i = 0; i < 20; i++) {
+            war.add(library(i, i % 2 == 0 ? Bar.class : Baz.class), "WEB-INF/lib/lib" + i + ".jar");
+        }
+        IndexView index = new DeploymentProducer(new DeploymentIndexCache(null, 1)).createDeploymentIndex(war);
+        assertContains(index, Foo.class);
+        assertContains(index, Bar.class);
+        assertContains(index, Baz.class);
+        assertDoesNotContain(index, Delta.class);
+    }
+
+    @Test
+    public void testIndexCached() throws IOException {
+        DeploymentIndexCache cache = new DeploymentIndexCache(this.tmpdir.getRoot(), 10);
+        WebArchive war = ShrinkWrap.create(WebArchive.class);
+        war.addClass(Foo.class);
+        war.add(library(1, Bar.class), "WEB-INF/lib/lib1.jar");
+        IndexView index = new DeploymentProducer(cache).createDeploymentIndex(war);
+        assertContains(index, Bar.class);
+
+        File[] entries = this.tmpdir.getRoot().listFiles();
+        Assert.assertEquals(1, entries.length);
+
+        // An unchanged library is not indexed again
+        try (InputStream in = createIndexAsset(Delta.class).openStream()) {
+            Files.copy(in, entries[0].toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        index = new DeploymentProducer(cache).createDeploymentIndex(war);
+        assertContains(index, Foo.class);
+        assertContains(index, Delta.class);
+        assertDoesNotContain(index, Bar.class);
+
+        // A corrupt entry is ignored and replaced
+        Files.write(entries[0].toPath(), new byte[]{1, 2, 3});
+        index = new DeploymentProducer(cache).createDeploymentIndex(war);
+        assertContains(index, Bar.class);
+        index = new DeploymentProducer(cache).createDeploymentIndex(war);
+        assertContains(index, Bar.class);
+    }
+
+    @Test
+    public void testIndexCacheEviction() throws IOException {
+        DeploymentIndexCache cache = new DeploymentIndexCache(this.tmpdir.getRoot(), 2);
+        WebArchive war = ShrinkWrap.create(WebArchive.class);
+        for (int i = 0; i < 3; i++) {
+            war.add(library(i, Bar.class), "WEB-INF/lib/lib" + i + ".jar");
+        }
+        new DeploymentProducer(cache).createDeploymentIndex(war);
+        Assert.assertEquals(2, this.tmpdir.getRoot().listFiles().length);
+    }
+
+    /**
+     * A library as found in a packaged deployment, distinct from the other ones.
+     */
+    static Asset library(int number, Class<?>... classes) {
+        JavaArchive lib = ShrinkWrap.create(JavaArchive.class).addClasses(classes);
+        lib.add(new StringAsset(String.valueOf(number)), "META-INF/library.txt");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lib.as(ZipExporter.class).exportTo(out);
+        return new ByteArrayAsset(out.toByteArray());
+    }
+
     private void assertContains(IndexView index, Class<?> clazz) {
         Assert.assertTrue("Index should contain: " + clazz, index.getKnownClasses().stream().anyMatch(c -> c.name().toString().equals(clazz.getName())));
     }
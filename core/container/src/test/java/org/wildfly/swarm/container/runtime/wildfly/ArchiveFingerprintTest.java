@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.wildfly;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.asset.UrlAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ArchiveFingerprintTest {
+
+    @Test
+    public void testSameContentSameFingerprint() throws Exception {
+        assertThat(ArchiveFingerprint.of(archive("one")))
+                .isEqualTo(ArchiveFingerprint.of(archive("one")));
+    }
+
+    @Test
+    public void testChangedContentChangesFingerprint() throws Exception {
+        assertThat(ArchiveFingerprint.of(archive("one")))
+                .isNotEqualTo(ArchiveFingerprint.of(archive("two")));
+    }
+
+    @Test
+    public void testArchiveNameIsFingerprinted() throws Exception {
+        JavaArchive other = ShrinkWrap.create(JavaArchive.class, "other.jar")
+                .add(new StringAsset("one"), "content.txt");
+        assertThat(ArchiveFingerprint.of(archive("one"))).isNotEqualTo(ArchiveFingerprint.of(other));
+    }
+
+    @Test
+    public void testNestedArchiveContentIsFingerprinted() throws Exception {
+        WebArchive one = ShrinkWrap.create(WebArchive.class, "app.war").addAsLibrary(archive("one"));
+        WebArchive two = ShrinkWrap.create(WebArchive.class, "app.war").addAsLibrary(archive("two"));
+        assertThat(ArchiveFingerprint.of(one)).isNotEqualTo(ArchiveFingerprint.of(two));
+    }
+
+    @Test
+    public void testModifiedFileIsNotServedFromMemo() throws Exception {
+        File file = File.createTempFile("fingerprint", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "one".getBytes());
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "lib.jar").add(new FileAsset(file), "file.txt");
+        String before = ArchiveFingerprint.of(archive);
+
+        Files.write(file.toPath(), "three".getBytes());
+        assertThat(ArchiveFingerprint.of(archive)).isNotEqualTo(before);
+    }
+
+    @Test
+    public void testRebuiltUrlIsNotServedFromMemo() throws Exception {
+        File file = File.createTempFile("fingerprint", ".class");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "one".getBytes());
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "lib.jar").add(new UrlAsset(file.toURI().toURL()), "Foo.class");
+        String before = ArchiveFingerprint.of(archive);
+
+        Files.write(file.toPath(), "two".getBytes());
+        assertThat(ArchiveFingerprint.of(archive)).isNotEqualTo(before);
+    }
+
+    private static JavaArchive archive(String content) {
+        return ShrinkWrap.create(JavaArchive.class, "lib.jar")
+                .add(new StringAsset(content), "content.txt");
+    }
+}
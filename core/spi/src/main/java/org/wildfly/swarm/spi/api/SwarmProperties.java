@@ -107,6 +107,16 @@ public interface SwarmProperties {
      */
     String DEPLOYMENT_TIMEOUT = "swarm.deployment.timeout";
 
+    /**
+     * Directory in which the indexes of deployment libraries are cached across restarts. Not cached if unset
+     */
+    String DEPLOYMENT_INDEX_CACHE_DIR = "swarm.deployment.index.cache.dir";
+
+    /**
+     * Maximum number of library indexes kept in {@link SwarmProperties#DEPLOYMENT_INDEX_CACHE_DIR}, defaults to 1000
+     */
+    String DEPLOYMENT_INDEX_CACHE_MAX_ENTRIES = "swarm.deployment.index.cache.max-entries";
+
     /**
      * Port number for Swarm's Arquillian Daemon.
      */
@@ -32,4 +32,6 @@ public interface SwarmInternalProperties {
 
     String NODE_ID = "swarm.node.id";
 
+    String PARALLEL_MARSHALLING = "swarm.marshal.parallel";
+
 }
@@ -39,6 +39,9 @@ public interface ConfigurationMarshaller {
     }
 
     default boolean isAlreadyConfigured(ModelNode addr, List<ModelNode> list) {
+        if (list instanceof OperationList) {
+            return ((OperationList) list).containsAddress(addr);
+        }
         return list.stream().anyMatch(e -> e.get(OP_ADDR).equals(addr));
     }
 }
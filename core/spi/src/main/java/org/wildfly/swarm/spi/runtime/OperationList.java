@@ -0,0 +1,135 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.spi.runtime;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.jboss.dmr.ModelNode;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+/**
+ * A list of management operations which indexes them by address.
+ *
+ * <p>Marshallers check for existing operations at an address before contributing their own; backed
+ * by this list, {@link ConfigurationMarshaller#isAlreadyConfigured(ModelNode, List)} is a hash lookup
+ * rather than a scan of every operation marshalled so far.</p>
+ */
+public class OperationList extends AbstractList<ModelNode> implements RandomAccess {
+
+    public OperationList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * @param delegate The list holding the operations, which should not be modified other than through this list.
+     */
+    public OperationList(List<ModelNode> delegate) {
+        this.delegate = delegate;
+        for (ModelNode each : delegate) {
+            index(each);
+        }
+    }
+
+    /**
+     * Determine if an operation at the given address has been added.
+     *
+     * @param address The operation address.
+     * @return {@code true} if an operation with the address is present, otherwise {@code false}.
+     */
+    public boolean containsAddress(ModelNode address) {
+        return this.addresses.containsKey(address);
+    }
+
+    @Override
+    public ModelNode get(int index) {
+        return this.delegate.get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.delegate.size();
+    }
+
+    @Override
+    public ModelNode set(int index, ModelNode element) {
+        ModelNode previous = this.delegate.set(index, element);
+        unindex(previous);
+        index(element);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, ModelNode element) {
+        this.delegate.add(index, element);
+        index(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends ModelNode> c) {
+        return addAll(size(), c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends ModelNode> c) {
+        boolean modified = this.delegate.addAll(index, c);
+        for (ModelNode each : c) {
+            index(each);
+        }
+        return modified;
+    }
+
+    @Override
+    public ModelNode remove(int index) {
+        ModelNode previous = this.delegate.remove(index);
+        unindex(previous);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        this.delegate.clear();
+        this.addresses.clear();
+    }
+
+    private void index(ModelNode operation) {
+        this.addresses.merge(addressOf(operation), 1, Integer::sum);
+    }
+
+    private void unindex(ModelNode operation) {
+        this.addresses.computeIfPresent(addressOf(operation), (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static ModelNode addressOf(ModelNode operation) {
+        if (operation.has(OP_ADDR)) {
+            // copied, so later changes to the operation can't corrupt the index
+            return operation.get(OP_ADDR).clone();
+        }
+        return UNDEFINED;
+    }
+
+    private static final ModelNode UNDEFINED = new ModelNode();
+
+    private final List<ModelNode> delegate;
+
+    private final Map<ModelNode, Integer> addresses = new HashMap<>();
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.spi.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+public class OperationListTest {
+
+    @Test
+    public void testIndexesExistingAndAdded() {
+        List<ModelNode> backing = new ArrayList<>();
+        backing.add(add("subsystem", "logging"));
+
+        OperationList list = new OperationList(backing);
+        list.add(add("subsystem", "undertow"));
+        list.addAll(0, Collections.singletonList(add("extension", "org.jboss.as.logging")));
+
+        assertThat(backing).hasSize(3);
+        assertThat(backing.get(0).get(OP_ADDR)).isEqualTo(address("extension", "org.jboss.as.logging"));
+        assertThat(list.containsAddress(address("subsystem", "logging"))).isTrue();
+        assertThat(list.containsAddress(address("subsystem", "undertow"))).isTrue();
+        assertThat(list.containsAddress(address("extension", "org.jboss.as.logging"))).isTrue();
+        assertThat(list.containsAddress(address("subsystem", "io"))).isFalse();
+    }
+
+    @Test
+    public void testRemoval() {
+        OperationList list = new OperationList();
+        list.add(add("subsystem", "logging"));
+        list.add(add("subsystem", "logging"));
+
+        list.remove(0);
+        assertThat(list.containsAddress(address("subsystem", "logging"))).isTrue();
+
+        list.set(0, add("subsystem", "io"));
+        assertThat(list.containsAddress(address("subsystem", "logging"))).isFalse();
+        assertThat(list.containsAddress(address("subsystem", "io"))).isTrue();
+
+        list.clear();
+        assertThat(list.containsAddress(address("subsystem", "io"))).isFalse();
+    }
+
+    @Test
+    public void testMatchesUnindexedCheck() {
+        ConfigurationMarshaller marshaller = (list) -> {
+        };
+
+        List<ModelNode> plain = new ArrayList<>();
+        OperationList indexed = new OperationList();
+        for (String each : new String[]{"logging", "io", "undertow"}) {
+            plain.add(add("subsystem", each));
+            indexed.add(add("subsystem", each));
+        }
+
+        for (String each : new String[]{"logging", "undertow", "ejb3"}) {
+            ModelNode address = address("subsystem", each);
+            assertThat(marshaller.isAlreadyConfigured(address, indexed)).isEqualTo(marshaller.isAlreadyConfigured(address, plain));
+        }
+    }
+
+    private static ModelNode add(String type, String name) {
+        ModelNode node = new ModelNode();
+        node.get(OP_ADDR).set(address(type, name));
+        node.get(OP).set(ADD);
+        return node;
+    }
+
+    private static ModelNode address(String type, String name) {
+        return PathAddress.pathAddress(type, name).toModelNode();
+    }
+}
@@ -29,6 +29,10 @@ import org.wildfly.swarm.spi.api.annotations.DeploymentModule.MetaInfDisposition
 @DeploymentModule(name = "org.wildfly.swarm.microprofile.faulttolerance", export = true, slot = "deployment", metaInf = MetaInfDisposition.IMPORT)
 public class MicroProfileFaultToleranceFraction implements Fraction<MicroProfileFaultToleranceFraction> {
 
+    public static final String ENGINE_HYSTRIX = "hystrix";
+
+    public static final String ENGINE_NATIVE = "native";
+
     public MicroProfileFaultToleranceFraction() {
     }
 
@@ -36,7 +40,33 @@ public class MicroProfileFaultToleranceFraction implements Fraction<MicroProfile
         return synchronousCircuitBreaker.get();
     }
 
+    public MicroProfileFaultToleranceFraction engine(String engine) {
+        this.engine.set(engine);
+        return this;
+    }
+
+    public String getEngine() {
+        return engine.get();
+    }
+
+    public MicroProfileFaultToleranceFraction maxSleepingRetries(int maxSleepingRetries) {
+        this.maxSleepingRetries.set(maxSleepingRetries);
+        return this;
+    }
+
+    public int getMaxSleepingRetries() {
+        return maxSleepingRetries.get();
+    }
+
     @AttributeDocumentation("Enable/disable synchronous circuit breaker functionality. If disabled, `CircuitBreaker#successThreshold()` of value greater than 1 is not supported. Moreover, circuit breaker does not necessarily transition from `CLOSED` to `OPEN` immediately when a fault tolerance operation completes. However, applications are encouraged to disable this feature on high-volume circuits.")
     @Configurable("swarm.microprofile.fault-tolerance.synchronous-circuit-breaker")
     private Defaultable<Boolean> synchronousCircuitBreaker = Defaultable.bool(true);
+
+    @AttributeDocumentation("The engine used to execute fault tolerance operations, either `hystrix` (default) or `native`. The native engine applies timeout, retry, circuit breaker, bulkhead and fallback without creating Hystrix commands, and always uses the synchronous circuit breaker.")
+    @Configurable("swarm.microprofile.fault-tolerance.engine")
+    private Defaultable<String> engine = Defaultable.string(ENGINE_HYSTRIX);
+
+    @AttributeDocumentation("The maximum number of synchronous invocations waiting for the delay of their next `@Retry` attempt at the same time. Beyond it, a failed invocation fails immediately instead of retrying. A negative value means no limit. Asynchronous invocations never wait on a thread for a retry delay.")
+    @Configurable("swarm.microprofile.fault-tolerance.max-sleeping-retries")
+    private Defaultable<Integer> maxSleepingRetries = Defaultable.integer(-1);
 }
@@ -29,6 +29,8 @@ import com.netflix.hystrix.HystrixCommandProperties;
 import com.netflix.hystrix.HystrixThreadPoolKey;
 import com.netflix.hystrix.HystrixThreadPoolProperties;
 
+import rx.Observable;
+
 /**
  * This command is used to wrap any {@link Asynchronous} operation.
  *
@@ -40,6 +42,10 @@ public class CompositeCommand extends HystrixCommand<Object> {
         return new CompositeCommand(callable, operation).queue();
     }
 
+    public static Observable<Object> createAndObserve(Callable<Object> callable, FaultToleranceOperation operation) {
+        return new CompositeCommand(callable, operation).toObservable();
+    }
+
     private final Callable<Object> callable;
 
     /**
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.jboss.logging.Logger;
+import org.jboss.weld.context.RequestContext;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.FaultToleranceOperation;
+
+/**
+ * Holds the state shared by all invocations of the native engine: a {@link FaultTolerancePipeline} per method, which keeps the circuit breaker and
+ * bulkhead state, and the threads used for asynchronous operations and timeouts.
+ *
+ * @see HystrixCommandInterceptor#ENGINE_KEY
+ */
+@ApplicationScoped
+class FaultToleranceEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(FaultToleranceEngine.class);
+
+    @Resource(lookup = "java:comp/DefaultManagedThreadFactory")
+    ManagedThreadFactory threadFactory;
+
+    @PostConstruct
+    void onStartup() {
+        ThreadFactory factory = threadFactory != null ? threadFactory : Executors.defaultThreadFactory();
+        asyncExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), factory);
+        timeoutExecutor = new ScheduledThreadPoolExecutor(1, factory);
+        // Most timeouts are cancelled, do not keep them around until they would fire
+        timeoutExecutor.setRemoveOnCancelPolicy(true);
+        LOGGER.info("Native fault tolerance engine used");
+    }
+
+    @PreDestroy
+    void onShutdown() {
+        asyncExecutor.shutdownNow();
+        timeoutExecutor.shutdownNow();
+    }
+
+    FaultTolerancePipeline getPipeline(FaultToleranceOperation operation, Function<ExecutionContextWithInvocationContext, Supplier<Object>> fallback,
+                                       boolean nonFallBackEnable, RequestContext requestContext, RetryScheduler retryScheduler) {
+        return pipelines.computeIfAbsent(operation.getMethod(),
+                (method) -> new FaultTolerancePipeline(operation, fallback, nonFallBackEnable, requestContext, asyncExecutor, timeoutExecutor,
+                                                       retryScheduler));
+    }
+
+    private final Map<Method, FaultTolerancePipeline> pipelines = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor asyncExecutor;
+
+    private ScheduledThreadPoolExecutor timeoutExecutor;
+
+}
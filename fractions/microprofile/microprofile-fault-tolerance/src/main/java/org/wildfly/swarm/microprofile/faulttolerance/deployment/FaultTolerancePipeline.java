@@ -0,0 +1,490 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+import org.jboss.weld.context.RequestContext;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.BulkheadConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.CircuitBreakerConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.FaultToleranceOperation;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.RetryConfig;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.TimeoutConfig;
+
+/**
+ * The fault tolerance policies of a single operation, applied without Hystrix.
+ *
+ * <p>
+ * The pipeline is assembled once per {@link Method} from its {@link FaultToleranceOperation}, outermost first: fallback, retry, circuit breaker, timeout,
+ * bulkhead and the invocation itself. Only the stages the operation declares are part of the chain and all configuration is resolved up front, so an
+ * invocation which does not fail allocates nothing but the timeout watchdog.
+ * </p>
+ * <p>
+ * Unlike Hystrix, a synchronous operation always executes on the calling thread. A timeout interrupts that thread, which means a method ignoring interruption
+ * only fails with {@link TimeoutException} once it returns. {@link org.eclipse.microprofile.faulttolerance.Asynchronous} operations run the whole chain on the
+ * async executor, so a waiting bulkhead task occupies a thread there rather than a queue slot. Their retries do not wait on a thread though: the next attempt
+ * is scheduled by the {@link RetryScheduler} and submitted to the async executor again once the delay elapsed.
+ * </p>
+ *
+ * @see HystrixCommandInterceptor#ENGINE_KEY
+ */
+class FaultTolerancePipeline {
+
+    /**
+     * @param operation         The operation to apply.
+     * @param fallback          Produces the fallback of an invocation, or <code>null</code> if the operation has none.
+     * @param nonFallBackEnable If <code>false</code>, only the fallback is applied.
+     * @param requestContext    Activated around asynchronous invocations, may be <code>null</code>.
+     * @param asyncExecutor     Executes asynchronous operations.
+     * @param timeoutExecutor   Fires timeouts.
+     * @param retryScheduler    Waits out retry delays.
+     */
+    FaultTolerancePipeline(FaultToleranceOperation operation, Function<ExecutionContextWithInvocationContext, Supplier<Object>> fallback,
+                           boolean nonFallBackEnable, RequestContext requestContext, Executor asyncExecutor, ScheduledExecutorService timeoutExecutor,
+                           RetryScheduler retryScheduler) {
+        this.asyncExecutor = asyncExecutor;
+        this.retryScheduler = retryScheduler;
+        this.fallback = fallback;
+
+        Stage stage = new InvokeStage(operation.isAsync() ? requestContext : null);
+        RetryStage retry = null;
+        if (nonFallBackEnable) {
+            if (operation.hasBulkhead()) {
+                stage = new BulkheadStage(stage, operation.getBulkhead(), operation.isAsync());
+            }
+            if (operation.hasTimeout()) {
+                stage = new TimeoutStage(stage, operation.getTimeout(), timeoutExecutor);
+            }
+            if (operation.hasCircuitBreaker()) {
+                stage = new CircuitBreakerStage(stage, operation.getCircuitBreaker(), operation.getMethod());
+            }
+            if (operation.hasRetry()) {
+                retry = new RetryStage(stage, operation.getRetry(), retryScheduler);
+                stage = retry;
+            }
+        }
+        if (fallback != null) {
+            stage = new FallbackStage(stage, fallback);
+        }
+        this.head = stage;
+        // Asynchronous invocations are retried by an AsyncRetry instead
+        this.asyncRetry = operation.isAsync() ? retry : null;
+    }
+
+    /**
+     * Execute the operation on the calling thread.
+     *
+     * @param ctx The invocation.
+     * @return The result of the invocation, or of its fallback.
+     * @throws Exception If the invocation failed and there is no fallback.
+     */
+    Object execute(ExecutionContextWithInvocationContext ctx) throws Exception {
+        try {
+            return head.apply(ctx);
+        } catch (FailureNotHandledException e) {
+            // The circuit breaker does not handle the failure - neither retry nor fallback apply
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Execute the operation on the async executor.
+     *
+     * @param ctx The invocation.
+     * @return A future completing with whatever {@link #execute(ExecutionContextWithInvocationContext)} returns, i.e. the future returned by the method.
+     */
+    Future<Object> submit(ExecutionContextWithInvocationContext ctx) {
+        if (asyncRetry != null) {
+            AsyncRetry invocation = new AsyncRetry(ctx);
+            asyncExecutor.execute(invocation);
+            return invocation;
+        }
+        FutureTask<Object> task = new FutureTask<>(() -> execute(ctx));
+        asyncExecutor.execute(task);
+        return task;
+    }
+
+    private static boolean isAssignableFromAny(Class<?>[] types, Throwable throwable) {
+        for (Class<?> type : types) {
+            if (type.isAssignableFrom(throwable.getClass())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final Executor asyncExecutor;
+
+    private final RetryScheduler retryScheduler;
+
+    private final Function<ExecutionContextWithInvocationContext, Supplier<Object>> fallback;
+
+    private final Stage head;
+
+    private final RetryStage asyncRetry;
+
+    interface Stage {
+
+        Object apply(ExecutionContextWithInvocationContext ctx) throws Exception;
+
+    }
+
+    static final class InvokeStage implements Stage {
+
+        InvokeStage(RequestContext requestContext) {
+            this.requestContext = requestContext;
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (requestContext == null) {
+                return ctx.proceed();
+            }
+            try {
+                requestContext.activate();
+                return ctx.proceed();
+            } finally {
+                requestContext.invalidate();
+                requestContext.deactivate();
+            }
+        }
+
+        private final RequestContext requestContext;
+
+    }
+
+    static final class BulkheadStage implements Stage {
+
+        BulkheadStage(Stage next, BulkheadConfig config, boolean async) {
+            this.next = next;
+            this.permits = new Semaphore(config.<Integer>get(BulkheadConfig.VALUE));
+            // The waiting queue only applies to asynchronous invocations
+            this.queueSize = async ? config.<Integer>get(BulkheadConfig.WAITING_TASK_QUEUE) : 0;
+            this.waiting = new AtomicInteger();
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (!permits.tryAcquire()) {
+                if (waiting.incrementAndGet() > queueSize) {
+                    waiting.decrementAndGet();
+                    throw new BulkheadException("Bulkhead full: " + ctx.getMethod());
+                }
+                try {
+                    permits.acquire();
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            try {
+                return next.apply(ctx);
+            } finally {
+                permits.release();
+            }
+        }
+
+        private final Stage next;
+
+        private final Semaphore permits;
+
+        private final int queueSize;
+
+        private final AtomicInteger waiting;
+
+    }
+
+    static final class TimeoutStage implements Stage {
+
+        TimeoutStage(Stage next, TimeoutConfig config, ScheduledExecutorService timeoutExecutor) {
+            this.next = next;
+            this.timeoutMillis = Duration.of(config.get(TimeoutConfig.VALUE), config.get(TimeoutConfig.UNIT)).toMillis();
+            this.timeoutExecutor = timeoutExecutor;
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            Watchdog watchdog = new Watchdog(Thread.currentThread());
+            ScheduledFuture<?> timeout = timeoutExecutor.schedule(watchdog, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                Object result = next.apply(ctx);
+                if (watchdog.complete()) {
+                    return result;
+                }
+            } catch (Throwable t) {
+                if (watchdog.complete()) {
+                    throw t;
+                }
+            } finally {
+                timeout.cancel(false);
+            }
+            // Note that the invocation counts as timed out even if it completed normally after being interrupted
+            throw new TimeoutException("Timed out after " + timeoutMillis + " ms: " + ctx.getMethod());
+        }
+
+        private final Stage next;
+
+        private final long timeoutMillis;
+
+        private final ScheduledExecutorService timeoutExecutor;
+
+    }
+
+    /**
+     * Interrupts the invoking thread unless the invocation completed first.
+     */
+    static final class Watchdog implements Runnable {
+
+        Watchdog(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!completed) {
+                timedOut = true;
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * @return <code>false</code> if the invocation timed out, in which case the interrupt is cleared
+         */
+        synchronized boolean complete() {
+            completed = true;
+            if (timedOut) {
+                Thread.interrupted();
+                return false;
+            }
+            return true;
+        }
+
+        private final Thread thread;
+
+        private boolean completed;
+
+        private boolean timedOut;
+
+    }
+
+    static final class CircuitBreakerStage implements Stage {
+
+        CircuitBreakerStage(Stage next, CircuitBreakerConfig config, Method method) {
+            this.next = next;
+            this.circuitBreaker = new SynchronousCircuitBreaker(config);
+            this.failOn = config.get(CircuitBreakerConfig.FAIL_ON);
+            this.methodName = method.getName();
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            if (!circuitBreaker.attemptExecution()) {
+                throw new CircuitBreakerOpenException(methodName);
+            }
+            Object result;
+            try {
+                result = next.apply(ctx);
+            } catch (Throwable t) {
+                if (!isAssignableFromAny(failOn, t)) {
+                    throw new FailureNotHandledException(t);
+                }
+                circuitBreaker.executionFailed();
+                throw t;
+            }
+            circuitBreaker.executionSucceeded();
+            return result;
+        }
+
+        private final Stage next;
+
+        private final SynchronousCircuitBreaker circuitBreaker;
+
+        private final Class<?>[] failOn;
+
+        private final String methodName;
+
+    }
+
+    static final class RetryStage implements Stage {
+
+        RetryStage(Stage next, RetryConfig config, RetryScheduler scheduler) {
+            this.next = next;
+            this.scheduler = scheduler;
+            this.maxAttempts = config.<Integer>get(RetryConfig.MAX_RETRIES) + 1;
+            this.maxDurationNanos = Duration.of(config.get(RetryConfig.MAX_DURATION), config.get(RetryConfig.DURATION_UNIT)).toNanos();
+            this.delayMillis = Duration.of(config.get(RetryConfig.DELAY), config.get(RetryConfig.DELAY_UNIT)).toMillis();
+            this.jitter = config.getJitter();
+            this.jitterUnit = config.getJitterDelayUnit();
+            this.retryOn = config.getRetryOn();
+            this.abortOn = config.getAbortOn();
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            long start = System.nanoTime();
+            int attempts = 0;
+            while (true) {
+                try {
+                    return next.apply(ctx);
+                } catch (FailureNotHandledException e) {
+                    throw e;
+                } catch (Throwable t) {
+                    if (!shouldRetry(t, ++attempts, start) || !sleep()) {
+                        throw t;
+                    }
+                }
+            }
+        }
+
+        boolean shouldRetry(Throwable throwable, int attempts, long start) {
+            return attempts < maxAttempts
+                    && !isAssignableFromAny(abortOn, throwable)
+                    && isAssignableFromAny(retryOn, throwable)
+                    && System.nanoTime() - start <= maxDurationNanos;
+        }
+
+        long nextDelay() {
+            if (delayMillis > 0) {
+                // A random number between -jitter and +jitter
+                long randomJitter = jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0;
+                return delayMillis + Duration.of(randomJitter, jitterUnit).toMillis();
+            }
+            return 0;
+        }
+
+        private boolean sleep() throws InterruptedException {
+            try {
+                return scheduler.sleep(nextDelay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        }
+
+        private final Stage next;
+
+        private final RetryScheduler scheduler;
+
+        private final int maxAttempts;
+
+        private final long maxDurationNanos;
+
+        private final long delayMillis;
+
+        private final long jitter;
+
+        private final ChronoUnit jitterUnit;
+
+        private final Class<?>[] retryOn;
+
+        private final Class<?>[] abortOn;
+
+    }
+
+    /**
+     * An asynchronous invocation with retry. Each attempt runs on the async executor and no thread is held while waiting for the next one.
+     */
+    final class AsyncRetry extends CompletableFuture<Object> implements Runnable {
+
+        AsyncRetry(ExecutionContextWithInvocationContext ctx) {
+            this.ctx = ctx;
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                // Cancelled
+                return;
+            }
+            Object result;
+            try {
+                result = asyncRetry.next.apply(ctx);
+            } catch (FailureNotHandledException e) {
+                completeExceptionally(e.getCause());
+                return;
+            } catch (Throwable t) {
+                if (asyncRetry.shouldRetry(t, ++attempts, start)) {
+                    retryScheduler.schedule(() -> asyncExecutor.execute(this), asyncRetry.nextDelay());
+                    return;
+                }
+                if (fallback == null) {
+                    completeExceptionally(t);
+                    return;
+                }
+                try {
+                    result = fallback.apply(ctx).get();
+                } catch (Throwable f) {
+                    completeExceptionally(f);
+                    return;
+                }
+            }
+            complete(result);
+        }
+
+        private final ExecutionContextWithInvocationContext ctx;
+
+        private final long start;
+
+        // Attempts never overlap, the executor hand-offs publish the count
+        private int attempts;
+
+    }
+
+    static final class FallbackStage implements Stage {
+
+        FallbackStage(Stage next, Function<ExecutionContextWithInvocationContext, Supplier<Object>> fallback) {
+            this.next = next;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Object apply(ExecutionContextWithInvocationContext ctx) throws Exception {
+            try {
+                return next.apply(ctx);
+            } catch (FailureNotHandledException e) {
+                throw e;
+            } catch (Throwable t) {
+                return fallback.apply(ctx).get();
+            }
+        }
+
+        private final Stage next;
+
+        private final Function<ExecutionContextWithInvocationContext, Supplier<Object>> fallback;
+
+    }
+}
@@ -26,6 +26,8 @@ import java.security.PrivilegedActionException;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -84,6 +86,9 @@ import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
  * We never use {@link HystrixCommand#queue()} for async execution. Mostly to workaround various problems of {@link Asynchronous} {@link Retry} combination. Instead, we
  * create a composite command and inside its run() method we execute commands synchronously.
  * </p>
+ * <p>
+ * If the native engine is selected, no Hystrix command is created at all. Each method is executed through a {@link FaultTolerancePipeline} instead.
+ * </p>
  *
  * @author Antoine Sabot-Durand
  * @author Martin Kouba
@@ -106,12 +111,39 @@ public class HystrixCommandInterceptor {
      */
     public static final String SYNC_CIRCUIT_BREAKER_KEY = "org_wildfly_swarm_microprofile_faulttolerance_syncCircuitBreaker";
 
+    /**
+     * This config property key can be used to select the engine executing fault tolerance operations: {@code hystrix} (default) or {@code native}.
+     * <p>
+     * The native engine does not rely on Hystrix and always uses the synchronous circuit breaker. Hystrix configuration properties do not apply to it.
+     * </p>
+     *
+     * @see FaultTolerancePipeline
+     */
+    public static final String ENGINE_KEY = "org_wildfly_swarm_microprofile_faulttolerance_engine";
+
+    /**
+     * This config property key can be used to limit the number of synchronous invocations sleeping before their next {@link Retry} attempt at the same time.
+     * Once the limit is reached, a failed invocation is not retried. A negative value means no limit.
+     * <p>
+     * Asynchronous invocations are not affected, their next attempt is scheduled without holding a thread.
+     * </p>
+     *
+     * @see RetryScheduler
+     */
+    public static final String MAX_SLEEPING_RETRIES_KEY = "org_wildfly_swarm_microprofile_faulttolerance_maxSleepingRetries";
+
     private static final Logger LOGGER = Logger.getLogger(HystrixCommandInterceptor.class);
 
+    /**
+     * Returned by an asynchronous attempt which should be retried once the delay elapsed.
+     */
+    private static final Object RETRY_LATER = new Object();
+
     @SuppressWarnings("unchecked")
     @Inject
     public HystrixCommandInterceptor(@ConfigProperty(name = "MP_Fault_Tolerance_NonFallback_Enabled", defaultValue = "true") Boolean nonFallBackEnable,
-            Config config, Instance<MicroProfileFaultToleranceFraction> fraction, BeanManager beanManager, @Unbound RequestContext requestContext) {
+            Config config, Instance<MicroProfileFaultToleranceFraction> fraction, BeanManager beanManager, @Unbound RequestContext requestContext,
+            Instance<FaultToleranceEngine> engine, RetryScheduler retryScheduler) {
         this.nonFallBackEnable = nonFallBackEnable;
         Optional<Boolean> mpSyncCircuitBreaker = config.getOptionalValue(SYNC_CIRCUIT_BREAKER_KEY, Boolean.class);
         this.syncCircuitBreakerEnabled = mpSyncCircuitBreaker.orElse(fraction.isUnsatisfied() ? true : fraction.get().isSynchronousCircuitBreakerEnabled());
@@ -119,6 +151,15 @@ public class HystrixCommandInterceptor {
         this.extension = beanManager.getExtension(HystrixExtension.class);
         this.commandMetadataMap = new ConcurrentHashMap<>();
         this.requestContext = requestContext;
+        this.retryScheduler = retryScheduler;
+        Optional<String> mpEngine = config.getOptionalValue(ENGINE_KEY, String.class);
+        String engineName = mpEngine.orElse(fraction.isUnsatisfied() ? MicroProfileFaultToleranceFraction.ENGINE_HYSTRIX : fraction.get().getEngine());
+        if (MicroProfileFaultToleranceFraction.ENGINE_NATIVE.equalsIgnoreCase(engineName)) {
+            this.engine = engine.get();
+            this.circuitBreakers = null;
+            return;
+        }
+        this.engine = null;
         // WORKAROUND: Hystrix does not allow to use custom HystrixCircuitBreaker impl
         // See also https://github.com/Netflix/Hystrix/issues/9
         try {
@@ -138,13 +179,23 @@ public class HystrixCommandInterceptor {
         LOGGER.tracef("FT operation intercepted: %s", method);
 
         CommandMetadata metadata = commandMetadataMap.computeIfAbsent(method, CommandMetadata::new);
-        RetryContext retryContext = nonFallBackEnable && metadata.operation.hasRetry() ? new RetryContext(metadata.operation.getRetry()) : null;
+        if (metadata.pipeline != null) {
+            return metadata.operation.isAsync() ? new AsyncFuture(metadata.pipeline.submit(ctx)) : metadata.pipeline.execute(ctx);
+        }
+        RetryContext retryContext = nonFallBackEnable && metadata.operation.hasRetry()
+                ? new RetryContext(metadata.operation.getRetry(), retryScheduler, metadata.operation.isAsync())
+                : null;
         SynchronousCircuitBreaker syncCircuitBreaker = getSynchronousCircuitBreaker(metadata);
         Function<Supplier<Object>, SimpleCommand> commandFactory = (fallback) -> new SimpleCommand(metadata.setter, ctx, fallback, metadata.operation,
                 metadata.operation.isAsync() ? requestContext : null);
 
         if (metadata.operation.isAsync()) {
             LOGGER.debugf("Queue up command for async execution: %s", metadata.operation);
+            if (retryContext != null) {
+                CompletableFuture<Object> result = new CompletableFuture<>();
+                queueAttempt(result, () -> executeCommand(commandFactory, retryContext, metadata, ctx, syncCircuitBreaker), retryContext, metadata.operation);
+                return new AsyncFuture(result);
+            }
             return new AsyncFuture(
                     CompositeCommand.createAndQueue(() -> executeCommand(commandFactory, retryContext, metadata, ctx, syncCircuitBreaker), metadata.operation));
         } else {
@@ -179,10 +230,30 @@ public class HystrixCommandInterceptor {
                 if (res != null) {
                     throw res;
                 }
+                if (retryContext.isAsync()) {
+                    return RETRY_LATER;
+                }
             }
         }
     }
 
+    /**
+     * Each attempt of an asynchronous invocation with retry is a separate composite command. No thread is held while waiting for the next attempt.
+     */
+    private void queueAttempt(CompletableFuture<Object> result, Callable<Object> attempt, RetryContext retryContext, FaultToleranceOperation operation) {
+        if (result.isDone()) {
+            // Cancelled
+            return;
+        }
+        CompositeCommand.createAndObserve(attempt, operation).subscribe((res) -> {
+            if (res == RETRY_LATER) {
+                retryScheduler.schedule(() -> queueAttempt(result, attempt, retryContext, operation), retryContext.nextDelay());
+            } else {
+                result.complete(res);
+            }
+        }, result::completeExceptionally);
+    }
+
     private static Exception processHystrixRuntimeException(HystrixRuntimeException e, RetryContext retryContext, Method method, SynchronousCircuitBreaker syncCircuitBreaker) {
 
         HystrixRuntimeException.FailureType failureType = e.getFailureType();
@@ -335,6 +406,10 @@ public class HystrixCommandInterceptor {
 
     private final RequestContext requestContext;
 
+    private final FaultToleranceEngine engine;
+
+    private final RetryScheduler retryScheduler;
+
     private class CommandMetadata {
 
         public CommandMetadata(Method method) {
@@ -352,9 +427,14 @@ public class HystrixCommandInterceptor {
             }
             this.operation = operation;
 
-            // Initialize Hystrix command setter
-            commandKey = HystrixCommandKey.Factory.asKey(SimpleCommand.getCommandKey(method));
-            setter = initSetter(commandKey, method, operation);
+            if (engine == null) {
+                // Initialize Hystrix command setter
+                commandKey = HystrixCommandKey.Factory.asKey(SimpleCommand.getCommandKey(method));
+                setter = initSetter(commandKey, method, operation);
+            } else {
+                commandKey = null;
+                setter = null;
+            }
 
             if (operation.hasFallback()) {
                 FallbackConfig fallbackConfig = operation.getFallback();
@@ -379,6 +459,12 @@ public class HystrixCommandInterceptor {
                 unmanaged = null;
                 fallbackMethod = null;
             }
+
+            if (engine != null) {
+                pipeline = engine.getPipeline(operation, hasFallback() ? this::getFallback : null, nonFallBackEnable, requestContext, retryScheduler);
+            } else {
+                pipeline = null;
+            }
         }
 
         boolean hasFallback() {
@@ -442,6 +528,8 @@ public class HystrixCommandInterceptor {
 
         private final FaultToleranceOperation operation;
 
+        private final FaultTolerancePipeline pipeline;
+
     }
 
     class AsyncFuture implements Future<Object> {
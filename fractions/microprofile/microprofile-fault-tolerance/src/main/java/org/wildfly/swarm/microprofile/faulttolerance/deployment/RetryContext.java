@@ -17,7 +17,6 @@ package org.wildfly.swarm.microprofile.faulttolerance.deployment;
 
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
@@ -35,8 +34,20 @@ class RetryContext {
 
     private final long delay;
 
-    RetryContext(RetryConfig config) {
+    private final RetryScheduler scheduler;
+
+    private final boolean async;
+
+    /**
+     *
+     * @param config
+     * @param scheduler
+     * @param async if <code>true</code> the caller schedules the next attempt itself, see {@link #nextDelay()}
+     */
+    RetryContext(RetryConfig config, RetryScheduler scheduler, boolean async) {
         this.config = config;
+        this.scheduler = scheduler;
+        this.async = async;
         this.start = System.nanoTime();
         this.remainingAttempts = new AtomicInteger(config.<Integer>get(RetryConfig.MAX_RETRIES) + 1);
         this.maxDuration = Duration.of(config.get(RetryConfig.MAX_DURATION), config.get(RetryConfig.DURATION_UNIT)).toNanos();
@@ -58,19 +69,16 @@ class RetryContext {
         remainingAttempts.decrementAndGet();
         // Check the exception type
         if (shouldRetryOn(throwable, System.nanoTime())) {
-            return delayIfNeeded();
+            return async ? null : delayIfNeeded(throwable);
         } else {
-            if (throwable instanceof Error) {
-                throw (Error) throwable;
-            } else if (throwable instanceof Exception) {
-                return (Exception) throwable;
-            } else {
-                // Business method interceptors may only throw exceptions
-                return new FaultToleranceException(throwable);
-            }
+            return failure(throwable);
         }
     }
 
+    boolean isAsync() {
+        return async;
+    }
+
     boolean shouldRetry() {
         return remainingAttempts.get() > 0;
     }
@@ -104,20 +112,44 @@ class RetryContext {
 
     /**
      *
-     * @return an exception to rethrow or null if we should try again
+     * @return the delay before the next attempt in milliseconds
      */
-    Exception delayIfNeeded() {
+    long nextDelay() {
         if (delay > 0) {
             long jitterBase = config.getJitter();
             long jitter = (long) (Math.random() * ((jitterBase * 2) + 1)) - jitterBase; // random number between -jitter and +jitter
-            try {
-                TimeUnit.MILLISECONDS.sleep(delay + Duration.of(jitter, config.getJitterDelayUnit()).toMillis());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return e;
+            return delay + Duration.of(jitter, config.getJitterDelayUnit()).toMillis();
+        }
+        return 0;
+    }
+
+    /**
+     *
+     * @param throwable
+     * @return an exception to rethrow or null if we should try again
+     */
+    Exception delayIfNeeded(Throwable throwable) {
+        try {
+            if (scheduler.sleep(nextDelay())) {
+                return null;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+        // Too many invocations are waiting to be retried - fail fast
+        return failure(throwable);
+    }
+
+    private Exception failure(Throwable throwable) {
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else if (throwable instanceof Exception) {
+            return (Exception) throwable;
+        } else {
+            // Business method interceptors may only throw exceptions
+            return new FaultToleranceException(throwable);
         }
-        return null;
     }
 
     @Override
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.Config;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.faulttolerance.MicroProfileFaultToleranceFraction;
+
+/**
+ * Waits out the delay between two {@link org.eclipse.microprofile.faulttolerance.Retry} attempts.
+ *
+ * <p>
+ * Asynchronous invocations do not wait on a thread at all, their next attempt is scheduled on a shared timer instead. Synchronous invocations have to sleep
+ * on the invoking thread, so the number of those sleeping at the same time is limited: once the limit is reached, a failed invocation is not retried.
+ * </p>
+ *
+ * @see HystrixCommandInterceptor#MAX_SLEEPING_RETRIES_KEY
+ */
+@ApplicationScoped
+class RetryScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(RetryScheduler.class);
+
+    @Inject
+    Config config;
+
+    @Inject
+    Instance<MicroProfileFaultToleranceFraction> fraction;
+
+    @Resource(lookup = "java:comp/DefaultManagedThreadFactory")
+    ManagedThreadFactory threadFactory;
+
+    @PostConstruct
+    void onStartup() {
+        Optional<Integer> mpMaxSleepingRetries = config.getOptionalValue(HystrixCommandInterceptor.MAX_SLEEPING_RETRIES_KEY, Integer.class);
+        start(mpMaxSleepingRetries.orElse(fraction.isUnsatisfied() ? -1 : fraction.get().getMaxSleepingRetries()),
+              threadFactory != null ? threadFactory : Executors.defaultThreadFactory());
+    }
+
+    void start(int maxSleepingRetries, ThreadFactory threadFactory) {
+        timer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        sleepers = maxSleepingRetries >= 0 ? new Semaphore(maxSleepingRetries) : null;
+        LOGGER.debugf("Retry scheduler started [maxSleepingRetries: %s]", maxSleepingRetries);
+    }
+
+    @PreDestroy
+    void onShutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Run the next attempt of an asynchronous invocation once the delay elapsed. The task itself must hand the attempt over to another executor.
+     *
+     * @param attempt     The next attempt.
+     * @param delayMillis The delay.
+     */
+    void schedule(Runnable attempt, long delayMillis) {
+        timer.schedule(attempt, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sleep on the invoking thread before the next attempt of a synchronous invocation.
+     *
+     * @param delayMillis The delay.
+     * @return <code>false</code> if too many invocations are already waiting to be retried and this one should fail instead
+     * @throws InterruptedException If interrupted while sleeping.
+     */
+    boolean sleep(long delayMillis) throws InterruptedException {
+        if (delayMillis <= 0) {
+            return true;
+        }
+        if (sleepers == null) {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+            return true;
+        }
+        if (!sleepers.tryAcquire()) {
+            LOGGER.debugf("Too many sleeping retries, failing fast");
+            return false;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+            return true;
+        } finally {
+            sleepers.release();
+        }
+    }
+
+    private ScheduledThreadPoolExecutor timer;
+
+    private Semaphore sleepers;
+
+}
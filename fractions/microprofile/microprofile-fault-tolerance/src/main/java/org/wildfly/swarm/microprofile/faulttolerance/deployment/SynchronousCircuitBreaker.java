@@ -22,8 +22,8 @@ import static org.wildfly.swarm.microprofile.faulttolerance.deployment.Synchrono
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.CircuitBreakerConfig;
@@ -34,6 +34,14 @@ import com.netflix.hystrix.HystrixCircuitBreaker;
  * This is an implementation of the HystrixCircuitBreaker that is expected to be used synchronously by the HystrixCommand implementation to track the state of
  * the circuit. This is needed for the current TCK tests as monitoring circuit state in a background thread does not work with the TCK expectations.
  *
+ * <p>
+ * The breaker does not lock; it is lock-free, not wait-free. The current {@link State} is swapped with a compare-and-set on each transition, and an execution
+ * whose swap loses to a concurrent transition re-reads the state and tries again. Every state carries its own counters, so a transition also resets them. In
+ * the closed state, successes and failures are counted since the last reset, in striped {@link LongAdder}s: every execution updates them, and the failure
+ * ratio only needs their sums. The half-open attempts and successes are compared against the success threshold on every update, so they stay exact
+ * counters.
+ * </p>
+ *
  * @see HystrixCommandInterceptor#SYNC_CIRCUIT_BREAKER_KEY
  */
 class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
@@ -45,12 +53,12 @@ class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
     }
 
     SynchronousCircuitBreaker(CircuitBreakerConfig config) {
-        this.config = config;
-        this.status = new AtomicReference<>(CLOSED);
-        this.circuitOpenedAt = new AtomicLong(-1);
-        this.successCount = new AtomicInteger(0);
-        this.failureCount = new AtomicInteger(0);
-        this.halfOpenAttempts = new AtomicInteger(0);
+        this.delay = config.get(CircuitBreakerConfig.DELAY);
+        this.delayUnit = config.get(CircuitBreakerConfig.DELAY_UNIT);
+        this.requestVolumeThreshold = config.get(CircuitBreakerConfig.REQUEST_VOLUME_THRESHOLD, Integer.class);
+        this.failureRatio = config.get(CircuitBreakerConfig.FAILURE_RATIO);
+        this.successThreshold = config.get(CircuitBreakerConfig.SUCCESS_THRESHOLD, Integer.class);
+        this.state = new AtomicReference<>(closed());
         this.id = config.getMethodInfo();
     }
 
@@ -65,88 +73,98 @@ class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
     }
 
     @Override
-    public synchronized boolean isOpen() {
-        return circuitOpenedAt.get() >= 0;
+    public boolean isOpen() {
+        return state.get().status != CLOSED;
     }
 
     @Override
-    public synchronized boolean allowRequest() {
+    public boolean allowRequest() {
         // Allow next request if:
         // 1. circuit is CLOSED
         // 2. circuit is OPEN and specified delay passed
         // 3. circuit is HALF_OPEN and next attempt is allowed
-        switch (status.get()) {
+        State current = state.get();
+        switch (current.status) {
             case CLOSED:
                 return true;
             case HALF_OPEN:
-                return isHalfOpenAttemptAllowed();
+                return current.halfOpenAttempts.get() < successThreshold;
             case OPEN:
-                return isAfterDelay();
+                return isAfterDelay(current.openedAt);
             default:
                 return false;
         }
     }
 
     @Override
-    public synchronized boolean attemptExecution() {
+    public boolean attemptExecution() {
         // Allow next execution if:
         // 1. circuit is CLOSED
         // 2. circuit is HALF_OPEN and next attempt is allowed
         // 3. circuit is OPEN and specified delay passed - transition to HALF_OPEN
-        switch (status.get()) {
-            case CLOSED:
-                return true;
-            case HALF_OPEN:
-                if (isHalfOpenAttemptAllowed()) {
-                    halfOpenAttempts.incrementAndGet();
-                    return true;
-                }
-                return false;
-            case OPEN:
-                if (isAfterDelay()) {
-                    LOGGER.debugf("OPEN >> HALF_OPEN [id:%s]", id);
-                    status.set(HALF_OPEN);
-                    halfOpenAttempts.set(1);
-                    resetCounts();
+        while (true) {
+            State current = state.get();
+            switch (current.status) {
+                case CLOSED:
                     return true;
-                }
-                return false;
-            default:
-                return false;
+                case HALF_OPEN:
+                    // Check first so that rejected attempts do not keep incrementing the counter
+                    return current.halfOpenAttempts.get() < successThreshold && current.halfOpenAttempts.getAndIncrement() < successThreshold;
+                case OPEN:
+                    if (!isAfterDelay(current.openedAt)) {
+                        return false;
+                    }
+                    if (state.compareAndSet(current, halfOpen(current.openedAt))) {
+                        LOGGER.debugf("OPEN >> HALF_OPEN [id:%s]", id);
+                        return true;
+                    }
+                    // Another execution changed the state in the meantime
+                    break;
+                default:
+                    return false;
+            }
         }
     }
 
-    synchronized void executionSucceeded() {
-        successCount.incrementAndGet();
-        // Transition to CLOSED if HALF_OPEN and successThreshold reached
-        if (HALF_OPEN == status.get() && isSuccessThresholdReached()) {
-            LOGGER.debugf("HALF_OPEN >> CLOSED [id:%s]", id);
-            status.set(CLOSED);
-            circuitOpenedAt.set(-1);
-            resetCounts();
+    void executionSucceeded() {
+        State current = state.get();
+        switch (current.status) {
+            case CLOSED:
+                current.successes.increment();
+                break;
+            case HALF_OPEN:
+                // Transition to CLOSED if successThreshold reached
+                if (current.halfOpenSuccesses.incrementAndGet() >= successThreshold && state.compareAndSet(current, closed())) {
+                    LOGGER.debugf("HALF_OPEN >> CLOSED [id:%s]", id);
+                }
+                break;
+            default:
+                break;
         }
     }
 
-    synchronized void executionFailed() {
-        failureCount.incrementAndGet();
+    void executionFailed() {
         // Transition to OPEN if HALF_OPEN
         // Transition to OPEN if CLOSED and failure threshold reached
-        Status current = status.get();
-        if (HALF_OPEN == current || (CLOSED == current && isFailureThresholdReached())) {
-            LOGGER.debugf("%s >> OPEN [id:%s]", current, id);
-            status.set(OPEN);
-            circuitOpenedAt.set(System.currentTimeMillis());
-            resetCounts();
+        State current = state.get();
+        if (CLOSED == current.status) {
+            current.failures.increment();
         }
+        if (HALF_OPEN == current.status || (CLOSED == current.status && isFailureThresholdReached(current))) {
+            if (state.compareAndSet(current, open(System.currentTimeMillis()))) {
+                LOGGER.debugf("%s >> OPEN [id:%s]", current.status, id);
+            }
+        }
+    }
+
+    Status getStatus() {
+        return state.get().status;
     }
 
-    private boolean isAfterDelay() {
-        long openedAt = circuitOpenedAt.get();
-        long delay = config.get(CircuitBreakerConfig.DELAY);
+    private boolean isAfterDelay(long openedAt) {
         if (delay == 0) {
             return true;
         }
-        ChronoUnit delayUnit = config.get(CircuitBreakerConfig.DELAY_UNIT);
         long elapsed;
         if (delayUnit.equals(ChronoUnit.MILLIS)) {
             elapsed = System.currentTimeMillis() - openedAt;
@@ -158,46 +176,71 @@ class SynchronousCircuitBreaker implements HystrixCircuitBreaker {
         return elapsed >= delay;
     }
 
-    private boolean isFailureThresholdReached() {
-        int requestCount = getRequestCount();
-        int requestVolumeThreshold = config.get(CircuitBreakerConfig.REQUEST_VOLUME_THRESHOLD);
+    private boolean isFailureThresholdReached(State closed) {
+        long failureCount = closed.failures.sum();
+        long requestCount = closed.successes.sum() + failureCount;
         if (requestCount < requestVolumeThreshold) {
             return false;
         }
-        double failureCheck = failureCount.get() / (double) requestCount;
-        double failureRatio = config.get(CircuitBreakerConfig.FAILURE_RATIO);
+        double failureCheck = failureCount / (double) requestCount;
         return (failureCheck >= failureRatio) || (failureRatio <= 0 && failureCheck == 1);
     }
 
-    private boolean isSuccessThresholdReached() {
-        return successCount.get() >= config.get(CircuitBreakerConfig.SUCCESS_THRESHOLD, Integer.class);
-    }
-
-    private boolean isHalfOpenAttemptAllowed() {
-        return halfOpenAttempts.get() < config.get(CircuitBreakerConfig.SUCCESS_THRESHOLD, Integer.class);
+    private State closed() {
+        return new State(CLOSED, -1);
     }
 
-    private int getRequestCount() {
-        return successCount.get() + failureCount.get();
+    private State open(long openedAt) {
+        return new State(OPEN, openedAt);
     }
 
-    private void resetCounts() {
-        successCount.set(0);
-        failureCount.set(0);
+    private State halfOpen(long openedAt) {
+        State halfOpen = new State(HALF_OPEN, openedAt);
+        // The execution which triggered the transition is the first attempt
+        halfOpen.halfOpenAttempts.set(1);
+        return halfOpen;
     }
 
-    private final AtomicReference<Status> status;
+    private final AtomicReference<State> state;
 
-    private final AtomicLong circuitOpenedAt;
+    private final long delay;
 
-    private final CircuitBreakerConfig config;
+    private final ChronoUnit delayUnit;
 
-    private final AtomicInteger successCount;
+    private final int requestVolumeThreshold;
 
-    private final AtomicInteger failureCount;
+    private final double failureRatio;
 
-    private final AtomicInteger halfOpenAttempts;
+    private final int successThreshold;
 
     private final String id;
 
+    /**
+     * Never modified once published, only the counters are.
+     */
+    private static final class State {
+
+        State(Status status, long openedAt) {
+            this.status = status;
+            this.openedAt = openedAt;
+            this.halfOpenAttempts = new AtomicInteger(0);
+            this.halfOpenSuccesses = new AtomicInteger(0);
+            this.successes = new LongAdder();
+            this.failures = new LongAdder();
+        }
+
+        private final Status status;
+
+        private final long openedAt;
+
+        private final AtomicInteger halfOpenAttempts;
+
+        private final AtomicInteger halfOpenSuccesses;
+
+        private final LongAdder successes;
+
+        private final LongAdder failures;
+
+    }
+
 }
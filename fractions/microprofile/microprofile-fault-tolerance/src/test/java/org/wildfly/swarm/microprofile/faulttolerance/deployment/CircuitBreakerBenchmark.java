@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.CircuitBreakerConfig;
+
+/**
+ * Cost of the {@link SynchronousCircuitBreaker} accounting around a single execution, when all threads share one closed circuit. Runs with as many
+ * threads as there are processors, since contention on the counters is what it measures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class CircuitBreakerBenchmark {
+
+    private SynchronousCircuitBreaker breaker;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        this.breaker = new SynchronousCircuitBreaker(new CircuitBreakerConfig(CircuitBreakerBenchmark.class.getDeclaredMethod("circuit")));
+    }
+
+    @Benchmark
+    public boolean success() {
+        boolean allowed = this.breaker.attemptExecution();
+        this.breaker.executionSucceeded();
+        return allowed;
+    }
+
+    @Benchmark
+    public boolean occasionalFailure() {
+        boolean allowed = this.breaker.attemptExecution();
+        // Well below the failure ratio, the circuit stays closed
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            this.breaker.executionFailed();
+        } else {
+            this.breaker.executionSucceeded();
+        }
+        return allowed;
+    }
+
+    @CircuitBreaker(requestVolumeThreshold = 100, failureRatio = 0.5)
+    void circuit() {
+    }
+
+}
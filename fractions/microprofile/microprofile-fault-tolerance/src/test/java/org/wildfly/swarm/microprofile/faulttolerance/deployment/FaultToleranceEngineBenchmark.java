@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.interceptor.InvocationContext;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.eclipse.microprofile.faulttolerance.Fallback;
+import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.faulttolerance.MicroProfileFaultToleranceFraction;
+
+/**
+ * Per-call overhead of the {@link HystrixCommandInterceptor} for each engine, invoking a method which always succeeds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaultToleranceEngineBenchmark {
+
+    @Param({MicroProfileFaultToleranceFraction.ENGINE_HYSTRIX, MicroProfileFaultToleranceFraction.ENGINE_NATIVE})
+    public String engine;
+
+    private FaultToleranceEngine nativeEngine;
+
+    private RetryScheduler retryScheduler;
+
+    private HystrixCommandInterceptor interceptor;
+
+    private Service service;
+
+    @Setup
+    public void setup() {
+        // Hystrix frees a thread slot of a timed command only after the caller sees the result, queue to avoid spurious rejections
+        System.setProperty("hystrix.threadpool.default.maxQueueSize", "64");
+        System.setProperty("hystrix.threadpool.default.queueSizeRejectionThreshold", "64");
+        MicroProfileFaultToleranceFraction fraction = new MicroProfileFaultToleranceFraction().engine(this.engine);
+        this.nativeEngine = new FaultToleranceEngine();
+        this.nativeEngine.onStartup();
+        this.retryScheduler = new RetryScheduler();
+        this.retryScheduler.start(-1, Executors.defaultThreadFactory());
+        this.interceptor = new HystrixCommandInterceptor(true, stub(Config.class, Collections.singletonMap("getOptionalValue", Optional.empty())),
+                                                         instance(fraction), stub(BeanManager.class, Collections.emptyMap()), null, instance(this.nativeEngine),
+                                                         this.retryScheduler);
+        this.service = new Service();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.nativeEngine.onShutdown();
+        this.retryScheduler.onShutdown();
+    }
+
+    @Benchmark
+    public Object retryCircuitBreaker() throws Exception {
+        return this.interceptor.interceptCommand(new Invocation(this.service, Service.RETRY_CIRCUIT_BREAKER));
+    }
+
+    @Benchmark
+    public Object timeout() throws Exception {
+        return this.interceptor.interceptCommand(new Invocation(this.service, Service.TIMEOUT));
+    }
+
+    @Benchmark
+    public Object fallback() throws Exception {
+        return this.interceptor.interceptCommand(new Invocation(this.service, Service.FALLBACK));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Instance<T> instance(T value) {
+        Map<String, Object> results = Collections.singletonMap("get", value);
+        return stub(Instance.class, results);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<?> type, Map<String, Object> results) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            return results.get(method.getName());
+        });
+    }
+
+    public static class Service {
+
+        @Retry
+        @CircuitBreaker
+        public String ping() {
+            return "pong";
+        }
+
+        @Timeout
+        public String pingWithTimeout() {
+            return "pong";
+        }
+
+        @Fallback(fallbackMethod = "fallback")
+        public String pingWithFallback() {
+            return "pong";
+        }
+
+        public String fallback() {
+            return "fallback";
+        }
+
+        static final Method RETRY_CIRCUIT_BREAKER = method("ping");
+
+        static final Method TIMEOUT = method("pingWithTimeout");
+
+        static final Method FALLBACK = method("pingWithFallback");
+
+        private static Method method(String name) {
+            try {
+                return Service.class.getMethod(name);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static class Invocation implements InvocationContext {
+
+        Invocation(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        @Override
+        public Object getTarget() {
+            return target;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Constructor<?> getConstructor() {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return NO_PARAMETERS;
+        }
+
+        @Override
+        public void setParameters(Object[] params) {
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            return method.invoke(target);
+        }
+
+        private static final Object[] NO_PARAMETERS = new Object[0];
+
+        private final Object target;
+
+        private final Method method;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.SynchronousCircuitBreaker.Status;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.config.CircuitBreakerConfig;
+
+public class SynchronousCircuitBreakerTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    public void testFailureRatio() throws NoSuchMethodException {
+        SynchronousCircuitBreaker breaker = create("ratio");
+        breaker.executionSucceeded();
+        breaker.executionSucceeded();
+        breaker.executionFailed();
+        assertEquals(Status.CLOSED, breaker.getStatus());
+        breaker.executionFailed();
+        assertEquals(Status.OPEN, breaker.getStatus());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        assertFalse(breaker.attemptExecution());
+    }
+
+    @Test
+    public void testCountsSinceReset() throws NoSuchMethodException {
+        SynchronousCircuitBreaker breaker = create("sinceReset");
+        for (int i = 0; i < 4; i++) {
+            breaker.executionSucceeded();
+        }
+        for (int i = 0; i < 11; i++) {
+            breaker.executionFailed();
+        }
+        // Every execution since the last reset counts, 11 of 15 failed
+        assertEquals(Status.CLOSED, breaker.getStatus());
+        breaker.executionFailed();
+        assertEquals(Status.OPEN, breaker.getStatus());
+    }
+
+    @Test
+    public void testHalfOpen() throws NoSuchMethodException {
+        SynchronousCircuitBreaker breaker = create("halfOpen");
+        breaker.executionFailed();
+        assertEquals(Status.OPEN, breaker.getStatus());
+        // No delay
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.attemptExecution());
+        assertEquals(Status.HALF_OPEN, breaker.getStatus());
+        assertTrue(breaker.attemptExecution());
+        assertFalse(breaker.attemptExecution());
+        assertFalse(breaker.allowRequest());
+        breaker.executionSucceeded();
+        assertEquals(Status.HALF_OPEN, breaker.getStatus());
+        breaker.executionSucceeded();
+        assertEquals(Status.CLOSED, breaker.getStatus());
+        assertFalse(breaker.isOpen());
+        // Counters were reset
+        breaker.executionFailed();
+        assertEquals(Status.OPEN, breaker.getStatus());
+        assertTrue(breaker.attemptExecution());
+        breaker.executionFailed();
+        assertEquals(Status.OPEN, breaker.getStatus());
+    }
+
+    @Test
+    public void testDelay() throws Exception {
+        SynchronousCircuitBreaker breaker = create("delay");
+        breaker.executionFailed();
+        assertFalse(breaker.attemptExecution());
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertTrue(breaker.attemptExecution());
+        assertEquals(Status.HALF_OPEN, breaker.getStatus());
+    }
+
+    @Test
+    public void testConcurrentHalfOpenAttempts() throws Exception {
+        SynchronousCircuitBreaker breaker = create("halfOpen");
+        breaker.executionFailed();
+        AtomicInteger allowed = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < 1000; i++) {
+                if (breaker.attemptExecution()) {
+                    allowed.incrementAndGet();
+                }
+            }
+        });
+        // Only successThreshold trial executions are allowed until their outcome is known
+        assertEquals(2, allowed.get());
+        assertEquals(Status.HALF_OPEN, breaker.getStatus());
+    }
+
+    @Test
+    public void testStress() throws Exception {
+        SynchronousCircuitBreaker breaker = create("stress");
+        AtomicInteger allowed = new AtomicInteger();
+        // The dependency is down, the circuit must open once the window is full and stay open
+        runConcurrently(() -> {
+            for (int i = 0; i < 10000; i++) {
+                if (breaker.attemptExecution()) {
+                    allowed.incrementAndGet();
+                    breaker.executionFailed();
+                }
+            }
+        });
+        assertEquals(Status.OPEN, breaker.getStatus());
+        assertTrue("Allowed: " + allowed, allowed.get() >= 20 && allowed.get() <= 20 + THREADS);
+        TimeUnit.MILLISECONDS.sleep(150);
+        // The dependency is back, mostly
+        runConcurrently(() -> {
+            for (int i = 0; i < 10000; i++) {
+                if (breaker.attemptExecution()) {
+                    if (ThreadLocalRandom.current().nextInt(10) == 0) {
+                        breaker.executionFailed();
+                    } else {
+                        breaker.executionSucceeded();
+                    }
+                }
+            }
+        });
+        // A single failure in the half-open state may have reopened the circuit
+        if (breaker.getStatus() != Status.CLOSED) {
+            TimeUnit.MILLISECONDS.sleep(150);
+            for (int i = 0; i < 3; i++) {
+                assertTrue(breaker.attemptExecution());
+                breaker.executionSucceeded();
+            }
+        }
+        assertEquals(Status.CLOSED, breaker.getStatus());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static SynchronousCircuitBreaker create(String methodName) throws NoSuchMethodException {
+        return new SynchronousCircuitBreaker(new CircuitBreakerConfig(Circuits.class.getDeclaredMethod(methodName)));
+    }
+
+    static class Circuits {
+
+        @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.5)
+        void ratio() {
+        }
+
+        @CircuitBreaker(requestVolumeThreshold = 4, failureRatio = 0.75)
+        void sinceReset() {
+        }
+
+        @CircuitBreaker(requestVolumeThreshold = 1, delay = 0, successThreshold = 2)
+        void halfOpen() {
+        }
+
+        @CircuitBreaker(requestVolumeThreshold = 1, delay = 100)
+        void delay() {
+        }
+
+        @CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 100, successThreshold = 3)
+        void stress() {
+        }
+    }
+
+}
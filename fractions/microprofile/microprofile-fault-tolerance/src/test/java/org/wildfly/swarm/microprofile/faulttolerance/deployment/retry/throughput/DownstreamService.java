@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment.retry.throughput;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.faulttolerance.Asynchronous;
+import org.eclipse.microprofile.faulttolerance.Retry;
+
+/**
+ * Calls a downstream dependency which is down. Each caller passes its own number, so that the test can tell the attempts of each caller apart.
+ */
+@ApplicationScoped
+public class DownstreamService {
+
+    /**
+     * Long enough for all the callers of a test to reach the retry decision before the first delay elapses.
+     */
+    static final long DELAY = 1000;
+
+    static final long TIMEOUT_SECONDS = 10;
+
+    static final Map<Integer, AtomicInteger> ATTEMPTS = new ConcurrentHashMap<>();
+
+    /**
+     * Counted down by the first attempt of each caller.
+     */
+    static volatile CountDownLatch firstAttempts = new CountDownLatch(0);
+
+    /**
+     * Awaited by the first attempt of each caller, so that they all fail together.
+     */
+    static volatile CountDownLatch firstAttemptsGate = new CountDownLatch(0);
+
+    /**
+     * Counted down by each retry of a synchronous call.
+     */
+    static volatile CountDownLatch retries = new CountDownLatch(0);
+
+    /**
+     * Awaited by each retry of a synchronous call, which is then past its sleep.
+     */
+    static volatile CountDownLatch retriesGate = new CountDownLatch(0);
+
+    @Asynchronous
+    @Retry(maxRetries = 2, delay = DELAY, jitter = 0)
+    public Future<String> callAsync(int caller) throws IOException {
+        if (attempt(caller) == 1) {
+            firstAttempts.countDown();
+        }
+        throw new IOException("Downstream is down");
+    }
+
+    @Retry(maxRetries = 1, delay = DELAY, jitter = 0)
+    public String call(int caller) throws IOException {
+        if (attempt(caller) == 1) {
+            firstAttempts.countDown();
+            await(firstAttemptsGate);
+        } else {
+            retries.countDown();
+            await(retriesGate);
+        }
+        throw new IOException("Downstream is down");
+    }
+
+    static void reset() {
+        ATTEMPTS.clear();
+        firstAttempts = new CountDownLatch(0);
+        firstAttemptsGate = new CountDownLatch(0);
+        retries = new CountDownLatch(0);
+        retriesGate = new CountDownLatch(0);
+    }
+
+    static int attempts(int caller) {
+        AtomicInteger attempts = ATTEMPTS.get(caller);
+        return attempts == null ? 0 : attempts.get();
+    }
+
+    private static int attempt(int caller) {
+        return ATTEMPTS.computeIfAbsent(caller, c -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the test");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.faulttolerance.deployment.retry.throughput;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.wildfly.swarm.microprofile.faulttolerance.deployment.retry.throughput.DownstreamService.TIMEOUT_SECONDS;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.HystrixCommandInterceptor;
+import org.wildfly.swarm.microprofile.faulttolerance.deployment.TestArchive;
+
+/**
+ * Retries against a dependency which fails 100% of the time must not starve the application of threads.
+ */
+@RunWith(Arquillian.class)
+public class RetryThroughputTest {
+
+    static final int BATCH = 10;
+
+    static final int MAX_SLEEPING_RETRIES = 2;
+
+    @Deployment
+    public static JavaArchive createTestArchive() {
+        return TestArchive.createBase(RetryThroughputTest.class).addPackage(RetryThroughputTest.class.getPackage())
+                .addAsManifestResource(new StringAsset(HystrixCommandInterceptor.MAX_SLEEPING_RETRIES_KEY + "=" + MAX_SLEEPING_RETRIES),
+                        "microprofile-config.properties");
+    }
+
+    @Test
+    public void testAsyncRetriesDoNotHoldThreads(DownstreamService service) throws Exception {
+        DownstreamService.reset();
+        List<Future<String>> futures = new ArrayList<>();
+        DownstreamService.firstAttempts = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            futures.add(service.callAsync(i));
+        }
+        assertTrue(DownstreamService.firstAttempts.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The first batch is now waiting for its retries, which must not prevent the next one from running
+        DownstreamService.firstAttempts = new CountDownLatch(BATCH);
+        for (int i = BATCH; i < 2 * BATCH; i++) {
+            futures.add(service.callAsync(i));
+        }
+        assertTrue(DownstreamService.firstAttempts.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (int i = 0; i < BATCH; i++) {
+            assertEquals("Caller " + i + " retried before the second batch ran", 1, DownstreamService.attempts(i));
+        }
+
+        for (Future<String> future : futures) {
+            try {
+                future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(String.valueOf(expected.getCause()), expected.getCause() instanceof IOException);
+            }
+        }
+        for (int i = 0; i < 2 * BATCH; i++) {
+            assertEquals(3, DownstreamService.attempts(i));
+        }
+    }
+
+    @Test
+    public void testSleepingSyncRetriesLimited(DownstreamService service) throws Exception {
+        // Warm up first so that the initialization of the command does not hold back the first attempts
+        DownstreamService.reset();
+        try {
+            service.call(-1);
+            fail();
+        } catch (IOException expected) {
+        }
+
+        DownstreamService.reset();
+        int callers = MAX_SLEEPING_RETRIES + 4;
+        DownstreamService.firstAttempts = new CountDownLatch(callers);
+        DownstreamService.firstAttemptsGate = new CountDownLatch(1);
+        DownstreamService.retries = new CountDownLatch(MAX_SLEEPING_RETRIES);
+        DownstreamService.retriesGate = new CountDownLatch(1);
+        CountDownLatch failedFast = new CountDownLatch(callers - MAX_SLEEPING_RETRIES);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int caller = i;
+                calls.add(executor.submit(() -> {
+                    try {
+                        service.call(caller);
+                        fail();
+                    } catch (IOException expected) {
+                    }
+                    failedFast.countDown();
+                    return null;
+                }));
+            }
+            assertTrue(DownstreamService.firstAttempts.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            DownstreamService.firstAttemptsGate.countDown();
+
+            // The callers which got a sleeping retry slot are held in their retry, the other ones must not wait for them
+            assertTrue(failedFast.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(DownstreamService.retries.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            int retried = 0;
+            int rejected = 0;
+            for (int i = 0; i < callers; i++) {
+                int attempts = DownstreamService.attempts(i);
+                if (attempts == 2) {
+                    retried++;
+                } else if (attempts == 1) {
+                    rejected++;
+                }
+            }
+            assertEquals(MAX_SLEEPING_RETRIES, retried);
+            assertEquals(callers - MAX_SLEEPING_RETRIES, rejected);
+
+            DownstreamService.retriesGate.countDown();
+            for (Future<?> call : calls) {
+                call.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            int attempts = 0;
+            for (int i = 0; i < callers; i++) {
+                attempts += DownstreamService.attempts(i);
+            }
+            assertEquals(callers + MAX_SLEEPING_RETRIES, attempts);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.microprofile.health;
 
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
 import static org.wildfly.swarm.spi.api.Defaultable.string;
 
 import java.util.Optional;
@@ -41,6 +42,16 @@ public class HealthFraction implements Fraction<HealthFraction> {
     @Configurable("swarm.health.security-realm")
     private Defaultable<String> securityRealm = string("");
 
+    @AttributeDocumentation("Seconds a /health probe waits for its health checks before reporting those still running as DOWN")
+    @Configurable("swarm.microprofile.health.timeout")
+    @Configurable("swarm.health.timeout")
+    private Defaultable<Long> timeout = longInteger(2);
+
+    @AttributeDocumentation("Seconds a health check response is reused by subsequent probes (0 to invoke the check on every probe)")
+    @Configurable("swarm.microprofile.health.cache-ttl")
+    @Configurable("swarm.health.cache-ttl")
+    private Defaultable<Long> cacheTtl = longInteger(0);
+
     public HealthFraction securityRealm(String realmName) {
         this.securityRealm.set(realmName);
         return this;
@@ -49,4 +60,22 @@ public class HealthFraction implements Fraction<HealthFraction> {
     public Optional<String> securityRealm() {
         return securityRealm.explicit();
     }
+
+    public HealthFraction timeout(long seconds) {
+        this.timeout.set(seconds);
+        return this;
+    }
+
+    public long timeout() {
+        return timeout.get();
+    }
+
+    public HealthFraction cacheTtl(long seconds) {
+        this.cacheTtl.set(seconds);
+        return this;
+    }
+
+    public long cacheTtl() {
+        return cacheTtl.get();
+    }
 }
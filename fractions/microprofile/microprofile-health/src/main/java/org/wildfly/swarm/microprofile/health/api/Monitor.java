@@ -22,6 +22,7 @@ import java.util.Set;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
+import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.jboss.as.domain.management.SecurityRealm;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.swarm.microprofile.health.HealthMetaData;
@@ -57,6 +58,14 @@ public interface Monitor {
 
     Set<Object> getHealthDelegates();
 
+    /**
+     * Invoke the registered health checks concurrently, waiting for them at most the probe timeout.
+     * Checks which did not respond in time, or failed, are reported DOWN.
+     *
+     * @return The response of each health delegate, in the order of {@link #getHealthDelegates()}
+     */
+    List<HealthCheckResponse> checkHealth();
+
     Optional<SecurityRealm> getSecurityRealm();
 
     /**
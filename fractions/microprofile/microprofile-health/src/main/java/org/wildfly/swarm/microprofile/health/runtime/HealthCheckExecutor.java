@@ -0,0 +1,184 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.health.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+
+/**
+ * Invokes health checks concurrently on a bounded pool of daemon threads.
+ *
+ * <p>All checks of a probe share one deadline; a check that has not responded by then is reported DOWN, and
+ * so is one that throws. A check still running keeps its thread, and later probes wait for that same
+ * invocation rather than starting another, so a hanging check never holds more than one thread. Responses
+ * may be reused by probes within a time to live of their completion.</p>
+ *
+ * @see MonitorService#checkHealth()
+ */
+class HealthCheckExecutor {
+
+    HealthCheckExecutor(int threads, long timeout, long cacheTtl, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.cacheTtlNanos = unit.toNanos(cacheTtl);
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "health-check-" + COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Invoke the given checks, waiting at most for the timeout.
+     *
+     * @param checks The {@link HealthCheck} instances.
+     * @return One response per check, in the order of the checks.
+     */
+    List<HealthCheckResponse> call(Collection<?> checks) {
+        long deadline = System.nanoTime() + this.timeoutNanos;
+
+        List<Invocation> invocations = new ArrayList<>(checks.size());
+        for (Object each : checks) {
+            invocations.add(invoke((HealthCheck) each));
+        }
+
+        List<HealthCheckResponse> responses = new ArrayList<>(invocations.size());
+        for (Invocation each : invocations) {
+            responses.add(each.await(deadline));
+        }
+
+        if (this.invocations.size() > checks.size()) {
+            // some checks have been unregistered
+            this.invocations.keySet().retainAll(checks);
+        }
+        return responses;
+    }
+
+    void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    private Invocation invoke(HealthCheck check) {
+        ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        Invocation[] started = new Invocation[1];
+        Invocation invocation = this.invocations.compute(check, (k, previous) -> {
+            if (previous != null && previous.isReusable()) {
+                return previous;
+            }
+            started[0] = new Invocation(check, tccl);
+            return started[0];
+        });
+        if (invocation == started[0]) {
+            this.pool.execute(invocation);
+        }
+        return invocation;
+    }
+
+    private static HealthCheckResponse down(HealthCheck check, String reason) {
+        return HealthCheckResponse.named(check.getClass().getName())
+                .down()
+                .withData(REASON, reason)
+                .build();
+    }
+
+    private static final String REASON = "reason";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private final long timeoutNanos;
+
+    private final long cacheTtlNanos;
+
+    private final ThreadPoolExecutor pool;
+
+    private final Map<Object, Invocation> invocations = new ConcurrentHashMap<>();
+
+    /**
+     * A single invocation of a check, shared by all probes arriving while it runs or while its response is cached.
+     */
+    private final class Invocation extends FutureTask<HealthCheckResponse> {
+
+        Invocation(HealthCheck check, ClassLoader tccl) {
+            super(() -> {
+                Thread thread = Thread.currentThread();
+                ClassLoader previous = thread.getContextClassLoader();
+                thread.setContextClassLoader(tccl);
+                try {
+                    return check.call();
+                } catch (Exception e) {
+                    return down(check, e.toString());
+                } finally {
+                    thread.setContextClassLoader(previous);
+                }
+            });
+            this.check = check;
+        }
+
+        // stamped before the outcome is published, so that isDone() implies completedAt is set
+        @Override
+        protected void set(HealthCheckResponse response) {
+            this.completedAt = System.nanoTime();
+            super.set(response);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            this.completedAt = System.nanoTime();
+            super.setException(t);
+        }
+
+        boolean isReusable() {
+            if (!isDone()) {
+                return true;
+            }
+            return cacheTtlNanos > 0 && System.nanoTime() - this.completedAt < cacheTtlNanos;
+        }
+
+        HealthCheckResponse await(long deadline) {
+            try {
+                return get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return down(this.check, "Timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+            } catch (ExecutionException e) {
+                return down(this.check, e.getCause().toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return down(this.check, "Interrupted");
+            }
+        }
+
+        private final HealthCheck check;
+
+        private volatile long completedAt;
+    }
+}
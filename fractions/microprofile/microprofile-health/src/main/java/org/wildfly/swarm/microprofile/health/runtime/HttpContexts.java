@@ -15,7 +15,6 @@
  */
 package org.wildfly.swarm.microprofile.health.runtime;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -30,7 +29,6 @@ import io.undertow.server.HttpServerExchange;
 import io.undertow.util.AttachmentKey;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
-import org.eclipse.microprofile.health.HealthCheck;
 import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile.health.api.Monitor;
@@ -86,12 +84,7 @@ public class HttpContexts implements HttpHandler {
             return;
         }
 
-        List<org.eclipse.microprofile.health.HealthCheckResponse> responses = new ArrayList<>();
-
-        for (Object procedure : procedures) {
-            org.eclipse.microprofile.health.HealthCheckResponse status = ((HealthCheck)procedure).call();
-            responses.add(status);
-        }
+        List<HealthCheckResponse> responses = monitor.checkHealth();
 
         StringBuilder sb = new StringBuilder(LCURL);
         sb.append("\"checks\": [\n");
@@ -99,9 +92,9 @@ public class HttpContexts implements HttpHandler {
         int i = 0;
         boolean failed = false;
 
-        for (org.eclipse.microprofile.health.HealthCheckResponse resp : responses) {
+        for (HealthCheckResponse resp : responses) {
 
-            sb.append(toJson(resp));
+            appendJson(sb, resp);
 
             if (!failed) {
                 failed = resp.getState() != HealthCheckResponse.State.UP;
@@ -115,7 +108,7 @@ public class HttpContexts implements HttpHandler {
         sb.append("],\n");
 
         String outcome = failed ? "DOWN" : "UP";
-        sb.append("\"outcome\": \"" + outcome + "\"\n");
+        sb.append("\"outcome\": \"").append(outcome).append("\"\n");
         sb.append("}\n");
 
         // send a response
@@ -162,6 +155,11 @@ public class HttpContexts implements HttpHandler {
 
     public static String toJson(HealthCheckResponse status) {
         StringBuilder sb = new StringBuilder();
+        appendJson(sb, status);
+        return sb.toString();
+    }
+
+    private static void appendJson(StringBuilder sb, HealthCheckResponse status) {
         sb.append(LCURL);
         sb.append(QUOTE).append("name").append("\":\"").append(status.getName()).append("\",");
         sb.append(QUOTE).append("state").append("\":\"").append(status.getState().name()).append(QUOTE);
@@ -171,7 +169,8 @@ public class HttpContexts implements HttpHandler {
             Map<String, Object> atts = status.getData().get();
             int i = 0;
             for (String key : atts.keySet()) {
-                sb.append(QUOTE).append(key).append("\":").append(encode(atts.get(key)));
+                sb.append(QUOTE).append(key).append("\":");
+                encode(sb, atts.get(key));
                 if (i < atts.keySet().size() - 1) {
                     sb.append(",");
                 }
@@ -181,18 +180,14 @@ public class HttpContexts implements HttpHandler {
         }
 
         sb.append(RCURL);
-        return sb.toString();
     }
 
-    private static String encode(Object o) {
-        String res = null;
+    private static void encode(StringBuilder sb, Object o) {
         if (o instanceof String) {
-            res = "\"" + o.toString() + "\"";
+            sb.append(QUOTE).append(o).append(QUOTE);
         } else {
-            res = o.toString();
+            sb.append(o);
         }
-
-        return res;
     }
 
 
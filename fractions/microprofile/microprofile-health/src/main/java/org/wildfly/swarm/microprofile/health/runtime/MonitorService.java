@@ -24,9 +24,11 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Vetoed;
 
+import org.eclipse.microprofile.health.HealthCheckResponse;
 import org.jboss.as.controller.ModelController;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.domain.management.SecurityRealm;
@@ -65,12 +67,18 @@ public class MonitorService implements Monitor, Service<MonitorService> {
     public static final ServiceName SERVICE_NAME = ServiceName.of("swarm", "health");
 
     public MonitorService(Optional<String> securityRealm) {
+        this(securityRealm, DEFAULT_PROBE_TIMEOUT_SECONDS, 0);
+    }
+
+    public MonitorService(Optional<String> securityRealm, long probeTimeoutSeconds, long cacheTtlSeconds) {
         this.securityRealm = securityRealm;
+        this.probeTimeoutSeconds = probeTimeoutSeconds;
+        this.cacheTtlSeconds = cacheTtlSeconds;
     }
 
     @Override
     public long getProbeTimeoutSeconds() {
-        return DEFAULT_PROBE_TIMEOUT_SECONDS;
+        return this.probeTimeoutSeconds;
     }
 
     @Override
@@ -78,6 +86,7 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         executorService = Executors.newSingleThreadExecutor();
         serverEnvironment = serverEnvironmentValue.getValue();
         controllerClient = modelControllerValue.getValue().createClient(executorService);
+        healthCheckExecutor = new HealthCheckExecutor(HEALTH_CHECK_THREADS, probeTimeoutSeconds, cacheTtlSeconds, TimeUnit.SECONDS);
 
         if (!securityRealm.isPresent()) {
             LOG.warn("You are running the monitoring endpoints without any security realm configuration!");
@@ -89,6 +98,9 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         if (executorService != null) {
             executorService.shutdownNow();
         }
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdown();
+        }
     }
 
     @Override
@@ -190,6 +202,11 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         return this.beans;
     }
 
+    @Override
+    public List<HealthCheckResponse> checkHealth() {
+        return this.healthCheckExecutor.call(this.beans);
+    }
+
     @Override
     public Optional<SecurityRealm> getSecurityRealm() {
 
@@ -225,6 +242,9 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     private static final long DEFAULT_PROBE_TIMEOUT_SECONDS = 2;
 
+    // checks mostly wait on I/O, so allow a few more than there are cores
+    private static final int HEALTH_CHECK_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
     private final InjectedValue<ServerEnvironment> serverEnvironmentValue = new InjectedValue<ServerEnvironment>();
 
     private final InjectedValue<ModelController> modelControllerValue = new InjectedValue<ModelController>();
@@ -233,6 +253,12 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     private final Optional<String> securityRealm;
 
+    private final long probeTimeoutSeconds;
+
+    private final long cacheTtlSeconds;
+
+    private HealthCheckExecutor healthCheckExecutor;
+
     private ExecutorService executorService;
 
     private ServerEnvironment serverEnvironment;
@@ -57,15 +57,12 @@ public class MonitorServiceActivator implements ServiceActivator {
 
     @Override
     public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
-        Optional<String> securityRealm = Optional.empty();
-
-        if (!healthFractionInstance.isUnsatisfied()) {
-            securityRealm = healthFractionInstance.get().securityRealm();
-        }
+        HealthFraction fraction = healthFractionInstance.isUnsatisfied() ? new HealthFraction() : healthFractionInstance.get();
+        Optional<String> securityRealm = fraction.securityRealm();
 
         ServiceTarget target = context.getServiceTarget();
 
-        MonitorService service = new MonitorService(securityRealm);
+        MonitorService service = new MonitorService(securityRealm, fraction.timeout(), fraction.cacheTtl());
 
         ServiceBuilder<MonitorService> monitorServiceServiceBuilder = target.addService(MonitorService.SERVICE_NAME, service);
 
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.health.runtime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HealthCheckExecutorTest {
+
+    private HealthCheckExecutor executor;
+
+    @After
+    public void shutdown() {
+        hang.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlowAndHangingChecksAreTimeBoxed() {
+        executor = new HealthCheckExecutor(4, 500, 0, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        List<HealthCheckResponse> responses = executor.call(Arrays.asList(up("fast"), slow("slow", 200), slow("slower", 200), hanging()));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("took " + elapsed + "ms", elapsed < 1_000);
+        Assert.assertEquals(HealthCheckResponse.State.UP, responses.get(0).getState());
+        Assert.assertEquals(HealthCheckResponse.State.UP, responses.get(1).getState());
+        Assert.assertEquals(HealthCheckResponse.State.UP, responses.get(2).getState());
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, responses.get(3).getState());
+        Assert.assertTrue(responses.get(3).getData().get().get("reason").toString().startsWith("Timed out"));
+    }
+
+    @Test
+    public void testHangingCheckIsNotInvokedAgain() {
+        executor = new HealthCheckExecutor(1, 100, 0, TimeUnit.MILLISECONDS);
+        HealthCheck hanging = hanging();
+
+        for (int i = 0; i < 3; i++) {
+            HealthCheckResponse response = executor.call(Arrays.asList(hanging)).get(0);
+            Assert.assertEquals(HealthCheckResponse.State.DOWN, response.getState());
+        }
+        Assert.assertEquals(1, invocations.get());
+
+        // the single thread is still taken, yet other checks only time out
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, executor.call(Arrays.asList(up("queued"))).get(0).getState());
+    }
+
+    @Test
+    public void testFailingCheckIsDown() {
+        executor = new HealthCheckExecutor(2, 500, 0, TimeUnit.MILLISECONDS);
+        HealthCheck failing = () -> {
+            throw new IllegalStateException("no database");
+        };
+
+        HealthCheckResponse response = executor.call(Arrays.asList(failing)).get(0);
+        Assert.assertEquals(HealthCheckResponse.State.DOWN, response.getState());
+        Assert.assertEquals("java.lang.IllegalStateException: no database", response.getData().get().get("reason"));
+    }
+
+    @Test
+    public void testResponsesAreCachedForTtl() {
+        executor = new HealthCheckExecutor(2, 500, 60_000, TimeUnit.MILLISECONDS);
+        HealthCheck counted = up("counted");
+
+        executor.call(Arrays.asList(counted));
+        executor.call(Arrays.asList(counted));
+        Assert.assertEquals(1, invocations.get());
+
+        HealthCheckExecutor uncached = new HealthCheckExecutor(2, 500, 0, TimeUnit.MILLISECONDS);
+        try {
+            uncached.call(Arrays.asList(counted));
+            uncached.call(Arrays.asList(counted));
+            Assert.assertEquals(3, invocations.get());
+        } finally {
+            uncached.shutdown();
+        }
+    }
+
+    private HealthCheck up(String name) {
+        return () -> {
+            invocations.incrementAndGet();
+            return HealthCheckResponse.named(name).up().build();
+        };
+    }
+
+    private HealthCheck slow(String name, long millis) {
+        return () -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return HealthCheckResponse.named(name).up().build();
+        };
+    }
+
+    private HealthCheck hanging() {
+        return () -> {
+            invocations.incrementAndGet();
+            try {
+                hang.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return HealthCheckResponse.named("hanging").up().build();
+        };
+    }
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private final CountDownLatch hang = new CountDownLatch(1);
+}
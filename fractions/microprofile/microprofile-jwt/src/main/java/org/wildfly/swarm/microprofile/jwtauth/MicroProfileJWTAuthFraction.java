@@ -56,6 +56,14 @@ public class MicroProfileJWTAuthFraction implements Fraction<MicroProfileJWTAuth
     @Configurable("swarm.microprofile.jwt.token.jwks-refresh-interval")
     private Defaultable<Integer> jwksRefreshInterval = integer(60);
 
+    @AttributeDocumentation("The maximum number of verified tokens to cache so that the signature of a token is only verified once, 0 disables the cache")
+    @Configurable("swarm.microprofile.jwt.token.cache-size")
+    private Defaultable<Integer> tokenCacheSize = integer(1000);
+
+    @AttributeDocumentation("The comma separated JWS algorithms a token may be signed with, any of RS256, ES256, ES384 and PS256")
+    @Configurable("swarm.microprofile.jwt.token.signature-algorithms")
+    private Defaultable<String> signatureAlgorithms = string("RS256,ES256,ES384,PS256");
+
     @AttributeDocumentation("If a JAX-RS resource has no class-level security metadata, then if this property is set to `true` and at least one resource method has security metadata all other resource methods without security metadata have an implicit `@DenyAll`, otherwise resource methods without security metadata are not secured")
     @Configurable("swarm.microprofile.jwt.default-missing-method-permissions-deny-access")
     private Defaultable<Boolean> defaultMissingMethodPermissionsDenyAccess = bool(true);
@@ -100,6 +108,22 @@ public class MicroProfileJWTAuthFraction implements Fraction<MicroProfileJWTAuth
         this.jwksRefreshInterval = jwksRefreshInterval;
     }
 
+    public Defaultable<Integer> getTokenCacheSize() {
+        return tokenCacheSize;
+    }
+
+    public void setTokenCacheSize(Defaultable<Integer> tokenCacheSize) {
+        this.tokenCacheSize = tokenCacheSize;
+    }
+
+    public Defaultable<String> getSignatureAlgorithms() {
+        return signatureAlgorithms;
+    }
+
+    public void setSignatureAlgorithms(Defaultable<String> signatureAlgorithms) {
+        this.signatureAlgorithms = signatureAlgorithms;
+    }
+
     public boolean isDefaultMissingMethodPermissionsDenyAccess() {
         return defaultMissingMethodPermissionsDenyAccess.get();
     }
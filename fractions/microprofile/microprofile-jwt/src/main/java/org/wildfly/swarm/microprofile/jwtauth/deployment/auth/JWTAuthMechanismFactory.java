@@ -24,7 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
-import java.security.interfaces.RSAPublicKey;
+import java.security.PublicKey;
 import java.util.Map;
 import java.util.Optional;
 import javax.annotation.PostConstruct;
@@ -128,13 +128,35 @@ public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
                 // Workaround the double decode issue; https://issues.jboss.org/browse/WFLY-9135
                 String publicKeyPem = publicKeyPemEnc.replace(' ', '+');
                 try {
-                    RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPem);
+                    PublicKey pk = KeyUtils.decodePublicKey(publicKeyPem);
                     contextInfo.setSignerKey(pk);
                 } catch (Exception e) {
                     throw new IllegalStateException(e);
                 }
             }
 
+
+            String tokenCacheSize = properties.get("tokenCacheSize");
+            if (tokenCacheSize == null) {
+                URL tokenCacheSizeURL = loader.getResource("/META-INF/MP-JWT-TOKEN-CACHE-SIZE");
+                if (tokenCacheSizeURL != null) {
+                    tokenCacheSize = readURLContent(tokenCacheSizeURL);
+                }
+            }
+            if (tokenCacheSize != null) {
+                contextInfo.setTokenCacheSize(Integer.valueOf(tokenCacheSize.trim()));
+            }
+
+            String signatureAlgorithms = properties.get("signatureAlgorithms");
+            if (signatureAlgorithms == null) {
+                URL signatureAlgorithmsURL = loader.getResource("/META-INF/MP-JWT-SIGNATURE-ALGORITHMS");
+                if (signatureAlgorithmsURL != null) {
+                    signatureAlgorithms = readURLContent(signatureAlgorithmsURL);
+                }
+            }
+            if (signatureAlgorithms != null) {
+                contextInfo.setSignatureAlgorithms(signatureAlgorithms.split(","));
+            }
         } else {
             contextInfo = optContextInfo.get();
         }
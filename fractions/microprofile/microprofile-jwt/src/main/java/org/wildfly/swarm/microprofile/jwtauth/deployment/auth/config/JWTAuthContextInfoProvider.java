@@ -18,7 +18,7 @@
 
 package org.wildfly.swarm.microprofile.jwtauth.deployment.auth.config;
 
-import java.security.interfaces.RSAPublicKey;
+import java.security.PublicKey;
 import java.util.Optional;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.Dependent;
@@ -51,6 +51,12 @@ public class JWTAuthContextInfoProvider {
     @Inject
     @ConfigProperty(name = "mpjwt.jwksRefreshInterval", defaultValue = "60")
     private Optional<Integer> jwksRefreshInterval;
+    @Inject
+    @ConfigProperty(name = "mpjwt.tokenCacheSize", defaultValue = "1000")
+    private Optional<Integer> tokenCacheSize;
+    @Inject
+    @ConfigProperty(name = "mpjwt.signatureAlgorithms", defaultValue = NONE)
+    private Optional<String> signatureAlgorithms;
 
     @PostConstruct
     void init() {
@@ -69,7 +75,7 @@ public class JWTAuthContextInfoProvider {
         JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
         if (publicKeyPemEnc.isPresent() && !NONE.equals(publicKeyPemEnc.get())) {
             try {
-                RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPemEnc.get());
+                PublicKey pk = KeyUtils.decodePublicKey(publicKeyPemEnc.get());
                 contextInfo.setSignerKey(pk);
             } catch (Exception e) {
                 throw new DeploymentException(e);
@@ -87,6 +93,12 @@ public class JWTAuthContextInfoProvider {
         if (jwksRefreshInterval.isPresent()) {
             contextInfo.setJwksRefreshInterval(jwksRefreshInterval.get());
         }
+        if (tokenCacheSize.isPresent()) {
+            contextInfo.setTokenCacheSize(tokenCacheSize.get());
+        }
+        if (signatureAlgorithms.isPresent() && !NONE.equals(signatureAlgorithms.get())) {
+            contextInfo.setSignatureAlgorithms(signatureAlgorithms.get().split(","));
+        }
 
         return Optional.of(contextInfo);
     }
@@ -17,9 +17,7 @@
 package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
 
 import org.eclipse.microprofile.jwt.Claims;
-import org.jose4j.jwa.AlgorithmConstraints;
-import org.jose4j.jwk.JsonWebKey;
-import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwt.NumericDate;
@@ -27,7 +25,10 @@ import org.jose4j.jwt.consumer.InvalidJwtException;
 import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.jwt.consumer.JwtContext;
-import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+import org.jose4j.jwx.JsonWebStructure;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -43,36 +44,21 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
 
     @Override
     public JWTCallerPrincipal parse(final String token, final JWTAuthContextInfo authContextInfo) throws ParseException {
-        JWTCallerPrincipal principal;
-
-        try {
-            JwtConsumerBuilder builder = new JwtConsumerBuilder()
-                    .setRequireExpirationTime()
-                    .setRequireSubject()
-                    .setSkipDefaultAudienceValidation()
-                    .setExpectedIssuer(authContextInfo.getIssuedBy())
-                    .setJwsAlgorithmConstraints(
-                            new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST,
-                                    AlgorithmIdentifiers.RSA_USING_SHA256));
-
-            if (authContextInfo.getSignerKey() != null) {
-                builder.setVerificationKey(authContextInfo.getSignerKey());
-            } else {
-                final List<JsonWebKey> jsonWebKeys = authContextInfo.loadJsonWebKeys();
-                builder.setVerificationKeyResolver(new JwksVerificationKeyResolver(jsonWebKeys));
+        VerifiedTokenCache tokenCache = getTokenCache(authContextInfo);
+        if (tokenCache != null) {
+            JWTCallerPrincipal cached = tokenCache.get(token);
+            if (cached != null) {
+                return cached;
             }
+        }
 
-            if (authContextInfo.getExpGracePeriodSecs() > 0) {
-                builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
-            } else {
-                builder.setEvaluationTime(NumericDate.fromSeconds(0));
-            }
+        JWTCallerPrincipal principal;
 
-            JwtConsumer jwtConsumer = builder.build();
-            JwtContext jwtContext = jwtConsumer.process(token);
+        try {
+            //  Validate the JWT and process it to the Claims, then check its signature
+            JwtContext jwtContext = getJwtConsumer(authContextInfo).process(token);
+            verifySignature(token, jwtContext, authContextInfo);
             String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
-            //  Validate the JWT and process it to the Claims
-            jwtConsumer.processContext(jwtContext);
             JwtClaims claimsSet = jwtContext.getJwtClaims();
 
             // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
@@ -85,6 +71,11 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
             }
             claimsSet.setClaim(Claims.raw_token.name(), token);
             principal = new DefaultJWTCallerPrincipal(token, type, claimsSet, principalName);
+
+            if (tokenCache != null) {
+                NumericDate notBefore = claimsSet.getNotBefore();
+                tokenCache.put(token, principal, claimsSet.getExpirationTime().getValue(), notBefore != null ? notBefore.getValue() : null);
+            }
         } catch (InvalidJwtException e) {
             throw new ParseException("Failed to verify token", e);
         } catch (MalformedClaimException e) {
@@ -93,4 +84,95 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
 
         return principal;
     }
+
+    /**
+     * Verify the signature with the key selected by the alg and kid headers. The JCA Signature instances are pooled per key rather than created for each
+     * token as jose4j does, and ES256, ES384 and PS256 are verified as well as RS256.
+     */
+    private void verifySignature(final String token, final JwtContext jwtContext, final JWTAuthContextInfo authContextInfo) throws ParseException {
+        List<JsonWebStructure> joseObjects = jwtContext.getJoseObjects();
+        if (joseObjects.size() != 1 || !(joseObjects.get(0) instanceof JsonWebSignature)) {
+            throw new ParseException("Token is not a signed JWT");
+        }
+        JsonWebStructure jws = joseObjects.get(0);
+        String algorithm = jws.getAlgorithmHeaderValue();
+        if (algorithm == null || !authContextInfo.getSignatureAlgorithms().contains(algorithm)) {
+            throw new ParseException(String.format("Token signature algorithm %s is not allowed", algorithm));
+        }
+
+        JwksKeyStore keyStore = null;
+        VerificationKeys keys;
+        if (authContextInfo.getSignerKey() != null) {
+            keys = authContextInfo.getSignerKeys();
+        } else {
+            keyStore = authContextInfo.getJwksKeyStore();
+            if (keyStore == null) {
+                throw new ParseException("No signer key or JWKS URI to verify the token signature");
+            }
+            keys = keyStore.getVerificationKeys();
+        }
+        SignatureVerifier verifier = keys.select(algorithm, jws.getKeyIdHeaderValue());
+        if (verifier == null) {
+            if (keyStore != null) {
+                // The keys may have been rotated, the token is rejected but the next ones will use the refreshed keys
+                keyStore.onUnknownKey();
+            }
+            throw new ParseException(String.format("No key to verify a token signed with %s, key id %s", algorithm, jws.getKeyIdHeaderValue()));
+        }
+
+        int signatureStart = token.lastIndexOf('.');
+        try {
+            byte[] signingInput = token.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+            if (!verifier.verify(signingInput, signature)) {
+                throw new ParseException("Failed to verify token signature");
+            }
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            throw new ParseException("Failed to verify token signature", e);
+        }
+    }
+
+    /**
+     * The JwtConsumer is thread safe, so it is only built again when the configuration changes. It only validates the claims, the signature is verified
+     * by {@link #verifySignature(String, JwtContext, JWTAuthContextInfo)}.
+     */
+    private JwtConsumer getJwtConsumer(final JWTAuthContextInfo authContextInfo) {
+        JwtConsumer jwtConsumer = authContextInfo.getJwtConsumer();
+        if (jwtConsumer != null) {
+            return jwtConsumer;
+        }
+
+        JwtConsumerBuilder builder = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setSkipDefaultAudienceValidation()
+                .setExpectedIssuer(authContextInfo.getIssuedBy())
+                .setSkipSignatureVerification();
+
+        if (authContextInfo.getExpGracePeriodSecs() > 0) {
+            builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
+        } else {
+            builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        }
+
+        jwtConsumer = builder.build();
+        authContextInfo.setJwtConsumer(jwtConsumer);
+        return jwtConsumer;
+    }
+
+    private VerifiedTokenCache getTokenCache(final JWTAuthContextInfo authContextInfo) {
+        VerifiedTokenCache tokenCache = authContextInfo.getTokenCache();
+        if (tokenCache != null || authContextInfo.getTokenCacheSize() <= 0) {
+            return tokenCache;
+        }
+        synchronized (authContextInfo) {
+            tokenCache = authContextInfo.getTokenCache();
+            if (tokenCache == null) {
+                tokenCache = new VerifiedTokenCache(authContextInfo.getTokenCacheSize(), authContextInfo.getExpGracePeriodSecs());
+                authContextInfo.setTokenCache(tokenCache);
+                tokenCache.register(authContextInfo.getIssuedBy());
+            }
+        }
+        return tokenCache;
+    }
 }
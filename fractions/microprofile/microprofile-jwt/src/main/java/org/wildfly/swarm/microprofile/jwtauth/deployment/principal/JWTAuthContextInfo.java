@@ -16,30 +16,34 @@
  */
 package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
 
-import java.io.IOException;
-import java.security.interfaces.RSAPublicKey;
+import java.security.PublicKey;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import org.jose4j.jwk.HttpsJwks;
+import java.util.Set;
 import org.jose4j.jwk.JsonWebKey;
-import org.jose4j.lang.JoseException;
+import org.jose4j.jwt.consumer.JwtConsumer;
 
 /**
- * The public key and expected issuer needed to validate a token.
+ * The public keys, signature algorithms and expected issuer needed to validate a token.
  */
 public class JWTAuthContextInfo {
-    private RSAPublicKey signerKey;
+    private PublicKey signerKey;
     private String issuedBy;
     private int expGracePeriodSecs = 60;
     private String jwksUri;
     private Integer jwksRefreshInterval;
-    private HttpsJwks httpsJwks;
+    private volatile JwksKeyStore jwksKeyStore;
+    private Set<String> signatureAlgorithms = new LinkedHashSet<>(SignatureVerifier.ALGORITHMS);
+    private int tokenCacheSize = 1000;
+    private volatile JwtConsumer jwtConsumer;
+    private volatile VerificationKeys signerKeys;
+    private volatile VerifiedTokenCache tokenCache;
 
     public JWTAuthContextInfo() {
     }
 
-    public JWTAuthContextInfo(RSAPublicKey signerKey, String issuedBy) {
+    public JWTAuthContextInfo(PublicKey signerKey, String issuedBy) {
         this.signerKey = signerKey;
         this.issuedBy = issuedBy;
     }
@@ -50,38 +54,49 @@ public class JWTAuthContextInfo {
         this.expGracePeriodSecs = orig.expGracePeriodSecs;
         this.jwksUri = orig.jwksUri;
         this.jwksRefreshInterval = orig.jwksRefreshInterval;
+        this.signatureAlgorithms = new LinkedHashSet<>(orig.signatureAlgorithms);
+        this.tokenCacheSize = orig.tokenCacheSize;
     }
 
-    public RSAPublicKey getSignerKey() {
+    public PublicKey getSignerKey() {
         return signerKey;
     }
 
+    /**
+     * @return the signing keys published at the JWKS URI, fetched in the background once the first ones were loaded
+     * @see JwksKeyStore
+     */
     public List<JsonWebKey> loadJsonWebKeys() {
-        synchronized (this) {
-            if (jwksUri == null) {
-                return Collections.emptyList();
-            }
-
-            if (httpsJwks == null) {
-                httpsJwks = new HttpsJwks(jwksUri);
-                httpsJwks.setDefaultCacheDuration(jwksRefreshInterval.longValue() * 60L);
-            }
+        JwksKeyStore keyStore = getJwksKeyStore();
+        if (keyStore == null) {
+            return Collections.emptyList();
         }
+        return keyStore.getKeys();
+    }
 
-        try {
-            return httpsJwks.getJsonWebKeys().stream()
-                    .filter(jsonWebKey -> "sig".equals(jsonWebKey.getUse())) // only signing keys are relevant
-                    .filter(jsonWebKey -> "RS256".equals(jsonWebKey.getAlgorithm())) // MP-JWT dictates RS256 only
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new IllegalStateException(String.format("Unable to fetch JWKS from %s.", jwksUri), e);
-        } catch (JoseException e) {
-            throw new IllegalStateException(String.format("Unable to parse JWKS from %s.", jwksUri), e);
+    /**
+     * @return the store of the keys published at the JWKS URI, or null if there is no JWKS URI
+     */
+    public JwksKeyStore getJwksKeyStore() {
+        JwksKeyStore keyStore = jwksKeyStore;
+        if (keyStore == null && jwksUri != null) {
+            synchronized (this) {
+                keyStore = jwksKeyStore;
+                if (keyStore == null) {
+                    keyStore = new JwksKeyStore(jwksUri, jwksRefreshInterval);
+                    jwksKeyStore = keyStore;
+                }
+            }
         }
+        return keyStore;
     }
 
-    public void setSignerKey(RSAPublicKey signerKey) {
+    /**
+     * @param signerKey - an RSA or EC public key
+     */
+    public void setSignerKey(PublicKey signerKey) {
         this.signerKey = signerKey;
+        reset();
     }
 
     public String getIssuedBy() {
@@ -90,6 +105,7 @@ public class JWTAuthContextInfo {
 
     public void setIssuedBy(String issuedBy) {
         this.issuedBy = issuedBy;
+        reset();
     }
 
     public int getExpGracePeriodSecs() {
@@ -98,6 +114,7 @@ public class JWTAuthContextInfo {
 
     public void setExpGracePeriodSecs(int expGracePeriodSecs) {
         this.expGracePeriodSecs = expGracePeriodSecs;
+        reset();
     }
 
     public String getJwksUri() {
@@ -106,6 +123,8 @@ public class JWTAuthContextInfo {
 
     public void setJwksUri(String jwksUri) {
         this.jwksUri = jwksUri;
+        this.jwksKeyStore = null;
+        reset();
     }
 
     public Integer getJwksRefreshInterval() {
@@ -114,5 +133,83 @@ public class JWTAuthContextInfo {
 
     public void setJwksRefreshInterval(Integer jwksRefreshInterval) {
         this.jwksRefreshInterval = jwksRefreshInterval;
+        this.jwksKeyStore = null;
+        reset();
+    }
+
+    /**
+     * @return the JWS algorithms a token may be signed with
+     */
+    public Set<String> getSignatureAlgorithms() {
+        return Collections.unmodifiableSet(signatureAlgorithms);
+    }
+
+    /**
+     * @param signatureAlgorithms - any of RS256, ES256, ES384 and PS256
+     */
+    public void setSignatureAlgorithms(String... signatureAlgorithms) {
+        Set<String> algorithms = new LinkedHashSet<>();
+        for (String each : signatureAlgorithms) {
+            String algorithm = each.trim();
+            if (!SignatureVerifier.ALGORITHMS.contains(algorithm)) {
+                throw new IllegalArgumentException(String.format("Unsupported signature algorithm %s, expected any of %s", algorithm,
+                                                                 SignatureVerifier.ALGORITHMS));
+            }
+            algorithms.add(algorithm);
+        }
+        this.signatureAlgorithms = algorithms;
+        reset();
+    }
+
+    public int getTokenCacheSize() {
+        return tokenCacheSize;
+    }
+
+    /**
+     * @param tokenCacheSize - the maximum number of verified tokens to cache, 0 to verify every token on each request
+     */
+    public void setTokenCacheSize(int tokenCacheSize) {
+        this.tokenCacheSize = tokenCacheSize;
+        reset();
+    }
+
+    /**
+     * @return the cache of the verified tokens, or null if the tokens are not cached or none was verified yet
+     */
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    JwtConsumer getJwtConsumer() {
+        return jwtConsumer;
+    }
+
+    /**
+     * The consumer built from this configuration, reused by all the requests until the configuration changes.
+     */
+    void setJwtConsumer(JwtConsumer jwtConsumer) {
+        this.jwtConsumer = jwtConsumer;
+    }
+
+    /**
+     * @return the signer key indexed for verification, built once
+     */
+    VerificationKeys getSignerKeys() {
+        VerificationKeys keys = signerKeys;
+        if (keys == null) {
+            keys = signerKey != null ? VerificationKeys.of(signerKey) : VerificationKeys.EMPTY;
+            signerKeys = keys;
+        }
+        return keys;
+    }
+
+    void setTokenCache(VerifiedTokenCache tokenCache) {
+        this.tokenCache = tokenCache;
+    }
+
+    private void reset() {
+        jwtConsumer = null;
+        signerKeys = null;
+        tokenCache = null;
     }
 }
@@ -0,0 +1,214 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.jboss.logging.Logger;
+import org.jose4j.jwk.HttpsJwks;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.lang.JoseException;
+
+/**
+ * The signing keys published at a JWKS URI.
+ *
+ * <p>
+ * The keys are fetched in the background: once the refresh interval elapsed, the next lookup still gets the last good key set while a refresh is started,
+ * and a failed refresh keeps serving it. A token signed with an unknown key id also starts a refresh, at most once per minimum refresh interval so that
+ * random key ids cannot be used to hammer the JWKS endpoint. Only the very first lookup waits for the keys to be fetched.
+ * </p>
+ */
+public class JwksKeyStore {
+    private static Logger log = Logger.getLogger(JwksKeyStore.class);
+
+    /**
+     * The minimum delay between two refreshes started by unknown key ids.
+     */
+    static final long DEFAULT_MIN_REFRESH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    // Threads only live while a refresh runs, so there is nothing to shut down when the deployment goes away
+    private static final Executor REFRESH_EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new RefreshThreadFactory());
+
+    private final String jwksUri;
+
+    private final HttpsJwks httpsJwks;
+
+    private final long refreshInterval;
+
+    private final long minRefreshInterval;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile KeySet keys;
+
+    private volatile long fetchedAt;
+
+    private volatile long lastRefreshStartedAt;
+
+    /**
+     * @param jwksUri         - the URI of the key set
+     * @param refreshInterval - how often to refresh the keys, in minutes
+     */
+    public JwksKeyStore(String jwksUri, int refreshInterval) {
+        this(jwksUri, TimeUnit.MINUTES.toMillis(refreshInterval), DEFAULT_MIN_REFRESH_INTERVAL);
+    }
+
+    JwksKeyStore(String jwksUri, long refreshIntervalMillis, long minRefreshIntervalMillis) {
+        this.jwksUri = jwksUri;
+        this.httpsJwks = new HttpsJwks(jwksUri);
+        this.refreshInterval = refreshIntervalMillis;
+        this.minRefreshInterval = minRefreshIntervalMillis;
+    }
+
+    /**
+     * Get the signing keys, starting a refresh in the background if they are older than the refresh interval.
+     *
+     * @return the last good key set
+     * @throws IllegalStateException if the keys were never fetched and cannot be fetched now
+     */
+    public List<JsonWebKey> getKeys() {
+        return getKeySet().jsonWebKeys;
+    }
+
+    /**
+     * @return the last good keys, indexed for the selection of the key verifying a token
+     * @see #getKeys()
+     */
+    VerificationKeys getVerificationKeys() {
+        return getKeySet().verificationKeys;
+    }
+
+    private KeySet getKeySet() {
+        KeySet current = keys;
+        if (current == null) {
+            return fetchFirstKeys();
+        }
+        if (System.currentTimeMillis() - fetchedAt >= refreshInterval) {
+            refreshInBackground();
+        }
+        return current;
+    }
+
+    /**
+     * Called when a token is signed with a key which is not in the key set, the keys may have been rotated since they were last fetched.
+     */
+    public void onUnknownKey() {
+        if (System.currentTimeMillis() - lastRefreshStartedAt >= minRefreshInterval) {
+            refreshInBackground();
+        } else {
+            log.debugf("Unknown key, %s was refreshed recently", jwksUri);
+        }
+    }
+
+    public String getJwksUri() {
+        return jwksUri;
+    }
+
+    boolean isRefreshing() {
+        return refreshing.get();
+    }
+
+    private synchronized KeySet fetchFirstKeys() {
+        if (keys == null) {
+            lastRefreshStartedAt = System.currentTimeMillis();
+            keys = fetch();
+            fetchedAt = System.currentTimeMillis();
+        }
+        return keys;
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefreshStartedAt = System.currentTimeMillis();
+        try {
+            REFRESH_EXECUTOR.execute(this::refresh);
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            log.warnf(e, "Unable to schedule the refresh of the JWKS from %s", jwksUri);
+        }
+    }
+
+    private void refresh() {
+        try {
+            keys = fetch();
+            fetchedAt = System.currentTimeMillis();
+            log.debugf("Refreshed JWKS from %s", jwksUri);
+        } catch (IllegalStateException e) {
+            // Try again once the refresh interval elapses again, rather than on every lookup
+            fetchedAt = System.currentTimeMillis();
+            log.warnf(e, "Keeping the previous JWKS, refresh failed");
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private KeySet fetch() {
+        try {
+            httpsJwks.refresh();
+            List<JsonWebKey> jsonWebKeys = httpsJwks.getJsonWebKeys().stream()
+                    .filter(jsonWebKey -> "sig".equals(jsonWebKey.getUse())) // only signing keys are relevant
+                    .filter(jsonWebKey -> jsonWebKey instanceof PublicJsonWebKey)
+                    .filter(jsonWebKey -> jsonWebKey.getAlgorithm() == null || SignatureVerifier.ALGORITHMS.contains(jsonWebKey.getAlgorithm()))
+                    .collect(Collectors.toList());
+            VerificationKeys verificationKeys = VerificationKeys.newKeySet();
+            for (JsonWebKey jsonWebKey : jsonWebKeys) {
+                verificationKeys.add(jsonWebKey.getKeyId(), jsonWebKey.getAlgorithm(), ((PublicJsonWebKey) jsonWebKey).getPublicKey());
+            }
+            return new KeySet(Collections.unmodifiableList(jsonWebKeys), verificationKeys);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Unable to fetch JWKS from %s.", jwksUri), e);
+        } catch (JoseException e) {
+            throw new IllegalStateException(String.format("Unable to parse JWKS from %s.", jwksUri), e);
+        }
+    }
+
+    private static final class KeySet {
+        private final List<JsonWebKey> jsonWebKeys;
+
+        private final VerificationKeys verificationKeys;
+
+        KeySet(List<JsonWebKey> jsonWebKeys, VerificationKeys verificationKeys) {
+            this.jsonWebKeys = jsonWebKeys;
+            this.verificationKeys = verificationKeys;
+        }
+    }
+
+    private static class RefreshThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "jwks-refresh-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Verifies JWS signatures made with one key and one algorithm.
+ *
+ * <p>
+ * The {@link Signature} instances initialized with the key are pooled rather than looked up from the providers for each token: a verification resets an
+ * instance to its initialized state, ready for the next one.
+ * </p>
+ */
+final class SignatureVerifier {
+    static final String RS256 = "RS256";
+
+    static final String PS256 = "PS256";
+
+    static final String ES256 = "ES256";
+
+    static final String ES384 = "ES384";
+
+    /**
+     * The JWS algorithms which can be verified, in the order of preference.
+     */
+    static final List<String> ALGORITHMS = Collections.unmodifiableList(Arrays.asList(RS256, ES256, ES384, PS256));
+
+    // jose4j rejects smaller RSA keys as well
+    private static final int MIN_RSA_KEY_SIZE = 2048;
+
+    private final String algorithm;
+
+    private final PublicKey key;
+
+    private final Queue<Signature> pool = new ConcurrentLinkedQueue<>();
+
+    private SignatureVerifier(String algorithm, PublicKey key) {
+        this.algorithm = algorithm;
+        this.key = key;
+    }
+
+    /**
+     * @param algorithm - the JWS algorithm
+     * @param key       - the public key of the signer
+     * @return the verifier, or null if the key cannot be used with the algorithm
+     */
+    static SignatureVerifier create(String algorithm, PublicKey key) {
+        return isUsable(algorithm, key) ? new SignatureVerifier(algorithm, key) : null;
+    }
+
+    /**
+     * @return the JWS algorithms the key can be used with when the key does not tell
+     */
+    static List<String> algorithmsFor(PublicKey key) {
+        if (key instanceof RSAPublicKey) {
+            return Arrays.asList(RS256, PS256);
+        }
+        if (key instanceof ECPublicKey) {
+            return Collections.singletonList(fieldSize(key) == 384 ? ES384 : ES256);
+        }
+        return Collections.emptyList();
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    PublicKey getKey() {
+        return key;
+    }
+
+    /**
+     * @param signingInput - the ASCII bytes of the encoded header and payload, separated by a period
+     * @param signature    - the decoded signature
+     * @return whether the signature is valid
+     * @throws GeneralSecurityException if the algorithm is not available
+     */
+    boolean verify(byte[] signingInput, byte[] signature) throws GeneralSecurityException {
+        byte[] signatureBytes = signature;
+        if (algorithm.startsWith("ES")) {
+            // JWS concatenates R and S, the JCA expects them DER encoded
+            if (signature.length != 2 * ((fieldSize(key) + 7) / 8)) {
+                return false;
+            }
+            signatureBytes = toDer(signature);
+        }
+        Signature verifier = pool.poll();
+        if (verifier == null) {
+            verifier = newSignature();
+        }
+        boolean valid;
+        try {
+            verifier.update(signingInput);
+            valid = verifier.verify(signatureBytes);
+        } catch (SignatureException e) {
+            // The instance may be left in any state, do not return it to the pool
+            return false;
+        }
+        pool.offer(verifier);
+        return valid;
+    }
+
+    private Signature newSignature() throws GeneralSecurityException {
+        Signature signature;
+        switch (algorithm) {
+            case RS256:
+                signature = Signature.getInstance("SHA256withRSA");
+                signature.initVerify(key);
+                return signature;
+            case PS256:
+                try {
+                    signature = Signature.getInstance("RSASSA-PSS");
+                } catch (NoSuchAlgorithmException e) {
+                    // Name used by BouncyCastle and older JDKs
+                    signature = Signature.getInstance("SHA256withRSAandMGF1");
+                }
+                signature.initVerify(key);
+                signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+                return signature;
+            case ES256:
+                signature = Signature.getInstance("SHA256withECDSA");
+                signature.initVerify(key);
+                return signature;
+            case ES384:
+                signature = Signature.getInstance("SHA384withECDSA");
+                signature.initVerify(key);
+                return signature;
+            default:
+                throw new NoSuchAlgorithmException(algorithm);
+        }
+    }
+
+    private static boolean isUsable(String algorithm, PublicKey key) {
+        switch (algorithm) {
+            case RS256:
+            case PS256:
+                return key instanceof RSAPublicKey && ((RSAPublicKey) key).getModulus().bitLength() >= MIN_RSA_KEY_SIZE;
+            case ES256:
+                return key instanceof ECPublicKey && fieldSize(key) == 256;
+            case ES384:
+                return key instanceof ECPublicKey && fieldSize(key) == 384;
+            default:
+                return false;
+        }
+    }
+
+    private static int fieldSize(PublicKey key) {
+        return ((ECPublicKey) key).getParams().getCurve().getField().getFieldSize();
+    }
+
+    private static byte[] toDer(byte[] concatenated) {
+        int half = concatenated.length / 2;
+        byte[] r = toDerInteger(concatenated, 0, half);
+        byte[] s = toDerInteger(concatenated, half, half);
+        // Both curves keep the sequence under 128 bytes, so the lengths fit in one byte
+        byte[] der = new byte[2 + r.length + s.length];
+        der[0] = 0x30;
+        der[1] = (byte) (r.length + s.length);
+        System.arraycopy(r, 0, der, 2, r.length);
+        System.arraycopy(s, 0, der, 2 + r.length, s.length);
+        return der;
+    }
+
+    private static byte[] toDerInteger(byte[] bytes, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end - 1 && bytes[start] == 0) {
+            start++;
+        }
+        // A leading zero keeps the integer positive
+        int pad = (bytes[start] & 0x80) != 0 ? 1 : 0;
+        int size = end - start + pad;
+        byte[] integer = new byte[2 + size];
+        integer[0] = 0x02;
+        integer[1] = (byte) size;
+        System.arraycopy(bytes, start, integer, 2 + pad, end - start);
+        return integer;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.logging.Logger;
+
+/**
+ * The verification keys indexed by key id and algorithm, so that the verifier of a token is a single lookup.
+ *
+ * <p>
+ * A token without a key id is verified with the only key usable with its algorithm, like jose4j does; if there are several such keys the token is
+ * rejected. Instances are built once per key set and never modified afterwards.
+ * </p>
+ */
+final class VerificationKeys {
+    private static Logger log = Logger.getLogger(VerificationKeys.class);
+
+    static final VerificationKeys EMPTY = new VerificationKeys(false);
+
+    private final Map<String, SignatureVerifier> byKeyId = new HashMap<>();
+
+    private final Map<String, SignatureVerifier> byAlgorithm = new HashMap<>();
+
+    private final boolean ignoreKeyId;
+
+    private VerificationKeys(boolean ignoreKeyId) {
+        this.ignoreKeyId = ignoreKeyId;
+    }
+
+    /**
+     * Index the configured signer key, which verifies any token signed with an algorithm it can be used with whatever its key id.
+     */
+    static VerificationKeys of(PublicKey key) {
+        VerificationKeys keys = new VerificationKeys(true);
+        keys.add(null, null, key);
+        return keys;
+    }
+
+    /**
+     * @return an empty key set to {@link #add(String, String, PublicKey)} the keys of a JWKS to
+     */
+    static VerificationKeys newKeySet() {
+        return new VerificationKeys(false);
+    }
+
+    /**
+     * Index a key set, all the keys are added before the instance is shared with other threads.
+     *
+     * @param keyId     - the id of the key, may be null
+     * @param algorithm - the only algorithm the key may be used with, if null all those compatible with the key
+     * @param key       - the public key
+     */
+    void add(String keyId, String algorithm, PublicKey key) {
+        List<String> algorithms = algorithm != null ? Collections.singletonList(algorithm) : SignatureVerifier.algorithmsFor(key);
+        for (String each : algorithms) {
+            SignatureVerifier verifier = SignatureVerifier.create(each, key);
+            if (verifier == null) {
+                log.warnf("Ignoring key %s, it cannot be used with %s", keyId, each);
+                continue;
+            }
+            if (keyId != null) {
+                byKeyId.put(indexKey(keyId, each), verifier);
+            }
+            if (byAlgorithm.containsKey(each)) {
+                // Ambiguous without a key id
+                byAlgorithm.put(each, null);
+            } else {
+                byAlgorithm.put(each, verifier);
+            }
+        }
+    }
+
+    /**
+     * @param algorithm - the alg header of the token
+     * @param keyId     - the kid header of the token, may be null
+     * @return the verifier, or null if no key matches
+     */
+    SignatureVerifier select(String algorithm, String keyId) {
+        if (keyId == null || ignoreKeyId) {
+            return byAlgorithm.get(algorithm);
+        }
+        return byKeyId.get(indexKey(keyId, algorithm));
+    }
+
+    private static String indexKey(String keyId, String algorithm) {
+        return algorithm + ' ' + keyId;
+    }
+}
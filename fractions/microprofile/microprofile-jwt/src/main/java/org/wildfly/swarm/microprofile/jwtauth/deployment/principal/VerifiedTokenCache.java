@@ -0,0 +1,220 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jboss.logging.Logger;
+
+/**
+ * A bounded cache of the principals built from tokens whose signature and claims were already verified, keyed by the SHA-256 digest of the token.
+ *
+ * <p>
+ * A cached principal is only returned as long as the token would still pass the <code>exp</code> and <code>nbf</code> checks, so a token is verified once
+ * per lifetime instead of once per request. Once the cache is full, tokens which are no longer valid are evicted first, then arbitrary ones.
+ * </p>
+ *
+ * <p>
+ * The hit and miss counts and the hit rate are available from {@link JWTAuthContextInfo#getTokenCache()}, and from an MBean registered under
+ * {@link #OBJECT_NAME} for the issuer of the tokens.
+ * </p>
+ */
+public class VerifiedTokenCache implements VerifiedTokenCacheMBean {
+    /**
+     * The name of the MBean of the cache of the tokens of an issuer, given as a quoted <code>issuer</code> key.
+     */
+    public static final String OBJECT_NAME = "thorntail.microprofile.jwt:type=VerifiedTokenCache,issuer=%s";
+
+    private static Logger log = Logger.getLogger(VerifiedTokenCache.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final int maxSize;
+
+    private final int allowedClockSkew;
+
+    private final boolean evaluateAtEpoch;
+
+    /**
+     * @param maxSize          - the maximum number of tokens to keep
+     * @param allowedClockSkew - the clock skew in seconds allowed when checking <code>exp</code> and <code>nbf</code>, if not greater than 0 the tokens
+     *                         are evaluated at the epoch as the JwtConsumer does
+     */
+    public VerifiedTokenCache(int maxSize, int allowedClockSkew) {
+        this.maxSize = maxSize;
+        this.allowedClockSkew = Math.max(allowedClockSkew, 0);
+        this.evaluateAtEpoch = allowedClockSkew <= 0;
+    }
+
+    /**
+     * Look up the principal of a token verified earlier.
+     *
+     * @param token - the bearer token
+     * @return the cached principal, or null if the token is unknown or no longer valid
+     */
+    public JWTCallerPrincipal get(String token) {
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!token.equals(entry.principal.getRawToken())) {
+                misses.increment();
+                return null;
+            }
+            if (!entry.isValid(evaluationTime())) {
+                entries.remove(key, entry);
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.principal;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the principal of a verified token.
+     *
+     * @param token      - the bearer token
+     * @param principal  - the principal built from the token
+     * @param expiration - the <code>exp</code> claim of the token, in seconds since the epoch
+     * @param notBefore  - the <code>nbf</code> claim of the token in seconds since the epoch, or null if absent
+     */
+    public void put(String token, JWTCallerPrincipal principal, long expiration, Long notBefore) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(digest(token), new Entry(principal, expiration, notBefore));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the ratio of lookups which returned a cached principal, 0 if there was none yet
+     */
+    @Override
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Publish the counts of this cache in the platform MBean server, in place of the cache registered earlier for the same issuer.
+     *
+     * @param issuer - the issuer of the cached tokens
+     */
+    void register(String issuer) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(String.format(OBJECT_NAME, ObjectName.quote(String.valueOf(issuer))));
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            log.warnf("Failed to register the verified token cache of %s: %s", issuer, e.getMessage());
+        }
+    }
+
+    private synchronized void evict() {
+        if (entries.size() < maxSize) {
+            // Another thread made room in the meantime
+            return;
+        }
+        long now = evaluationTime();
+        entries.values().removeIf(entry -> !entry.isValid(now));
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        log.debugf("Evicted verified tokens, hit rate: %.2f", getHitRate());
+    }
+
+    private long evaluationTime() {
+        return evaluateAtEpoch ? 0 : System.currentTimeMillis() / 1000;
+    }
+
+    private boolean isValid(long now, long expiration, Long notBefore) {
+        // Same checks as org.jose4j.jwt.consumer.NumericDateValidator
+        if (now - allowedClockSkew >= expiration) {
+            return false;
+        }
+        return notBefore == null || now + allowedClockSkew >= notBefore;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class Entry {
+        private final JWTCallerPrincipal principal;
+
+        private final long expiration;
+
+        private final Long notBefore;
+
+        Entry(JWTCallerPrincipal principal, long expiration, Long notBefore) {
+            this.principal = principal;
+            this.expiration = expiration;
+            this.notBefore = notBefore;
+        }
+
+        boolean isValid(long now) {
+            return VerifiedTokenCache.this.isValid(now, expiration, notBefore);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+/**
+ * The counts of a {@link VerifiedTokenCache}, published in the platform MBean server under {@link VerifiedTokenCache#OBJECT_NAME}.
+ */
+public interface VerifiedTokenCacheMBean {
+
+    int getMaxSize();
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+}
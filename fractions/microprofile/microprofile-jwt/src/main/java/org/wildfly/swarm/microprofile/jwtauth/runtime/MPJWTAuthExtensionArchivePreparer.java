@@ -171,6 +171,14 @@ public class MPJWTAuthExtensionArchivePreparer implements DeploymentProcessor {
                 log.warn("The 'signer-pub-key' and 'jwks-uri' configuration options are mutually exclusive, the 'jwks-uri' will be ignored.");
             }
         }
+        if (fraction.getTokenCacheSize().isExplicit()) {
+            log.debugf("Token cache size: %s", fraction.getTokenCacheSize().get());
+            war.addAsManifestResource(new StringAsset(fraction.getTokenCacheSize().get().toString()), "MP-JWT-TOKEN-CACHE-SIZE");
+        }
+        if (fraction.getSignatureAlgorithms().isExplicit()) {
+            log.debugf("Signature algorithms: %s", fraction.getSignatureAlgorithms().get());
+            war.addAsManifestResource(new StringAsset(fraction.getSignatureAlgorithms().get()), "MP-JWT-SIGNATURE-ALGORITHMS");
+        }
         if (log.isTraceEnabled()) {
             log.trace("war: " + war.toString(true));
         }
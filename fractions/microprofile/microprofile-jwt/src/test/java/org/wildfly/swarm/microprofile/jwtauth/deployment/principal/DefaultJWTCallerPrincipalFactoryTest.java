@@ -0,0 +1,240 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Base64;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultJWTCallerPrincipalFactoryTest {
+
+    static final String ISSUER = "https://server.example.com";
+
+    static final String UPN = "jdoe";
+
+    private RsaJsonWebKey key;
+
+    private JWTAuthContextInfo contextInfo;
+
+    private DefaultJWTCallerPrincipalFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        key = RsaJwkGenerator.generateJwk(2048);
+        contextInfo = new JWTAuthContextInfo(key.getPublicKey(), ISSUER);
+        factory = new DefaultJWTCallerPrincipalFactory();
+    }
+
+    @Test
+    public void testTokenIsVerifiedOncePerLifetime() throws Exception {
+        String token = token(key, UPN);
+
+        JWTCallerPrincipal first = factory.parse(token, contextInfo);
+        JWTCallerPrincipal second = factory.parse(token, contextInfo);
+
+        Assert.assertEquals(UPN, first.getName());
+        Assert.assertSame(first, second);
+        Assert.assertEquals(token, second.getRawToken());
+        VerifiedTokenCache tokenCache = contextInfo.getTokenCache();
+        Assert.assertEquals(1, tokenCache.getHitCount());
+        Assert.assertEquals(1, tokenCache.getMissCount());
+        Assert.assertEquals(0.5, tokenCache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testCountsArePublishedAsMBean() throws Exception {
+        String token = token(key, UPN);
+        factory.parse(token, contextInfo);
+        factory.parse(token, contextInfo);
+        factory.parse(token, contextInfo);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(String.format(VerifiedTokenCache.OBJECT_NAME, ObjectName.quote(ISSUER)));
+        Assert.assertEquals(2L, server.getAttribute(name, "HitCount"));
+        Assert.assertEquals(1L, server.getAttribute(name, "MissCount"));
+        Assert.assertEquals(2.0 / 3, (Double) server.getAttribute(name, "HitRate"), 0.001);
+
+        // A new cache replaces the previous one
+        contextInfo.setTokenCacheSize(10);
+        factory.parse(token, contextInfo);
+        Assert.assertEquals(0L, server.getAttribute(name, "HitCount"));
+        Assert.assertEquals(10, server.getAttribute(name, "MaxSize"));
+    }
+
+    @Test
+    public void testTokensAreNotCachedIfDisabled() throws Exception {
+        contextInfo.setTokenCacheSize(0);
+        String token = token(key, UPN);
+
+        Assert.assertNotSame(factory.parse(token, contextInfo), factory.parse(token, contextInfo));
+        Assert.assertNull(contextInfo.getTokenCache());
+    }
+
+    @Test
+    public void testInvalidTokenIsNeverCached() throws Exception {
+        String forged = token(RsaJwkGenerator.generateJwk(2048), UPN);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                factory.parse(forged, contextInfo);
+                Assert.fail("Token signed with another key accepted");
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(0, contextInfo.getTokenCache().size());
+    }
+
+    @Test
+    public void testConfigurationChangeDropsVerifiedTokens() throws Exception {
+        String token = token(key, UPN);
+        factory.parse(token, contextInfo);
+
+        contextInfo.setIssuedBy("https://other.example.com");
+        try {
+            factory.parse(token, contextInfo);
+            Assert.fail("Token of another issuer accepted");
+        } catch (ParseException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        contextInfo.setTokenCacheSize(2);
+        for (int i = 0; i < 5; i++) {
+            factory.parse(token(key, "user" + i), contextInfo);
+        }
+        Assert.assertEquals(2, contextInfo.getTokenCache().size());
+    }
+
+    @Test
+    public void testExpirationAndNotBeforeAreCheckedOnHit() throws Exception {
+        contextInfo.setTokenCacheSize(0);
+        String token = token(key, UPN);
+        JWTCallerPrincipal principal = factory.parse(token, contextInfo);
+        long now = System.currentTimeMillis() / 1000;
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache(10, 60);
+
+        tokenCache.put(token, principal, now - 61, null);
+        Assert.assertNull("expired beyond the grace period", tokenCache.get(token));
+        Assert.assertEquals(0, tokenCache.size());
+
+        tokenCache.put(token, principal, now - 30, null);
+        Assert.assertSame("expired within the grace period", principal, tokenCache.get(token));
+
+        tokenCache.put(token, principal, now + 300, now + 120);
+        Assert.assertNull("not yet valid", tokenCache.get(token));
+
+        tokenCache.put(token, principal, now + 300, now + 30);
+        Assert.assertSame("valid within the grace period", principal, tokenCache.get(token));
+    }
+
+    @Test
+    public void testEveryAlgorithmIsVerified() throws Exception {
+        for (String algorithm : SignatureVerifier.ALGORITHMS) {
+            KeyPair keyPair = Tokens.generateKeyPair(algorithm);
+            JWTAuthContextInfo info = new JWTAuthContextInfo(keyPair.getPublic(), ISSUER);
+            String token = Tokens.sign(algorithm, "key-1", keyPair.getPrivate(), claims(UPN).toJson());
+
+            Assert.assertEquals(algorithm, UPN, factory.parse(token, info).getName());
+
+            String forged = Tokens.sign(algorithm, "key-1", Tokens.generateKeyPair(algorithm).getPrivate(), claims(UPN).toJson());
+            try {
+                factory.parse(forged, info);
+                Assert.fail(algorithm + " token signed with another key accepted");
+            } catch (ParseException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testAlgorithmMustBeAllowed() throws Exception {
+        KeyPair keyPair = Tokens.generateKeyPair(SignatureVerifier.ES256);
+        JWTAuthContextInfo info = new JWTAuthContextInfo(keyPair.getPublic(), ISSUER);
+        info.setSignatureAlgorithms(SignatureVerifier.RS256);
+        String token = Tokens.sign(SignatureVerifier.ES256, null, keyPair.getPrivate(), claims(UPN).toJson());
+
+        try {
+            factory.parse(token, info);
+            Assert.fail("ES256 token accepted");
+        } catch (ParseException e) {
+            // expected
+        }
+        info.setSignatureAlgorithms(SignatureVerifier.RS256, SignatureVerifier.ES256);
+        Assert.assertEquals(UPN, factory.parse(token, info).getName());
+    }
+
+    @Test
+    public void testUnsignedTokenIsRejected() throws Exception {
+        String header = Base64.getUrlEncoder().withoutPadding().encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(claims(UPN).toJson().getBytes(StandardCharsets.UTF_8));
+        try {
+            factory.parse(header + '.' + payload + '.', contextInfo);
+            Assert.fail("Unsigned token accepted");
+        } catch (ParseException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNoKeyIsRejected() throws Exception {
+        JWTAuthContextInfo info = new JWTAuthContextInfo();
+        info.setIssuedBy(ISSUER);
+        try {
+            factory.parse(token(key, UPN), info);
+            Assert.fail("Token accepted without a key");
+        } catch (ParseException e) {
+            // expected
+        }
+    }
+
+    static String token(RsaJsonWebKey key, String upn) throws Exception {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims(upn).toJson());
+        jws.setKey(key.getPrivateKey());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setHeader("typ", "JWT");
+        return jws.getCompactSerialization();
+    }
+
+    private static JwtClaims claims(String upn) {
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setSubject(upn);
+        claims.setClaim("upn", upn);
+        claims.setStringListClaim("groups", "Echoer", "Tester");
+        claims.setIssuedAtToNow();
+        claims.setExpirationTimeMinutesInTheFuture(5);
+        claims.setGeneratedJwtId();
+        return claims;
+    }
+}
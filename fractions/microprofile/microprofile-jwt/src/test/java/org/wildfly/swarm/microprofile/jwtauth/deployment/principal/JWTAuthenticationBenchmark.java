@@ -0,0 +1,68 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of authenticating a request carrying a bearer token which was already seen, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTAuthenticationBenchmark {
+
+    @Param({"0", "1000"})
+    public int tokenCacheSize;
+
+    private JWTAuthContextInfo contextInfo;
+
+    private DefaultJWTCallerPrincipalFactory factory;
+
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        RsaJsonWebKey key = RsaJwkGenerator.generateJwk(2048);
+        this.contextInfo = new JWTAuthContextInfo(key.getPublicKey(), DefaultJWTCallerPrincipalFactoryTest.ISSUER);
+        this.contextInfo.setTokenCacheSize(this.tokenCacheSize);
+        this.factory = new DefaultJWTCallerPrincipalFactory();
+        this.token = DefaultJWTCallerPrincipalFactoryTest.token(key, DefaultJWTCallerPrincipalFactoryTest.UPN);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal parse() throws ParseException {
+        return this.factory.parse(this.token, this.contextInfo);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JwksKeyStoreTest {
+
+    private static final String FIRST = "k1";
+
+    private static final String SECOND = "k2";
+
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private HttpServer server;
+
+    private String jwksUri;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile String keySet;
+
+    private volatile long delay;
+
+    private volatile boolean failing;
+
+    @Before
+    public void startServer() throws Exception {
+        keySet = keySet(FIRST);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/jwks", this::serve);
+        server.start();
+        jwksUri = "http://localhost:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @After
+    public void stopServer() {
+        // Let the requests of a slow refresh fail rather than waiting for them
+        server.stop(0);
+    }
+
+    @Test
+    public void testFirstLookupFetchesKeys() {
+        JwksKeyStore keyStore = new JwksKeyStore(jwksUri, NEVER, NEVER);
+
+        Assert.assertEquals(FIRST, keyIds(keyStore.getKeys()));
+        Assert.assertEquals(FIRST, keyIds(keyStore.getKeys()));
+        Assert.assertEquals(1, requests.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFirstLookupFailsWithoutKeys() {
+        failing = true;
+        new JwksKeyStore(jwksUri, NEVER, NEVER).getKeys();
+    }
+
+    @Test
+    public void testStaleKeysAreServedWhileRefreshing() throws Exception {
+        JwksKeyStore keyStore = new JwksKeyStore(jwksUri, 300, NEVER);
+        keyStore.getKeys();
+        keySet = keySet(SECOND);
+        delay = 1_000;
+        TimeUnit.MILLISECONDS.sleep(350);
+
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            Assert.assertEquals(FIRST, keyIds(keyStore.getKeys()));
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        }
+        Assert.assertTrue(keyStore.isRefreshing());
+
+        await(() -> SECOND.equals(keyIds(keyStore.getKeys())));
+        Assert.assertEquals("a single refresh for all the stale lookups", 2, requests.get());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsLastGoodKeys() throws Exception {
+        JwksKeyStore keyStore = new JwksKeyStore(jwksUri, 300, NEVER);
+        keyStore.getKeys();
+        failing = true;
+        TimeUnit.MILLISECONDS.sleep(350);
+
+        Assert.assertEquals(FIRST, keyIds(keyStore.getKeys()));
+        await(() -> !keyStore.isRefreshing());
+        Assert.assertEquals(FIRST, keyIds(keyStore.getKeys()));
+
+        failing = false;
+        keySet = keySet(SECOND);
+        TimeUnit.MILLISECONDS.sleep(350);
+        keyStore.getKeys();
+        await(() -> SECOND.equals(keyIds(keyStore.getKeys())));
+    }
+
+    @Test
+    public void testUnknownKeyRefreshesAreRateLimited() throws Exception {
+        JwksKeyStore keyStore = new JwksKeyStore(jwksUri, NEVER, 200);
+        keyStore.getKeys();
+        keySet = keySet(FIRST, SECOND);
+        TimeUnit.MILLISECONDS.sleep(250);
+
+        for (int i = 0; i < 100; i++) {
+            keyStore.onUnknownKey();
+        }
+        await(() -> (FIRST + "," + SECOND).equals(keyIds(keyStore.getKeys())));
+        Assert.assertEquals(2, requests.get());
+
+        for (int i = 0; i < 100; i++) {
+            keyStore.onUnknownKey();
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertEquals(2, requests.get());
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = (failing ? "{\"error\":\"unavailable\"}" : keySet).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(failing ? 503 : 200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String keySet(String... keyIds) throws Exception {
+        JsonWebKeySet jwks = new JsonWebKeySet();
+        for (String keyId : keyIds) {
+            RsaJsonWebKey key = RsaJwkGenerator.generateJwk(2048);
+            key.setKeyId(keyId);
+            key.setUse("sig");
+            key.setAlgorithm(AlgorithmIdentifiers.RSA_USING_SHA256);
+            jwks.addJsonWebKey(key);
+        }
+        return jwks.toJson();
+    }
+
+    private static String keyIds(List<JsonWebKey> keys) {
+        return keys.stream().map(JsonWebKey::getKeyId).sorted().collect(Collectors.joining(","));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out", System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+}
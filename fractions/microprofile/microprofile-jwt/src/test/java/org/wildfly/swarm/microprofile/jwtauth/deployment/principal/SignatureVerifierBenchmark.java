@@ -0,0 +1,73 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of verifying a signature with a pooled {@link SignatureVerifier}, against one created for each token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureVerifierBenchmark {
+
+    private static final byte[] SIGNING_INPUT = "eyJhbGciOiJFUzI1NiJ9.eyJzdWIiOiJqZG9lIn0".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({SignatureVerifier.RS256, SignatureVerifier.ES256, SignatureVerifier.PS256})
+    public String algorithm;
+
+    private KeyPair keyPair;
+
+    private byte[] signature;
+
+    private SignatureVerifier pooled;
+
+    @Setup
+    public void setup() throws Exception {
+        this.keyPair = Tokens.generateKeyPair(this.algorithm);
+        this.signature = Tokens.signature(this.algorithm, this.keyPair.getPrivate(), SIGNING_INPUT);
+        this.pooled = SignatureVerifier.create(this.algorithm, this.keyPair.getPublic());
+    }
+
+    @Benchmark
+    public boolean pooled() throws Exception {
+        return this.pooled.verify(SIGNING_INPUT, this.signature);
+    }
+
+    @Benchmark
+    public boolean perToken() throws Exception {
+        return SignatureVerifier.create(this.algorithm, this.keyPair.getPublic()).verify(SIGNING_INPUT, this.signature);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SignatureVerifierTest {
+
+    private static final byte[] SIGNING_INPUT = "eyJhbGciOiJFUzI1NiJ9.eyJzdWIiOiJqZG9lIn0".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void testEveryAlgorithmIsVerifiedWithPooledSignatures() throws Exception {
+        for (String algorithm : SignatureVerifier.ALGORITHMS) {
+            KeyPair keyPair = Tokens.generateKeyPair(algorithm);
+            byte[] signature = Tokens.signature(algorithm, keyPair.getPrivate(), SIGNING_INPUT);
+            SignatureVerifier verifier = SignatureVerifier.create(algorithm, keyPair.getPublic());
+
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(algorithm, verifier.verify(SIGNING_INPUT, signature));
+            }
+            byte[] tampered = SIGNING_INPUT.clone();
+            tampered[tampered.length - 1] ^= 1;
+            Assert.assertFalse(algorithm, verifier.verify(tampered, signature));
+            Assert.assertTrue("usable after a failed verification", verifier.verify(SIGNING_INPUT, signature));
+        }
+    }
+
+    @Test
+    public void testMalformedSignatureIsRejected() throws Exception {
+        KeyPair keyPair = Tokens.generateKeyPair(SignatureVerifier.ES256);
+        SignatureVerifier verifier = SignatureVerifier.create(SignatureVerifier.ES256, keyPair.getPublic());
+
+        Assert.assertFalse(verifier.verify(SIGNING_INPUT, new byte[63]));
+        Assert.assertFalse(verifier.verify(SIGNING_INPUT, new byte[64]));
+        byte[] signature = Tokens.signature(SignatureVerifier.ES256, keyPair.getPrivate(), SIGNING_INPUT);
+        Assert.assertTrue(verifier.verify(SIGNING_INPUT, signature));
+    }
+
+    @Test
+    public void testKeyMustMatchAlgorithm() throws Exception {
+        KeyPair rsa = Tokens.generateKeyPair(SignatureVerifier.RS256);
+        KeyPair p256 = Tokens.generateKeyPair(SignatureVerifier.ES256);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        KeyPair weak = generator.generateKeyPair();
+
+        Assert.assertNull(SignatureVerifier.create(SignatureVerifier.ES256, rsa.getPublic()));
+        Assert.assertNull(SignatureVerifier.create(SignatureVerifier.ES384, p256.getPublic()));
+        Assert.assertNull(SignatureVerifier.create(SignatureVerifier.RS256, p256.getPublic()));
+        Assert.assertNull(SignatureVerifier.create(SignatureVerifier.RS256, weak.getPublic()));
+        Assert.assertNull(SignatureVerifier.create("HS256", rsa.getPublic()));
+        Assert.assertNull(SignatureVerifier.create("none", rsa.getPublic()));
+    }
+
+    @Test
+    public void testConcurrentVerifications() throws Exception {
+        KeyPair keyPair = Tokens.generateKeyPair(SignatureVerifier.ES256);
+        byte[] signature = Tokens.signature(SignatureVerifier.ES256, keyPair.getPrivate(), SIGNING_INPUT);
+        SignatureVerifier verifier = SignatureVerifier.create(SignatureVerifier.ES256, keyPair.getPublic());
+        byte[] forged = Tokens.signature(SignatureVerifier.ES256, Tokens.generateKeyPair(SignatureVerifier.ES256).getPrivate(), SIGNING_INPUT);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                byte[] each = i % 4 == 0 ? forged : signature;
+                results.add(executor.submit(() -> verifier.verify(SIGNING_INPUT, each)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(i % 4 != 0, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKeysAreSelectedByIdAndAlgorithm() throws Exception {
+        KeyPair first = Tokens.generateKeyPair(SignatureVerifier.RS256);
+        KeyPair second = Tokens.generateKeyPair(SignatureVerifier.RS256);
+        KeyPair ec = Tokens.generateKeyPair(SignatureVerifier.ES384);
+        VerificationKeys keys = VerificationKeys.newKeySet();
+        keys.add("first", SignatureVerifier.RS256, first.getPublic());
+        keys.add("second", null, second.getPublic());
+        keys.add("ec", null, ec.getPublic());
+
+        Assert.assertSame(first.getPublic(), keys.select(SignatureVerifier.RS256, "first").getKey());
+        Assert.assertNull("restricted to the algorithm of the JWK", keys.select(SignatureVerifier.PS256, "first"));
+        Assert.assertSame(second.getPublic(), keys.select(SignatureVerifier.PS256, "second").getKey());
+        Assert.assertSame(ec.getPublic(), keys.select(SignatureVerifier.ES384, "ec").getKey());
+        Assert.assertNull(keys.select(SignatureVerifier.ES256, "ec"));
+        Assert.assertNull(keys.select(SignatureVerifier.RS256, "unknown"));
+
+        Assert.assertNull("ambiguous without key id", keys.select(SignatureVerifier.RS256, null));
+        Assert.assertSame(second.getPublic(), keys.select(SignatureVerifier.PS256, null).getKey());
+        Assert.assertSame(ec.getPublic(), keys.select(SignatureVerifier.ES384, null).getKey());
+    }
+
+    @Test
+    public void testSignerKeyIgnoresKeyId() throws Exception {
+        KeyPair keyPair = Tokens.generateKeyPair(SignatureVerifier.ES256);
+        VerificationKeys keys = VerificationKeys.of(keyPair.getPublic());
+
+        Assert.assertSame(keyPair.getPublic(), keys.select(SignatureVerifier.ES256, "any").getKey());
+        Assert.assertSame(keyPair.getPublic(), keys.select(SignatureVerifier.ES256, null).getKey());
+        Assert.assertNull(keys.select(SignatureVerifier.RS256, null));
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.Base64;
+
+/**
+ * Signs compact JWS with locally generated keys through the JCA, so that every algorithm can be signed whatever the JDK supports in jose4j.
+ */
+final class Tokens {
+
+    private Tokens() {
+    }
+
+    static KeyPair generateKeyPair(String algorithm) throws GeneralSecurityException {
+        KeyPairGenerator generator;
+        switch (algorithm) {
+            case SignatureVerifier.ES256:
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                break;
+            case SignatureVerifier.ES384:
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp384r1"));
+                break;
+            default:
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    static String sign(String algorithm, String keyId, PrivateKey key, String payload) throws GeneralSecurityException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = "{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\"" + (keyId != null ? ",\"kid\":\"" + keyId + "\"" : "") + "}";
+        String signingInput = encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + '.'
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return signingInput + '.' + encoder.encodeToString(signature(algorithm, key, signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static byte[] signature(String algorithm, PrivateKey key, byte[] signingInput) throws GeneralSecurityException {
+        Signature signature;
+        switch (algorithm) {
+            case SignatureVerifier.ES256:
+                signature = Signature.getInstance("SHA256withECDSA");
+                break;
+            case SignatureVerifier.ES384:
+                signature = Signature.getInstance("SHA384withECDSA");
+                break;
+            case SignatureVerifier.PS256:
+                signature = Signature.getInstance("RSASSA-PSS");
+                signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+                break;
+            default:
+                signature = Signature.getInstance("SHA256withRSA");
+        }
+        signature.initSign(key);
+        signature.update(signingInput);
+        byte[] bytes = signature.sign();
+        if (algorithm.startsWith("ES")) {
+            return toConcatenated(bytes, SignatureVerifier.ES256.equals(algorithm) ? 32 : 48);
+        }
+        return bytes;
+    }
+
+    private static byte[] toConcatenated(byte[] der, int length) {
+        // SEQUENCE { INTEGER r, INTEGER s }, lengths under 128 bytes for both curves
+        byte[] concatenated = new byte[2 * length];
+        int offset = 2;
+        for (int i = 0; i < 2; i++) {
+            int size = der[offset + 1];
+            int start = offset + 2;
+            int skip = Math.max(size - length, 0);
+            System.arraycopy(der, start + skip, concatenated, (i + 1) * length - (size - skip), size - skip);
+            offset = start + size;
+        }
+        return concatenated;
+    }
+}
@@ -41,6 +41,8 @@ import org.jboss.logging.Logger;
 
     private static final Logger LOGGER = Logger.getLogger(CountedInterceptor.class);
 
+    private static final InterceptedMembers<CountedMember> COUNTERS = new InterceptedMembers<>();
+
     private final Bean<?> bean;
 
     private final MetricRegistry registry;
@@ -70,21 +72,35 @@ import org.jboss.logging.Logger;
     }
 
     private <E extends Member & AnnotatedElement> Object countedCallable(InvocationContext context, E element) throws Exception {
-        MetricResolver.Of<Counted> counted = resolver.counted(bean != null ? bean.getBeanClass() : element.getDeclaringClass(), element);
-        String name = counted.metricName();
-        Counter counter = (Counter) registry.getCounters().get(name);
-        if (counter == null) {
-            throw new IllegalStateException("No counter with name [" + name + "] found in registry [" + registry + "]");
-        }
-        LOGGER.debugf("Increment counter [metricName: %s]", name);
-        counter.inc();
+        Class<?> topClass = bean != null ? bean.getBeanClass() : element.getDeclaringClass();
+        CountedMember counted = COUNTERS.get(topClass, element, (e) -> {
+            MetricResolver.Of<Counted> resolved = resolver.counted(topClass, e);
+            String name = resolved.metricName();
+            Counter found = (Counter) registry.getCounters().get(name);
+            if (found == null) {
+                throw new IllegalStateException("No counter with name [" + name + "] found in registry [" + registry + "]");
+            }
+            return new CountedMember(name, found, resolved.metricAnnotation().monotonic());
+        }, (c) -> c.isCurrentIn(registry));
+        LOGGER.debugf("Increment counter [metricName: %s]", counted.name);
+        counted.metric.inc();
         try {
             return context.proceed();
         } finally {
-            if (!counted.metricAnnotation().monotonic()) {
-                LOGGER.debugf("Decrement counter [metricName: %s]", name);
-                counter.dec();
+            if (!counted.monotonic) {
+                LOGGER.debugf("Decrement counter [metricName: %s]", counted.name);
+                counted.metric.dec();
             }
         }
     }
+
+    private static final class CountedMember extends RegisteredMetric<Counter> {
+
+        private final boolean monotonic;
+
+        private CountedMember(String name, Counter counter, boolean monotonic) {
+            super(name, counter);
+            this.monotonic = monotonic;
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.wildfly.swarm.microprofile.metrics.deployment;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * What an interceptor resolved for each intercepted member, so that metric names and registry lookups
+ * are worked out on the first invocation only, and again only once what was resolved is no longer current.
+ *
+ * <p>Held per bean class rather than per interceptor instance, since interceptors are created along
+ * with every instance of the bean they intercept.</p>
+ *
+ * @param <V> the resolved value, typically the metric to update
+ */
+/* package-private */ final class InterceptedMembers<V> {
+
+    private final ClassValue<ConcurrentMap<Member, V>> members = new ClassValue<ConcurrentMap<Member, V>>() {
+        @Override
+        protected ConcurrentMap<Member, V> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * @param topClass the intercepted bean class, or the declaring class of {@code element} when there is no bean
+     * @param element  the intercepted constructor or method
+     * @param resolver resolves the value on first use; nothing is cached if it throws
+     * @param current  whether a cached value is still current; if not, it is resolved again
+     */
+    <E extends Member & AnnotatedElement> V get(Class<?> topClass, E element, Function<E, V> resolver, Predicate<V> current) {
+        ConcurrentMap<Member, V> resolved = members.get(topClass);
+        V value = resolved.get(element);
+        if (value != null && !current.test(value)) {
+            resolved.remove(element, value);
+            value = null;
+        }
+        if (value == null) {
+            value = resolved.computeIfAbsent(element, (e) -> resolver.apply(element));
+        }
+        return value;
+    }
+}
@@ -41,6 +41,8 @@ import org.eclipse.microprofile.metrics.annotation.Metered;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 10)
 /* packaged-private */ class MeteredInterceptor {
 
+    private static final InterceptedMembers<RegisteredMetric<Meter>> METERS = new InterceptedMembers<>();
+
     private final Bean<?> bean;
 
     private final MetricRegistry registry;
@@ -70,11 +72,15 @@ import org.eclipse.microprofile.metrics.annotation.Metered;
     }
 
     private <E extends Member & AnnotatedElement> Object meteredCallable(InvocationContext context, E element) throws Exception {
-        String name = resolver.metered(bean != null ? bean.getBeanClass() : element.getDeclaringClass(), element).metricName();
-        Meter meter = (Meter) registry.getMetrics().get(name);
-        if (meter == null) {
-            throw new IllegalStateException("No meter with name [" + name + "] found in registry [" + registry + "]");
-        }
+        Class<?> topClass = bean != null ? bean.getBeanClass() : element.getDeclaringClass();
+        Meter meter = METERS.get(topClass, element, (e) -> {
+            String name = resolver.metered(topClass, e).metricName();
+            Meter found = (Meter) registry.getMetrics().get(name);
+            if (found == null) {
+                throw new IllegalStateException("No meter with name [" + name + "] found in registry [" + registry + "]");
+            }
+            return new RegisteredMetric<>(name, found);
+        }, (r) -> r.isCurrentIn(registry)).metric;
 
         meter.mark();
         return context.proceed();
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package org.wildfly.swarm.microprofile.metrics.deployment;
+
+import org.eclipse.microprofile.metrics.Metric;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricsRegistryImpl;
+
+/**
+ * A metric an interceptor resolved, along with the name it was registered under.
+ *
+ * @param <T> the type of metric
+ */
+/* package-private */ class RegisteredMetric<T extends Metric> {
+
+    final String name;
+
+    final T metric;
+
+    RegisteredMetric(String name, T metric) {
+        this.name = name;
+        this.metric = metric;
+    }
+
+    /**
+     * @return whether {@code registry} still holds this very metric, rather than none or one registered since
+     */
+    boolean isCurrentIn(MetricRegistry registry) {
+        Metric registered;
+        if (registry instanceof MetricsRegistryImpl) {
+            registered = ((MetricsRegistryImpl) registry).getMetric(name);
+        } else {
+            registered = registry.getMetrics().get(name);
+        }
+        return registered == metric;
+    }
+}
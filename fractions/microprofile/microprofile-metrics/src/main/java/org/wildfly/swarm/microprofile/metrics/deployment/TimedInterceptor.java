@@ -41,6 +41,8 @@ import org.eclipse.microprofile.metrics.annotation.Timed;
 @Priority(Interceptor.Priority.LIBRARY_BEFORE + 10)
 /* package-private */ class TimedInterceptor {
 
+    private static final InterceptedMembers<RegisteredMetric<Timer>> TIMERS = new InterceptedMembers<>();
+
     private final Bean<?> bean;
 
     private final MetricRegistry registry;
@@ -70,11 +72,15 @@ import org.eclipse.microprofile.metrics.annotation.Timed;
     }
 
     private <E extends Member & AnnotatedElement> Object timedCallable(InvocationContext context, E element) throws Exception {
-        String name = resolver.timed(bean != null ? bean.getBeanClass() : element.getDeclaringClass(), element).metricName();
-        Timer timer = (Timer) registry.getMetrics().get(name);
-        if (timer == null) {
-            throw new IllegalStateException("No timer with name [" + name + "] found in registry [" + registry + "]");
-        }
+        Class<?> topClass = bean != null ? bean.getBeanClass() : element.getDeclaringClass();
+        Timer timer = TIMERS.get(topClass, element, (e) -> {
+            String name = resolver.timed(topClass, e).metricName();
+            Timer found = (Timer) registry.getMetrics().get(name);
+            if (found == null) {
+                throw new IllegalStateException("No timer with name [" + name + "] found in registry [" + registry + "]");
+            }
+            return new RegisteredMetric<>(name, found);
+        }, (r) -> r.isCurrentIn(registry)).metric;
 
         Timer.Context time = timer.time();
         try {
@@ -16,10 +16,13 @@
  */
 package org.wildfly.swarm.microprofile.metrics.runtime;
 
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.metrics.Metadata;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.jboss.logging.Logger;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
@@ -28,32 +31,92 @@ import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Reads the values of the JMX backed base and vendor metrics.
+ *
+ * <p>Expressions {@link #register(String) registered} up front are sampled together, with one
+ * <code>getAttributes()</code> call per MBean, into a snapshot which is reused until it is older than
+ * the configured refresh interval. Only the reader finding the snapshot stale refreshes it; concurrent
+ * readers keep using the previous one.</p>
+ *
  * @author hrupp
  */
 public class JmxWorker {
 
+    /**
+     * Milliseconds a sample of the registered MBean attributes is used for; <code>0</code> reads every value
+     * from its MBean when asked for.
+     */
+    public static final String REFRESH_INTERVAL_PROPERTY = "swarm.microprofile.metrics.jmxRefreshMillis";
+
+    private static final long DEFAULT_REFRESH_MILLIS = 1_000;
+
     private static final String PLACEHOLDER = "%s";
-    private static MBeanServer mbs;
-    private static JmxWorker worker;
+    private static volatile JmxWorker worker;
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile.metrics");
 
-    private JmxWorker() { /* singleton */ }
+    private final MBeanServer mbs;
+    private final long refreshNanos;
+
+    // registered expressions, parsed once
+    private final Map<String, MBeanAttribute> attributes = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Sample sample;
+
+    JmxWorker(MBeanServer mbs, long refreshMillis) {
+        this.mbs = mbs;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+    }
 
 
     public static JmxWorker instance() {
         if (worker == null) {
-            worker = new JmxWorker();
-            mbs = ManagementFactory.getPlatformMBeanServer();
+            synchronized (JmxWorker.class) {
+                if (worker == null) {
+                    worker = new JmxWorker(ManagementFactory.getPlatformMBeanServer(), refreshMillis());
+                }
+            }
         }
 
         return worker;
     }
 
+    private static long refreshMillis() {
+        try {
+            return ConfigProvider.getConfig().getOptionalValue(REFRESH_INTERVAL_PROPERTY, Long.class).orElse(DEFAULT_REFRESH_MILLIS);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            LOG.warn("Ignoring " + REFRESH_INTERVAL_PROPERTY + ": " + e.getMessage());
+            return DEFAULT_REFRESH_MILLIS;
+        }
+    }
+
+    /**
+     * Include an expression in the sampled attributes. Expressions which cannot be sampled in bulk are
+     * left out and read individually by {@link #getValue(String)}, which then reports their problems.
+     *
+     * @param mbeanExpression The expression of a metric backed by an MBean attribute
+     */
+    public void register(String mbeanExpression) {
+        if (refreshNanos <= 0 || mbeanExpression == null || attributes.containsKey(mbeanExpression)) {
+            return;
+        }
+        MBeanAttribute attribute = MBeanAttribute.parse(mbeanExpression);
+        if (attribute != null && !attribute.objectName.isPattern()) {
+            attributes.put(mbeanExpression, attribute);
+            // the next read samples again, including the new attribute
+            sample = null;
+        }
+    }
+
     public Map<String, Double> getMetrics(MetricRegistry.Type scope) {
 
         Map<String, Metadata> metadataMap = MetricRegistries.get(scope).getMetadata();
@@ -79,6 +142,16 @@ public class JmxWorker {
      */
     public Number getValue(String mbeanExpression) {
 
+        if (refreshNanos > 0 && mbeanExpression != null && attributes.containsKey(mbeanExpression)) {
+            Sample current = currentSample();
+            if (current != null) {
+                Number value = current.values.get(mbeanExpression);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
         if (mbeanExpression == null) {
             throw new IllegalArgumentException("MBean Expression is null");
         }
@@ -113,6 +186,57 @@ public class JmxWorker {
     }
 
 
+    private Sample currentSample() {
+        Sample current = sample;
+        if (current == null || System.nanoTime() - current.takenAt > refreshNanos) {
+            if (refreshing.compareAndSet(false, true)) {
+                try {
+                    current = takeSample();
+                    sample = current;
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+        }
+        // null while the first sample is taken by another reader, which falls back to a direct read
+        return current;
+    }
+
+    private Sample takeSample() {
+        Map<ObjectName, List<MBeanAttribute>> byMBean = new LinkedHashMap<>();
+        for (MBeanAttribute each : attributes.values()) {
+            byMBean.computeIfAbsent(each.objectName, (k) -> new ArrayList<>()).add(each);
+        }
+
+        Map<String, Number> values = new HashMap<>();
+        for (Map.Entry<ObjectName, List<MBeanAttribute>> entry : byMBean.entrySet()) {
+            Set<String> names = new LinkedHashSet<>();
+            for (MBeanAttribute each : entry.getValue()) {
+                names.add(each.attributeName);
+            }
+
+            Map<String, Object> read = new HashMap<>();
+            try {
+                AttributeList list = mbs.getAttributes(entry.getKey(), names.toArray(new String[names.size()]));
+                for (Attribute each : list.asList()) {
+                    read.put(each.getName(), each.getValue());
+                }
+            } catch (Exception e) {
+                // unavailable right now; its metrics are read, and fail, one by one
+                LOG.debug("Could not sample " + entry.getKey() + ": " + e);
+                continue;
+            }
+
+            for (MBeanAttribute each : entry.getValue()) {
+                Number value = each.valueOf(read.get(each.attributeName));
+                if (value != null) {
+                    values.put(each.expression, value);
+                }
+            }
+        }
+        return new Sample(values, System.nanoTime());
+    }
+
     /**
      * We need to expand entries that are marked with the <b>multi</b> flag
      * into the actual MBeans. This is done by replacing a placeholder of <b>%s</b>
@@ -183,4 +307,66 @@ public class JmxWorker {
         }
         return keyHolder;
     }
+
+    /**
+     * An <code>mbean/attribute#subItem</code> expression, with its object name parsed.
+     */
+    private static final class MBeanAttribute {
+
+        private final String expression;
+        private final ObjectName objectName;
+        private final String attributeName;
+        private final String subItem;
+
+        private MBeanAttribute(String expression, ObjectName objectName, String attributeName, String subItem) {
+            this.expression = expression;
+            this.objectName = objectName;
+            this.attributeName = attributeName;
+            this.subItem = subItem;
+        }
+
+        static MBeanAttribute parse(String mbeanExpression) {
+            int slashIndex = mbeanExpression.indexOf('/');
+            if (slashIndex < 0) {
+                return null;
+            }
+            String attName = mbeanExpression.substring(slashIndex + 1);
+            String subItem = null;
+            int hashIndex = attName.indexOf('#');
+            if (hashIndex >= 0) {
+                subItem = attName.substring(hashIndex + 1);
+                attName = attName.substring(0, hashIndex);
+            }
+            try {
+                return new MBeanAttribute(mbeanExpression, new ObjectName(mbeanExpression.substring(0, slashIndex)), attName, subItem);
+            } catch (MalformedObjectNameException e) {
+                return null;
+            }
+        }
+
+        Number valueOf(Object attribute) {
+            if (attribute instanceof Number) {
+                return (Number) attribute;
+            }
+            if (attribute instanceof CompositeData && subItem != null && ((CompositeData) attribute).containsKey(subItem)) {
+                Object item = ((CompositeData) attribute).get(subItem);
+                return item instanceof Number ? (Number) item : null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The values of all registered attributes, as read at one point in time.
+     */
+    private static final class Sample {
+
+        private final Map<String, Number> values;
+        private final long takenAt;
+
+        private Sample(Map<String, Number> values, long takenAt) {
+            this.values = values;
+            this.takenAt = takenAt;
+        }
+    }
 }
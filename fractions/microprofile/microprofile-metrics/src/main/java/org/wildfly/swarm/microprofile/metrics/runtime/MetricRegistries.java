@@ -17,15 +17,28 @@
 package org.wildfly.swarm.microprofile.metrics.runtime;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.jboss.logging.Logger;
+import org.wildfly.swarm.microprofile.metrics.runtime.app.ReservoirType;
 
 /**
  * @author hrupp
  */
 public final class MetricRegistries {
 
+    /**
+     * Names the {@link ReservoirType} histograms and timers are created with; {@code exponentially-decaying} if unset.
+     * The property suffixed with a metric name, such as {@code swarm.microprofile.metrics.reservoir.my-timer}, overrides
+     * it for that metric only.
+     */
+    public static final String RESERVOIR_PROPERTY = "swarm.microprofile.metrics.reservoir";
+
+    private static final Logger LOGGER = Logger.getLogger(MetricRegistries.class);
+
     private static final Map<MetricRegistry.Type, MetricRegistry> REGISTRIES = new ConcurrentHashMap<>();
 
     private MetricRegistries() {
@@ -44,6 +57,26 @@ public final class MetricRegistries {
     }
 
     public static MetricRegistry get(MetricRegistry.Type type) {
-        return REGISTRIES.computeIfAbsent(type, (t) -> new MetricsRegistryImpl());
+        return REGISTRIES.computeIfAbsent(type, (t) -> new MetricsRegistryImpl(defaultReservoir()));
+    }
+
+    private static ReservoirType defaultReservoir() {
+        return configuredReservoir(RESERVOIR_PROPERTY).orElse(ReservoirType.EXPONENTIALLY_DECAYING);
+    }
+
+    /**
+     * Returns the reservoir type configured under a property, if it is set to a valid name.
+     *
+     * @param property the property, {@link #RESERVOIR_PROPERTY} or its per-metric variant
+     * @return the configured type
+     */
+    static Optional<ReservoirType> configuredReservoir(String property) {
+        try {
+            return ConfigProvider.getConfig().getOptionalValue(property, String.class)
+                    .map(ReservoirType::forName);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            LOGGER.warnf("Ignoring %s: %s", property, e.getMessage());
+            return Optional.empty();
+        }
     }
 }
@@ -29,6 +29,9 @@ import org.wildfly.swarm.microprofile.metrics.runtime.exporters.JsonExporter;
 import org.wildfly.swarm.microprofile.metrics.runtime.exporters.PrometheusExporter;
 import org.wildfly.swarm.microprofile.metrics.runtime.exporters.JsonMetadataExporter;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
@@ -43,6 +46,9 @@ public class MetricsHttpHandler implements HttpHandler {
 
     private HttpHandler next;
 
+    // shared by all requests, so that its rendered metric text and cached scrapes are reused
+    private volatile PrometheusExporter prometheusExporter;
+
     public MetricsHttpHandler(HttpHandler next) {
 
         this.next = next;
@@ -81,12 +87,16 @@ public class MetricsHttpHandler implements HttpHandler {
             scopePath = scopePath.substring(0, scopePath.length() - 1);
         }
 
-        StringBuilder sb;
+        ByteBuffer body;
 
         if (scopePath.isEmpty()) {
             // All metrics
 
-            sb = exporter.exportAllScopes();
+            if (exporter instanceof PrometheusExporter) {
+                body = ((PrometheusExporter) exporter).scrapeAllScopes();
+            } else {
+                body = encode(exporter.exportAllScopes());
+            }
 
         } else if (scopePath.contains("/")) {
             // One metric in a scope
@@ -104,7 +114,7 @@ public class MetricsHttpHandler implements HttpHandler {
             Map<String, Metric> metricValuesMap = registry.getMetrics();
 
             if (metricValuesMap.containsKey(attribute)) {
-                sb = exporter.exportOneMetric(scope, attribute);
+                body = encode(exporter.exportOneMetric(scope, attribute));
             } else {
                 exchange.setStatusCode(404);
                 exchange.setReasonPhrase("Metric " + scopePath + " not found");
@@ -126,14 +136,22 @@ public class MetricsHttpHandler implements HttpHandler {
                 exchange.setReasonPhrase("No data in scope " + scopePath);
             }
 
-            sb = exporter.exportOneScope(scope);
+            if (exporter instanceof PrometheusExporter) {
+                body = ((PrometheusExporter) exporter).scrapeOneScope(scope);
+            } else {
+                body = encode(exporter.exportOneScope(scope));
+            }
         }
 
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, exporter.getContentType());
         provideCorsHeaders(exchange);
         exchange.getResponseHeaders().put(new HttpString("Access-Control-Max-Age"), "1209600");
-        exchange.getResponseSender().send(sb.toString());
+        exchange.getResponseSender().send(body);
+
+    }
 
+    private ByteBuffer encode(StringBuilder sb) {
+        return StandardCharsets.UTF_8.encode(CharBuffer.wrap(sb));
     }
 
     private void provideCorsHeaders(HttpServerExchange exchange) {
@@ -169,7 +187,7 @@ public class MetricsHttpHandler implements HttpHandler {
 
         if (acceptHeaders == null) {
             if (method.equals("GET")) {
-                exporter = new PrometheusExporter();
+                exporter = getPrometheusExporter();
             } else {
                 return null;
             }
@@ -188,7 +206,7 @@ public class MetricsHttpHandler implements HttpHandler {
             } else {
                 // This is the fallback, but only for GET, as Prometheus does not support OPTIONS
                 if (method.equals("GET")) {
-                    exporter = new PrometheusExporter();
+                    exporter = getPrometheusExporter();
                 } else {
                     return null;
                 }
@@ -197,5 +215,20 @@ public class MetricsHttpHandler implements HttpHandler {
         return exporter;
     }
 
+    private PrometheusExporter getPrometheusExporter() {
+        PrometheusExporter exporter = prometheusExporter;
+        if (exporter == null) {
+            // created on the first request rather than with the handler, so that the deployment's configuration applies
+            synchronized (this) {
+                exporter = prometheusExporter;
+                if (exporter == null) {
+                    exporter = new PrometheusExporter();
+                    prometheusExporter = exporter;
+                }
+            }
+        }
+        return exporter;
+    }
+
 
 }
@@ -37,9 +37,9 @@ import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.Timer;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.microprofile.metrics.runtime.app.CounterImpl;
-import org.wildfly.swarm.microprofile.metrics.runtime.app.ExponentiallyDecayingReservoir;
 import org.wildfly.swarm.microprofile.metrics.runtime.app.HistogramImpl;
 import org.wildfly.swarm.microprofile.metrics.runtime.app.MeterImpl;
+import org.wildfly.swarm.microprofile.metrics.runtime.app.ReservoirType;
 import org.wildfly.swarm.microprofile.metrics.runtime.app.TimerImpl;
 
 /**
@@ -52,6 +52,19 @@ public class MetricsRegistryImpl extends MetricRegistry {
 
     private Map<String, Metadata> metadataMap = new java.util.HashMap<>();
     private Map<String, Metric> metricMap = new ConcurrentHashMap<>();
+    private final ReservoirType defaultReservoir;
+
+    public MetricsRegistryImpl() {
+        this(ReservoirType.EXPONENTIALLY_DECAYING);
+    }
+
+    /**
+     * @param defaultReservoir the reservoir histograms and timers are created with, unless one is configured for the
+     *                         metric name, see {@link MetricRegistries#RESERVOIR_PROPERTY}
+     */
+    public MetricsRegistryImpl(ReservoirType defaultReservoir) {
+        this.defaultReservoir = defaultReservoir;
+    }
 
     @Override
     public <T extends Metric> T register(String name, T metric) throws IllegalArgumentException {
@@ -173,10 +186,10 @@ public class MetricsRegistryImpl extends MetricRegistry {
                     m = new MeterImpl();
                     break;
                 case HISTOGRAM:
-                    m = new HistogramImpl(new ExponentiallyDecayingReservoir());
+                    m = new HistogramImpl(reservoirFor(name).create());
                     break;
                 case TIMER:
-                    m = new TimerImpl(new ExponentiallyDecayingReservoir());
+                    m = new TimerImpl(reservoirFor(name).create());
                     break;
                 case INVALID:
                 default:
@@ -192,6 +205,10 @@ public class MetricsRegistryImpl extends MetricRegistry {
         return (T) metricMap.get(name);
     }
 
+    private ReservoirType reservoirFor(String name) {
+        return MetricRegistries.configuredReservoir(MetricRegistries.RESERVOIR_PROPERTY + "." + name).orElse(defaultReservoir);
+    }
+
     @Override
     public Timer timer(String s) {
         return timer(new Metadata(s, MetricType.TIMER));
@@ -279,6 +296,13 @@ public class MetricsRegistryImpl extends MetricRegistry {
         return getMetrics(MetricType.TIMER, metricFilter);
     }
 
+    /**
+     * @return the metric registered under {@code name}, looked up without copying the registry
+     */
+    public Metric getMetric(String name) {
+        return metricMap.get(name);
+    }
+
     @Override
     public Map<String, Metric> getMetrics() {
 
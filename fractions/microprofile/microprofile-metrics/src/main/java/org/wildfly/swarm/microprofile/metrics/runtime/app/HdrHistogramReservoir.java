@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.Math.min;
+
+/**
+ * A reservoir which counts every value into log-linear buckets, in the manner of HdrHistogram.
+ *
+ * <p>Values are kept to a fixed number of significant decimal digits, so the relative error of any
+ * quantile is bounded no matter how values are distributed. Recording is a single atomic increment
+ * into a pre-allocated array. Unlike the sampling reservoirs, nothing decays: snapshots describe every
+ * value recorded since creation.</p>
+ */
+public class HdrHistogramReservoir implements Reservoir {
+    private static final int DEFAULT_SIGNIFICANT_DIGITS = 2;
+
+    private final long highestTrackableValue;
+    private final int subBucketBits;
+    private final int subBucketHalfCount;
+    private final AtomicLongArray counts;
+    private final LongAdder count;
+
+    /**
+     * Creates a new {@link HdrHistogramReservoir} tracking any non-negative value to two significant digits.
+     */
+    public HdrHistogramReservoir() {
+        this(Long.MAX_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Creates a new {@link HdrHistogramReservoir}.
+     *
+     * @param highestTrackableValue the highest value to distinguish; larger values are recorded as this value
+     * @param significantDigits     the number of significant decimal digits to keep, between 1 and 3
+     */
+    public HdrHistogramReservoir(long highestTrackableValue, int significantDigits) {
+        if (highestTrackableValue < 1) {
+            throw new IllegalArgumentException("Highest trackable value must be positive: " + highestTrackableValue);
+        }
+        if (significantDigits < 1 || significantDigits > 3) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 3: " + significantDigits);
+        }
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        this.subBucketBits = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+        this.subBucketHalfCount = 1 << (subBucketBits - 1);
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+        this.count = new LongAdder();
+    }
+
+    @Override
+    public int size() {
+        return (int) min(Integer.MAX_VALUE, count.sum());
+    }
+
+    @Override
+    public void update(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, min(value, highestTrackableValue))));
+        count.increment();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        int buckets = 0;
+        final long[] bucketCounts = new long[counts.length()];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = counts.get(i);
+            if (bucketCounts[i] > 0) {
+                buckets++;
+            }
+        }
+
+        final long[] values = new long[buckets];
+        final long[] valueCounts = new long[buckets];
+        int pos = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            if (bucketCounts[i] > 0) {
+                values[pos] = valueAt(i);
+                valueCounts[pos] = bucketCounts[i];
+                pos++;
+            }
+        }
+        return new HistogramSnapshot(values, valueCounts);
+    }
+
+    /**
+     * Values below {@code 2 * subBucketHalfCount} get a bucket each; above that, each power of two is split
+     * into {@code subBucketHalfCount} buckets, by shifting the value right until it fits.
+     */
+    int indexOf(long value) {
+        final int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1));
+        if (shift == 0) {
+            return (int) value;
+        }
+        return (shift * subBucketHalfCount) + (int) (value >>> shift);
+    }
+
+    /**
+     * The midpoint of the values sharing a bucket.
+     */
+    long valueAt(int index) {
+        final int shift = Math.max(0, (index / subBucketHalfCount) - 1);
+        if (shift == 0) {
+            return index;
+        }
+        final long lowest = ((long) (index - (shift * subBucketHalfCount))) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link Snapshot} of distinct values, each recorded some number of times.
+ */
+public class HistogramSnapshot extends Snapshot {
+
+    private final long[] values;
+    private final long[] counts;
+    private final long total;
+
+    /**
+     * Create a new {@link Snapshot} with the given values and their counts.
+     *
+     * @param values the distinct values, in ascending order
+     * @param counts the number of times each value was recorded
+     */
+    public HistogramSnapshot(long[] values, long[] counts) {
+        this.values = values;
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.total = total;
+    }
+
+    /**
+     * Returns the value at the given quantile.
+     *
+     * @param quantile a given quantile, in {@code [0..1]}
+     * @return the value in the distribution at {@code quantile}
+     */
+    @Override
+    public double getValue(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+
+        if (values.length == 0) {
+            return 0.0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < values.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    /**
+     * Returns the number of values in the snapshot.
+     *
+     * @return the number of values
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Returns the entire set of values in the snapshot, each value repeated as often as it was recorded.
+     *
+     * @return the entire set of values
+     */
+    @Override
+    public long[] getValues() {
+        final long[] expanded = new long[size()];
+        int pos = 0;
+        for (int i = 0; i < values.length && pos < expanded.length; i++) {
+            for (long j = 0; j < counts[i] && pos < expanded.length; j++) {
+                expanded[pos++] = values[i];
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Returns the highest value in the snapshot.
+     *
+     * @return the highest value
+     */
+    @Override
+    public long getMax() {
+        if (values.length == 0) {
+            return 0;
+        }
+        return values[values.length - 1];
+    }
+
+    /**
+     * Returns the lowest value in the snapshot.
+     *
+     * @return the lowest value
+     */
+    @Override
+    public long getMin() {
+        if (values.length == 0) {
+            return 0;
+        }
+        return values[0];
+    }
+
+    /**
+     * Returns the arithmetic mean of the values in the snapshot.
+     *
+     * @return the arithmetic mean
+     */
+    @Override
+    public double getMean() {
+        if (values.length == 0) {
+            return 0;
+        }
+
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += (double) values[i] * counts[i];
+        }
+        return sum / total;
+    }
+
+    /**
+     * Returns the standard deviation of the values in the snapshot.
+     *
+     * @return the standard deviation value
+     */
+    @Override
+    public double getStdDev() {
+        if (total <= 1) {
+            return 0;
+        }
+
+        final double mean = getMean();
+        double variance = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            final double diff = values[i] - mean;
+            variance += counts[i] * diff * diff;
+        }
+
+        return Math.sqrt(variance / (total - 1));
+    }
+
+    /**
+     * Writes the values of the snapshot to the given stream.
+     *
+     * @param output an output stream
+     */
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, UTF_8))) {
+            for (int i = 0; i < values.length; i++) {
+                for (long j = 0; j < counts[i]; j++) {
+                    out.printf("%d%n", values[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@link Reservoir} implementations histograms and timers may be created with.
+ */
+public enum ReservoirType {
+
+    /**
+     * {@link ExponentiallyDecayingReservoir}, biased to the last five minutes.
+     */
+    EXPONENTIALLY_DECAYING("exponentially-decaying", ExponentiallyDecayingReservoir::new),
+
+    /**
+     * {@link StripedExponentiallyDecayingReservoir}, biased to the last five minutes, striped to reduce contention.
+     */
+    STRIPED_EXPONENTIALLY_DECAYING("striped-exponentially-decaying", StripedExponentiallyDecayingReservoir::new),
+
+    /**
+     * {@link HdrHistogramReservoir}, every value since creation to two significant digits.
+     */
+    HDR_HISTOGRAM("hdr-histogram", HdrHistogramReservoir::new);
+
+    private final String configName;
+    private final Supplier<Reservoir> factory;
+
+    ReservoirType(String configName, Supplier<Reservoir> factory) {
+        this.configName = configName;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the type for a configured name.
+     *
+     * @param configName the name, such as {@code hdr-histogram}
+     * @return the matching type
+     * @throws IllegalArgumentException if no type has the name
+     */
+    public static ReservoirType forName(String configName) {
+        for (ReservoirType each : values()) {
+            if (each.configName.equalsIgnoreCase(configName.trim())) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reservoir: " + configName);
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Creates a new, empty reservoir of this type.
+     *
+     * @return the reservoir
+     */
+    public Reservoir create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.Math.exp;
+import static java.lang.Math.min;
+
+/**
+ * An exponentially-decaying random reservoir which records without per-update allocation, and without
+ * a lock shared by all recording threads.
+ *
+ * <p>Uses the same forward-decaying priority sampling as {@link ExponentiallyDecayingReservoir}, but keeps
+ * samples in pre-allocated primitive min-heaps split over stripes. Each stripe is guarded by its own
+ * try-lock. A thread records into its current stripe if it can claim it, and otherwise moves on to another
+ * rather than waiting; only when every stripe is busy does it yield and try again. Stripes are allocated
+ * only once threads actually contend, so an uncontended reservoir holds a single stripe. Each stripe
+ * rescales itself against its own landmark, and snapshots, which wait for each stripe in turn, merge the
+ * highest-priority samples of all stripes.</p>
+ */
+public class StripedExponentiallyDecayingReservoir implements Reservoir {
+    private static final int DEFAULT_SIZE = 1028;
+    private static final double DEFAULT_ALPHA = 0.015;
+    private static final long RESCALE_THRESHOLD = TimeUnit.HOURS.toNanos(1);
+    private static final int MAX_STRIPES = 16;
+
+    /**
+     * The stripe each thread last recorded into; shared by all reservoirs, and only moved on contention.
+     */
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static final AtomicIntegerFieldUpdater<Stripe> BUSY = AtomicIntegerFieldUpdater.newUpdater(Stripe.class, "busy");
+
+    private final AtomicReferenceArray<Stripe> stripes;
+    private final int mask;
+    private final double alpha;
+    private final int size;
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link StripedExponentiallyDecayingReservoir} of 1028 elements, which offers a 99.9%
+     * confidence level with a 5% margin of error assuming a normal distribution, and an alpha
+     * factor of 0.015, which heavily biases the reservoir to the past 5 minutes of measurements.
+     */
+    public StripedExponentiallyDecayingReservoir() {
+        this(DEFAULT_SIZE, DEFAULT_ALPHA);
+    }
+
+    /**
+     * Creates a new {@link StripedExponentiallyDecayingReservoir}.
+     *
+     * @param size  the number of samples to keep in the sampling reservoir
+     * @param alpha the exponential decay factor; the higher this is, the more biased the reservoir
+     *              will be towards newer values
+     */
+    public StripedExponentiallyDecayingReservoir(int size, double alpha) {
+        this(size, alpha, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link StripedExponentiallyDecayingReservoir}.
+     *
+     * @param size  the number of samples to keep in the sampling reservoir
+     * @param alpha the exponential decay factor; the higher this is, the more biased the reservoir
+     *              will be towards newer values
+     * @param clock the clock used to timestamp samples and track rescaling
+     */
+    public StripedExponentiallyDecayingReservoir(int size, double alpha, Clock clock) {
+        this(size, alpha, clock, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new {@link StripedExponentiallyDecayingReservoir}.
+     *
+     * @param size        the number of samples to keep in the sampling reservoir
+     * @param alpha       the exponential decay factor; the higher this is, the more biased the reservoir
+     *                    will be towards newer values
+     * @param clock       the clock used to timestamp samples and track rescaling
+     * @param concurrency the expected number of concurrently recording threads
+     */
+    public StripedExponentiallyDecayingReservoir(int size, double alpha, Clock clock, int concurrency) {
+        int stripeCount = 1;
+        while (stripeCount < min(concurrency, MAX_STRIPES)) {
+            stripeCount <<= 1;
+        }
+        this.stripes = new AtomicReferenceArray<>(stripeCount);
+        this.mask = stripeCount - 1;
+        this.alpha = alpha;
+        this.size = size;
+        this.clock = clock;
+    }
+
+    @Override
+    public int size() {
+        long count = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                count += stripe.count;
+            }
+        }
+        return (int) min(size, count);
+    }
+
+    @Override
+    public void update(long value) {
+        update(value, currentTimeInSeconds());
+    }
+
+    /**
+     * Adds an old value with a fixed timestamp to the reservoir.
+     *
+     * @param value     the value to be added
+     * @param timestamp the epoch timestamp of {@code value} in seconds
+     */
+    public void update(long value, long timestamp) {
+        final int[] probe = PROBE.get();
+        int attempts = 0;
+        while (true) {
+            final Stripe stripe = stripe(probe[0] & mask);
+            if (stripe.tryLock()) {
+                try {
+                    stripe.update(value, timestamp);
+                } finally {
+                    stripe.unlock();
+                }
+                return;
+            }
+            // contended, move this thread elsewhere
+            probe[0] = ThreadLocalRandom.current().nextInt();
+            if (++attempts > mask) {
+                attempts = 0;
+                Thread.yield();
+            }
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        final List<Stripe> copies = new ArrayList<>(stripes.length());
+        long landmark = Long.MIN_VALUE;
+        for (int i = 0; i < stripes.length(); i++) {
+            final Stripe stripe = stripes.get(i);
+            if (stripe != null) {
+                final Stripe copy = stripe.copy();
+                copies.add(copy);
+                landmark = Math.max(landmark, copy.startTime);
+            }
+        }
+
+        int total = 0;
+        for (Stripe copy : copies) {
+            total += copy.count;
+        }
+
+        // bring every stripe's weights and priorities to the most recent landmark
+        final long[] values = new long[total];
+        final double[] weights = new double[total];
+        final double[] priorities = new double[total];
+        int pos = 0;
+        for (Stripe copy : copies) {
+            final double scalingFactor = exp(-alpha * (landmark - copy.startTime));
+            for (int i = 0; i < copy.count; i++, pos++) {
+                values[pos] = copy.values[i];
+                weights[pos] = copy.weights[i] * scalingFactor;
+                priorities[pos] = copy.priorities[i] * scalingFactor;
+            }
+        }
+
+        // the highest priorities across all stripes form a sample of everything recorded
+        double threshold = Double.NEGATIVE_INFINITY;
+        if (total > size) {
+            final double[] sorted = priorities.clone();
+            Arrays.sort(sorted);
+            threshold = sorted[total - size];
+        }
+
+        final List<WeightedSnapshot.WeightedSample> samples = new ArrayList<>(min(total, size));
+        for (int i = 0; i < total && samples.size() < size; i++) {
+            if (priorities[i] >= threshold) {
+                samples.add(new WeightedSnapshot.WeightedSample(values[i], weights[i]));
+            }
+        }
+        return new WeightedSnapshot(samples);
+    }
+
+    private Stripe stripe(int index) {
+        Stripe stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new Stripe(size, currentTimeInSeconds(), clock.getTick() + RESCALE_THRESHOLD));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    private long currentTimeInSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(clock.getTime());
+    }
+
+    /**
+     * One stripe of samples, a min-heap on priority held in parallel primitive arrays.
+     */
+    final class Stripe {
+        private final long[] values;
+        private final double[] weights;
+        private final double[] priorities;
+        volatile int busy;
+        private int count;
+        private long startTime;
+        private long nextScaleTime;
+
+        Stripe(int capacity, long startTime, long nextScaleTime) {
+            this.values = new long[capacity];
+            this.weights = new double[capacity];
+            this.priorities = new double[capacity];
+            this.startTime = startTime;
+            this.nextScaleTime = nextScaleTime;
+        }
+
+        private Stripe(Stripe other) {
+            this.values = Arrays.copyOf(other.values, other.count);
+            this.weights = Arrays.copyOf(other.weights, other.count);
+            this.priorities = Arrays.copyOf(other.priorities, other.count);
+            this.count = other.count;
+            this.startTime = other.startTime;
+            this.nextScaleTime = other.nextScaleTime;
+        }
+
+        boolean tryLock() {
+            return busy == 0 && BUSY.compareAndSet(this, 0, 1);
+        }
+
+        void unlock() {
+            busy = 0;
+        }
+
+        Stripe copy() {
+            while (!tryLock()) {
+                Thread.yield();
+            }
+            try {
+                rescaleIfNeeded();
+                return new Stripe(this);
+            } finally {
+                unlock();
+            }
+        }
+
+        void update(long value, long timestamp) {
+            rescaleIfNeeded();
+
+            final double itemWeight = weight(timestamp - startTime);
+            final double priority = itemWeight / ThreadLocalRandom.current().nextDouble();
+
+            if (count < priorities.length) {
+                set(count, value, itemWeight, priority);
+                siftUp(count++);
+            } else if (priorities[0] < priority) {
+                set(0, value, itemWeight, priority);
+                siftDown(0);
+            }
+        }
+
+        private void rescaleIfNeeded() {
+            final long now = clock.getTick();
+            if (now >= nextScaleTime) {
+                nextScaleTime = now + RESCALE_THRESHOLD;
+                final long oldStartTime = startTime;
+                startTime = currentTimeInSeconds();
+                final double scalingFactor = exp(-alpha * (startTime - oldStartTime));
+                if (Double.compare(scalingFactor, 0) == 0) {
+                    count = 0;
+                } else {
+                    // uniform scaling keeps the heap ordered
+                    for (int i = 0; i < count; i++) {
+                        weights[i] *= scalingFactor;
+                        priorities[i] *= scalingFactor;
+                    }
+                }
+            }
+        }
+
+        private void set(int index, long value, double weight, double priority) {
+            values[index] = value;
+            weights[index] = weight;
+            priorities[index] = priority;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                final int parent = (index - 1) >>> 1;
+                if (priorities[parent] <= priorities[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                final int left = (index << 1) + 1;
+                if (left >= count) {
+                    return;
+                }
+                final int right = left + 1;
+                final int smallest = right < count && priorities[right] < priorities[left] ? right : left;
+                if (priorities[index] <= priorities[smallest]) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            final long value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+            final double weight = weights[i];
+            weights[i] = weights[j];
+            weights[j] = weight;
+            final double priority = priorities[i];
+            priorities[i] = priorities[j];
+            priorities[j] = priority;
+        }
+
+        private double weight(long t) {
+            return exp(alpha * t);
+        }
+    }
+}
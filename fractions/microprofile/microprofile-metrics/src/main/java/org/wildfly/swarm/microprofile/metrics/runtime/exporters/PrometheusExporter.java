@@ -14,13 +14,21 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.wildfly.swarm.microprofile.metrics.runtime.exporters;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 import org.eclipse.microprofile.config.Config;
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.metrics.Counter;
@@ -42,6 +50,12 @@ import org.wildfly.swarm.microprofile.metrics.runtime.app.TimerImpl;
 /**
  * Export data in Prometheus text format
  *
+ * <p>The text of each metric (its names, HELP and TYPE lines and tags) only depends on its metadata and is
+ * rendered once into a {@link Template}; a scrape just fills in the current values. Instances are meant to be
+ * shared: whole scopes can be scraped through {@link #scrapeAllScopes()} and {@link #scrapeOneScope(MetricRegistry.Type)},
+ * which hand out the UTF-8 encoded result and let concurrent scrapes, as well as scrapes within the configured
+ * cache window, share a single rendering.</p>
+ *
  * @author Heiko W. Rupp
  */
 public class PrometheusExporter implements Exporter {
@@ -49,6 +63,9 @@ public class PrometheusExporter implements Exporter {
     // This allows to suppress the (noisy) # HELP line
     private static final String SWARM_MICROPROFILE_METRICS_OMIT_HELP_LINE = "swarm.microprofile.metrics.omitHelpLine";
 
+    // Scrapes of a scope within this many milliseconds of its last rendering are served from it
+    private static final String SWARM_MICROPROFILE_METRICS_SCRAPE_CACHE_MILLIS = "swarm.microprofile.metrics.scrapeCacheMillis";
+
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile.metrics");
 
     private static final String LF = "\n";
@@ -59,12 +76,39 @@ public class PrometheusExporter implements Exporter {
     private static final String COUNTER = "counter";
     private static final String QUANTILE = "quantile";
 
-    private boolean writeHelpLine;
+    // timers have the most values: four rates, four snapshot basics, the count and six quantiles
+    private static final int MAX_VALUES = 15;
+
+    private final boolean writeHelpLine;
+
+    private final long cacheNanos;
+
+    private final Map<MetricRegistry.Type, Map<String, Template>> templates = new EnumMap<>(MetricRegistry.Type.class);
+
+    private final Map<MetricRegistry.Type, Scrape> scopeScrapes = new EnumMap<>(MetricRegistry.Type.class);
+
+    private final Scrape allScopesScrape = new Scrape(null);
 
     public PrometheusExporter() {
-        Config config = ConfigProvider.getConfig();
+        this(writeHelpLine(ConfigProvider.getConfig()), scrapeCacheMillis(ConfigProvider.getConfig()));
+    }
+
+    PrometheusExporter(boolean writeHelpLine, long scrapeCacheMillis) {
+        this.writeHelpLine = writeHelpLine;
+        this.cacheNanos = TimeUnit.MILLISECONDS.toNanos(scrapeCacheMillis);
+        for (MetricRegistry.Type scope : MetricRegistry.Type.values()) {
+            templates.put(scope, new ConcurrentHashMap<>());
+            scopeScrapes.put(scope, new Scrape(scope));
+        }
+    }
+
+    private static boolean writeHelpLine(Config config) {
         Optional<Boolean> tmp = config.getOptionalValue(SWARM_MICROPROFILE_METRICS_OMIT_HELP_LINE, Boolean.class);
-        writeHelpLine = !tmp.isPresent() || !tmp.get();
+        return !tmp.isPresent() || !tmp.get();
+    }
+
+    private static long scrapeCacheMillis(Config config) {
+        return config.getOptionalValue(SWARM_MICROPROFILE_METRICS_SCRAPE_CACHE_MILLIS, Long.class).orElse(0L);
     }
 
     public StringBuilder exportOneScope(MetricRegistry.Type scope) {
@@ -101,6 +145,24 @@ public class PrometheusExporter implements Exporter {
         return sb;
     }
 
+    /**
+     * Export the metrics of all scopes, sharing the rendering with concurrent and recent scrapes.
+     *
+     * @return The UTF-8 encoded export, positioned for reading.
+     */
+    public ByteBuffer scrapeAllScopes() {
+        return allScopesScrape.get();
+    }
+
+    /**
+     * Export the metrics of one scope, sharing the rendering with concurrent and recent scrapes.
+     *
+     * @param scope The scope to export.
+     * @return The UTF-8 encoded export, positioned for reading.
+     */
+    public ByteBuffer scrapeOneScope(MetricRegistry.Type scope) {
+        return scopeScrapes.get(scope).get();
+    }
 
     @Override
     public String getContentType() {
@@ -112,138 +174,223 @@ public class PrometheusExporter implements Exporter {
         Map<String, Metric> metricMap = registry.getMetrics();
 
         exposeEntries(scope, sb, registry, metricMap);
+
+        Map<String, Template> scopeTemplates = templates.get(scope);
+        if (scopeTemplates.size() > metricMap.size()) {
+            // metrics have been removed since they were last rendered
+            scopeTemplates.keySet().retainAll(metricMap.keySet());
+        }
     }
 
     private void exposeEntries(MetricRegistry.Type scope, StringBuilder sb, MetricRegistry registry, Map<String, Metric> metricMap) {
+        Map<String, Metadata> metadataMap = registry.getMetadata();
+        Map<String, Template> scopeTemplates = templates.get(scope);
+        double[] values = new double[MAX_VALUES];
+
         for (Map.Entry<String, Metric> entry : metricMap.entrySet()) {
             String key = entry.getKey();
-            Metadata md = registry.getMetadata().get(key);
+            Metadata md = metadataMap.get(key);
+            if (md == null) {
+                throw new IllegalStateException("No entry for " + key + " found");
+            }
 
+            Template template = scopeTemplates.get(key);
+            if (template == null || template.metadata != md) {
+                template = createTemplate(scope, key, md);
+                scopeTemplates.put(key, template);
+            }
 
-            Metric metric = entry.getValue();
+            int count = sampleValues(template, entry.getValue(), values);
+            template.render(sb, values, count);
+        }
+    }
 
-            switch (md.getTypeRaw()) {
-                case GAUGE:
-                case COUNTER:
-                    key = getPrometheusMetricName(md, key);
-                    String suffix = null;
-                    if (!md.getUnit().equals(MetricUnits.NONE)) {
-                        suffix = USCORE + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
-                    }
-                    writeHelpLine(sb, scope, key, md, suffix);
-                    writeTypeLine(sb, scope, key, md, suffix, null);
-                    createSimpleValueLine(sb, scope, key, md, metric);
-                    break;
-                case METERED:
-                    MeterImpl meter = (MeterImpl) metric;
-                    writeMeterValues(sb, scope, meter, md);
-                    break;
-                case TIMER:
-                    TimerImpl timer = (TimerImpl) metric;
-                    writeTimerValues(sb, scope, timer, md);
-                    break;
-                case HISTOGRAM:
-                    HistogramImpl histogram = (HistogramImpl) metric;
-                    writeHistogramValues(sb, scope, histogram, md);
-                    break;
-                default:
-                    throw new IllegalArgumentException("Not supported: " + key);
+    private Template createTemplate(MetricRegistry.Type scope, String key, Metadata md) {
+        TemplateWriter out = new TemplateWriter();
+
+        switch (md.getTypeRaw()) {
+            case GAUGE:
+            case COUNTER:
+                key = getPrometheusMetricName(md, key);
+                String suffix = null;
+                if (!md.getUnit().equals(MetricUnits.NONE)) {
+                    suffix = USCORE + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
+                }
+                writeHelpLine(out, scope, key, md, suffix);
+                writeTypeLine(out, scope, key, md, suffix, null);
+                createSimpleValueLine(out, scope, key, md);
+                break;
+            case METERED:
+                writeMeterValues(out, scope, md);
+                break;
+            case TIMER:
+                writeTimerValues(out, scope, md);
+                break;
+            case HISTOGRAM:
+                writeHistogramValues(out, scope, md);
+                break;
+            default:
+                throw new IllegalArgumentException("Not supported: " + key);
 
-            }
         }
+        return out.toTemplate(md, key);
+    }
+
+    /**
+     * Read the current values of a metric, in the order its template expects them.
+     */
+    private int sampleValues(Template template, Metric metric, double[] values) {
+        Metadata md = template.metadata;
+        String unit = md.getUnit();
+        int i = 0;
+
+        switch (md.getTypeRaw()) {
+            case GAUGE:
+                Number value = (Number) ((Gauge) metric).getValue();
+                if (value == null) {
+                    LOG.warn("Value is null for " + template.name);
+                    throw new IllegalStateException("Value must not be null for " + template.name);
+                }
+                values[i++] = scaled(unit, value.doubleValue());
+                break;
+            case COUNTER:
+                values[i++] = scaled(unit, ((Counter) metric).getCount());
+                break;
+            case METERED:
+                MeterImpl meter = (MeterImpl) metric;
+                values[i++] = scaled(unit, meter.getCount());
+                i = sampleMeterRates(meter, unit, values, i);
+                break;
+            case TIMER:
+                TimerImpl timer = (TimerImpl) metric;
+                i = sampleMeterRates(timer.getMeter(), unit, values, i);
+                Snapshot timerSnapshot = timer.getSnapshot();
+                i = sampleSnapshotBasics(timerSnapshot, unit, values, i);
+                values[i++] = timer.getCount();
+                i = sampleSnapshotQuantiles(timerSnapshot, unit, values, i);
+                break;
+            case HISTOGRAM:
+                HistogramImpl histogram = (HistogramImpl) metric;
+                Snapshot snapshot = histogram.getSnapshot();
+                i = sampleSnapshotBasics(snapshot, unit, values, i);
+                values[i++] = histogram.getCount();
+                i = sampleSnapshotQuantiles(snapshot, unit, values, i);
+                break;
+            default:
+                throw new IllegalArgumentException("Not supported: " + template.name);
+        }
+        return i;
+    }
+
+    private int sampleMeterRates(Metered metric, String unit, double[] values, int i) {
+        values[i++] = scaled(unit, metric.getMeanRate());
+        values[i++] = scaled(unit, metric.getOneMinuteRate());
+        values[i++] = scaled(unit, metric.getFiveMinuteRate());
+        values[i++] = scaled(unit, metric.getFifteenMinuteRate());
+        return i;
+    }
+
+    private int sampleSnapshotBasics(Snapshot snapshot, String unit, double[] values, int i) {
+        values[i++] = scaled(unit, snapshot.getMin());
+        values[i++] = scaled(unit, snapshot.getMax());
+        values[i++] = scaled(unit, snapshot.getMean());
+        values[i++] = scaled(unit, snapshot.getStdDev());
+        return i;
+    }
+
+    private int sampleSnapshotQuantiles(Snapshot snapshot, String unit, double[] values, int i) {
+        values[i++] = scaled(unit, snapshot.getMedian());
+        values[i++] = scaled(unit, snapshot.get75thPercentile());
+        values[i++] = scaled(unit, snapshot.get95thPercentile());
+        values[i++] = scaled(unit, snapshot.get98thPercentile());
+        values[i++] = scaled(unit, snapshot.get99thPercentile());
+        values[i++] = scaled(unit, snapshot.get999thPercentile());
+        return i;
+    }
+
+    private static double scaled(String unit, double valueRaw) {
+        return PrometheusUnit.scaleToBase(unit, valueRaw);
     }
 
-    private void writeTimerValues(StringBuilder sb, MetricRegistry.Type scope, TimerImpl timer, Metadata md) {
+    private void writeTimerValues(TemplateWriter out, MetricRegistry.Type scope, Metadata md) {
 
         String unit = md.getUnit();
         unit = PrometheusUnit.getBaseUnitAsPrometheusString(unit);
 
         String theUnit = unit.equals("none") ? "" : USCORE + unit;
 
-        writeMeterRateValues(sb, scope, timer.getMeter(), md);
-        Snapshot snapshot = timer.getSnapshot();
-        writeSnapshotBasics(sb, scope, md, snapshot, theUnit);
+        writeMeterRateValues(out, scope, md);
+        writeSnapshotBasics(out, scope, md, theUnit);
 
         String suffix = USCORE + PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
-        writeHelpLine(sb, scope, md.getName(), md, suffix);
-        writeTypeLine(sb,scope,md.getName(),md, suffix,SUMMARY);
-        writeValueLine(sb,scope,suffix + "_count",timer.getCount(),md, null, false);
+        writeHelpLine(out, scope, md.getName(), md, suffix);
+        writeTypeLine(out, scope, md.getName(), md, suffix, SUMMARY);
+        writeValueLine(out, scope, suffix + "_count", md, null);
 
-        writeSnapshotQuantiles(sb, scope, md, snapshot, theUnit);
+        writeSnapshotQuantiles(out, scope, md, theUnit);
     }
 
-    private void writeHistogramValues(StringBuilder sb, MetricRegistry.Type scope, HistogramImpl histogram, Metadata md) {
+    private void writeHistogramValues(TemplateWriter out, MetricRegistry.Type scope, Metadata md) {
 
-        Snapshot snapshot = histogram.getSnapshot();
         String unit = md.getUnit();
         unit = PrometheusUnit.getBaseUnitAsPrometheusString(unit);
 
         String theUnit = unit.equals("none") ? "" : USCORE + unit;
 
-        writeHelpLine(sb, scope, md.getName(), md, SUMMARY);
-        writeSnapshotBasics(sb, scope, md, snapshot, theUnit);
-        writeTypeLine(sb,scope,md.getName(),md, theUnit,SUMMARY);
-        writeValueLine(sb,scope,theUnit + "_count",histogram.getCount(),md, null, false);
-        writeSnapshotQuantiles(sb, scope, md, snapshot, theUnit);
+        writeHelpLine(out, scope, md.getName(), md, SUMMARY);
+        writeSnapshotBasics(out, scope, md, theUnit);
+        writeTypeLine(out, scope, md.getName(), md, theUnit, SUMMARY);
+        writeValueLine(out, scope, theUnit + "_count", md, null);
+        writeSnapshotQuantiles(out, scope, md, theUnit);
     }
 
 
-    private void writeSnapshotBasics(StringBuilder sb, MetricRegistry.Type scope, Metadata md, Snapshot snapshot, String unit) {
+    private void writeSnapshotBasics(TemplateWriter out, MetricRegistry.Type scope, Metadata md, String unit) {
 
-        writeTypeAndValue(sb, scope, "_min" + unit, snapshot.getMin(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_max" + unit, snapshot.getMax(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_mean" + unit, snapshot.getMean(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_stddev" + unit, snapshot.getStdDev(), GAUGE, md);
+        writeTypeAndValue(out, scope, "_min" + unit, GAUGE, md);
+        writeTypeAndValue(out, scope, "_max" + unit, GAUGE, md);
+        writeTypeAndValue(out, scope, "_mean" + unit, GAUGE, md);
+        writeTypeAndValue(out, scope, "_stddev" + unit, GAUGE, md);
     }
 
-    private void writeSnapshotQuantiles(StringBuilder sb, MetricRegistry.Type scope, Metadata md, Snapshot snapshot, String unit) {
-        writeValueLine(sb, scope, unit, snapshot.getMedian(), md, new Tag(QUANTILE, "0.5"));
-        writeValueLine(sb, scope, unit, snapshot.get75thPercentile(), md, new Tag(QUANTILE, "0.75"));
-        writeValueLine(sb, scope, unit, snapshot.get95thPercentile(), md, new Tag(QUANTILE, "0.95"));
-        writeValueLine(sb, scope, unit, snapshot.get98thPercentile(), md, new Tag(QUANTILE, "0.98"));
-        writeValueLine(sb, scope, unit, snapshot.get99thPercentile(), md, new Tag(QUANTILE, "0.99"));
-        writeValueLine(sb, scope, unit, snapshot.get999thPercentile(), md, new Tag(QUANTILE, "0.999"));
+    private void writeSnapshotQuantiles(TemplateWriter out, MetricRegistry.Type scope, Metadata md, String unit) {
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.5"));
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.75"));
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.95"));
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.98"));
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.99"));
+        writeValueLine(out, scope, unit, md, new Tag(QUANTILE, "0.999"));
     }
 
-    private void writeMeterValues(StringBuilder sb, MetricRegistry.Type scope, Metered metric, Metadata md) {
-        writeHelpLine(sb, scope, md.getName(), md, "_total");
-        writeTypeAndValue(sb, scope, "_total", metric.getCount(), COUNTER, md);
-        writeMeterRateValues(sb, scope, metric, md);
+    private void writeMeterValues(TemplateWriter out, MetricRegistry.Type scope, Metadata md) {
+        writeHelpLine(out, scope, md.getName(), md, "_total");
+        writeTypeAndValue(out, scope, "_total", COUNTER, md);
+        writeMeterRateValues(out, scope, md);
     }
 
-    private void writeMeterRateValues(StringBuilder sb, MetricRegistry.Type scope, Metered metric, Metadata md) {
-        writeTypeAndValue(sb, scope, "_rate_per_second", metric.getMeanRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_one_min_rate_per_second", metric.getOneMinuteRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_five_min_rate_per_second", metric.getFiveMinuteRate(), GAUGE, md);
-        writeTypeAndValue(sb, scope, "_fifteen_min_rate_per_second", metric.getFifteenMinuteRate(), GAUGE, md);
+    private void writeMeterRateValues(TemplateWriter out, MetricRegistry.Type scope, Metadata md) {
+        writeTypeAndValue(out, scope, "_rate_per_second", GAUGE, md);
+        writeTypeAndValue(out, scope, "_one_min_rate_per_second", GAUGE, md);
+        writeTypeAndValue(out, scope, "_five_min_rate_per_second", GAUGE, md);
+        writeTypeAndValue(out, scope, "_fifteen_min_rate_per_second", GAUGE, md);
     }
 
-    private void writeTypeAndValue(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, String type, Metadata md) {
+    private void writeTypeAndValue(TemplateWriter out, MetricRegistry.Type scope, String suffix, String type, Metadata md) {
         String key = md.getName();
-        writeTypeLine(sb, scope, key, md, suffix, type);
-        writeValueLine(sb, scope, suffix, valueRaw, md);
+        writeTypeLine(out, scope, key, md, suffix, type);
+        writeValueLine(out, scope, suffix, md, null);
     }
 
-    private void writeValueLine(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, Metadata md) {
-        writeValueLine(sb, scope, suffix, valueRaw, md, null);
-    }
-
-    private void writeValueLine(StringBuilder sb, MetricRegistry.Type scope, String suffix, double valueRaw, Metadata md, Tag extraTag) {
-        writeValueLine(sb, scope, suffix, valueRaw, md, extraTag, true);
-    }
-
-    private void writeValueLine(StringBuilder sb,
+    private void writeValueLine(TemplateWriter out,
                                 MetricRegistry.Type scope,
                                 String suffix,
-                                double valueRaw,
                                 Metadata md,
-                                Tag extraTag,
-                                boolean scaled) {
+                                Tag extraTag) {
         String name = md.getName();
         name = getPrometheusMetricName(md, name);
-        fillBaseName(sb, scope, name);
+        fillBaseName(out, scope, name);
         if (suffix != null) {
-            sb.append(suffix);
+            out.append(suffix);
         }
         // add tags
 
@@ -252,96 +399,84 @@ public class PrometheusExporter implements Exporter {
             tags.put(extraTag.getKey(), extraTag.getValue());
         }
         if (!tags.isEmpty()) {
-            addTags(sb, tags);
+            addTags(out, tags);
         }
 
-        sb.append(SPACE);
-        Double value = scaled ? PrometheusUnit.scaleToBase(md.getUnit(), valueRaw) : valueRaw;
-        sb.append(value).append(LF);
+        out.append(SPACE);
+        out.value();
+        out.append(LF);
 
     }
 
-    private void addTags(StringBuilder sb, Map<String, String> tags) {
+    private void addTags(TemplateWriter out, Map<String, String> tags) {
         Iterator<Map.Entry<String, String>> iter = tags.entrySet().iterator();
-        sb.append("{");
+        out.append("{");
         while (iter.hasNext()) {
             Map.Entry<String, String> tag = iter.next();
-            sb.append(tag.getKey()).append("=\"").append(tag.getValue()).append("\"");
+            out.append(tag.getKey()).append("=\"").append(tag.getValue()).append("\"");
             if (iter.hasNext()) {
-                sb.append(",");
+                out.append(",");
             }
         }
-        sb.append("}");
+        out.append("}");
     }
 
-    private void fillBaseName(StringBuilder sb, MetricRegistry.Type scope, String key) {
-        sb.append(scope.getName().toLowerCase()).append(":").append(key);
+    private void fillBaseName(TemplateWriter out, MetricRegistry.Type scope, String key) {
+        out.append(scope.getName().toLowerCase()).append(":").append(key);
     }
 
-    private void writeHelpLine(StringBuilder sb, MetricRegistry.Type scope, String key, Metadata md, String suffix) {
+    private void writeHelpLine(TemplateWriter out, MetricRegistry.Type scope, String key, Metadata md, String suffix) {
         // Only write this line if we actually have a description in metadata
         if (writeHelpLine && md.getDescription() != null) {
-            sb.append("# HELP ");
-            sb.append(scope.getName().toLowerCase());
-            sb.append(':').append(getPrometheusMetricName(md, key));
+            out.append("# HELP ");
+            out.append(scope.getName().toLowerCase());
+            out.append(":").append(getPrometheusMetricName(md, key));
             if (suffix != null) {
-                sb.append(suffix);
+                out.append(suffix);
             }
-            sb.append(SPACE);
-            sb.append(md.getDescription());
-            sb.append(LF);
+            out.append(SPACE);
+            out.append(md.getDescription());
+            out.append(LF);
         }
 
     }
 
-    private void writeTypeLine(StringBuilder sb, MetricRegistry.Type scope, String key, Metadata md, String suffix, String typeOverride) {
-        sb.append("# TYPE ");
-        sb.append(scope.getName().toLowerCase());
-        sb.append(':').append(getPrometheusMetricName(md, key));
+    private void writeTypeLine(TemplateWriter out, MetricRegistry.Type scope, String key, Metadata md, String suffix, String typeOverride) {
+        out.append("# TYPE ");
+        out.append(scope.getName().toLowerCase());
+        out.append(":").append(getPrometheusMetricName(md, key));
         if (suffix != null) {
-            sb.append(suffix);
+            out.append(suffix);
         }
-        sb.append(SPACE);
+        out.append(SPACE);
         if (typeOverride != null) {
-            sb.append(typeOverride);
+            out.append(typeOverride);
         } else if (md.getTypeRaw().equals(MetricType.TIMER)) {
-            sb.append(SUMMARY);
+            out.append(SUMMARY);
         } else if (md.getTypeRaw().equals(MetricType.METERED)) {
-            sb.append(COUNTER);
+            out.append(COUNTER);
         } else {
-            sb.append(md.getType());
+            out.append(md.getType());
         }
-        sb.append(LF);
+        out.append(LF);
     }
 
-    private void createSimpleValueLine(StringBuilder sb, MetricRegistry.Type scope, String key, Metadata md, Metric metric) {
+    private void createSimpleValueLine(TemplateWriter out, MetricRegistry.Type scope, String key, Metadata md) {
 
         // value line
-        fillBaseName(sb, scope, key);
+        fillBaseName(out, scope, key);
         if (!md.getUnit().equals(MetricUnits.NONE)) {
             String unit = PrometheusUnit.getBaseUnitAsPrometheusString(md.getUnit());
-            sb.append("_").append(unit);
+            out.append("_").append(unit);
         }
         String tags = md.getTagsAsString();
         if (tags != null && !tags.isEmpty()) {
-            sb.append('{').append(tags).append('}');
-        }
-
-        Double valIn;
-        if (md.getTypeRaw().equals(MetricType.GAUGE)) {
-            Number value1 = (Number) ((Gauge) metric).getValue();
-            if (value1 != null) {
-                valIn = value1.doubleValue();
-            } else {
-                LOG.warn("Value is null for " + key);
-                throw new IllegalStateException("Value must not be null for " + key);
-            }
-        } else {
-            valIn = (double) ((Counter) metric).getCount();
+            out.append("{").append(tags).append("}");
         }
 
-        Double value = PrometheusUnit.scaleToBase(md.getUnit(), valIn);
-        sb.append(SPACE).append(value).append(LF);
+        out.append(SPACE);
+        out.value();
+        out.append(LF);
 
     }
 
@@ -362,4 +497,102 @@ public class PrometheusExporter implements Exporter {
         return in.replaceAll("(.)(\\p{Upper})", "$1_$2").toLowerCase();
     }
 
+    /**
+     * The exposition of one metric with its values left out, valid for as long as the metric is registered
+     * with the same {@link Metadata} instance.
+     */
+    static final class Template {
+
+        private final Metadata metadata;
+
+        private final String name;
+
+        private final String[] chunks;
+
+        private Template(Metadata metadata, String name, String[] chunks) {
+            this.metadata = metadata;
+            this.name = name;
+            this.chunks = chunks;
+        }
+
+        /**
+         * Append the exposition, the text before each value being followed by that value.
+         */
+        void render(StringBuilder sb, double[] values, int count) {
+            if (count != chunks.length - 1) {
+                throw new IllegalStateException("Expected " + (chunks.length - 1) + " values for " + name + " but got " + count);
+            }
+            for (int i = 0; i < count; ++i) {
+                sb.append(chunks[i]).append(values[i]);
+            }
+            sb.append(chunks[count]);
+        }
+    }
+
+    /**
+     * Collects the text of a {@link Template}, split wherever a value goes.
+     */
+    private static final class TemplateWriter {
+
+        private final List<String> chunks = new ArrayList<>();
+
+        private final StringBuilder current = new StringBuilder();
+
+        TemplateWriter append(String text) {
+            current.append(text);
+            return this;
+        }
+
+        void value() {
+            chunks.add(current.toString());
+            current.setLength(0);
+        }
+
+        Template toTemplate(Metadata metadata, String name) {
+            chunks.add(current.toString());
+            return new Template(metadata, name, chunks.toArray(new String[chunks.size()]));
+        }
+    }
+
+    /**
+     * The latest encoded export of one scope (or of all scopes, when the scope is <code>null</code>).
+     *
+     * <p>A scrape arriving while the export is being rendered waits for and shares that rendering, as does one
+     * arriving within the cache window after it completed.</p>
+     */
+    private final class Scrape {
+
+        private final MetricRegistry.Type scope;
+
+        private ByteBuffer result;
+
+        private long renderedAt;
+
+        private int capacity = 1024;
+
+        Scrape(MetricRegistry.Type scope) {
+            this.scope = scope;
+        }
+
+        ByteBuffer get() {
+            long arrival = System.nanoTime();
+            synchronized (this) {
+                if (result == null || arrival - renderedAt > cacheNanos) {
+                    StringBuilder sb = new StringBuilder(capacity);
+                    if (scope == null) {
+                        for (MetricRegistry.Type each : MetricRegistry.Type.values()) {
+                            getEntriesForScope(each, sb);
+                        }
+                    } else {
+                        getEntriesForScope(scope, sb);
+                    }
+                    result = StandardCharsets.UTF_8.encode(CharBuffer.wrap(sb));
+                    renderedAt = System.nanoTime();
+                    // leave some headroom for metrics registered until the next rendering
+                    capacity = sb.length() + (sb.length() >> 4) + 16;
+                }
+                return result.duplicate();
+            }
+        }
+    }
 }
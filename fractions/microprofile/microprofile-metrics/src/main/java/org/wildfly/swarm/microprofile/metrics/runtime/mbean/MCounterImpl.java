@@ -29,6 +29,7 @@ public class MCounterImpl implements Counter {
 
     public MCounterImpl(String mbeanExpression) {
         this.mbeanExpression = mbeanExpression;
+        JmxWorker.instance().register(mbeanExpression);
     }
 
     @Override
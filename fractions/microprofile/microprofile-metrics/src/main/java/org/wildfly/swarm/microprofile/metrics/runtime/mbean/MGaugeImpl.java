@@ -31,6 +31,7 @@ public class MGaugeImpl implements Gauge {
     public MGaugeImpl(String mBeanExpression) {
 
         this.mBeanExpression = mBeanExpression;
+        JmxWorker.instance().register(mBeanExpression);
     }
 
     @Override
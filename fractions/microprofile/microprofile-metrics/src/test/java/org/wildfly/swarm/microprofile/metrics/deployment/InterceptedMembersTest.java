@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.deployment;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricsRegistryImpl;
+
+public class InterceptedMembersTest {
+
+    @Test
+    public void testResolvesOncePerMember() throws Exception {
+        InterceptedMembers<String> members = new InterceptedMembers<>();
+        AtomicInteger resolutions = new AtomicInteger();
+        Method method = getClass().getMethod("testResolvesOncePerMember");
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("resolved", members.get(getClass(), method, (e) -> {
+                resolutions.incrementAndGet();
+                return "resolved";
+            }, (v) -> true));
+        }
+        Assert.assertEquals(1, resolutions.get());
+
+        // the same member intercepted on another bean class resolves separately
+        members.get(Object.class, method, (e) -> {
+            resolutions.incrementAndGet();
+            return "other";
+        }, (v) -> true);
+        Assert.assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        InterceptedMembers<String> members = new InterceptedMembers<>();
+        Method method = getClass().getMethod("testFailuresAreNotCached");
+
+        try {
+            members.get(getClass(), method, (e) -> {
+                throw new IllegalStateException("No timer");
+            }, (v) -> true);
+            Assert.fail("expected failure");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals("registered", members.get(getClass(), method, (e) -> "registered", (v) -> true));
+    }
+
+    @Test
+    public void testReregisteredMetricIsResolvedAgain() throws Exception {
+        InterceptedMembers<RegisteredMetric<Counter>> members = new InterceptedMembers<>();
+        Method method = getClass().getMethod("testReregisteredMetricIsResolvedAgain");
+        MetricsRegistryImpl registry = new MetricsRegistryImpl();
+        Metadata metadata = new Metadata("invocations", MetricType.COUNTER);
+
+        Counter first = registry.counter(metadata);
+        Assert.assertSame(first, members.get(getClass(), method,
+                (e) -> new RegisteredMetric<>("invocations", registry.getCounters().get("invocations")),
+                (r) -> r.isCurrentIn(registry)).metric);
+
+        registry.remove("invocations");
+        Counter second = registry.counter(metadata);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(second, members.get(getClass(), method,
+                (e) -> new RegisteredMetric<>("invocations", registry.getCounters().get("invocations")),
+                (r) -> r.isCurrentIn(registry)).metric);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JmxWorkerTest {
+
+    private static final String VALUE = "test:type=Probe/Value";
+
+    private static final String OTHER = "test:type=Probe/Other";
+
+    private MBeanServer mbs;
+
+    private Probe probe;
+
+    @Before
+    public void registerProbe() throws Exception {
+        mbs = MBeanServerFactory.newMBeanServer();
+        probe = new Probe();
+        mbs.registerMBean(new StandardMBean(probe, ProbeMBean.class), new ObjectName("test:type=Probe"));
+    }
+
+    @Test
+    public void testRegisteredAttributesAreSampledTogether() {
+        JmxWorker worker = new JmxWorker(mbs, 60_000);
+        worker.register(VALUE);
+        worker.register(OTHER);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(1, worker.getValue(VALUE).intValue());
+            Assert.assertEquals(42L, worker.getValue(OTHER).longValue());
+        }
+        Assert.assertEquals(1, probe.reads.get());
+    }
+
+    @Test
+    public void testSampleIsRefreshedWhenStale() throws Exception {
+        JmxWorker worker = new JmxWorker(mbs, 1);
+        worker.register(VALUE);
+
+        Assert.assertEquals(1, worker.getValue(VALUE).intValue());
+        Thread.sleep(5);
+        Assert.assertEquals(2, worker.getValue(VALUE).intValue());
+    }
+
+    @Test
+    public void testUnregisteredOrUnsampledExpressionsAreReadDirectly() {
+        JmxWorker sampling = new JmxWorker(mbs, 60_000);
+        Assert.assertEquals(1, sampling.getValue(VALUE).intValue());
+        Assert.assertEquals(2, sampling.getValue(VALUE).intValue());
+
+        JmxWorker direct = new JmxWorker(mbs, 0);
+        direct.register(VALUE);
+        Assert.assertEquals(3, direct.getValue(VALUE).intValue());
+        Assert.assertEquals(4, direct.getValue(VALUE).intValue());
+    }
+
+    @Test
+    public void testCompositeItems() {
+        JmxWorker worker = new JmxWorker(ManagementFactory.getPlatformMBeanServer(), 60_000);
+        worker.register("java.lang:type=Memory/HeapMemoryUsage#used");
+        worker.register("java.lang:type=Memory/HeapMemoryUsage#committed");
+
+        Assert.assertTrue(worker.getValue("java.lang:type=Memory/HeapMemoryUsage#used").longValue() > 0);
+        Assert.assertTrue(worker.getValue("java.lang:type=Memory/HeapMemoryUsage#committed").longValue() > 0);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testMissingMBeanStillFails() {
+        JmxWorker worker = new JmxWorker(mbs, 60_000);
+        worker.register("test:type=Missing/Value");
+        worker.getValue("test:type=Missing/Value");
+    }
+
+    public interface ProbeMBean {
+
+        int getValue();
+
+        long getOther();
+    }
+
+    public static class Probe implements ProbeMBean {
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public int getValue() {
+            return reads.incrementAndGet();
+        }
+
+        @Override
+        public long getOther() {
+            return 42L;
+        }
+    }
+}
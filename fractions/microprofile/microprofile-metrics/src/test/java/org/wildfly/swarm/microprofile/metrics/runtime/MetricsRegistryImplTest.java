@@ -0,0 +1,73 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Timer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.metrics.runtime.app.ReservoirType;
+
+public class MetricsRegistryImplTest {
+
+    private static final int UPDATES = 10_000;
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(MetricRegistries.RESERVOIR_PROPERTY + ".precise");
+        System.clearProperty(MetricRegistries.RESERVOIR_PROPERTY + ".precise-timer");
+        System.clearProperty(MetricRegistries.RESERVOIR_PROPERTY + ".misconfigured");
+    }
+
+    @Test
+    public void testPerMetricReservoir() {
+        System.setProperty(MetricRegistries.RESERVOIR_PROPERTY + ".precise", ReservoirType.HDR_HISTOGRAM.getConfigName());
+        System.setProperty(MetricRegistries.RESERVOIR_PROPERTY + ".precise-timer", ReservoirType.HDR_HISTOGRAM.getConfigName());
+        MetricRegistry registry = new MetricsRegistryImpl(ReservoirType.EXPONENTIALLY_DECAYING);
+
+        // An HDR histogram keeps every value, an exponentially decaying reservoir only a sample of them
+        Assert.assertEquals(UPDATES, update(registry.histogram("precise")));
+        Assert.assertTrue(update(registry.histogram("sampled")) < UPDATES);
+        Assert.assertEquals(UPDATES, update(registry.timer("precise-timer")));
+        Assert.assertTrue(update(registry.timer("sampled-timer")) < UPDATES);
+    }
+
+    @Test
+    public void testInvalidPerMetricReservoirFallsBack() {
+        System.setProperty(MetricRegistries.RESERVOIR_PROPERTY + ".misconfigured", "no-such-reservoir");
+        MetricRegistry registry = new MetricsRegistryImpl(ReservoirType.HDR_HISTOGRAM);
+
+        Assert.assertEquals(UPDATES, update(registry.histogram("misconfigured")));
+    }
+
+    private static int update(Histogram histogram) {
+        for (int i = 1; i <= UPDATES; i++) {
+            histogram.update(i);
+        }
+        return histogram.getSnapshot().size();
+    }
+
+    private static int update(Timer timer) {
+        for (int i = 1; i <= UPDATES; i++) {
+            timer.update(i, TimeUnit.NANOSECONDS);
+        }
+        return timer.getSnapshot().size();
+    }
+}
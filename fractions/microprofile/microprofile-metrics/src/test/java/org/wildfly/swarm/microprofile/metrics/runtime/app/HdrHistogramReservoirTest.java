@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value++) {
+            int index = reservoir.indexOf(value);
+            Assert.assertTrue(index == previous || index == previous + 1);
+            previous = index;
+        }
+        Assert.assertTrue(reservoir.indexOf(Long.MAX_VALUE) > previous);
+    }
+
+    @Test
+    public void testValuesKeepTwoSignificantDigits() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (long value : new long[]{0, 1, 255, 256, 1_000, 123_456, 98_765_432_109L, Long.MAX_VALUE}) {
+            long recorded = reservoir.valueAt(reservoir.indexOf(value));
+            Assert.assertEquals(value, recorded, Math.max(1, value / 100));
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 1; i <= 10_000; i++) {
+            reservoir.update(i);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(10_000, reservoir.size());
+        Assert.assertEquals(10_000, snapshot.size());
+        Assert.assertEquals(1, snapshot.getMin());
+        Assert.assertEquals(10_000, snapshot.getMax(), 100);
+        Assert.assertEquals(5_000, snapshot.getMedian(), 50);
+        Assert.assertEquals(9_900, snapshot.get99thPercentile(), 99);
+        Assert.assertEquals(5_000, snapshot.getMean(), 50);
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(1_000, 2);
+        reservoir.update(-5);
+        reservoir.update(5_000);
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(0, snapshot.getMin());
+        Assert.assertEquals(1_000, snapshot.getMax(), 10);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedExponentiallyDecayingReservoirTest {
+
+    @Test
+    public void testUnderfilledReservoirKeepsEverything() {
+        StripedExponentiallyDecayingReservoir reservoir = new StripedExponentiallyDecayingReservoir(100, 0.015);
+        for (int i = 0; i < 10; i++) {
+            reservoir.update(i);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(10, reservoir.size());
+        Assert.assertEquals(10, snapshot.size());
+        Assert.assertEquals(0, snapshot.getMin());
+        Assert.assertEquals(9, snapshot.getMax());
+    }
+
+    @Test
+    public void testSizeIsBoundedAcrossThreads() throws Exception {
+        StripedExponentiallyDecayingReservoir reservoir = new StripedExponentiallyDecayingReservoir(100, 0.015, Clock.defaultClock(), 8);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    reservoir.update(i % 1000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(100, reservoir.size());
+        Assert.assertEquals(100, snapshot.size());
+        for (long value : snapshot.getValues()) {
+            Assert.assertTrue(value >= 0 && value < 1000);
+        }
+    }
+
+    @Test
+    public void testRecentValuesOutweighOldOnes() {
+        ManualClock clock = new ManualClock();
+        StripedExponentiallyDecayingReservoir reservoir = new StripedExponentiallyDecayingReservoir(10, 0.015, clock);
+        for (int i = 0; i < 1000; i++) {
+            reservoir.update(1000 + i);
+            clock.add(100, TimeUnit.MILLISECONDS);
+        }
+        clock.add(15, TimeUnit.HOURS);
+        for (int i = 0; i < 1000; i++) {
+            reservoir.update(3000 + i);
+            clock.add(100, TimeUnit.MILLISECONDS);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(10, snapshot.size());
+        Assert.assertTrue(snapshot.getMin() >= 3000);
+    }
+
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        void add(long time, TimeUnit unit) {
+            ticks.addAndGet(unit.toNanos(time));
+        }
+
+        @Override
+        public long getTick() {
+            return ticks.get();
+        }
+
+        @Override
+        public long getTime() {
+            return TimeUnit.NANOSECONDS.toMillis(ticks.get());
+        }
+    }
+}
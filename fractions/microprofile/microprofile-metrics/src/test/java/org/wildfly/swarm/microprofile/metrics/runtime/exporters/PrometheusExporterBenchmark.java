@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.exporters;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricRegistries;
+
+/**
+ * Cost of a Prometheus scrape of an application registry holding an even mix of counters, gauges, histograms
+ * and timers, rendered afresh and served from the scrape cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrometheusExporterBenchmark {
+
+    @Param({"10000"})
+    public int metrics;
+
+    private PrometheusExporter uncached;
+
+    private PrometheusExporter cached;
+
+    @Setup
+    public void setup() {
+        MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+        for (int i = 0; i < metrics; i++) {
+            String name = "benchmark.metric" + i;
+            switch (i % 4) {
+                case 0:
+                    registry.counter(name).inc(i);
+                    break;
+                case 1:
+                    long value = i;
+                    registry.register(name, (Gauge<Long>) () -> value, new Metadata(name, MetricType.GAUGE, MetricUnits.BYTES));
+                    break;
+                case 2:
+                    Histogram histogram = registry.histogram(name);
+                    for (int j = 0; j < 100; j++) {
+                        histogram.update(j);
+                    }
+                    break;
+                default:
+                    Timer timer = registry.timer(name);
+                    for (int j = 0; j < 100; j++) {
+                        timer.update(j, TimeUnit.MILLISECONDS);
+                    }
+            }
+        }
+        this.uncached = new PrometheusExporter(true, 0);
+        this.cached = new PrometheusExporter(true, 5_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MetricRegistries.get(MetricRegistry.Type.APPLICATION).removeMatching((name, metric) -> true);
+    }
+
+    @Benchmark
+    public StringBuilder render() {
+        return this.uncached.exportAllScopes();
+    }
+
+    @Benchmark
+    public ByteBuffer scrape() {
+        return this.uncached.scrapeAllScopes();
+    }
+
+    @Benchmark
+    public ByteBuffer scrapeCached() {
+        return this.cached.scrapeAllScopes();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.exporters;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricRegistries;
+
+public class PrometheusExporterTest {
+
+    private final MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+
+    @After
+    public void removeMetrics() {
+        registry.removeMatching((name, metric) -> true);
+    }
+
+    @Test
+    public void testRendersSimpleValues() {
+        Metadata counter = new Metadata("requestCount", MetricType.COUNTER);
+        counter.setDescription("Requests served");
+        counter.addTag("app=shop");
+        registry.counter(counter).inc(3);
+        registry.register("queue.size", (Gauge<Long>) () -> 42L, new Metadata("queue.size", MetricType.GAUGE, MetricUnits.BYTES));
+
+        PrometheusExporter exporter = new PrometheusExporter(true, 0);
+
+        Assert.assertEquals("# HELP application:request_count Requests served\n"
+                                    + "# TYPE application:request_count counter\n"
+                                    + "application:request_count{app=\"shop\"} 3.0\n",
+                            exporter.exportOneMetric(MetricRegistry.Type.APPLICATION, "requestCount").toString());
+        Assert.assertEquals("# TYPE application:queue_size_bytes gauge\n"
+                                    + "application:queue_size_bytes 42.0\n",
+                            exporter.exportOneMetric(MetricRegistry.Type.APPLICATION, "queue.size").toString());
+
+        Assert.assertEquals("# TYPE application:request_count counter\n"
+                                    + "application:request_count{app=\"shop\"} 3.0\n",
+                            new PrometheusExporter(false, 0).exportOneMetric(MetricRegistry.Type.APPLICATION, "requestCount").toString());
+    }
+
+    @Test
+    public void testTemplatesFollowValuesAndMetadata() {
+        Metadata metadata = new Metadata("hits", MetricType.COUNTER);
+        metadata.setDescription("first");
+        Counter counter = registry.counter(metadata);
+
+        PrometheusExporter exporter = new PrometheusExporter(true, 0);
+        Assert.assertTrue(exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString().contains("application:hits 0.0\n"));
+        counter.inc();
+        Assert.assertTrue(exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString().contains("application:hits 1.0\n"));
+
+        registry.remove("hits");
+        Metadata replaced = new Metadata("hits", MetricType.COUNTER);
+        replaced.setDescription("second");
+        registry.counter(replaced);
+
+        String text = exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString();
+        Assert.assertTrue(text, text.contains("# HELP application:hits second\n"));
+        Assert.assertTrue(text, text.contains("application:hits 0.0\n"));
+    }
+
+    @Test
+    public void testScrapesWithinCacheWindowShareRendering() {
+        Counter counter = registry.counter("scrapes");
+
+        PrometheusExporter cached = new PrometheusExporter(true, 60_000);
+        String first = scrape(cached);
+        counter.inc();
+        Assert.assertEquals(first, scrape(cached));
+
+        PrometheusExporter uncached = new PrometheusExporter(true, 0);
+        Assert.assertTrue(scrape(uncached).contains("application:scrapes 1.0\n"));
+        counter.inc();
+        Assert.assertTrue(scrape(uncached).contains("application:scrapes 2.0\n"));
+    }
+
+    private static String scrape(PrometheusExporter exporter) {
+        return StandardCharsets.UTF_8.decode(exporter.scrapeOneScope(MetricRegistry.Type.APPLICATION)).toString();
+    }
+}
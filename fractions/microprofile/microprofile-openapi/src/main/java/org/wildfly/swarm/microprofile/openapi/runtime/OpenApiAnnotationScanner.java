@@ -75,6 +75,7 @@ import org.jboss.jandex.AnnotationTarget.Kind;
 import org.jboss.jandex.AnnotationValue;
 import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.ClassType;
+import org.jboss.jandex.CompositeIndex;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.IndexView;
 import org.jboss.jandex.Indexer;
@@ -161,6 +162,29 @@ public class OpenApiAnnotationScanner {
         this.index = archiveToIndex(config, archive);
     }
 
+    /**
+     * Constructor.
+     * @param config
+     * @param archive
+     * @param deploymentIndex the index of the whole deployment, used instead of indexing the archive
+     *                        again when the configuration does not restrict what is scanned
+     */
+    public OpenApiAnnotationScanner(OpenApiConfig config, Archive archive, IndexView deploymentIndex) {
+        if (deploymentIndex != null && scansEverything(config)) {
+            Indexer indexer = new Indexer();
+            indexStandins(indexer);
+            this.index = CompositeIndex.create(deploymentIndex, indexer.complete());
+        } else {
+            this.index = archiveToIndex(config, archive);
+        }
+    }
+
+    private static boolean scansEverything(OpenApiConfig config) {
+        return config.scanClasses().isEmpty() && config.scanPackages().isEmpty()
+                && config.scanExcludeClasses().isEmpty() && config.scanExcludePackages().isEmpty()
+                && !config.scanDependenciesDisable() && config.scanDependenciesJars().isEmpty();
+    }
+
     /**
      * Index the archive to produce a jandex index.
      * @param config
@@ -172,12 +196,16 @@ public class OpenApiAnnotationScanner {
         }
 
         Indexer indexer = new Indexer();
-        index(indexer, "org/wildfly/swarm/microprofile/openapi/runtime/scanner/CollectionStandin.class");
-        index(indexer, "org/wildfly/swarm/microprofile/openapi/runtime/scanner/MapStandin.class");
+        indexStandins(indexer);
         indexArchive(config, indexer, archive);
         return indexer.complete();
     }
 
+    private static void indexStandins(Indexer indexer) {
+        index(indexer, "org/wildfly/swarm/microprofile/openapi/runtime/scanner/CollectionStandin.class");
+        index(indexer, "org/wildfly/swarm/microprofile/openapi/runtime/scanner/MapStandin.class");
+    }
+
     private static void index(Indexer indexer, String resName) {
         ClassLoader cl = OpenApiAnnotationScanner.class.getClassLoader();
         try (InputStream klazzStream = cl.getResourceAsStream(resName)) {
@@ -23,6 +23,7 @@ import javax.inject.Inject;
 
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
+import org.jboss.jandex.IndexView;
 import org.jboss.logging.Logger;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.Node;
@@ -51,6 +52,8 @@ public class OpenApiDeploymentProcessor implements DeploymentProcessor {
 
     private final Archive archive;
 
+    private final IndexView index;
+
     /**
      * Constructor for testing purposes.
      *
@@ -60,17 +63,20 @@ public class OpenApiDeploymentProcessor implements DeploymentProcessor {
     public OpenApiDeploymentProcessor(OpenApiConfig config, Archive archive) {
         this.config = config;
         this.archive = archive;
+        this.index = null;
     }
 
     /**
      * Constructor.
      *
      * @param archive
+     * @param index the index of the deployment, shared with the other deployment processors
      */
     @Inject
-    public OpenApiDeploymentProcessor(Archive archive) {
+    public OpenApiDeploymentProcessor(Archive archive, IndexView index) {
         this.config = initConfigFromArchive(archive);
         this.archive = archive;
+        this.index = index;
     }
 
     /**
@@ -138,17 +144,24 @@ public class OpenApiDeploymentProcessor implements DeploymentProcessor {
      * Create an {@link OpenAPI} model by scanning the deployment for relevant JAX-RS and
      * OpenAPI annotations.  If scanning is disabled, this method returns null.  If scanning
      * is enabled but no relevant annotations are found, an empty OpenAPI model is returned.
+     * A model generated when the deployment was packaged is used instead of scanning, as
+     * long as it is up to date (see {@link OpenApiModelGenerator}).
      */
     private OpenAPIImpl modelFromAnnotations() {
         if (this.config.scanDisable()) {
             return null;
         }
 
-        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(config, archive);
+        OpenAPIImpl generated = OpenApiModelGenerator.load(config, archive);
+        if (generated != null) {
+            return generated;
+        }
+
+        OpenApiAnnotationScanner scanner = new OpenApiAnnotationScanner(config, archive, index);
         return scanner.scan();
     }
 
-    private static OpenApiConfig initConfigFromArchive(Archive<?> archive) {
+    static OpenApiConfig initConfigFromArchive(Archive<?> archive) {
         ShrinkWrapClassLoader cl = new ShrinkWrapClassLoader(archive);
         try {
             return new OpenApiConfig(ConfigProvider.getConfig(cl));
@@ -0,0 +1,254 @@
+/**
+ * Copyright 2018 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.swarm.microprofile.openapi.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.io.IOUtils;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.logging.Logger;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Filter;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.wildfly.swarm.microprofile.openapi.api.OpenApiConfig;
+import org.wildfly.swarm.microprofile.openapi.api.models.OpenAPIImpl;
+import org.wildfly.swarm.microprofile.openapi.runtime.io.OpenApiParser;
+import org.wildfly.swarm.microprofile.openapi.runtime.io.OpenApiSerializer;
+import org.wildfly.swarm.microprofile.openapi.runtime.io.OpenApiSerializer.Format;
+
+/**
+ * Generates the OpenAPI model of a deployment when it is packaged, so that its annotations are not scanned again
+ * each time the application boots.
+ *
+ * The model is embedded in the archive along with a fingerprint of what it was generated from: the scanning
+ * configuration and the classes and libraries of the archive.  At deployment time the embedded model is only used
+ * if the fingerprint still matches, otherwise the deployment is scanned as usual.
+ *
+ * The Thorntail Maven and Gradle plugins run the generator when they package an application that uses this
+ * fraction. It also embeds an index of the classes of the archive, which the deployment reads instead of indexing
+ * them again. The generator can also be run on a packaged archive, see the README of the fraction:
+ *
+ * <pre>
+ * java org.wildfly.swarm.microprofile.openapi.runtime.OpenApiModelGenerator target/app.war [target/app-with-model.war]
+ * </pre>
+ */
+@SuppressWarnings("rawtypes")
+public final class OpenApiModelGenerator {
+
+    private static final Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile.openapi");
+
+    public static final String MODEL_LOCATION = "/META-INF/openapi-generated.json";
+
+    public static final String FINGERPRINT_LOCATION = "/META-INF/openapi-generated.sha256";
+
+    public static final String INDEX_LOCATION = "/META-INF/jandex.idx";
+
+    private OpenApiModelGenerator() {
+    }
+
+    /**
+     * Scan the archive with the configuration it contains, and embed the resulting model and an index of its classes
+     * in it.  Nothing is generated when annotation scanning is disabled.
+     * @param archive
+     * @return true if the model was generated
+     */
+    public static boolean generate(Archive archive) throws IOException {
+        OpenApiConfig config = OpenApiDeploymentProcessor.initConfigFromArchive(archive);
+        if (config.scanDisable()) {
+            LOG.infov("Annotation scanning is disabled for {0}, no OpenAPI model generated", archive.getName());
+            return false;
+        }
+        generate(config, archive);
+        index(archive);
+        return true;
+    }
+
+    /**
+     * Scan the archive and embed the resulting model in it.
+     * @param config
+     * @param archive
+     */
+    public static void generate(OpenApiConfig config, Archive archive) throws IOException {
+        OpenAPIImpl model = new OpenApiAnnotationScanner(config, archive).scan();
+        String fingerprint = fingerprint(config, archive);
+        archive.add(new ByteArrayAsset(OpenApiSerializer.serialize(model, Format.JSON).getBytes(StandardCharsets.UTF_8)), MODEL_LOCATION);
+        archive.add(new ByteArrayAsset(fingerprint.getBytes(StandardCharsets.UTF_8)), FINGERPRINT_LOCATION);
+    }
+
+    /**
+     * Embeds an index of the classes of the archive, unless it already has one.
+     * @param archive
+     */
+    static void index(Archive archive) throws IOException {
+        if (archive.contains(INDEX_LOCATION)) {
+            return;
+        }
+        Indexer indexer = new Indexer();
+        Filter<ArchivePath> filter = path -> path.get().endsWith(OpenApiConstants.CLASS_SUFFIX);
+        for (Object each : archive.getContent(filter).values()) {
+            Node node = (Node) each;
+            if (node.getAsset() != null) {
+                try (InputStream stream = node.getAsset().openStream()) {
+                    indexer.index(stream);
+                }
+            }
+        }
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        new IndexWriter(index).write(indexer.complete());
+        archive.add(new ByteArrayAsset(index.toByteArray()), INDEX_LOCATION);
+    }
+
+    /**
+     * Returns the model embedded in the archive, or null if there is none or if it is out of date.
+     * @param config
+     * @param archive
+     */
+    public static OpenAPIImpl load(OpenApiConfig config, Archive archive) {
+        Node modelNode = archive.get(MODEL_LOCATION);
+        Node fingerprintNode = archive.get(FINGERPRINT_LOCATION);
+        if (modelNode == null || fingerprintNode == null) {
+            return null;
+        }
+        try {
+            String fingerprint;
+            try (InputStream stream = fingerprintNode.getAsset().openStream()) {
+                fingerprint = IOUtils.toString(stream, StandardCharsets.UTF_8).trim();
+            }
+            if (!fingerprint.equals(fingerprint(config, archive))) {
+                LOG.debugv("Ignoring the OpenAPI model generated for {0}: the archive or the scanning configuration changed", archive.getName());
+                return null;
+            }
+            try (InputStream stream = modelNode.getAsset().openStream()) {
+                LOG.debugv("Loading the OpenAPI model generated for {0}", archive.getName());
+                return OpenApiParser.parse(stream, Format.JSON);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Digest of everything the scanner output depends on: the version of the scanner, the scanning configuration
+     * and the paths and content of the classes and libraries in the archive.
+     * @param config
+     * @param archive
+     */
+    static String fingerprint(OpenApiConfig config, Archive archive) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, OpenApiModelGenerator.class.getPackage().getImplementationVersion());
+        update(digest, new TreeSet<>(config.scanClasses()));
+        update(digest, new TreeSet<>(config.scanPackages()));
+        update(digest, new TreeSet<>(config.scanExcludeClasses()));
+        update(digest, new TreeSet<>(config.scanExcludePackages()));
+        update(digest, String.valueOf(config.scanDependenciesDisable()));
+        update(digest, new TreeSet<>(config.scanDependenciesJars()));
+
+        Filter<ArchivePath> filter = OpenApiModelGenerator::isScanned;
+        Map<String, Asset> scanned = new TreeMap<>();
+        for (Object each : archive.getContent(filter).values()) {
+            Node node = (Node) each;
+            if (node.getAsset() != null) {
+                scanned.put(node.getPath().get(), node.getAsset());
+            }
+        }
+        byte[] buffer = new byte[8192];
+        for (Map.Entry<String, Asset> entry : scanned.entrySet()) {
+            update(digest, entry.getKey());
+            try (InputStream stream = entry.getValue().openStream()) {
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            digest.update((byte) 0);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static boolean isScanned(ArchivePath path) {
+        return path.get().endsWith(OpenApiConstants.CLASS_SUFFIX) || path.get().endsWith(OpenApiConstants.JAR_SUFFIX);
+    }
+
+    private static void update(MessageDigest digest, Set<String> values) {
+        for (String value : values) {
+            update(digest, value);
+        }
+        digest.update((byte) 1);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Embeds the model in a packaged archive.
+     * @param args the archive, and optionally the file to write the result to instead of replacing the archive
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: OpenApiModelGenerator <archive> [<output archive>]");
+        }
+        File input = new File(args[0]);
+        File output = args.length > 1 ? new File(args[1]) : input;
+
+        Class<? extends Archive> type = input.getName().endsWith(".war") ? WebArchive.class : JavaArchive.class;
+        Archive archive = ShrinkWrap.createFromZipFile(type, input);
+        if (!generate(archive)) {
+            return;
+        }
+
+        // The archive reads its content from the input, which may also be the output
+        File tmp = File.createTempFile(input.getName(), ".tmp", output.getAbsoluteFile().getParentFile());
+        try {
+            archive.as(ZipExporter.class).exportTo(tmp, true);
+            Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        LOG.infov("Embedded the OpenAPI model in {0}", output);
+    }
+}
@@ -17,6 +17,7 @@
 package org.wildfly.swarm.microprofile.openapi.runtime;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.HashSet;
 import java.util.NoSuchElementException;
@@ -30,10 +31,17 @@ import org.eclipse.microprofile.openapi.OASFilter;
 import org.eclipse.microprofile.openapi.OASModelReader;
 import org.eclipse.microprofile.openapi.models.OpenAPI;
 import org.eclipse.microprofile.openapi.models.PathItem;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.ArchivePaths;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
 import org.jboss.shrinkwrap.api.asset.UrlAsset;
 import org.json.JSONException;
+import org.junit.Assert;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
@@ -43,6 +51,7 @@ import org.wildfly.swarm.microprofile.openapi.api.models.OpenAPIImpl;
 import org.wildfly.swarm.microprofile.openapi.api.models.info.ContactImpl;
 import org.wildfly.swarm.microprofile.openapi.api.models.info.InfoImpl;
 import org.wildfly.swarm.microprofile.openapi.deployment.OpenApiServletContextListener;
+import org.wildfly.swarm.microprofile.openapi.runtime.app.ComplexResource;
 import org.wildfly.swarm.microprofile.openapi.runtime.app.HelloResource;
 import org.wildfly.swarm.microprofile.openapi.runtime.app.TestApplication;
 import org.wildfly.swarm.microprofile.openapi.runtime.io.OpenApiSerializer;
@@ -248,4 +257,58 @@ public class OpenApiDeploymentProcessorTest {
         doTest(null, "_static/static.json", true, null, "_static/_expected.json");
     }
 
+    /**
+     * Test method for {@link org.wildfly.swarm.microprofile.openapi.runtime.OpenApiModelGenerator}.
+     */
+    @Test
+    public void testGeneratedModel() throws Exception {
+        System.setProperty(OASConfig.SCAN_DISABLE, "false");
+        OpenApiConfig config = new OpenApiConfig(new TestConfig());
+        Archive archive = archive(null);
+        Assert.assertNull(OpenApiModelGenerator.load(config, archive));
+
+        String scanned = OpenApiSerializer.serialize(new OpenApiAnnotationScanner(config, archive).scan(), Format.JSON);
+        OpenApiModelGenerator.generate(config, archive);
+        OpenAPIImpl generated = OpenApiModelGenerator.load(config, archive);
+        Assert.assertNotNull(generated);
+        assertJsonEquals(scanned, OpenApiSerializer.serialize(generated, Format.JSON));
+
+        // Out of date once the scanning configuration changes
+        System.setProperty(OASConfig.SCAN_EXCLUDE_CLASSES, HelloResource.class.getName());
+        try {
+            Assert.assertNull(OpenApiModelGenerator.load(new OpenApiConfig(new TestConfig()), archive));
+        } finally {
+            System.clearProperty(OASConfig.SCAN_EXCLUDE_CLASSES);
+        }
+
+        // ... or once classes are added to the archive
+        ((JAXRSArchive) archive).addClass(ComplexResource.class);
+        Assert.assertNull(OpenApiModelGenerator.load(config, archive));
+
+        // ... or once a class is recompiled
+        OpenApiModelGenerator.generate(config, archive);
+        Assert.assertNotNull(OpenApiModelGenerator.load(config, archive));
+        ArchivePath path = ArchivePaths.create("WEB-INF/classes", ComplexResource.class.getName().replace('.', '/') + ".class");
+        Assert.assertNotNull(archive.get(path));
+        archive.add(new ByteArrayAsset(new byte[] {(byte) 0xCA, (byte) 0xFE}), path);
+        Assert.assertNull(OpenApiModelGenerator.load(config, archive));
+    }
+
+    /**
+     * Test method for {@link org.wildfly.swarm.microprofile.openapi.runtime.OpenApiModelGenerator#index(Archive)}.
+     */
+    @Test
+    public void testGeneratedIndex() throws Exception {
+        Archive archive = archive(null);
+        Assert.assertFalse(archive.contains(OpenApiModelGenerator.INDEX_LOCATION));
+
+        OpenApiModelGenerator.index(archive);
+        Index index;
+        try (InputStream stream = archive.get(OpenApiModelGenerator.INDEX_LOCATION).getAsset().openStream()) {
+            index = new IndexReader(stream).read();
+        }
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(HelloResource.class.getName())));
+        Assert.assertNotNull(index.getClassByName(DotName.createSimple(TestApplication.class.getName())));
+    }
+
 }
@@ -15,9 +15,14 @@
  */
 package org.wildfly.swarm.monitor;
 
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
+
 import java.util.Optional;
 
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 
 /**
@@ -30,6 +35,10 @@ public class MonitorFraction implements Fraction<MonitorFraction> {
 
     private Optional<String> securityRealm = Optional.empty();
 
+    @AttributeDocumentation("Milliseconds the /node, /heap and /threads information may be stale before it is sampled again (0 to sample on every request)")
+    @Configurable("swarm.monitor.max-staleness")
+    private Defaultable<Long> maxStaleness = longInteger(1000);
+
     public MonitorFraction securityRealm(String realmName) {
         this.securityRealm = Optional.of(realmName);
         return this;
@@ -38,4 +47,13 @@ public class MonitorFraction implements Fraction<MonitorFraction> {
     public Optional<String> securityRealm() {
         return this.securityRealm;
     }
+
+    public MonitorFraction maxStaleness(long millis) {
+        this.maxStaleness.set(millis);
+        return this;
+    }
+
+    public long maxStaleness() {
+        return this.maxStaleness.get();
+    }
 }
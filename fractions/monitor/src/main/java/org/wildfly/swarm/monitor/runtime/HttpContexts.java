@@ -17,19 +17,22 @@ package org.wildfly.swarm.monitor.runtime;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.enterprise.inject.Vetoed;
 import javax.naming.NamingException;
 
-import io.undertow.client.ClientCallback;
-import io.undertow.client.ClientExchange;
-import io.undertow.client.ClientResponse;
 import io.undertow.server.Connectors;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
@@ -39,35 +42,52 @@ import io.undertow.util.AttachmentKey;
 import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.Protocols;
-import io.undertow.util.StringReadChannelListener;
+import io.undertow.util.SameThreadExecutor;
 import org.jboss.logging.Logger;
 import org.wildfly.swarm.monitor.HealthMetaData;
-import org.xnio.ChannelListeners;
 import org.xnio.IoUtils;
 import org.xnio.OptionMap;
 import org.xnio.Options;
 import org.xnio.Xnio;
+import org.xnio.XnioExecutor;
 import org.xnio.XnioWorker;
-import org.xnio.channels.StreamSinkChannel;
 
 /**
  * The actual monitoring HTTP endpoints. These are wrapped by {@link SecureHttpContexts}.
  *
+ * <p>The <code>/health</code> endpoint aggregates the deployment health endpoints by invoking them in-VM.
+ * All of them are dispatched at once and the aggregated response is sent when the last one returns or the
+ * probe timeout expires, without parking the thread that handles the probe. An endpoint which is still busy
+ * with an earlier probe is not invoked again; the pending invocation is shared instead.</p>
+ *
  * @author Heiko Braun
  */
 @Vetoed
 class HttpContexts implements HttpHandler {
 
-    protected ThreadLocal<CountDownLatch> dispatched = new ThreadLocal<>();
-
-    private AttachmentKey<List> RESPONSES = AttachmentKey.create(List.class);
-
     static AttachmentKey<String> TOKEN = AttachmentKey.create(String.class);
 
     public HttpContexts(HttpHandler next) {
+        this(next, lookupMonitor(), createWorker());
+    }
 
+    HttpContexts(HttpHandler next, Monitor monitor, XnioWorker worker) {
+        this.next = next;
+        this.monitor = monitor;
+        this.worker = worker;
+    }
+
+    private static Monitor lookupMonitor() {
         try {
-            this.worker = Xnio.getInstance().createWorker(
+            return Monitor.lookup();
+        } catch (NamingException e) {
+            throw new RuntimeException("Failed to lookup monitor", e);
+        }
+    }
+
+    private static XnioWorker createWorker() {
+        try {
+            return Xnio.getInstance().createWorker(
                     OptionMap.builder()
                             .set(Options.WORKER_IO_THREADS, 5)
                             .set(Options.WORKER_TASK_CORE_THREADS, 5)
@@ -75,28 +95,17 @@ class HttpContexts implements HttpHandler {
                             .set(Options.TCP_NODELAY, true)
                             .getMap()
             );
-
         } catch (IOException e) {
             throw new IllegalStateException("Failed to create worker pool");
         }
-        this.next = next;
-
-        try {
-            this.monitor = Monitor.lookup();
-        } catch (NamingException e) {
-            throw new RuntimeException("Failed to lookup monitor", e);
-        }
-
     }
 
     @Override
     public void handleRequest(HttpServerExchange exchange) throws Exception {
 
-        //System.out.println(exchange.getRequestPath() +" on "+Thread.currentThread());
-
-        if (dispatched.get() != null && dispatched.get().getCount() == 1) {
+        if (EPHEMERAL_TOKEN.equals(exchange.getAttachment(TOKEN))) {
+            // an in-VM health request issued by the aggregator
             next.handleRequest(exchange);
-            dispatched.set(null);
             return;
         }
 
@@ -119,94 +128,60 @@ class HttpContexts implements HttpHandler {
 
     private void proxyRequests(HttpServerExchange exchange) {
 
-        if (monitor.getHealthURIs().isEmpty()) {
+        List<HealthMetaData> endpoints = new ArrayList<>(monitor.getHealthURIs());
+        if (endpoints.isEmpty()) {
             noHealthEndpoints(exchange);
         } else {
+            exchange.dispatch(SameThreadExecutor.INSTANCE, () -> fanOut(exchange, endpoints));
+        }
 
-            try {
-                final List<InVMResponse> responses = new CopyOnWriteArrayList<>();
-                CountDownLatch latch = new CountDownLatch(monitor.getHealthURIs().size());
-                dispatched.set(latch);
-
-                for (HealthMetaData healthCheck : monitor.getHealthURIs()) {
-                    invokeHealthInVM(exchange, healthCheck, responses, latch);
-                }
-
-                latch.await(10, TimeUnit.SECONDS);
-
-                if (latch.getCount() > 0) {
-                    throw new Exception("Probe timed out");
-                }
-
-
-                boolean failed = false;
-                if (!responses.isEmpty()) {
-
-                    if (responses.size() != monitor.getHealthURIs().size()) {
-                        throw new RuntimeException("The number of responses does not match!");
-                    }
-
-                    StringBuffer sb = new StringBuffer("{");
-                    sb.append("\"checks\": [\n");
-
-                    int i = 0;
-                    for (InVMResponse resp : responses) {
-
-                        sb.append(resp.getPayload());
-
-                        if (!failed) {
-                            failed = resp.getStatus() != 200;
-                        }
-
-                        if (i < responses.size() - 1) {
-                            sb.append(",\n");
-                        }
-                        i++;
-                    }
-                    sb.append("],\n");
-
-                    String outcome = failed ? "DOWN" : "UP"; // we don't have policies yet, so keep it simple
-                    sb.append("\"outcome\": \"" + outcome + "\"\n");
-                    sb.append("}\n");
+    }
 
-                    // send a response
-                    if (failed) {
-                        exchange.setStatusCode(503);
+    private void fanOut(HttpServerExchange exchange, List<HealthMetaData> endpoints) {
+        Aggregation aggregation = new Aggregation(exchange, endpoints);
+        try {
+            aggregation.expireAfter(monitor.getProbeTimeoutSeconds(), TimeUnit.SECONDS);
+
+            String host = exchange.getRequestHeaders().getFirst(Headers.HOST);
+            int port = exchange.getConnection().getLocalAddress(InetSocketAddress.class).getPort();
+            HttpHandler rootHandler = ((HttpServerConnection) exchange.getConnection()).getRootHandler();
+
+            for (int i = 0; i < endpoints.size(); ++i) {
+                final int index = i;
+                String webContext = endpoints.get(i).getWebContext();
+                probe(webContext, host, port, rootHandler).whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        LOG.error("Health check failed", failure);
+                        response = new InVMResponse(500, down(webContext, "\"status-code\":500"));
                     }
-
-                    exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
-                    exchange.getResponseSender().send(sb.toString());
-
-                } else {
-                    new RuntimeException("Responses should not be empty").printStackTrace();
-                    exchange.setStatusCode(500);
-                }
-
-                exchange.endExchange();
-
-
-            } catch (Throwable t) {
-                LOG.error("Health check failed", t);
-
-                if (!exchange.isResponseStarted()) {
-                    exchange.setStatusCode(500);
-                }
-                exchange.endExchange();
+                    aggregation.complete(index, response);
+                });
             }
-
+        } catch (Throwable t) {
+            LOG.error("Health check failed", t);
+            aggregation.fail();
         }
-
     }
 
-    private void invokeHealthInVM(final HttpServerExchange exchange, HealthMetaData healthCheck, List<InVMResponse> responses, CountDownLatch latch) {
+    private CompletableFuture<InVMResponse> probe(String webContext, String host, int port, HttpHandler rootHandler) {
+        CompletableFuture<InVMResponse> probe = new CompletableFuture<>();
+        CompletableFuture<InVMResponse> pending = inFlight.putIfAbsent(webContext, probe);
+        if (pending != null) {
+            return pending;
+        }
+        probe.whenComplete((response, failure) -> inFlight.remove(webContext, probe));
         try {
+            worker.execute(() -> invokeHealthInVM(webContext, host, port, rootHandler, probe));
+        } catch (RejectedExecutionException e) {
+            probe.completeExceptionally(e);
+        }
+        return probe;
+    }
 
-            String delegateContext = healthCheck.getWebContext();
+    private void invokeHealthInVM(String delegateContext, String host, int port, HttpHandler rootHandler, CompletableFuture<InVMResponse> probe) {
+        try {
 
-            final InVMConnection connection = new InVMConnection(
-                    worker,
-                    exchange.getConnection().getLocalAddress(InetSocketAddress.class).getPort()
-            );
+            final InVMConnection connection = new InVMConnection(worker, port);
             final HttpServerExchange mockExchange = new HttpServerExchange(connection);
             mockExchange.setRequestScheme("http");
             mockExchange.setRequestMethod(new HttpString("GET"));
@@ -214,9 +189,10 @@ class HttpContexts implements HttpHandler {
             mockExchange.setRequestURI(delegateContext);
             mockExchange.setRequestPath(delegateContext);
             mockExchange.setRelativePath(delegateContext);
-            mockExchange.getRequestHeaders().add(Headers.HOST, exchange.getRequestHeaders().get(Headers.HOST).getFirst());
+            if (host != null) {
+                mockExchange.getRequestHeaders().add(Headers.HOST, host);
+            }
             mockExchange.putAttachment(TOKEN, EPHEMERAL_TOKEN);
-            mockExchange.putAttachment(RESPONSES, responses);
             connection.addCloseListener(new ServerConnection.CloseListener() {
                 @Override
                 public void closed(ServerConnection connection) {
@@ -225,89 +201,32 @@ class HttpContexts implements HttpHandler {
                     ((InVMConnection) connection).flushTo(sb);
                     LOG.trace("Response payload: " + sb.toString());
                     if ("application/json".equals(mockExchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE))) {
-                        responses.add(new InVMResponse(mockExchange.getStatusCode(), sb.toString()));
+                        probe.complete(new InVMResponse(mockExchange.getStatusCode(), sb.toString()));
                     } else {
-                        StringBuffer json = new StringBuffer("{");
-                        json.append("\"id\"").append(":\"").append(mockExchange.getRelativePath()).append("\",");
-                        json.append("\"result\"").append(":\"").append("DOWN").append("\",");
-                            json.append("\"data\"").append(":").append("{");
-                                json.append("\"status-code\"").append(":").append(mockExchange.getStatusCode());
-                            json.append("}");
-                        json.append("}");
-
-                        responses.add(new InVMResponse(mockExchange.getStatusCode(), json.toString()));
+                        String data = "\"status-code\":" + mockExchange.getStatusCode();
+                        probe.complete(new InVMResponse(mockExchange.getStatusCode(), down(mockExchange.getRelativePath(), data)));
                     }
-
-                    mockExchange.removeAttachment(RESPONSES);
                     IoUtils.safeClose(connection);
-                    latch.countDown();
                 }
             });
 
-            HttpServerConnection httpConnection = (HttpServerConnection) exchange.getConnection();
             mockExchange.startBlocking();
-            Connectors.executeRootHandler(httpConnection.getRootHandler(), mockExchange);
-
+            Connectors.executeRootHandler(rootHandler, mockExchange);
 
         } catch (Throwable t) {
-            LOG.error("Health check failed", t);
-            latch.countDown();
+            probe.completeExceptionally(t);
         }
     }
 
-    private static final AttachmentKey<String> RESPONSE_BODY = AttachmentKey.create(String.class);
-
-    private ClientCallback<ClientExchange> createClientCallback(final List<ClientResponse> responses, CountDownLatch latch) {
-
-        return new ClientCallback<ClientExchange>() {
-            @Override
-            public void completed(final ClientExchange result) {
-                result.setResponseListener(new ClientCallback<ClientExchange>() {
-                    @Override
-                    public void completed(final ClientExchange result) {
-                        responses.add(result.getResponse());
-                        new StringReadChannelListener(result.getConnection().getBufferPool()) {
-
-                            @Override
-                            protected void stringDone(String string) {
-                                result.getResponse().putAttachment(RESPONSE_BODY, string);
-                                latch.countDown();
-                            }
-
-                            @Override
-                            protected void error(IOException e) {
-                                LOG.error("Failed to read response", e);
-                                latch.countDown();
-
-                            }
-                        }.setup(result.getResponseChannel());
-                    }
-
-                    @Override
-                    public void failed(IOException e) {
-                        LOG.error("Failed to read response", e);
-                        latch.countDown();
-                    }
-                });
-
-                try {
-                    result.getRequestChannel().shutdownWrites();
-                    if (!result.getRequestChannel().flush()) {
-                        result.getRequestChannel().getWriteSetter().set(ChannelListeners.<StreamSinkChannel>flushingChannelListener(null, null));
-                        result.getRequestChannel().resumeWrites();
-                    }
-                } catch (IOException e) {
-                    LOG.error("Failed to read response", e);
-                    latch.countDown();
-                }
-            }
-
-            @Override
-            public void failed(IOException e) {
-                LOG.error("Probe invocation failed", e);
-                latch.countDown();
-            }
-        };
+    private static String down(String id, String data) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"id\"").append(":\"").append(id).append("\",");
+        json.append("\"result\"").append(":\"").append("DOWN").append("\",");
+            json.append("\"data\"").append(":").append("{");
+                json.append(data);
+            json.append("}");
+        json.append("}");
+        return json.toString();
     }
 
     private void noHealthEndpoints(HttpServerExchange exchange) {
@@ -347,9 +266,116 @@ class HttpContexts implements HttpHandler {
 
     private final HttpHandler next;
 
-    private XnioWorker worker;
+    private final XnioWorker worker;
+
+    private final Map<String, CompletableFuture<InVMResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The responses of a single <code>/health</code> request, completed by the last endpoint to respond or by the timeout.
+     */
+    private static final class Aggregation {
+
+        Aggregation(HttpServerExchange exchange, List<HealthMetaData> endpoints) {
+            this.exchange = exchange;
+            this.endpoints = endpoints;
+            this.responses = new AtomicReferenceArray<>(endpoints.size());
+            this.pending = new AtomicInteger(endpoints.size());
+        }
+
+        void expireAfter(long timeout, TimeUnit unit) {
+            this.timer = this.exchange.getIoThread().executeAfter(this::finish, timeout, unit);
+        }
+
+        void complete(int index, InVMResponse response) {
+            this.responses.set(index, response);
+            if (this.pending.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void fail() {
+            if (this.finished.compareAndSet(false, true)) {
+                cancelTimer();
+                if (!this.exchange.isResponseStarted()) {
+                    this.exchange.setStatusCode(500);
+                }
+                this.exchange.endExchange();
+            }
+        }
+
+        private void finish() {
+            if (!this.finished.compareAndSet(false, true)) {
+                return;
+            }
+            cancelTimer();
+
+            try {
+                boolean failed = false;
+
+                StringBuilder sb = new StringBuilder("{");
+                sb.append("\"checks\": [\n");
+
+                for (int i = 0; i < this.responses.length(); ++i) {
+                    InVMResponse resp = this.responses.get(i);
+                    if (resp == null) {
+                        resp = new InVMResponse(503, down(this.endpoints.get(i).getWebContext(), "\"reason\":\"Probe timed out\""));
+                    }
+
+                    sb.append(resp.getPayload());
+
+                    if (!failed) {
+                        failed = resp.getStatus() != 200;
+                    }
+
+                    if (i < this.responses.length() - 1) {
+                        sb.append(",\n");
+                    }
+                }
+                sb.append("],\n");
+
+                String outcome = failed ? "DOWN" : "UP"; // we don't have policies yet, so keep it simple
+                sb.append("\"outcome\": \"").append(outcome).append("\"\n");
+                sb.append("}\n");
+
+                // send a response
+                if (failed) {
+                    this.exchange.setStatusCode(503);
+                }
+
+                this.exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+                this.exchange.getResponseSender().send(sb.toString());
+
+            } catch (Throwable t) {
+                LOG.error("Health check failed", t);
+
+                if (!this.exchange.isResponseStarted()) {
+                    this.exchange.setStatusCode(500);
+                }
+                this.exchange.endExchange();
+            }
+        }
+
+        private void cancelTimer() {
+            XnioExecutor.Key key = this.timer;
+            if (key != null) {
+                key.remove();
+            }
+        }
+
+        private final HttpServerExchange exchange;
+
+        private final List<HealthMetaData> endpoints;
+
+        private final AtomicReferenceArray<InVMResponse> responses;
+
+        private final AtomicInteger pending;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private volatile XnioExecutor.Key timer;
+    }
 
-    class InVMResponse {
+    static class InVMResponse {
         private int status;
 
         private String payload;
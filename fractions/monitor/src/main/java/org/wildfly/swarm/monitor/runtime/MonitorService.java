@@ -22,6 +22,7 @@ import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Vetoed;
 
@@ -62,7 +63,12 @@ public class MonitorService implements Monitor, Service<MonitorService> {
     public static final ServiceName SERVICE_NAME = ServiceName.of("swarm", "monitor");
 
     public MonitorService(Optional<String> securityRealm) {
+        this(securityRealm, DEFAULT_MAX_STALENESS_MILLIS);
+    }
+
+    public MonitorService(Optional<String> securityRealm, long maxStalenessMillis) {
         this.securityRealm = securityRealm;
+        this.maxStalenessMillis = maxStalenessMillis;
     }
 
     @Override
@@ -76,6 +82,9 @@ public class MonitorService implements Monitor, Service<MonitorService> {
         serverEnvironment = serverEnvironmentValue.getValue();
         controllerClient = modelControllerValue.getValue().createClient(executorService);
 
+        sampler = new RuntimeSampler(this::queryNodeInfo, maxStalenessMillis, TimeUnit.MILLISECONDS);
+        sampler.start();
+
         if (!securityRealm.isPresent()) {
             LOG.warn("You are running the monitoring endpoints without any security realm configuration!");
         }
@@ -83,6 +92,9 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     @Override
     public void stop(StopContext stopContext) {
+        if (sampler != null) {
+            sampler.stop();
+        }
         if (executorService != null) {
             executorService.shutdownNow();
         }
@@ -95,6 +107,20 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     @Override
     public ModelNode getNodeInfo() {
+        return sampler.nodeInfo();
+    }
+
+    @Override
+    public ModelNode heap() {
+        return sampler.heap();
+    }
+
+    @Override
+    public ModelNode threads() {
+        return sampler.threads();
+    }
+
+    private ModelNode queryNodeInfo() {
 
         ModelNode op = new ModelNode();
         op.get(ADDRESS).setEmptyList();
@@ -116,49 +142,6 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     }
 
-    @Override
-    public ModelNode heap() {
-
-        // /core-service=platform-mbean/type=memory:read-resource(include-runtime=true)
-
-        ModelNode op = new ModelNode();
-        op.get(ADDRESS).add("core-service", "platform-mbean");
-        op.get(ADDRESS).add("type", "memory");
-        op.get(OP).set("query");
-        op.get(SELECT).add("heap-memory-usage");
-        op.get(SELECT).add("non-heap-memory-usage");
-
-        try {
-            ModelNode response = controllerClient.execute(op);
-            return unwrap(response);
-        } catch (IOException e) {
-            return new ModelNode().get(FAILURE_DESCRIPTION).set(e.getMessage());
-        }
-    }
-
-    @Override
-    public ModelNode threads() {
-
-        // /core-service=platform-mbean/type=threading:read-resource(include-runtime=true)
-
-        ModelNode op = new ModelNode();
-        op.get(ADDRESS).add("core-service", "platform-mbean");
-        op.get(ADDRESS).add("type", "threading");
-        op.get(OP).set("query");
-        op.get(SELECT).add("thread-count");
-        op.get(SELECT).add("peak-thread-count");
-        op.get(SELECT).add("total-started-thread-count");
-        op.get(SELECT).add("current-thread-cpu-time");
-        op.get(SELECT).add("current-thread-user-time");
-
-        try {
-            ModelNode response = controllerClient.execute(op);
-            return unwrap(response);
-        } catch (IOException e) {
-            return new ModelNode().get(FAILURE_DESCRIPTION).set(e.getMessage());
-        }
-    }
-
     @Override
     public void registerHealth(HealthMetaData metaData) {
         LOG.info("Adding /health endpoint delegate: " + metaData.getWebContext());
@@ -205,6 +188,8 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     private static final long DEFAULT_PROBE_TIMEOUT_SECONDS = 2;
 
+    private static final long DEFAULT_MAX_STALENESS_MILLIS = 1000;
+
     private final InjectedValue<ServerEnvironment> serverEnvironmentValue = new InjectedValue<ServerEnvironment>();
 
     private final InjectedValue<ModelController> modelControllerValue = new InjectedValue<ModelController>();
@@ -213,6 +198,10 @@ public class MonitorService implements Monitor, Service<MonitorService> {
 
     private final Optional<String> securityRealm;
 
+    private final long maxStalenessMillis;
+
+    private RuntimeSampler sampler;
+
     private ExecutorService executorService;
 
     private ServerEnvironment serverEnvironment;
@@ -56,15 +56,12 @@ public class MonitorServiceActivator implements ServiceActivator {
 
     @Override
     public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
-        Optional<String> securityRealm = Optional.empty();
-
-        if (!monitorFractionInstance.isUnsatisfied()) {
-            securityRealm = monitorFractionInstance.get().securityRealm();
-        }
+        MonitorFraction fraction = monitorFractionInstance.isUnsatisfied() ? new MonitorFraction() : monitorFractionInstance.get();
+        Optional<String> securityRealm = fraction.securityRealm();
 
         ServiceTarget target = context.getServiceTarget();
 
-        MonitorService service = new MonitorService(securityRealm);
+        MonitorService service = new MonitorService(securityRealm, fraction.maxStaleness());
 
         ServiceBuilder<MonitorService> monitorServiceServiceBuilder = target.addService(MonitorService.SERVICE_NAME, service);
 
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+
+/**
+ * Periodically samples the values behind the <code>/node</code>, <code>/heap</code> and <code>/threads</code> endpoints.
+ *
+ * <p>Heap and thread information is read from the platform MXBeans, only the node information goes through the
+ * management model. Readers are served from an immutable snapshot which is never older than the configured
+ * staleness bound; should the background sampler fall behind, the first reader to notice takes a fresh sample.</p>
+ *
+ * @see MonitorService
+ */
+class RuntimeSampler {
+
+    RuntimeSampler(Supplier<ModelNode> nodeInfo, long maxStaleness, TimeUnit unit) {
+        this.nodeInfo = nodeInfo;
+        this.maxStalenessNanos = unit.toNanos(maxStaleness);
+    }
+
+    void start() {
+        // the first sample is taken off the calling thread, the management model may still be booting
+        if (this.maxStalenessNanos > 0) {
+            // sample twice per bound, so readers hardly ever find the snapshot stale
+            long period = Math.max(1, this.maxStalenessNanos / 2);
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "monitor-sampler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleAtFixedRate(this::refresh, 0, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void stop() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    ModelNode nodeInfo() {
+        return snapshot().node;
+    }
+
+    ModelNode heap() {
+        return snapshot().heap;
+    }
+
+    ModelNode threads() {
+        return snapshot().threads;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        if (current == null || current.isOlderThan(this.maxStalenessNanos)) {
+            synchronized (this) {
+                current = this.snapshot;
+                if (current == null || current.isOlderThan(this.maxStalenessNanos)) {
+                    current = sample();
+                    this.snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private void refresh() {
+        try {
+            Snapshot fresh = sample();
+            synchronized (this) {
+                if (this.snapshot == null || this.snapshot.sampledAt < fresh.sampledAt) {
+                    this.snapshot = fresh;
+                }
+            }
+        } catch (Throwable t) {
+            LOG.debug("Failed to sample runtime information", t);
+        }
+    }
+
+    private Snapshot sample() {
+        long sampledAt = System.nanoTime();
+
+        ModelNode heap = new ModelNode();
+        heap.get("heap-memory-usage").set(memoryUsage(MEMORY.getHeapMemoryUsage()));
+        heap.get("non-heap-memory-usage").set(memoryUsage(MEMORY.getNonHeapMemoryUsage()));
+
+        ModelNode threads = new ModelNode();
+        threads.get("thread-count").set(THREADS.getThreadCount());
+        threads.get("peak-thread-count").set(THREADS.getPeakThreadCount());
+        threads.get("total-started-thread-count").set(THREADS.getTotalStartedThreadCount());
+        threads.get("current-thread-cpu-time").set(THREADS.getCurrentThreadCpuTime());
+        threads.get("current-thread-user-time").set(THREADS.getCurrentThreadUserTime());
+
+        return new Snapshot(sampledAt, this.nodeInfo.get(), heap, threads);
+    }
+
+    private static ModelNode memoryUsage(MemoryUsage usage) {
+        ModelNode node = new ModelNode();
+        node.get("init").set(usage.getInit());
+        node.get("used").set(usage.getUsed());
+        node.get("committed").set(usage.getCommitted());
+        node.get("max").set(usage.getMax());
+        return node;
+    }
+
+    private static Logger LOG = Logger.getLogger("org.wildfly.swarm.monitor");
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Supplier<ModelNode> nodeInfo;
+
+    private final long maxStalenessNanos;
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService scheduler;
+
+    private static final class Snapshot {
+
+        Snapshot(long sampledAt, ModelNode node, ModelNode heap, ModelNode threads) {
+            this.sampledAt = sampledAt;
+            this.node = protect(node);
+            this.heap = protect(heap);
+            this.threads = protect(threads);
+        }
+
+        boolean isOlderThan(long nanos) {
+            return System.nanoTime() - this.sampledAt >= nanos;
+        }
+
+        private static ModelNode protect(ModelNode node) {
+            node.protect();
+            return node;
+        }
+
+        private final long sampledAt;
+
+        private final ModelNode node;
+
+        private final ModelNode heap;
+
+        private final ModelNode threads;
+    }
+}
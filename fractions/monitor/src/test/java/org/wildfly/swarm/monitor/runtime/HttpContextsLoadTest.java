@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.util.Headers;
+import org.jboss.as.domain.management.SecurityRealm;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.monitor.HealthMetaData;
+import org.xnio.OptionMap;
+import org.xnio.Options;
+import org.xnio.Xnio;
+import org.xnio.XnioWorker;
+
+/**
+ * Hammers the aggregated <code>/health</code> endpoint while one of the deployment health endpoints hangs.
+ */
+public class HttpContextsLoadTest {
+
+    private static final int CLIENTS = 50;
+
+    private static final int ROUNDS = 2;
+
+    @Before
+    public void start() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        worker = Xnio.getInstance().createWorker(OptionMap.builder()
+                .set(Options.WORKER_IO_THREADS, 2)
+                .set(Options.WORKER_TASK_CORE_THREADS, 4)
+                .set(Options.WORKER_TASK_MAX_THREADS, 4)
+                .getMap());
+
+        PathHandler endpoints = new PathHandler()
+                .addExactPath("/app/health", this::up)
+                .addExactPath("/hang/health", this::hang);
+
+        // a single IO thread and two worker threads: a parked probe would stall everything
+        server = Undertow.builder()
+                .addHttpListener(port, "localhost")
+                .setIoThreads(1)
+                .setWorkerThreads(2)
+                .setHandler(new HttpContexts(endpoints, monitor, worker))
+                .build();
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        hang.countDown();
+        server.stop();
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void testHealthy() throws Exception {
+        healthURIs.add(new HealthMetaData("/app/health", false));
+
+        Response response = get("/health");
+        Assert.assertEquals(200, response.status);
+        Assert.assertTrue(response.body, response.body.contains("\"outcome\": \"UP\""));
+    }
+
+    @Test
+    public void testHammerWhileOneEndpointHangs() throws Exception {
+        healthURIs.add(new HealthMetaData("/app/health", false));
+        healthURIs.add(new HealthMetaData("/hang/health", false));
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < CLIENTS * ROUNDS; ++i) {
+                responses.add(clients.submit(() -> get("/health")));
+            }
+            for (Future<Response> each : responses) {
+                Response response = each.get(30, TimeUnit.SECONDS);
+                Assert.assertEquals(503, response.status);
+                Assert.assertTrue(response.body, response.body.contains("\"id\":\"app\",\"result\":\"UP\""));
+                Assert.assertTrue(response.body, response.body.contains("Probe timed out"));
+                Assert.assertTrue(response.body, response.body.contains("\"outcome\": \"DOWN\""));
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // every round is bounded by the probe timeout rather than queued behind parked threads
+            Assert.assertTrue("took " + elapsed + "ms", elapsed < (ROUNDS + 2) * TimeUnit.SECONDS.toMillis(PROBE_TIMEOUT_SECONDS));
+            Assert.assertEquals(1, hangInvocations.get());
+        } finally {
+            clients.shutdownNow();
+        }
+
+        // the other contexts stay responsive
+        hang.countDown();
+        healthURIs.remove(1);
+        Assert.assertEquals(200, get("/health").status);
+    }
+
+    private void up(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getResponseSender().send("{\"id\":\"app\",\"result\":\"UP\"}");
+    }
+
+    private void hang(HttpServerExchange exchange) throws InterruptedException {
+        hangInvocations.incrementAndGet();
+        hang.await();
+        up(exchange);
+    }
+
+    private Response get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        try {
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            if (in != null) {
+                try {
+                    byte[] buf = new byte[1024];
+                    int read;
+                    while ((read = in.read(buf)) > 0) {
+                        body.write(buf, 0, read);
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static final long PROBE_TIMEOUT_SECONDS = 1;
+
+    private final List<HealthMetaData> healthURIs = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger hangInvocations = new AtomicInteger();
+
+    private final CountDownLatch hang = new CountDownLatch(1);
+
+    private final Monitor monitor = new Monitor() {
+        @Override
+        public ModelNode getNodeInfo() {
+            return new ModelNode();
+        }
+
+        @Override
+        public ModelNode heap() {
+            return new ModelNode();
+        }
+
+        @Override
+        public ModelNode threads() {
+            return new ModelNode();
+        }
+
+        @Override
+        public void registerHealth(HealthMetaData metaData) {
+            healthURIs.add(metaData);
+        }
+
+        @Override
+        public List<HealthMetaData> getHealthURIs() {
+            return healthURIs;
+        }
+
+        @Override
+        public Optional<SecurityRealm> getSecurityRealm() {
+            return Optional.empty();
+        }
+
+        @Override
+        public long getProbeTimeoutSeconds() {
+            return PROBE_TIMEOUT_SECONDS;
+        }
+    };
+
+    private int port;
+
+    private XnioWorker worker;
+
+    private Undertow server;
+
+    private static class Response {
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        private final int status;
+
+        private final String body;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.monitor.runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuntimeSamplerTest {
+
+    @Test
+    public void testSnapshotContents() {
+        RuntimeSampler sampler = new RuntimeSampler(this::nodeInfo, 1, TimeUnit.HOURS);
+
+        Assert.assertEquals("test-node", sampler.nodeInfo().get("name").asString());
+
+        ModelNode heap = sampler.heap();
+        Assert.assertTrue(heap.get("heap-memory-usage", "used").asLong() > 0);
+        Assert.assertTrue(heap.get("non-heap-memory-usage", "committed").asLong() > 0);
+
+        ModelNode threads = sampler.threads();
+        Assert.assertTrue(threads.get("thread-count").asInt() > 0);
+        Assert.assertTrue(threads.get("peak-thread-count").asInt() >= threads.get("thread-count").asInt());
+        Assert.assertTrue(threads.hasDefined("total-started-thread-count"));
+    }
+
+    @Test
+    public void testReadsAreServedFromSnapshot() {
+        RuntimeSampler sampler = new RuntimeSampler(this::nodeInfo, 1, TimeUnit.HOURS);
+
+        for (int i = 0; i < 100; ++i) {
+            sampler.nodeInfo();
+            sampler.heap();
+            sampler.threads();
+        }
+        Assert.assertEquals(1, samples.get());
+    }
+
+    @Test
+    public void testZeroStalenessSamplesEveryRead() {
+        RuntimeSampler sampler = new RuntimeSampler(this::nodeInfo, 0, TimeUnit.MILLISECONDS);
+        sampler.start();
+        try {
+            sampler.heap();
+            sampler.heap();
+            sampler.heap();
+            Assert.assertEquals(3, samples.get());
+        } finally {
+            sampler.stop();
+        }
+    }
+
+    @Test
+    public void testBackgroundSampling() throws InterruptedException {
+        RuntimeSampler sampler = new RuntimeSampler(this::nodeInfo, 20, TimeUnit.MILLISECONDS);
+        sampler.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (samples.get() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(samples.get() >= 3);
+        } finally {
+            sampler.stop();
+        }
+
+        int stopped = samples.get();
+        Thread.sleep(100);
+        Assert.assertEquals(stopped, samples.get());
+    }
+
+    private ModelNode nodeInfo() {
+        samples.incrementAndGet();
+        ModelNode node = new ModelNode();
+        node.get("name").set("test-node");
+        return node;
+    }
+
+    private final AtomicInteger samples = new AtomicInteger();
+}
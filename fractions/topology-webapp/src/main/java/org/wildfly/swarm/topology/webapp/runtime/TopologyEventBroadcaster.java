@@ -0,0 +1,390 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyListener;
+
+/**
+ * Streams the topology to all the clients of {@link TopologySSEServlet}.
+ *
+ * <p>Each version of the topology is rendered once, at most once more for secure clients, and the same bytes are written to every client with
+ * non-blocking I/O. A client which cannot keep up only receives the latest version. A single task sends the keep-alive comments.</p>
+ */
+class TopologyEventBroadcaster implements TopologyListener {
+
+    static final long KEEP_ALIVE_DELAY = 10;
+
+    static final long KEEP_ALIVE_PERIOD = 15;
+
+    static final long RESOLUTION_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * @param topology      The topology.
+     * @param proxyContexts Gives the context of the proxy of a service, if any.
+     */
+    TopologyEventBroadcaster(Topology topology, Function<String, String> proxyContexts) {
+        this.proxyContexts = proxyContexts;
+        this.events = new Events(this.generation.incrementAndGet(), topology.snapshot());
+    }
+
+    void start() {
+        this.keepAliveExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.keepAliveExecutor.scheduleAtFixedRate(this::keepAlive, KEEP_ALIVE_DELAY, KEEP_ALIVE_PERIOD, TimeUnit.SECONDS);
+    }
+
+    void stop() {
+        if (this.keepAliveExecutor != null) {
+            this.keepAliveExecutor.shutdownNow();
+        }
+        for (Subscriber each : this.subscribers) {
+            each.close();
+        }
+    }
+
+    void subscribe(AsyncContext asyncContext, boolean secure) throws IOException {
+        Subscriber subscriber = new Subscriber(asyncContext, asyncContext.getResponse().getOutputStream(), secure);
+        asyncContext.addListener(subscriber);
+        this.subscribers.add(subscriber);
+        subscriber.send(this.events);
+        subscriber.out.setWriteListener(subscriber);
+        subscriber.start();
+    }
+
+    int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    @Override
+    public void onChange(Topology topology) {
+        Events events = new Events(this.generation.incrementAndGet(), topology.snapshot());
+        this.events = events;
+        for (Subscriber each : this.subscribers) {
+            each.send(events);
+        }
+    }
+
+    void keepAlive() {
+        for (Subscriber each : this.subscribers) {
+            each.keepAlive();
+        }
+    }
+
+    private byte[] render(Map<String, List<Topology.Entry>> map, boolean secure) {
+        StringBuilder json = new StringBuilder();
+        json.append("event: topologyChange\n");
+        json.append("data: ");
+        json.append("{");
+
+        Iterator<String> keyIter = map.keySet().iterator();
+
+        while (keyIter.hasNext()) {
+            String key = keyIter.next();
+            json.append("  ").append('"').append(key).append('"').append(": [");
+            List<Topology.Entry> list = map.get(key);
+            Iterator<Topology.Entry> listIter = list.iterator();
+            String proxyContext = this.proxyContexts.apply(key);
+            if (proxyContext != null) {
+                List<String> tags = new ArrayList<>();
+                tags.add(secure ? "https" : "http");
+                while (listIter.hasNext()) {
+                    Topology.Entry server = listIter.next();
+                    tags.add(formatMaybeIpv6(server.getAddress()) + ":" + server.getPort());
+                }
+                populateEndpointAndTagsJson(json, proxyContext, tags);
+            } else {
+                while (listIter.hasNext()) {
+                    Topology.Entry server = listIter.next();
+                    String endpoint = (isResolvable(server.getAddress()) ? (server.getTags().contains("https") ? "https" : "http") + "://" : "")
+                            + formatMaybeIpv6(server.getAddress()) + ":" + server.getPort();
+                    populateEndpointAndTagsJson(json, endpoint, server.getTags());
+                    if (listIter.hasNext()) {
+                        json.append(",");
+                    }
+                }
+            }
+            json.append("]");
+            if (keyIter.hasNext()) {
+                json.append(",");
+            }
+        }
+
+        json.append("}\n\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void populateEndpointAndTagsJson(StringBuilder json, String endpoint, List<String> tags) {
+        json.append("{");
+        json.append("\"endpoint\": \"").append(endpoint).append("\",");
+        json.append("\"tags\":[");
+        Iterator<String> tagIter = tags.iterator();
+        while (tagIter.hasNext()) {
+            String tag = tagIter.next();
+            json.append("\"").append(tag).append("\"");
+            if (tagIter.hasNext()) {
+                json.append(",");
+            }
+        }
+        json.append("]");
+        json.append("}");
+    }
+
+    /** This isn't very precise; org.jboss.as.network.NetworkUtils has better implementation, but that's in a private module. */
+    private String formatMaybeIpv6(String address) {
+        String openBracket = "[";
+        String closeBracket = "]";
+
+        if (address.contains(":") && !address.startsWith(openBracket) && !address.endsWith(closeBracket)) {
+            return openBracket + address + closeBracket;
+        }
+
+        return address;
+    }
+
+    /**
+     * The same addresses show up in every version of the topology, do not look them up each time.
+     */
+    private boolean isResolvable(String address) {
+        long now = System.currentTimeMillis();
+        Resolution resolution = this.resolutions.get(address);
+        if (resolution == null || resolution.expiresAt < now) {
+            boolean resolvable = true;
+            try {
+                //noinspection ResultOfMethodCallIgnored
+                InetAddress.getByName(address);
+            } catch (UnknownHostException e) {
+                resolvable = false;
+            }
+            resolution = new Resolution(resolvable, now + RESOLUTION_TTL);
+            this.resolutions.put(address, resolution);
+        }
+        return resolution.resolvable;
+    }
+
+    private final Function<String, String> proxyContexts;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Events events;
+
+    private ScheduledExecutorService keepAliveExecutor;
+
+    /**
+     * A version of the topology, rendered on demand.
+     */
+    private final class Events {
+
+        Events(long generation, Map<String, List<Topology.Entry>> map) {
+            this.generation = generation;
+            this.map = map;
+        }
+
+        synchronized byte[] get(boolean secure) {
+            if (secure) {
+                if (this.secure == null) {
+                    this.secure = render(this.map, true);
+                }
+                return this.secure;
+            }
+            if (this.plain == null) {
+                this.plain = render(this.map, false);
+            }
+            return this.plain;
+        }
+
+        private final long generation;
+
+        private final Map<String, List<Topology.Entry>> map;
+
+        private byte[] plain;
+
+        private byte[] secure;
+
+    }
+
+    private static final class Resolution {
+
+        Resolution(boolean resolvable, long expiresAt) {
+            this.resolvable = resolvable;
+            this.expiresAt = expiresAt;
+        }
+
+        private final boolean resolvable;
+
+        private final long expiresAt;
+
+    }
+
+    /**
+     * Holds at most the latest version of the topology and a keep-alive, written as soon as the client is ready.
+     */
+    private final class Subscriber implements WriteListener, AsyncListener {
+
+        Subscriber(AsyncContext asyncContext, ServletOutputStream out, boolean secure) {
+            this.asyncContext = asyncContext;
+            this.out = out;
+            this.secure = secure;
+        }
+
+        void send(Events events) {
+            byte[] event = events.get(this.secure);
+            synchronized (this) {
+                if (events.generation <= this.generation) {
+                    // Another thread already queued a newer version
+                    return;
+                }
+                this.generation = events.generation;
+                this.pending = event;
+            }
+            onWritePossible();
+        }
+
+        void keepAlive() {
+            synchronized (this) {
+                this.keepAlive = true;
+            }
+            onWritePossible();
+        }
+
+        void start() {
+            synchronized (this) {
+                // Nothing is written until the stream is in non-blocking mode
+                this.listening = true;
+            }
+            onWritePossible();
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                if (!this.listening || this.closed) {
+                    return;
+                }
+                try {
+                    while (this.out.isReady()) {
+                        if (this.pending != null) {
+                            this.out.write(this.pending);
+                            this.pending = null;
+                            this.keepAlive = false;
+                            this.dirty = true;
+                        } else if (this.keepAlive) {
+                            this.out.write(KEEP_ALIVE);
+                            this.keepAlive = false;
+                            this.dirty = true;
+                        } else if (this.dirty) {
+                            this.dirty = false;
+                            this.out.flush();
+                        } else {
+                            return;
+                        }
+                    }
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            unsubscribe();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+
+        void close() {
+            if (unsubscribe()) {
+                try {
+                    this.asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed
+                }
+            }
+        }
+
+        private synchronized boolean unsubscribe() {
+            if (this.closed) {
+                return false;
+            }
+            this.closed = true;
+            TopologyEventBroadcaster.this.subscribers.remove(this);
+            return true;
+        }
+
+        private final AsyncContext asyncContext;
+
+        private final ServletOutputStream out;
+
+        private final boolean secure;
+
+        private long generation;
+
+        private byte[] pending;
+
+        private boolean keepAlive;
+
+        private boolean dirty;
+
+        private boolean listening;
+
+        private boolean closed;
+
+    }
+}
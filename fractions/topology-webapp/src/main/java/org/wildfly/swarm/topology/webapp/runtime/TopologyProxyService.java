@@ -40,6 +40,7 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.wildfly.extension.undertow.deployment.GlobalRequestControllerHandler;
 import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChange;
 import org.wildfly.swarm.topology.TopologyListener;
 import org.wildfly.swarm.topology.webapp.TopologyWebAppFraction;
 
@@ -82,7 +83,7 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
 
     @Override
     public void onChange(Topology topology) {
-        Map<String, List<Topology.Entry>> topologyMap = topology.asMap();
+        Map<String, List<Topology.Entry>> topologyMap = topology.snapshot();
         for (String serviceName : serviceNames) {
             if (topologyMap.containsKey(serviceName)) {
                 updateProxyHosts(serviceName, topologyMap.get(serviceName));
@@ -93,6 +94,19 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
         }
     }
 
+    @Override
+    public void onChange(Topology topology, TopologyChange change) {
+        Map<String, List<Topology.Entry>> topologyMap = topology.snapshot();
+        Map<String, List<Topology.Entry>> added = change.getAdded();
+        Map<String, List<Topology.Entry>> removed = change.getRemoved();
+        for (String serviceName : serviceNames) {
+            // Leave the services which did not change alone
+            if (added.containsKey(serviceName) || removed.containsKey(serviceName)) {
+                updateProxyHosts(serviceName, topologyMap.getOrDefault(serviceName, Collections.emptyList()));
+            }
+        }
+    }
+
     public Injector<HttpHandler> getHandlerInjectorFor(String serviceName) {
         InjectedValue<HttpHandler> injector = proxyHandlerMap.get(serviceName);
         if (injector == null) {
@@ -16,24 +16,10 @@
 package org.wildfly.swarm.topology.webapp.runtime;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Vetoed;
 import javax.naming.NamingException;
 import javax.servlet.AsyncContext;
-import javax.servlet.AsyncEvent;
-import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -42,7 +28,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.wildfly.swarm.topology.Topology;
-import org.wildfly.swarm.topology.TopologyListener;
 
 
 /**
@@ -63,7 +48,16 @@ public class TopologySSEServlet extends HttpServlet {
             throw new ServletException(e);
         }
 
-        this.keepAliveExecutor = Executors.newScheduledThreadPool(2);
+        this.broadcaster = new TopologyEventBroadcaster(this.topology, (key) -> getServletContext().getInitParameter(key + "-proxy"));
+        this.broadcaster.start();
+        this.topology.addListener(this.broadcaster);
+    }
+
+    @Override
+    public void destroy() {
+        this.topology.removeListener(this.broadcaster);
+        this.broadcaster.stop();
+        super.destroy();
     }
 
     @Override
@@ -73,205 +67,13 @@ public class TopologySSEServlet extends HttpServlet {
         resp.setCharacterEncoding("UTF-8");
 
         AsyncContext asyncContext = req.startAsync();
-        PrintWriter writer = resp.getWriter();
-
-        TopologyListener topologyListener = new SSETopologyListener(writer, req.isSecure());
-
-        ScheduledFuture keepAlive = this.keepAliveExecutor.scheduleAtFixedRate(
-                new KeepAliveRunnable(writer, topologyListener),
-                10,
-                15,
-                TimeUnit.SECONDS);
         asyncContext.setTimeout(0);
-        asyncContext.addListener(new TopologyAsyncListener(topology, topologyListener, keepAlive));
-
-
-        this.topology.addListener(topologyListener);
-        String json = topologyToJson(req.isSecure());
-        writer.write("event: topologyChange\n");
-        writer.write("data: " + json);
-        writer.flush();
-
-    }
-
-    private String topologyToJson(boolean secure) {
-        StringBuilder json = new StringBuilder();
-
-        json.append("{");
-
-        Map<String, List<Topology.Entry>> map = this.topology.asMap();
-
-        Set<String> keys = map.keySet();
-        Iterator<String> keyIter = keys.iterator();
-
-        while (keyIter.hasNext()) {
-            String key = keyIter.next();
-            json.append("  ").append('"').append(key).append('"').append(": [");
-            List<Topology.Entry> list = map.get(key);
-            Iterator<Topology.Entry> listIter = list.iterator();
-            String proxyContext = getServletContext().getInitParameter(key + "-proxy");
-            if (proxyContext != null) {
-                List<String> tags = new ArrayList<>();
-                tags.add(secure ? "https" : "http");
-                while (listIter.hasNext()) {
-                    Topology.Entry server = listIter.next();
-                    tags.add(formatMaybeIpv6(server.getAddress()) + ":" + server.getPort());
-                }
-                populateEndpointAndTagsJson(json, proxyContext, tags);
-            } else {
-                while (listIter.hasNext()) {
-                    Topology.Entry server = listIter.next();
 
-                    boolean invalidServerAddress = false;
-                    try {
-                        //noinspection ResultOfMethodCallIgnored
-                        InetAddress.getByName(server.getAddress());
-                    } catch (UnknownHostException e) {
-                        invalidServerAddress = true;
-                    }
-
-                    String endpoint = (!invalidServerAddress ? (server.getTags().contains("https") ? "https" : "http") + "://" : "")
-                            + formatMaybeIpv6(server.getAddress()) + ":" + server.getPort();
-                    populateEndpointAndTagsJson(json, endpoint, server.getTags());
-                    if (listIter.hasNext()) {
-                        json.append(",");
-                    }
-                }
-            }
-            json.append("]");
-            if (keyIter.hasNext()) {
-                json.append(",");
-            }
-        }
-
-        json.append("}\n\n");
-        return json.toString();
-    }
-
-    private void populateEndpointAndTagsJson(StringBuilder json, String endpoint, List<String> tags) {
-        json.append("{");
-        json.append("\"endpoint\": \"").append(endpoint).append("\",");
-        json.append("\"tags\":[");
-        Iterator<String> tagIter = tags.iterator();
-        while (tagIter.hasNext()) {
-            String tag = tagIter.next();
-            json.append("\"").append(tag).append("\"");
-            if (tagIter.hasNext()) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        json.append("}");
-    }
-
-    /** This isn't very precise; org.jboss.as.network.NetworkUtils has better implementation, but that's in a private module. */
-    private String formatMaybeIpv6(String address) {
-        String openBracket = "[";
-        String closeBracket = "]";
-
-        if (address.contains(":") && !address.startsWith(openBracket) && !address.endsWith(closeBracket)) {
-            return openBracket + address + closeBracket;
-        }
-
-        return address;
+        this.broadcaster.subscribe(asyncContext, req.isSecure());
     }
 
     private Topology topology;
 
-    private ScheduledExecutorService keepAliveExecutor;
-
-    private class KeepAliveRunnable implements Runnable {
-        private final PrintWriter writer;
-
-        private final TopologyListener topologyListener;
-
-        public KeepAliveRunnable(PrintWriter writer, TopologyListener topologyListener) {
-            this.writer = writer;
-            this.topologyListener = topologyListener;
-        }
-
-        @Override
-        public void run() {
-            try {
-                writer.write(":\n\n");
-                writer.flush();
-            } catch (Throwable t) {
-                TopologySSEServlet.this.topology.removeListener(topologyListener);
-                throw t;
-            }
-
-        }
-    }
-
-    public static class TopologyAsyncListener implements AsyncListener {
-        private final ScheduledFuture keepAlive;
-
-        private final TopologyListener topologyListener;
-
-        private final Topology topology;
-
-        public TopologyAsyncListener() {
-            // Do Nothing
-            this.topology = null;
-            this.topologyListener = null;
-            this.keepAlive = null;
-        }
-
-        public TopologyAsyncListener(Topology topology, TopologyListener topologyListener, ScheduledFuture scheduledFuture) {
-            this.topology = topology;
-            this.topologyListener = topologyListener;
-            this.keepAlive = scheduledFuture;
-        }
-
-        @Override
-        public void onComplete(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
-            }
-        }
+    private TopologyEventBroadcaster broadcaster;
 
-        @Override
-        public void onTimeout(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
-            }
-        }
-
-        @Override
-        public void onError(AsyncEvent asyncEvent) throws IOException {
-            if (topology != null) {
-                topology.removeListener(topologyListener);
-                keepAlive.cancel(true);
-            }
-        }
-
-        @Override
-        public void onStartAsync(AsyncEvent asyncEvent) throws IOException {
-        }
-    }
-
-    private class SSETopologyListener implements TopologyListener {
-        Object writeLock = new Object();
-
-        final PrintWriter writer;
-
-        final boolean secure;
-
-        private SSETopologyListener(PrintWriter writer, boolean secure) {
-            this.writer = writer;
-            this.secure = secure;
-        }
-
-        @Override
-        public void onChange(Topology topology) {
-            String json = topologyToJson(secure);
-            synchronized (writeLock) {
-                writer.write("event: topologyChange\n");
-                writer.write("data: " + json);
-                writer.flush();
-            }
-        }
-    }
 }
@@ -57,6 +57,7 @@ public class TopologyWebAppDeploymentProducer {
             WARArchive war = ShrinkWrap.create(WARArchive.class, "topology-webapp.war");
             war.addAsWebInfResource(new StringAsset(getWebXml(fraction)), "web.xml");
             war.addClass(TopologySSEServlet.class);
+            war.addClass(TopologyEventBroadcaster.class);
             war.addModule("swarm.application");
             war.addModule("org.wildfly.swarm.topology");
             war.addAsWebResource(new ClassLoaderAsset("topology.js", this.getClass().getClassLoader()), "topology.js");
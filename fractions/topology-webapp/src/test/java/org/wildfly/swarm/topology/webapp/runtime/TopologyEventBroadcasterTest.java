@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+
+import org.junit.Test;
+import org.wildfly.swarm.topology.AdvertisementHandle;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyListener;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologyEventBroadcasterTest {
+
+    private static final int SUBSCRIBERS = 500;
+
+    private static final int CHANGES = 10;
+
+    @Test
+    public void testRenderedOncePerChange() throws IOException {
+        StubTopology topology = new StubTopology();
+        TopologyEventBroadcaster broadcaster = new TopologyEventBroadcaster(topology, (key) -> null);
+        List<StubOutputStream> clients = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            StubOutputStream out = new StubOutputStream();
+            broadcaster.subscribe(asyncContext(out), false);
+            clients.add(out);
+        }
+        for (int i = 0; i < CHANGES; i++) {
+            topology.add("service" + i, "10.0.0." + i);
+            broadcaster.onChange(topology);
+        }
+
+        // The initial version and one per change, whatever the number of clients
+        assertThat(topology.asMapCount.get()).isEqualTo(CHANGES + 1);
+        StubOutputStream first = clients.get(0);
+        assertThat(first.events).hasSize(CHANGES + 1);
+        for (StubOutputStream each : clients) {
+            assertThat(each.events).hasSize(CHANGES + 1);
+            for (int i = 0; i <= CHANGES; i++) {
+                // Not only equal but shared
+                assertThat(each.events.get(i) == first.events.get(i)).isTrue();
+            }
+        }
+        assertThat(new String(first.events.get(CHANGES), StandardCharsets.UTF_8))
+                .startsWith("event: topologyChange\ndata: {")
+                .contains("\"service9\": [{\"endpoint\": \"http://10.0.0.9:8080\",\"tags\":[\"http\"]}]")
+                .endsWith("}\n\n");
+    }
+
+    @Test
+    public void testSecureRenderedSeparately() throws IOException {
+        StubTopology topology = new StubTopology();
+        topology.add("proxied", "10.0.0.1");
+        TopologyEventBroadcaster broadcaster = new TopologyEventBroadcaster(topology, (key) -> "/proxied");
+        StubOutputStream plain = new StubOutputStream();
+        StubOutputStream secure = new StubOutputStream();
+        broadcaster.subscribe(asyncContext(plain), false);
+        broadcaster.subscribe(asyncContext(secure), true);
+
+        assertThat(new String(plain.events.get(0), StandardCharsets.UTF_8)).contains("\"tags\":[\"http\",\"10.0.0.1:8080\"]");
+        assertThat(new String(secure.events.get(0), StandardCharsets.UTF_8)).contains("\"tags\":[\"https\",\"10.0.0.1:8080\"]");
+    }
+
+    @Test
+    public void testSlowSubscriberOnlyGetsLatest() throws IOException {
+        StubTopology topology = new StubTopology();
+        TopologyEventBroadcaster broadcaster = new TopologyEventBroadcaster(topology, (key) -> null);
+        StubOutputStream out = new StubOutputStream();
+        out.ready = false;
+        broadcaster.subscribe(asyncContext(out), false);
+        for (int i = 0; i < CHANGES; i++) {
+            topology.add("service" + i, "10.0.0." + i);
+            broadcaster.onChange(topology);
+        }
+        broadcaster.keepAlive();
+        assertThat(out.events).isEmpty();
+
+        out.ready = true;
+        out.listener.onWritePossible();
+        assertThat(out.events).hasSize(1);
+        assertThat(new String(out.events.get(0), StandardCharsets.UTF_8)).contains("service9");
+        assertThat(out.flushes).isEqualTo(1);
+
+        broadcaster.keepAlive();
+        assertThat(new String(out.events.get(1), StandardCharsets.UTF_8)).isEqualTo(":\n\n");
+    }
+
+    @Test
+    public void testFailedSubscriberRemoved() throws IOException {
+        StubTopology topology = new StubTopology();
+        TopologyEventBroadcaster broadcaster = new TopologyEventBroadcaster(topology, (key) -> null);
+        StubOutputStream out = new StubOutputStream();
+        broadcaster.subscribe(asyncContext(out), false);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+        out.failure = new IOException("Broken pipe");
+        broadcaster.keepAlive();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(0);
+    }
+
+    private static AsyncContext asyncContext(StubOutputStream out) {
+        ServletResponse response = (ServletResponse) Proxy.newProxyInstance(ServletResponse.class.getClassLoader(), new Class<?>[]{ServletResponse.class},
+                                                                            (proxy, method, args) -> method.getName().equals("getOutputStream") ? out : null);
+        return (AsyncContext) Proxy.newProxyInstance(AsyncContext.class.getClassLoader(), new Class<?>[]{AsyncContext.class},
+                                                     (proxy, method, args) -> method.getName().equals("getResponse") ? response : null);
+    }
+
+    private static class StubOutputStream extends ServletOutputStream {
+
+        @Override
+        public boolean isReady() {
+            return this.ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.listener = writeListener;
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            this.events.add(b);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.flushes++;
+        }
+
+        private final List<byte[]> events = new ArrayList<>();
+
+        private WriteListener listener;
+
+        private boolean ready = true;
+
+        private IOException failure;
+
+        private int flushes;
+
+    }
+
+    private static class StubTopology implements Topology {
+
+        void add(String name, String address) {
+            this.map.put(name, Arrays.asList(new StubEntry(address)));
+        }
+
+        @Override
+        public void addListener(TopologyListener listener) {
+        }
+
+        @Override
+        public void removeListener(TopologyListener listener) {
+        }
+
+        @Override
+        public AdvertisementHandle advertise(String name, String... tags) {
+            return null;
+        }
+
+        @Override
+        public Map<String, List<Entry>> asMap() {
+            this.asMapCount.incrementAndGet();
+            return new HashMap<>(this.map);
+        }
+
+        private final Map<String, List<Entry>> map = new HashMap<>();
+
+        private final AtomicInteger asMapCount = new AtomicInteger();
+
+    }
+
+    private static class StubEntry implements Topology.Entry {
+
+        StubEntry(String address) {
+            this.address = address;
+        }
+
+        @Override
+        public String getAddress() {
+            return this.address;
+        }
+
+        @Override
+        public int getPort() {
+            return 8080;
+        }
+
+        @Override
+        public List<String> getTags() {
+            return Arrays.asList("http");
+        }
+
+        private final String address;
+
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.topology;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -38,8 +39,21 @@ public interface Topology {
 
     AdvertisementHandle advertise(String name, String... tags);
 
+    /**
+     * @return a copy of the services and their entries, which the caller may modify
+     */
     Map<String, List<Entry>> asMap();
 
+    /**
+     * Returns the services and their entries as of now, without copying them. The map and its lists are read-only and may
+     * be shared with other callers; they do not reflect later changes.
+     *
+     * @return the current services and their entries
+     */
+    default Map<String, List<Entry>> snapshot() {
+        return Collections.unmodifiableMap(asMap());
+    }
+
     interface Entry {
 
         String getAddress();
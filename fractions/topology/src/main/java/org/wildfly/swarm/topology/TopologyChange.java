@@ -0,0 +1,49 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entries added to and removed from a {@link Topology} between two versions.
+ *
+ * <p>Changes which were not delivered to a {@link TopologyListener} yet are coalesced, so a single change may span several versions. Removals are meant to be
+ * applied before additions, an entry present in both was re-registered.</p>
+ */
+public interface TopologyChange {
+
+    /**
+     * @return the version of the topology this change applies to
+     */
+    long getPreviousVersion();
+
+    /**
+     * @return the version of the topology once this change is applied
+     */
+    long getVersion();
+
+    /**
+     * @return the added entries, by service name
+     */
+    Map<String, List<Topology.Entry>> getAdded();
+
+    /**
+     * @return the removed entries, by service name
+     */
+    Map<String, List<Topology.Entry>> getRemoved();
+
+}
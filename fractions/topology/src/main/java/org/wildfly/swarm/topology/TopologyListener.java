@@ -20,4 +20,17 @@ package org.wildfly.swarm.topology;
  */
 public interface TopologyListener {
     void onChange(Topology topology);
+
+    /**
+     * Notified with the entries which changed since the previous notification of this listener. The topology may have changed further in the meantime,
+     * another notification follows in that case.
+     *
+     * <p>By default, only {@link #onChange(Topology)} is invoked.</p>
+     *
+     * @param topology The topology.
+     * @param change   The change.
+     */
+    default void onChange(Topology topology, TopologyChange change) {
+        onChange(topology);
+    }
 }
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChange;
+
+/**
+ * The registrations which changed between two {@link TopologySnapshot}s.
+ */
+final class TopologyDelta implements TopologyChange {
+
+    TopologyDelta(long previousVersion, long version, Collection<Registration> added, Collection<Registration> removed) {
+        this.previousVersion = previousVersion;
+        this.version = version;
+        this.added = Collections.unmodifiableSet(new LinkedHashSet<>(added));
+        this.removed = Collections.unmodifiableSet(new LinkedHashSet<>(removed));
+    }
+
+    /**
+     * @param next The delta which follows this one.
+     * @return a single delta with the net effect of both
+     */
+    TopologyDelta coalesce(TopologyDelta next) {
+        Set<Registration> added = new LinkedHashSet<>(this.added);
+        Set<Registration> removed = new LinkedHashSet<>(this.removed);
+        for (Registration registration : next.removed) {
+            // Something added and removed since the previous notification is not worth mentioning
+            if (!added.remove(registration)) {
+                removed.add(registration);
+            }
+        }
+        added.addAll(next.added);
+        return new TopologyDelta(this.previousVersion, next.version, added, removed);
+    }
+
+    @Override
+    public long getPreviousVersion() {
+        return this.previousVersion;
+    }
+
+    @Override
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public Map<String, List<Topology.Entry>> getAdded() {
+        return byName(this.added);
+    }
+
+    @Override
+    public Map<String, List<Topology.Entry>> getRemoved() {
+        return byName(this.removed);
+    }
+
+    Set<Registration> getAddedRegistrations() {
+        return this.added;
+    }
+
+    Set<Registration> getRemovedRegistrations() {
+        return this.removed;
+    }
+
+    @Override
+    public String toString() {
+        return "[TopologyDelta: " + this.previousVersion + " -> " + this.version + "; added: " + this.added + "; removed: " + this.removed + "]";
+    }
+
+    private static Map<String, List<Topology.Entry>> byName(Set<Registration> registrations) {
+        Map<String, List<Topology.Entry>> map = new LinkedHashMap<>();
+        for (Registration registration : registrations) {
+            map.computeIfAbsent(registration.getName(), (name) -> new ArrayList<>()).add(registration);
+        }
+        return map;
+    }
+
+    private final long previousVersion;
+
+    private final long version;
+
+    private final Set<Registration> added;
+
+    private final Set<Registration> removed;
+
+}
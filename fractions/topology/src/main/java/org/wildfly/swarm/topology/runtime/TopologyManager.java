@@ -17,13 +17,16 @@ package org.wildfly.swarm.topology.runtime;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.jboss.msc.service.ServiceController;
@@ -35,6 +38,9 @@ import org.wildfly.swarm.topology.TopologyMessages;
 import org.wildfly.swarm.topology.deployment.RegistrationAdvertiser;
 
 /**
+ * Readers are served from an immutable {@link TopologySnapshot} and never block. Changes are serialized, each one publishes a new snapshot and notifies the
+ * listeners with a {@link TopologyDelta}.
+ *
  * @author Bob McWhirter
  */
 public class TopologyManager implements Topology {
@@ -45,12 +51,18 @@ public class TopologyManager implements Topology {
         this.serviceTarget = serviceTarget;
     }
 
-    public synchronized void addListener(TopologyListener listener) {
-        this.listeners.add(listener);
+    public void addListener(TopologyListener listener) {
+        this.listeners.add(new ListenerDispatcher(listener));
     }
 
-    public synchronized void removeListener(TopologyListener listener) {
-        this.listeners.remove(listener);
+    public void removeListener(TopologyListener listener) {
+        this.listeners.removeIf(e -> {
+            if (e.listener.equals(listener)) {
+                e.removed = true;
+                return true;
+            }
+            return false;
+        });
     }
 
     @Override
@@ -62,101 +74,132 @@ public class TopologyManager implements Topology {
         return new AdvertisementHandleImpl(httpAdvert, httpsAdvert);
     }
 
-    public synchronized Set<Registration> registrationsForSourceKey(String sourceKey) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getSourceKey().equals(sourceKey))
-                        .collect(Collectors.toSet())
-        );
-        return result;
+    public Set<Registration> registrationsForSourceKey(String sourceKey) {
+        return this.snapshot.get().registrationsForSourceKey(sourceKey);
     }
 
-    public synchronized Set<Registration> registrationsForService(String name) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getName().equals(name))
-                        .collect(Collectors.toSet())
-        );
-
-        return result;
+    public Set<Registration> registrationsForService(String name) {
+        return this.snapshot.get().registrationsForService(name);
     }
 
-    public synchronized Set<Registration> registrationsForService(String name, String tag) {
-        Set<Registration> result = Collections.unmodifiableSet(
-                this.registrations.stream()
-                        .filter(e -> e.getName().equals(name) && e.hasTag(tag))
-                        .collect(Collectors.toSet())
-        );
+    public Set<Registration> registrationsForService(String name, String tag) {
+        return this.snapshot.get().registrationsForService(name, tag);
+    }
 
-        return result;
+    /**
+     * @return the version of the topology, incremented on each change
+     */
+    public long getVersion() {
+        return this.snapshot.get().getVersion();
     }
 
     public synchronized void register(Registration registration) {
-        if (!this.registrations.contains(registration)) {
-            this.registrations.add(registration);
-            fireListeners();
+        TopologySnapshot current = this.snapshot.get();
+        if (!current.contains(registration)) {
+            publish(current, current.with(registration), Collections.singleton(registration), Collections.emptySet());
         }
     }
 
     public synchronized void unregister(Registration registration) {
-        boolean removed = this.registrations.removeIf(e -> e.equals(registration));
-        if (removed) {
-            fireListeners();
-        }
+        unregister(this.snapshot.get().registrationsForService(registration.getName()).stream()
+                           .filter(e -> e.equals(registration))
+                           .collect(Collectors.toList()));
     }
 
     public synchronized void unregisterAll(String sourceKey) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey));
-        if (removed) {
-            fireListeners();
-        }
+        unregister(this.snapshot.get().registrationsForSourceKey(sourceKey));
     }
 
     public synchronized void unregisterAll(String sourceKey, String name) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey) && e.getName().equals(name));
-        if (removed) {
-            fireListeners();
-        }
+        unregister(this.snapshot.get().registrationsForSourceKey(sourceKey).stream()
+                           .filter(e -> e.getName().equals(name))
+                           .collect(Collectors.toList()));
     }
 
     @Override
-    public synchronized Map<String, List<Entry>> asMap() {
+    public Map<String, List<Entry>> asMap() {
         Map<String, List<Entry>> map = new HashMap<>();
+        this.snapshot.get().asMap().forEach((name, entries) -> map.put(name, new ArrayList<>(entries)));
+        return map;
+    }
 
-        for (Registration registration : this.registrations) {
-            List<Entry> list = map.get(registration.getName());
-            if (list == null) {
-                list = new ArrayList<>();
-                map.put(registration.getName(), list);
-            }
-            list.add(registration);
+    @Override
+    public Map<String, List<Entry>> snapshot() {
+        return this.snapshot.get().asMap();
+    }
+
+    private void unregister(Collection<Registration> removed) {
+        if (!removed.isEmpty()) {
+            TopologySnapshot current = this.snapshot.get();
+            publish(current, current.without(removed), Collections.emptySet(), removed);
         }
+    }
 
-        return map;
+    private void publish(TopologySnapshot current, TopologySnapshot next, Collection<Registration> added, Collection<Registration> removed) {
+        this.snapshot.set(next);
+        TopologyDelta delta = new TopologyDelta(current.getVersion(), next.getVersion(), added, removed);
+        for (ListenerDispatcher each : this.listeners) {
+            each.publish(delta);
+        }
     }
 
-    private void fireListeners() {
-        List<TopologyListener> currentListeners = new ArrayList<>();
-        currentListeners.addAll(this.listeners);
-        currentListeners.forEach((e) -> {
-            executor.execute(() -> {
+    private final List<ListenerDispatcher> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicReference<TopologySnapshot> snapshot = new AtomicReference<>(TopologySnapshot.EMPTY);
+
+    private Executor executor = Executors.newFixedThreadPool(2);
+
+    private ServiceTarget serviceTarget;
+
+    /**
+     * Notifies a single listener, one change at a time and in order. Changes published while the listener is busy are coalesced into one.
+     */
+    private class ListenerDispatcher implements Runnable {
+
+        ListenerDispatcher(TopologyListener listener) {
+            this.listener = listener;
+        }
+
+        void publish(TopologyDelta delta) {
+            synchronized (this) {
+                this.pending = this.pending == null ? delta : this.pending.coalesce(delta);
+                if (this.scheduled) {
+                    return;
+                }
+                this.scheduled = true;
+            }
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            while (!this.removed) {
+                TopologyDelta delta;
+                synchronized (this) {
+                    delta = this.pending;
+                    this.pending = null;
+                    if (delta == null) {
+                        this.scheduled = false;
+                        return;
+                    }
+                }
                 try {
-                    e.onChange(this);
+                    this.listener.onChange(TopologyManager.this, delta);
                 } catch (Throwable t) {
-                    TopologyMessages.MESSAGES.errorFiringEvent(e.getClass().getName(), t);
-                    removeListener(e);
+                    TopologyMessages.MESSAGES.errorFiringEvent(this.listener.getClass().getName(), t);
+                    removeListener(this.listener);
                 }
-            });
-        });
-    }
+            }
+        }
 
-    private List<TopologyListener> listeners = new ArrayList<>();
+        private final TopologyListener listener;
 
-    private List<Registration> registrations = new ArrayList<>();
+        private volatile boolean removed;
 
-    private Executor executor = Executors.newFixedThreadPool(2);
+        private TopologyDelta pending;
 
-    private ServiceTarget serviceTarget;
+        private boolean scheduled;
 
+    }
 
 }
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.swarm.topology.Topology;
+
+/**
+ * An immutable version of the topology, with the registrations indexed by service name and tag.
+ *
+ * <p>A change copies the indexes of the services it touches only, the other ones are shared with the previous snapshot.
+ * Tags are indexed when a registration is added. Lookups by source key are rare and not indexed.</p>
+ */
+final class TopologySnapshot {
+
+    static final TopologySnapshot EMPTY = new TopologySnapshot(0, Collections.emptyMap());
+
+    private TopologySnapshot(long version, Map<String, Service> services) {
+        this.version = version;
+        this.services = services;
+    }
+
+    long getVersion() {
+        return this.version;
+    }
+
+    Set<Registration> registrationsForSourceKey(String sourceKey) {
+        Set<Registration> result = new LinkedHashSet<>();
+        for (Service service : this.services.values()) {
+            for (Registration registration : service.registrations) {
+                if (registration.getSourceKey().equals(sourceKey)) {
+                    result.add(registration);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    Set<Registration> registrationsForService(String name) {
+        Service service = this.services.get(name);
+        return service != null ? service.registrations : Collections.emptySet();
+    }
+
+    Set<Registration> registrationsForService(String name, String tag) {
+        Service service = this.services.get(name);
+        return service != null ? service.tags.getOrDefault(tag, Collections.emptySet()) : Collections.emptySet();
+    }
+
+    boolean contains(Registration registration) {
+        return registrationsForService(registration.getName()).contains(registration);
+    }
+
+    Map<String, List<Topology.Entry>> asMap() {
+        Map<String, List<Topology.Entry>> map = this.map;
+        if (map == null) {
+            map = new HashMap<>();
+            for (Service service : this.services.values()) {
+                map.put(service.name, service.entries);
+            }
+            map = Collections.unmodifiableMap(map);
+            this.map = map;
+        }
+        return map;
+    }
+
+    TopologySnapshot with(Registration registration) {
+        Map<String, Service> services = new HashMap<>(this.services);
+        Set<Registration> registrations = new LinkedHashSet<>(registrationsForService(registration.getName()));
+        registrations.add(registration);
+        services.put(registration.getName(), new Service(registration.getName(), registrations));
+        return new TopologySnapshot(this.version + 1, Collections.unmodifiableMap(services));
+    }
+
+    TopologySnapshot without(Collection<Registration> removed) {
+        Map<String, Service> services = new HashMap<>(this.services);
+        for (Registration registration : removed) {
+            Service service = services.get(registration.getName());
+            if (service != null) {
+                Set<Registration> registrations = new LinkedHashSet<>(service.registrations);
+                registrations.remove(registration);
+                if (registrations.isEmpty()) {
+                    services.remove(registration.getName());
+                } else {
+                    services.put(registration.getName(), new Service(registration.getName(), registrations));
+                }
+            }
+        }
+        return new TopologySnapshot(this.version + 1, Collections.unmodifiableMap(services));
+    }
+
+    private final long version;
+
+    private final Map<String, Service> services;
+
+    // Computed on first use, racing threads compute the same value
+    private volatile Map<String, List<Topology.Entry>> map;
+
+    private static final class Service {
+
+        private Service(String name, Set<Registration> registrations) {
+            this.name = name;
+            this.registrations = Collections.unmodifiableSet(registrations);
+            this.entries = Collections.unmodifiableList(new ArrayList<>(registrations));
+            Map<String, Set<Registration>> tags = new HashMap<>();
+            for (Registration registration : registrations) {
+                for (String tag : registration.getTags()) {
+                    tags.computeIfAbsent(tag, (key) -> new LinkedHashSet<>()).add(registration);
+                }
+            }
+            tags.replaceAll((tag, tagged) -> Collections.unmodifiableSet(tagged));
+            this.tags = tags;
+        }
+
+        private final String name;
+
+        private final Set<Registration> registrations;
+
+        private final List<Topology.Entry> entries;
+
+        private final Map<String, Set<Registration>> tags;
+
+    }
+}
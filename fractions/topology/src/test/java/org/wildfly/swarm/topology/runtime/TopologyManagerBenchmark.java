@@ -0,0 +1,90 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.topology.Topology;
+
+/**
+ * Lookups by 50 concurrent readers while a writer keeps replacing registrations, in a topology of 1000 registrations spread over 100 services. A listener
+ * is notified of every change.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopologyManagerBenchmark {
+
+    private static final int SERVICES = 100;
+
+    private static final int REGISTRATIONS = 1000;
+
+    private TopologyManager manager;
+
+    private Registration[] registrations;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.manager = new TopologyManager();
+        this.manager.addListener((topology) -> topology.snapshot());
+        this.registrations = new Registration[REGISTRATIONS];
+        for (int i = 0; i < REGISTRATIONS; i++) {
+            this.registrations[i] = new Registration("node" + i, "service" + (i % SERVICES), "10.0." + (i / 256) + "." + (i % 256), 8080,
+                                                     i % 2 == 0 ? "http" : "https");
+            this.manager.register(this.registrations[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(50)
+    public Set<Registration> lookup() {
+        return this.manager.registrationsForService("service" + ThreadLocalRandom.current().nextInt(SERVICES), "http");
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public Map<String, List<Topology.Entry>> churn() {
+        Registration registration = this.registrations[this.next];
+        this.next = (this.next + 1) % REGISTRATIONS;
+        this.manager.unregister(registration);
+        this.manager.register(registration);
+        return this.manager.snapshot();
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChange;
+import org.wildfly.swarm.topology.TopologyListener;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class TopologyManagerTest {
+
+    @Test
+    public void testIndexes() {
+        TopologyManager manager = new TopologyManager();
+        Registration web1 = new Registration("node1", "web", "10.0.0.1", 8080, "http");
+        Registration web2 = new Registration("node2", "web", "10.0.0.2", 8443, "https");
+        Registration db = new Registration("node1", "db", "10.0.0.1", 5432);
+
+        manager.register(web1);
+        manager.register(web2);
+        manager.register(db);
+        // Already registered
+        manager.register(new Registration("node1", "web", "10.0.0.1", 8080, "http"));
+
+        assertThat(manager.getVersion()).isEqualTo(3);
+        assertThat(manager.registrationsForService("web")).containsOnly(web1, web2);
+        assertThat(manager.registrationsForService("web", "https")).containsOnly(web2);
+        assertThat(manager.registrationsForService("web", "none")).isEmpty();
+        assertThat(manager.registrationsForService("none")).isEmpty();
+        assertThat(manager.registrationsForSourceKey("node1")).containsOnly(web1, db);
+
+        Map<String, List<Topology.Entry>> map = manager.asMap();
+        assertThat(map.keySet()).containsOnly("web", "db");
+        assertThat(map.get("web")).containsOnly(web1, web2);
+        // Callers get their own copy
+        map.get("web").clear();
+        assertThat(manager.asMap().get("web")).containsOnly(web1, web2);
+
+        // Internal readers share the snapshot instead
+        Map<String, List<Topology.Entry>> snapshot = manager.snapshot();
+        assertThat(manager.snapshot()).isSameAs(snapshot);
+        assertThat(snapshot.get("web")).containsOnly(web1, web2);
+        try {
+            snapshot.get("web").clear();
+            fail("The snapshot is read-only");
+        } catch (UnsupportedOperationException expected) {
+            // shared with the other readers
+        }
+
+        manager.unregisterAll("node1", "web");
+        assertThat(manager.registrationsForService("web")).containsOnly(web2);
+        assertThat(manager.registrationsForSourceKey("node1")).containsOnly(db);
+
+        manager.unregisterAll("node1");
+        assertThat(manager.snapshot()).isNotSameAs(snapshot);
+        assertThat(snapshot.get("web")).containsOnly(web1, web2);
+        assertThat(manager.asMap().keySet()).containsOnly("web");
+        // The previous map is a copy
+        assertThat(map.keySet()).containsOnly("web", "db");
+
+        manager.unregister(web2);
+        assertThat(manager.asMap()).isEmpty();
+        assertThat(manager.getVersion()).isEqualTo(6);
+        // Not registered
+        manager.unregister(web2);
+        assertThat(manager.getVersion()).isEqualTo(6);
+    }
+
+    @Test
+    public void testCoalescedChanges() throws InterruptedException {
+        TopologyManager manager = new TopologyManager();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<TopologyChange> changes = new LinkedBlockingQueue<>();
+        manager.addListener(new TopologyListener() {
+            @Override
+            public void onChange(Topology topology) {
+            }
+
+            @Override
+            public void onChange(Topology topology, TopologyChange change) {
+                changes.add(change);
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Registration web1 = new Registration("node1", "web", "10.0.0.1", 8080);
+        Registration web2 = new Registration("node2", "web", "10.0.0.2", 8080);
+        Registration db = new Registration("node1", "db", "10.0.0.1", 5432);
+
+        manager.register(web1);
+        assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+        // The listener is busy, these are delivered at once
+        manager.register(web2);
+        manager.register(db);
+        manager.unregister(web1);
+        manager.unregister(db);
+        release.countDown();
+
+        TopologyChange first = changes.poll(10, TimeUnit.SECONDS);
+        assertThat(first.getPreviousVersion()).isEqualTo(0);
+        assertThat(first.getVersion()).isEqualTo(1);
+        assertThat(first.getAdded().get("web")).containsOnly(web1);
+        assertThat(first.getRemoved()).isEmpty();
+
+        TopologyChange second = changes.poll(10, TimeUnit.SECONDS);
+        assertThat(second.getPreviousVersion()).isEqualTo(1);
+        assertThat(second.getVersion()).isEqualTo(5);
+        assertThat(second.getAdded().keySet()).containsOnly("web");
+        assertThat(second.getAdded().get("web")).containsOnly(web2);
+        assertThat(second.getRemoved().keySet()).containsOnly("web");
+        assertThat(second.getRemoved().get("web")).containsOnly(web1);
+
+        assertThat(changes.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+}
@@ -21,6 +21,9 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -31,8 +34,10 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -40,6 +45,8 @@ import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
@@ -49,6 +56,7 @@ import org.jboss.shrinkwrap.api.importer.ZipImporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.impl.base.io.IOUtil;
 import org.wildfly.swarm.bootstrap.Main;
+import org.wildfly.swarm.bootstrap.env.BootIndex;
 import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
 import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.MavenArtifactDescriptor;
@@ -242,9 +250,11 @@ public class BuildTool {
         addJarManifest();
         addWildFlySwarmApplicationManifest();
         addAdditionalModules();
+        generateOpenApiModel();
         addProjectAsset(this.dependencyManager);
         populateUberJarMavenRepository(this.dependencyManager);
         addUberjarResources();
+        addBootIndex();
 
         return this.archive;
     }
@@ -314,6 +324,58 @@ public class BuildTool {
         this.archive.add(new WebInfLibFilteringArchiveAsset(this.projectAsset, this.dependencyManager));
     }
 
+    /**
+     * When the application uses the MicroProfile OpenAPI fraction, runs its annotation scanner now rather than each
+     * time the application boots. The fraction embeds the model, and an index of the application classes, in the
+     * project archive.
+     */
+    private void generateOpenApiModel() throws IOException {
+        if (this.hollow) {
+            return;
+        }
+        if (this.dependencyManager.findArtifact(FractionDescriptor.THORNTAIL_GROUP_ID, OPENAPI_ARTIFACT_ID, null, null, null) == null) {
+            return;
+        }
+
+        List<URL> classpath = new ArrayList<>();
+        for (ArtifactSpec dependency : this.dependencyManager.getDependencies()) {
+            if (dependency.file != null) {
+                classpath.add(dependency.file.toURI().toURL());
+            }
+        }
+
+        // The model is generated from what gets deployed, without the libraries provided by fractions
+        Archive<?> archive = new WebInfLibFilteringArchive(this.projectAsset.getArchive(), this.dependencyManager);
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(classpath.toArray(new URL[classpath.size()]), BuildTool.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(loader);
+            Object generated = loader.loadClass(OPENAPI_MODEL_GENERATOR)
+                    .getMethod("generate", Archive.class)
+                    .invoke(null, archive);
+            if (!Boolean.TRUE.equals(generated)) {
+                return;
+            }
+        } catch (InvocationTargetException e) {
+            this.log.error("Failed to generate the OpenAPI model, it will be generated at boot", e.getCause());
+            return;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            this.log.error("Failed to load the OpenAPI model generator, the model will be generated at boot", e);
+            return;
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+
+        final String simpleName = this.projectAsset.getSimpleName();
+        this.projectAsset = new ArchiveAsset(archive) {
+            @Override
+            public String getSimpleName() {
+                return simpleName;
+            }
+        };
+        this.log.info("Embedded the OpenAPI model in " + simpleName);
+    }
+
     private void detectFractions() throws Exception {
         final File tmpFile = File.createTempFile("buildtool", this.projectAsset.getName().replace("/", "_"));
         tmpFile.deleteOnExit();
@@ -487,6 +549,73 @@ public class BuildTool {
         }
     }
 
+    /**
+     * Index every boot module shipped in a bootstrap artifact or in the uberjar itself, so that
+     * the runtime need not scan jars for them.
+     */
+    private void addBootIndex() throws IOException {
+        BootIndex index = new BootIndex();
+
+        Set<String> bootstrapArtifacts = this.dependencyManager.getWildFlySwarmManifest().bootstrapArtifacts();
+        for (ArtifactSpec dependency : this.dependencyManager.getDependencies()) {
+            if (dependency.file != null && bootstrapArtifacts.contains(dependency.mavenGav())) {
+                indexModules(index, dependency.mavenGav(), dependency.file);
+            }
+        }
+
+        boolean explosionRequired = false;
+        Map<String, Node> moduleXmls = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : this.archive.getContent().entrySet()) {
+            String name = each.getKey().get().substring(1);
+            if (name.startsWith("modules/") && each.getValue().getAsset() != null) {
+                if (name.endsWith("/module.xml")) {
+                    moduleXmls.put(name, each.getValue());
+                } else {
+                    explosionRequired = true;
+                }
+            }
+        }
+        for (Map.Entry<String, Node> each : moduleXmls.entrySet()) {
+            try (InputStream in = each.getValue().getAsset().openStream()) {
+                index.addModule(indexModule(new ModuleAnalyzer(in), null, each.getKey(), explosionRequired));
+            }
+        }
+
+        this.archive.add(new ByteArrayAsset(index.toByteArray()), BootIndex.CLASSPATH_LOCATION);
+    }
+
+    private static void indexModules(BootIndex index, String source, File file) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            boolean explosionRequired = false;
+            List<String> moduleXmls = new ArrayList<>();
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry each = entries.nextElement();
+                if (!each.isDirectory() && each.getName().startsWith("modules")) {
+                    if (each.getName().endsWith("/module.xml")) {
+                        moduleXmls.add(each.getName());
+                    } else {
+                        explosionRequired = true;
+                    }
+                }
+            }
+
+            for (String each : moduleXmls) {
+                try (InputStream in = jar.getInputStream(jar.getEntry(each))) {
+                    index.addModule(indexModule(new ModuleAnalyzer(in), source, each, explosionRequired));
+                }
+            }
+        }
+    }
+
+    private static BootIndex.Module indexModule(ModuleAnalyzer analyzer, String source, String path, boolean explosionRequired) {
+        BootIndex.Module module = new BootIndex.Module(analyzer.getName() + ":" + analyzer.getSlot(), source, path, explosionRequired);
+        analyzer.getResourceRoots().forEach(module::addResourceRoot);
+        analyzer.getArtifacts().forEach(module::addArtifact);
+        analyzer.getModuleDependencies().forEach(module::addDependency);
+        return module;
+    }
+
     private static synchronized void find(File moduleDir, DependencyManager dependencyManager) throws IOException {
         Files.find(moduleDir.toPath(), 20,
                 (p, __) -> p.getFileName().toString().equals("module.xml"))
@@ -612,6 +741,10 @@ public class BuildTool {
 
     private final DefaultArtifactResolver resolver;
 
+    private static final String OPENAPI_ARTIFACT_ID = "microprofile-openapi";
+
+    private static final String OPENAPI_MODEL_GENERATOR = "org.wildfly.swarm.microprofile.openapi.runtime.OpenApiModelGenerator";
+
     private static final SimpleLogger STD_LOGGER = new SimpleLogger() {
         @Override
         public void info(String msg) {
@@ -26,7 +26,10 @@ import java.util.Collections;
 import java.util.List;
 
 import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.ArtifactType;
+import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.DependenciesType;
+import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.ModuleDependencyType;
 import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.ModuleDescriptor;
+import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.ResourceType;
 import org.jboss.shrinkwrap.descriptor.api.jbossmodule13.ResourcesType;
 import org.jboss.shrinkwrap.descriptor.impl.jbossmodule13.ModuleDescriptorImpl;
 import org.jboss.shrinkwrap.descriptor.spi.node.Node;
@@ -56,22 +59,32 @@ public class ModuleAnalyzer {
 
         if (rootName.equals("module")) {
             this.module = new ModuleDescriptorImpl(null, node);
+        } else {
+            // module-alias, module-absent
+            this.name = node.getAttribute("name");
+            this.slot = node.getAttribute("slot");
+            String targetName = node.getAttribute("target-name");
+            if (targetName != null) {
+                String targetSlot = node.getAttribute("target-slot");
+                this.aliasTarget = targetSlot == null ? targetName : targetName + ":" + targetSlot;
+            }
         }
         in.close();
     }
 
     public String getName() {
         if (this.module == null) {
-            return "UNKNOWN";
+            return this.name == null ? "UNKNOWN" : this.name;
         }
         return this.module.getName();
     }
 
     public String getSlot() {
-        if (this.module.getSlot() == null) {
+        String slot = this.module == null ? this.slot : this.module.getSlot();
+        if (slot == null) {
             return "main";
         }
-        return this.module.getSlot();
+        return slot;
     }
 
     public List<ArtifactSpec> getDependencies() {
@@ -101,5 +114,47 @@ public class ModuleAnalyzer {
         return dependencies;
     }
 
+    public List<String> getResourceRoots() {
+        if (this.module == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> roots = new ArrayList<>();
+        for (ResourceType<ResourcesType<ModuleDescriptor>> root : this.module.getOrCreateResources().getAllResourceRoot()) {
+            roots.add(root.getPath());
+        }
+        return roots;
+    }
+
+    public List<String> getArtifacts() {
+        if (this.module == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> artifacts = new ArrayList<>();
+        for (ArtifactType<ResourcesType<ModuleDescriptor>> artifact : this.module.getOrCreateResources().getAllArtifact()) {
+            artifacts.add(artifact.getName());
+        }
+        return artifacts;
+    }
+
+    public List<String> getModuleDependencies() {
+        if (this.module == null) {
+            return this.aliasTarget == null ? Collections.emptyList() : Collections.singletonList(this.aliasTarget);
+        }
+
+        List<String> modules = new ArrayList<>();
+        for (ModuleDependencyType<DependenciesType<ModuleDescriptor>> each : this.module.getOrCreateDependencies().getAllModule()) {
+            modules.add(each.getSlot() == null ? each.getName() : each.getName() + ":" + each.getSlot());
+        }
+        return modules;
+    }
+
     private ModuleDescriptorImpl module;
+
+    private String name;
+
+    private String slot;
+
+    private String aliasTarget;
 }
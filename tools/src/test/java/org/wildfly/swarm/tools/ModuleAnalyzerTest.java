@@ -47,4 +47,24 @@ public class ModuleAnalyzerTest {
         ModuleAnalyzer analyzer = new ModuleAnalyzer(moduleXml);
         assertThat(analyzer.getDependencies()).hasSize(0);
     }
+
+    @Test
+    public void testModuleGraph() throws IOException {
+        InputStream moduleXml = getClass().getClassLoader().getResourceAsStream("module.xml");
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(moduleXml);
+        assertThat(analyzer.getName()).isEqualTo("org.jboss.as.webservices");
+        assertThat(analyzer.getSlot()).isEqualTo("main");
+        assertThat(analyzer.getArtifacts()).hasSize(2);
+        assertThat(analyzer.getResourceRoots()).isEmpty();
+        assertThat(analyzer.getModuleDependencies()).contains("javax.annotation.api");
+    }
+
+    @Test
+    public void testAliasGraph() throws IOException {
+        InputStream moduleXml = getClass().getClassLoader().getResourceAsStream("alias-module.xml");
+        ModuleAnalyzer analyzer = new ModuleAnalyzer(moduleXml);
+        assertThat(analyzer.getName()).isEqualTo("org.apache.commons.logging");
+        assertThat(analyzer.getSlot()).isEqualTo("main");
+        assertThat(analyzer.getModuleDependencies()).containsOnly("org.slf4j.jcl-over-slf4j");
+    }
 }